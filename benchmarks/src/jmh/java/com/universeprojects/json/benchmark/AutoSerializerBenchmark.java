@@ -0,0 +1,224 @@
+package com.universeprojects.json.benchmark;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.benchmark.SerializationBenchmark.CharacterMode;
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.serialization.AutoSerialize;
+import com.universeprojects.json.shared.serialization.SerializationException;
+import com.universeprojects.json.shared.serialization.SerializedDataList;
+import com.universeprojects.json.shared.serialization.Serializer;
+import com.universeprojects.json.shared.serialization.SerializerFactory;
+
+/**
+ * Serializes an entity with the AutoSerializer generated for it, compared to a hand-written Serializer that puts
+ * each field into a JSONObject through SerializerFactory, and to a serializer that goes over the fields by
+ * reflection. The generated class is produced by the annotation processor when the benchmarks are compiled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoSerializerBenchmark {
+
+	@AutoSerialize
+	public static class CharacterSheet {
+		String name;
+		long id;
+		int level;
+		double hitpoints;
+		double maxHitpoints;
+		boolean online;
+		CharacterMode mode;
+		String location;
+		List<String> buffs;
+	}
+
+	public static class HandWrittenSerializer implements Serializer {
+		@Override
+		public Object serialize(Object element) {
+			CharacterSheet sheet = (CharacterSheet) element;
+			JSONObject json = new JSONObject();
+			json.put("name", SerializerFactory.serialize(sheet.name));
+			json.put("id", SerializerFactory.serialize(sheet.id));
+			json.put("level", SerializerFactory.serialize(sheet.level));
+			json.put("hitpoints", SerializerFactory.serialize(sheet.hitpoints));
+			json.put("maxHitpoints", SerializerFactory.serialize(sheet.maxHitpoints));
+			json.put("online", SerializerFactory.serialize(sheet.online));
+			json.put("mode", SerializerFactory.serialize(sheet.mode));
+			json.put("location", SerializerFactory.serialize(sheet.location));
+			json.put("buffs", SerializedDataList.serializeArray(sheet.buffs.toArray()));
+			return json;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T deserialize(Object element, Class<T> type) {
+			Map<?, ?> json = (Map<?, ?>) element;
+			CharacterSheet sheet = new CharacterSheet();
+			sheet.name = SerializerFactory.deserialize(json.get("name"), String.class);
+			sheet.id = SerializerFactory.deserialize(json.get("id"), Long.class);
+			sheet.level = SerializerFactory.deserialize(json.get("level"), Integer.class);
+			sheet.hitpoints = SerializerFactory.deserialize(json.get("hitpoints"), Double.class);
+			sheet.maxHitpoints = SerializerFactory.deserialize(json.get("maxHitpoints"), Double.class);
+			sheet.online = SerializerFactory.deserialize(json.get("online"), Boolean.class);
+			sheet.mode = SerializerFactory.deserialize(json.get("mode"), CharacterMode.class);
+			sheet.location = SerializerFactory.deserialize(json.get("location"), String.class);
+			List<?> buffs = (List<?>) json.get("buffs");
+			sheet.buffs = new ArrayList<>(buffs.size());
+			for (Object buff : buffs)
+				sheet.buffs.add(SerializerFactory.deserialize(buff, String.class));
+			return (T) sheet;
+		}
+	}
+
+	public static class ReflectionSerializer implements Serializer {
+		private final List<Field> fields = new ArrayList<>();
+
+		public ReflectionSerializer(Class<?> type) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || List.class.isAssignableFrom(field.getType()))
+					continue;
+				field.setAccessible(true);
+				fields.add(field);
+			}
+		}
+
+		@Override
+		public Object serialize(Object element) {
+			JSONObject json = new JSONObject();
+			try {
+				for (Field field : fields)
+					json.put(field.getName(), SerializerFactory.serialize(field.get(element)));
+			} catch (IllegalAccessException e) {
+				throw new SerializationException(element, e);
+			}
+			json.put("buffs", SerializedDataList.serializeArray(((CharacterSheet) element).buffs.toArray()));
+			return json;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T deserialize(Object element, Class<T> type) {
+			Map<?, ?> json = (Map<?, ?>) element;
+			CharacterSheet sheet = new CharacterSheet();
+			try {
+				for (Field field : fields) {
+					Class<?> fieldType = field.getType().isPrimitive() ? box(field.getType()) : field.getType();
+					field.set(sheet, SerializerFactory.deserialize(json.get(field.getName()), fieldType));
+				}
+			} catch (IllegalAccessException e) {
+				throw new SerializationException(element, type, e);
+			}
+			List<?> buffs = (List<?>) json.get("buffs");
+			sheet.buffs = new ArrayList<>(buffs.size());
+			for (Object buff : buffs)
+				sheet.buffs.add(SerializerFactory.deserialize(buff, String.class));
+			return (T) sheet;
+		}
+
+		private static Class<?> box(Class<?> type) {
+			if (type == int.class)
+				return Integer.class;
+			if (type == long.class)
+				return Long.class;
+			if (type == double.class)
+				return Double.class;
+			return Boolean.class;
+		}
+	}
+
+	private final AutoSerializerBenchmark_CharacterSheet_AutoSerializer generated = AutoSerializerBenchmark_CharacterSheet_AutoSerializer.INSTANCE;
+	private final HandWrittenSerializer handWritten = new HandWrittenSerializer();
+	private final ReflectionSerializer reflection = new ReflectionSerializer(CharacterSheet.class);
+
+	private CharacterSheet sheet;
+	private Object serialized;
+
+	@Setup
+	public void setup() {
+		JSONParserFactory.initServerParser();
+
+		Random random = new Random(42);
+		sheet = new CharacterSheet();
+		sheet.name = "Character " + random.nextInt(1000);
+		sheet.id = random.nextLong();
+		sheet.level = random.nextInt(60);
+		sheet.maxHitpoints = 100 + random.nextDouble() * 400;
+		sheet.hitpoints = sheet.maxHitpoints * random.nextDouble();
+		sheet.online = random.nextBoolean();
+		sheet.mode = CharacterMode.COMBAT;
+		sheet.location = "Aera Forest";
+		sheet.buffs = new ArrayList<>();
+		for (int i = 0; i < 4; i++)
+			sheet.buffs.add("Buff " + i);
+		serialized = generated.serialize(sheet);
+	}
+
+	@Benchmark
+	public Object serializeGenerated() {
+		return generated.serialize(sheet);
+	}
+
+	@Benchmark
+	public Object serializeHandWritten() {
+		return handWritten.serialize(sheet);
+	}
+
+	@Benchmark
+	public Object serializeReflection() {
+		return reflection.serialize(sheet);
+	}
+
+	@Benchmark
+	public String writeGenerated() throws IOException {
+		StringWriter out = new StringWriter(256);
+		generated.writeJSONString(sheet, out);
+		return out.toString();
+	}
+
+	@Benchmark
+	public String writeHandWritten() throws IOException {
+		StringWriter out = new StringWriter(256);
+		JSONValue.writeJSONString(handWritten.serialize(sheet), out, null);
+		return out.toString();
+	}
+
+	@Benchmark
+	public Object deserializeGenerated() {
+		return generated.deserialize(serialized, CharacterSheet.class);
+	}
+
+	@Benchmark
+	public Object deserializeHandWritten() {
+		return handWritten.deserialize(serialized, CharacterSheet.class);
+	}
+
+	@Benchmark
+	public Object deserializeReflection() {
+		return reflection.deserialize(serialized, CharacterSheet.class);
+	}
+}
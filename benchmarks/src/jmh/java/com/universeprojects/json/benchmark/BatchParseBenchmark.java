@@ -0,0 +1,96 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.BatchParser;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * Loading a region: a batch of character documents parsed one after the other, and through BatchParser on pools
+ * of 1 to 16 threads. Compare parseAll across the thread counts for the scaling; parseLoop is the same for all
+ * of them. Thread counts above the number of cores of the machine only show the overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchParseBenchmark {
+
+	private static final int DOCUMENTS = 2000;
+
+	@Param({"1", "2", "4", "8", "16"})
+	public int threads;
+
+	private List<String> documents;
+	private ForkJoinPool pool;
+	private BatchParser parser;
+
+	@Setup
+	public void setup() {
+		JSONParserFactory.initServerParser();
+
+		String character = Fixtures.document(Fixtures.SMALL);
+		documents = new ArrayList<>(DOCUMENTS);
+		for (int i = 0; i < DOCUMENTS; i++)
+			documents.add(character);
+		pool = new ForkJoinPool(threads);
+		parser = new BatchParser(pool);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Object[] parseLoop() {
+		Object[] values = new Object[documents.size()];
+		for (int i = 0; i < values.length; i++)
+			values[i] = JSONValue.parse(documents.get(i));
+		return values;
+	}
+
+	@Benchmark
+	public List<Object> parseAll() {
+		return parser.parseAll(documents);
+	}
+
+	@Benchmark
+	public int parseAllStreaming() {
+		final int[] count = new int[1];
+		Iterator<String> it = documents.iterator();
+		parser.parseAll(it, new BatchParser.ResultHandler() {
+			@Override
+			public void value(int index, Object value) {
+				count[0]++;
+			}
+
+			@Override
+			public void error(int index, ParseException error) {
+				throw new IllegalStateException(error);
+			}
+		});
+		return count[0];
+	}
+}
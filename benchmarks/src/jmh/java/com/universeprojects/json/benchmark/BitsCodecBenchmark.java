@@ -0,0 +1,93 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.serialization.BasicSerializer;
+
+/**
+ * The bit-exact "D..." form of doubles, through the boxing String API, the primitive codec and the
+ * string-building code it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitsCodecBenchmark {
+
+	private static final int COUNT = 1024;
+
+	private final double[] values = new double[COUNT];
+	private final String[] encoded = new String[COUNT];
+	private final StringBuilder sb = new StringBuilder();
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		for (int i = 0; i < COUNT; i++) {
+			values[i] = random.nextDouble() * 1000;
+			encoded[i] = BasicSerializer.serializeDoubleLongBits(values[i]);
+		}
+	}
+
+	@Benchmark
+	public int encodeLegacy() {
+		int length = 0;
+		for (double value : values)
+			length += ("D" + Long.toString(Double.doubleToLongBits(value), BasicSerializer.LONG_RADIX)).length();
+		return length;
+	}
+
+	@Benchmark
+	public int encodeString() {
+		int length = 0;
+		for (double value : values)
+			length += BasicSerializer.serializeDoubleLongBits(value).length();
+		return length;
+	}
+
+	@Benchmark
+	public int encodeAppend() {
+		sb.setLength(0);
+		for (double value : values)
+			BasicSerializer.appendDouble(value, sb);
+		return sb.length();
+	}
+
+	@Benchmark
+	public double decodeLegacy() {
+		double sum = 0;
+		for (String s : encoded)
+			sum += Double.longBitsToDouble(Long.valueOf(s.substring(1), BasicSerializer.LONG_RADIX));
+		return sum;
+	}
+
+	@Benchmark
+	public double decodeBoxed() {
+		double sum = 0;
+		for (String s : encoded)
+			sum += BasicSerializer.deserializeDoubleLongBits(s);
+		return sum;
+	}
+
+	@Benchmark
+	public double decodePrimitive() {
+		double sum = 0;
+		for (String s : encoded)
+			sum += BasicSerializer.decodeDouble(s);
+		return sum;
+	}
+}
@@ -0,0 +1,131 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.universeprojects.json.benchmark.SerializationBenchmark.CharacterMode;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.serialization.Serializer;
+import com.universeprojects.json.shared.serialization.SerializerFactory;
+
+/**
+ * SerializerFactory.serialize/deserialize called from 16 threads at once, on mixed values that include an enum
+ * and a subclass that only has a serializer through its superclass.
+ * Measures the serializer lookup under contention rather than the work of the serializers themselves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class ConcurrentSerializationBenchmark {
+
+	public static class Position {
+		final long x;
+		final long y;
+
+		Position(long x, long y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	/** Has no serializer of its own */
+	public static class TilePosition extends Position {
+		TilePosition(long x, long y) {
+			super(x, y);
+		}
+	}
+
+	public static class PositionSerializer implements Serializer {
+		@Override
+		public Object serialize(Object o) {
+			Position position = (Position) o;
+			return position.x + "," + position.y;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T deserialize(Object o, Class<T> cl) {
+			String text = (String) o;
+			int comma = text.indexOf(',');
+			long x = Long.parseLong(text.substring(0, comma));
+			long y = Long.parseLong(text.substring(comma + 1));
+			return (T) (cl == TilePosition.class ? new TilePosition(x, y) : new Position(x, y));
+		}
+	}
+
+	private static final int VALUES = 64;
+
+	/** "shared" for the lookup used by GWT clients, "server" for the one installed by initServerParser() */
+	@Param({"shared", "server"})
+	public String dispatch;
+
+	private Object[] values;
+	private Object[] serialized;
+	private Class<?>[] classes;
+
+	@Setup
+	public void setup() {
+		SerializerFactory.registerSerializer(Position.class, new PositionSerializer());
+		if ("server".equals(dispatch))
+			JSONParserFactory.initServerParser();
+
+		Random random = new Random(42);
+		values = new Object[VALUES];
+		classes = new Class<?>[VALUES];
+		serialized = new Object[VALUES];
+		for (int i = 0; i < VALUES; i++) {
+			switch (i % 6) {
+			case 0:
+				values[i] = "Character " + i;
+				break;
+			case 1:
+				values[i] = random.nextDouble() * 1000;
+				break;
+			case 2:
+				values[i] = random.nextLong();
+				break;
+			case 3:
+				values[i] = CharacterMode.values()[random.nextInt(CharacterMode.values().length)];
+				break;
+			case 4:
+				values[i] = new TilePosition(random.nextInt(1000), random.nextInt(1000));
+				break;
+			default:
+				values[i] = new Position(random.nextInt(1000), random.nextInt(1000));
+				break;
+			}
+			classes[i] = values[i].getClass();
+			serialized[i] = SerializerFactory.serialize(values[i]);
+		}
+	}
+
+	@Benchmark
+	public void serialize(Blackhole blackhole) {
+		for (Object value : values)
+			blackhole.consume(SerializerFactory.serialize(value));
+	}
+
+	@Benchmark
+	public void deserialize(Blackhole blackhole) {
+		for (int i = 0; i < VALUES; i++)
+			blackhole.consume(SerializerFactory.deserialize(serialized[i], classes[i]));
+	}
+}
@@ -0,0 +1,69 @@
+package com.universeprojects.json.benchmark;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONValue;
+
+/**
+ * String escaping on its own: a string that needs no escaping, one with a few quotes and line breaks,
+ * and one made mostly of control characters, escaped to a new String and into a reused Writer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeBenchmark {
+
+	@Param({"clean", "sparse", "dense"})
+	public String kind;
+
+	private String text;
+	private CharArrayWriter out;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder();
+		for(int i=0;i<40;i++){
+			switch(kind){
+			case "clean":
+				sb.append("The quick brown fox jumps over the lazy dog. ");
+				break;
+			case "sparse":
+				sb.append(i % 4 == 0 ? "He said \"jump\" over the\nlazy dog. " : "The quick brown fox jumps over the lazy dog. ");
+				break;
+			default:
+				sb.append("\t\"a\"\u0001\\b\r\n /");
+			}
+		}
+		text = sb.toString();
+		out = new CharArrayWriter(text.length() * 6);
+	}
+
+	@Benchmark
+	public String escapeString() {
+		return JSONValue.escape(text);
+	}
+
+	@Benchmark
+	public int escapeWriter() throws IOException {
+		out.reset();
+		JSONValue.escape(text, out);
+		return out.size();
+	}
+}
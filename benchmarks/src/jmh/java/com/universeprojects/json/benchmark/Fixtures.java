@@ -0,0 +1,66 @@
+package com.universeprojects.json.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Game-state documents used by the benchmarks.
+ * <ul>
+ * <li>small  - a single character with stats, inventory and buffs (~2 KB)</li>
+ * <li>medium - a location with 20 characters, paths and spawn tables (~45 KB)</li>
+ * <li>large  - a region dump holding 40 locations (~1.8 MB)</li>
+ * </ul>
+ */
+public final class Fixtures {
+
+	public static final String SMALL = "small";
+	public static final String MEDIUM = "medium";
+	public static final String LARGE = "large";
+
+	private static final int LARGE_LOCATIONS = 40;
+
+	private Fixtures() {
+	}
+
+	public static String document(String size) {
+		if (SMALL.equals(size))
+			return load("small.json");
+		if (MEDIUM.equals(size))
+			return load("medium.json");
+		if (LARGE.equals(size)) {
+			String location = load("medium.json");
+			StringBuilder sb = new StringBuilder(location.length() * LARGE_LOCATIONS + LARGE_LOCATIONS + 1);
+			sb.append('[');
+			for (int i = 0; i < LARGE_LOCATIONS; i++) {
+				if (i > 0)
+					sb.append(',');
+				sb.append(location);
+			}
+			sb.append(']');
+			return sb.toString();
+		}
+		throw new IllegalArgumentException("Unknown fixture size: " + size);
+	}
+
+	private static String load(String name) {
+		InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name);
+		if (in == null)
+			throw new IllegalStateException("Missing fixture " + name);
+		try {
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buf = new byte[8192];
+				int n;
+				while ((n = in.read(buf)) > 0)
+					out.write(buf, 0, n);
+				return new String(out.toByteArray(), StandardCharsets.UTF_8);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't read fixture " + name, e);
+		}
+	}
+}
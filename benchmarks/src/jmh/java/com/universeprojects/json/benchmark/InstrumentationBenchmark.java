@@ -0,0 +1,87 @@
+package com.universeprojects.json.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.instrument.JSONInstrumentation;
+import com.universeprojects.json.shared.instrument.JSONStats;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+import com.universeprojects.json.shared.serialization.SerializerFactory;
+
+/**
+ * Cost of the instrumentation hooks: parsing, writing and serializing with no listener registered, which has to
+ * be as fast as ParseBenchmark and WriteBenchmark, and with a JSONStats collecting. The small document and the
+ * single value serialization show the fixed cost per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+	@Param({Fixtures.SMALL, Fixtures.MEDIUM})
+	public String size;
+
+	@Param({"false", "true"})
+	public boolean enabled;
+
+	private String text;
+	private byte[] bytes;
+	private Object tree;
+	private JSONStats stats;
+
+	@Setup
+	public void setup() {
+		JSONParserFactory.initServerParser();
+		text = Fixtures.document(size);
+		bytes = text.getBytes(StandardCharsets.UTF_8);
+		tree = JSONValue.parse(text);
+		if(enabled) {
+			stats = new JSONStats();
+			JSONInstrumentation.addListener(stats);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if(stats != null)
+			JSONInstrumentation.removeListener(stats);
+	}
+
+	@Benchmark
+	public Object parse() throws ParseException {
+		return JSONParserFactory.parse(text);
+	}
+
+	@Benchmark
+	public Object parseBytes() throws ParseException {
+		return JSONParserFactory.parse(bytes);
+	}
+
+	@Benchmark
+	public String toJSONString() {
+		return JSONValue.toJSONString(tree);
+	}
+
+	@Benchmark
+	public Object serialize() {
+		return SerializerFactory.serialize(text.length());
+	}
+}
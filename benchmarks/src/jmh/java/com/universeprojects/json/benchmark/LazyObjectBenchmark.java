@@ -0,0 +1,63 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * The usual entity request: read a few fields of a stored object and write it back unchanged.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyObjectBenchmark {
+
+	@Param({Fixtures.SMALL, Fixtures.MEDIUM})
+	public String size;
+
+	private String text;
+
+	@Setup
+	public void setup() {
+		JSONParserFactory.initServerParser();
+		text = Fixtures.document(size);
+	}
+
+	@Benchmark
+	public String readFieldsTree(Blackhole bh) throws ParseException {
+		JSONObject object = (JSONObject) JSONValue.parseWithException(text);
+		return readFields(object, bh);
+	}
+
+	@Benchmark
+	public String readFieldsLazy(Blackhole bh) throws ParseException {
+		JSONObject object = (JSONObject) JSONValue.parseLazy(text);
+		return readFields(object, bh);
+	}
+
+	private static String readFields(JSONObject object, Blackhole bh) {
+		bh.consume(object.get("id"));
+		bh.consume(object.get("name"));
+		bh.consume(object.get("type"));
+		return object.toJSONString();
+	}
+}
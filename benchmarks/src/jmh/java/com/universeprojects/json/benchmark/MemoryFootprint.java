@@ -0,0 +1,59 @@
+package com.universeprojects.json.benchmark;
+
+import com.universeprojects.json.shared.parser.CompactContainerFactory;
+import com.universeprojects.json.shared.parser.ContainerFactory;
+import com.universeprojects.json.shared.parser.JSONServerParser;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * Retained heap of parsed documents for each container type: parses a fixture many times, keeps the trees
+ * and reports the heap growth per document.
+ *
+ * Run with: gradle -p benchmarks footprint
+ */
+public final class MemoryFootprint {
+
+	/** Enough copies of each fixture to hold about this many chars of input */
+	private static final int TOTAL_CHARS = 20000000;
+
+	private MemoryFootprint() {
+	}
+
+	public static void main(String[] args) throws ParseException {
+		for (String size : new String[] {Fixtures.SMALL, Fixtures.MEDIUM}) {
+			String text = Fixtures.document(size);
+			System.out.println(size + " (" + text.length() + " chars)");
+			report("  JSONObject                ", text, null, 0);
+			report("  JSONObject + key cache    ", text, null, 1024);
+			report("  CompactJSONObject         ", text, CompactContainerFactory.INSTANCE, 0);
+			report("  CompactJSONObject + cache ", text, CompactContainerFactory.INSTANCE, 1024);
+		}
+	}
+
+	private static void report(String label, String text, ContainerFactory containerFactory, int keyCacheSize) throws ParseException {
+		JSONServerParser parser = new JSONServerParser();
+		parser.setKeyCacheSize(keyCacheSize);
+		int copies = TOTAL_CHARS / text.length();
+		Object[] documents = new Object[copies];
+		long before = usedHeap();
+		for (int i = 0; i < copies; i++) {
+			documents[i] = parser.parse(text, containerFactory);
+			// Reading seals compact objects, as it would happen in use
+			documents[i].hashCode();
+		}
+		long after = usedHeap();
+		System.out.println(label + (after - before) / copies + " bytes per document");
+		if (documents[copies - 1] == null)
+			throw new IllegalStateException();
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
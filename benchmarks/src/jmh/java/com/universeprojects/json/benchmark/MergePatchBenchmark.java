@@ -0,0 +1,58 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+import com.universeprojects.json.shared.patch.JSONMergePatch;
+
+/**
+ * A partial update of a stored entity: renaming it and removing one member. The usual way, parsing the text,
+ * merging into the tree and writing it all again, against merging into the text.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergePatchBenchmark {
+
+	@Param({Fixtures.SMALL, Fixtures.MEDIUM})
+	public String size;
+
+	private String text;
+	private JSONObject patch;
+
+	@Setup
+	public void setup() throws ParseException {
+		JSONParserFactory.initServerParser();
+		text = Fixtures.document(size);
+		patch = (JSONObject) JSONValue.parseWithException("{\"name\":\"Renamed\",\"type\":null}");
+	}
+
+	@Benchmark
+	public String parseMergeWrite() throws ParseException {
+		Object tree = JSONMergePatch.apply(JSONValue.parseWithException(text), patch);
+		return JSONValue.toJSONString(tree);
+	}
+
+	@Benchmark
+	public String mergeText() throws ParseException {
+		return JSONMergePatch.applyToText(text, patch);
+	}
+}
@@ -0,0 +1,75 @@
+package com.universeprojects.json.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.parser.JSONByteParser;
+import com.universeprojects.json.shared.parser.JSONServerParser;
+import com.universeprojects.json.shared.parser.NumberMode;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * Number-heavy input (coordinates and stat arrays) in each NumberMode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberBenchmark {
+
+	private static final int POINTS = 5000;
+
+	@Param({"DEFAULT", "LAZY", "BIG_DECIMAL"})
+	public NumberMode mode;
+
+	private String text;
+	private byte[] utf8;
+	private final JSONServerParser parser = new JSONServerParser();
+	private final JSONByteParser byteParser = new JSONByteParser();
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder(POINTS * 48);
+		sb.append('[');
+		for (int i = 0; i < POINTS; i++) {
+			if (i > 0)
+				sb.append(',');
+			sb.append('[').append(Math.round(random.nextDouble() * 1e6) / 1e3)
+					.append(',').append(Math.round(random.nextDouble() * -1e6) / 1e3)
+					.append(',').append(random.nextInt(100))
+					.append(',').append(5100000000000000L + random.nextInt(1000000))
+					.append(']');
+		}
+		sb.append(']');
+		text = sb.toString();
+		utf8 = text.getBytes(StandardCharsets.UTF_8);
+		parser.setNumberMode(mode);
+		byteParser.setNumberMode(mode);
+	}
+
+	@Benchmark
+	public Object parseString() throws ParseException {
+		return parser.parse(text);
+	}
+
+	@Benchmark
+	public Object parseBytes() throws ParseException {
+		return byteParser.parse(utf8);
+	}
+}
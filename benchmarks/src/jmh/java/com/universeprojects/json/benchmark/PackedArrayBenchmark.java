@@ -0,0 +1,107 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.serialization.SerializerFactory;
+
+/**
+ * A block of numeric samples (a height map, a damage history) stored as one packed double[] / int[]
+ * field, against the same values stored as a list of boxed elements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedArrayBenchmark {
+
+	@Param({"16", "4096"})
+	public int size;
+
+	private double[] doubles;
+	private Object[] boxedDoubles;
+	private int[] ints;
+	private Object[] boxedInts;
+
+	private String packedDoubles;
+	private String listDoubles;
+	private String packedInts;
+	private String listInts;
+
+	@Setup
+	public void setup() {
+		JSONParserFactory.initServerParser();
+
+		Random random = new Random(42);
+		doubles = new double[size];
+		boxedDoubles = new Object[size];
+		ints = new int[size];
+		boxedInts = new Object[size];
+		for (int i = 0; i < size; i++) {
+			doubles[i] = random.nextDouble() * 100;
+			boxedDoubles[i] = doubles[i];
+			ints[i] = random.nextInt(1000) - 500;
+			boxedInts[i] = ints[i];
+		}
+
+		packedDoubles = SerializerFactory.serializeList(new Object[] {doubles});
+		listDoubles = SerializerFactory.serializeList(boxedDoubles);
+		packedInts = SerializerFactory.serializeList(new Object[] {ints});
+		listInts = SerializerFactory.serializeList(boxedInts);
+	}
+
+	@Benchmark
+	public String serializePackedDoubles() {
+		return SerializerFactory.serializeList(new Object[] {doubles});
+	}
+
+	@Benchmark
+	public String serializeBoxedDoubles() {
+		return SerializerFactory.serializeList(boxedDoubles);
+	}
+
+	@Benchmark
+	public Object[] deserializePackedDoubles() {
+		return SerializerFactory.deserializeConsistentList(packedDoubles, double[].class);
+	}
+
+	@Benchmark
+	public Object[] deserializeBoxedDoubles() {
+		return SerializerFactory.deserializeConsistentList(listDoubles, Double.class);
+	}
+
+	@Benchmark
+	public String serializePackedInts() {
+		return SerializerFactory.serializeList(new Object[] {ints});
+	}
+
+	@Benchmark
+	public String serializeBoxedInts() {
+		return SerializerFactory.serializeList(boxedInts);
+	}
+
+	@Benchmark
+	public Object[] deserializePackedInts() {
+		return SerializerFactory.deserializeConsistentList(packedInts, int[].class);
+	}
+
+	@Benchmark
+	public Object[] deserializeBoxedInts() {
+		return SerializerFactory.deserializeConsistentList(listInts, Integer.class);
+	}
+}
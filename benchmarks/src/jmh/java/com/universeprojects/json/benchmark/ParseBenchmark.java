@@ -0,0 +1,93 @@
+package com.universeprojects.json.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.CompactContainerFactory;
+import com.universeprojects.json.shared.parser.JSONFeedParser;
+import com.universeprojects.json.shared.parser.JSONServerParser;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * Tree parsing through the JSONValue entry points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	@Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE})
+	public String size;
+
+	private String text;
+	private byte[] utf8;
+	private final JSONServerParser keyCacheParser = new JSONServerParser();
+	private final JSONFeedParser feedParser = new JSONFeedParser();
+
+	/** Size of the chunks handed to the feed parser, as read from a socket */
+	private static final int CHUNK_SIZE = 4096;
+
+	@Setup
+	public void setup() {
+		text = Fixtures.document(size);
+		utf8 = text.getBytes(StandardCharsets.UTF_8);
+		if (JSONValue.parse(text) == null)
+			throw new IllegalStateException("Fixture " + size + " does not parse");
+		keyCacheParser.setKeyCacheSize(1024);
+	}
+
+	@Benchmark
+	public Object parseString() {
+		return JSONValue.parse(text);
+	}
+
+	@Benchmark
+	public Object parseReader() {
+		return JSONValue.parse(new StringReader(text));
+	}
+
+	@Benchmark
+	public Object parseBytes() {
+		return JSONValue.parse(utf8);
+	}
+
+	@Benchmark
+	public Object parseBytesFeed() throws ParseException, IOException {
+		feedParser.reset();
+		for(int p=0;p<utf8.length;p+=CHUNK_SIZE)
+			feedParser.feed(ByteBuffer.wrap(utf8, p, Math.min(CHUNK_SIZE, utf8.length - p)));
+		return feedParser.endOfInput();
+	}
+
+	@Benchmark
+	public Object parseStringKeyCache() throws ParseException {
+		return keyCacheParser.parse(text);
+	}
+
+	@Benchmark
+	public Object parseStringCompact() throws ParseException {
+		Object tree = keyCacheParser.parse(text, CompactContainerFactory.INSTANCE);
+		// Seal the root, as the first read would
+		tree.hashCode();
+		return tree;
+	}
+}
@@ -0,0 +1,118 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * Load test of parser acquisition: many short tasks that each parse a small document, with a large one now and
+ * then, on a large platform thread pool and on virtual threads. Each runs once with the parser of the thread
+ * (getServerParser()) and once with parsers taken per document (JSONParserFactory.parse()), and reports the
+ * throughput and the heap still used by parsers afterwards, while the pool threads are alive.
+ * <p>
+ * Virtual threads need Java 21; on older JVMs only the platform threads are tested.
+ *
+ * Run with: gradle -p benchmarks loadtest
+ */
+public final class ParserPoolLoadTest {
+
+	private static final int PLATFORM_THREADS = 256;
+	private static final int TASKS = 100000;
+	/** Every so many tasks parse the large document, which makes the lexer buffer grow */
+	private static final int LARGE_EVERY = 500;
+
+	private ParserPoolLoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		JSONParserFactory.initServerParser();
+		String small = Fixtures.document(Fixtures.SMALL);
+		String large = largeDocument();
+		System.out.println(TASKS + " tasks of " + small.length() + " chars, one of " + large.length()
+			+ " chars every " + LARGE_EVERY);
+
+		run("platform, parser per thread   ", Executors.newFixedThreadPool(PLATFORM_THREADS), false, small, large);
+		JSONParserFactory.setPoolPlatformThreads(true);
+		run("platform, pooled parsers      ", Executors.newFixedThreadPool(PLATFORM_THREADS), true, small, large);
+		JSONParserFactory.setPoolPlatformThreads(false);
+
+		ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+		if(virtual == null) {
+			System.out.println("No virtual threads on this JVM");
+			return;
+		}
+		run("virtual, parser per thread    ", virtual, false, small, large);
+		run("virtual, pooled parsers       ", newVirtualThreadPerTaskExecutor(), true, small, large);
+	}
+
+	private static void run(String label, ExecutorService executor, final boolean pooled, final String small, final String large) throws Exception {
+		long before = usedHeap();
+		long start = System.nanoTime();
+		List<Future<?>> futures = new ArrayList<>(TASKS);
+		for(int i = 0; i < TASKS; i++) {
+			final String text = i % LARGE_EVERY == 0 ? large : small;
+			futures.add(executor.submit(() -> {
+				try {
+					Object value = pooled ? JSONParserFactory.parse(text) : JSONParserFactory.getServerParser().parse(text);
+					// Don't keep the trees reachable from the futures
+					return value == null ? null : Boolean.TRUE;
+				}
+				catch(ParseException e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+		for(Future<?> future : futures)
+			future.get();
+		futures.clear();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		// The threads of a platform pool are still alive here, with whatever their parsers hold on to
+		long after = usedHeap();
+		System.out.printf("%s %,10.0f documents/s  %,8d KB retained%n", label, TASKS / seconds, (after - before) / 1024);
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	private static String largeDocument() {
+		StringBuilder sb = new StringBuilder("[");
+		String medium = Fixtures.document(Fixtures.MEDIUM);
+		while(sb.length() < 200000) {
+			if(sb.length() > 1)
+				sb.append(',');
+			sb.append(medium);
+		}
+		// One long string token, the case that makes the buffer of the lexer grow
+		sb.append(",\"");
+		for(int i = 0; i < 50000; i++)
+			sb.append("padding ");
+		return sb.append("\"]").toString();
+	}
+
+	/**
+	 * @return Executors.newVirtualThreadPerTaskExecutor(), or null before Java 21.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch(ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for(int i = 0; i < 5; i++) {
+			System.gc();
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
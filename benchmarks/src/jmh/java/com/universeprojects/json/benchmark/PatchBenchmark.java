@@ -0,0 +1,86 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+import com.universeprojects.json.shared.patch.JSONPatch;
+
+/**
+ * One tick of a location: a character lost hitpoints, another one reordered its inventory, and one left while
+ * another one arrived. Sending the whole state (snapshot) against sending the difference to the previous tick
+ * (diff), with array elements matched by value or by id, and applying the difference on the client side.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatchBenchmark {
+
+	private JSONObject previous;
+	private JSONObject current;
+	private JSONArray patch;
+
+	@Setup
+	public void setup() throws ParseException {
+		JSONParserFactory.initServerParser();
+		previous = (JSONObject) JSONValue.parseWithException(Fixtures.document(Fixtures.MEDIUM));
+		current = (JSONObject) JSONPatch.copy(previous);
+		JSONArray characters = (JSONArray) current.get("characters");
+		JSONObject stats = (JSONObject) ((JSONObject) characters.get(2)).get("stats");
+		stats.put("hitpoints", Long.valueOf(((Number) stats.get("hitpoints")).longValue() - 12));
+		JSONArray inventory = (JSONArray) ((JSONObject) characters.get(5)).get("inventory");
+		inventory.add(inventory.remove(0));
+		characters.add(JSONPatch.copy(characters.remove(characters.size() - 1)));
+		((JSONObject) characters.get(characters.size() - 1)).put("id", Long.valueOf(5600000000000999L));
+		patch = JSONPatch.diff(previous, current, "id");
+		System.out.println();
+		System.out.println("Snapshot: " + current.toJSONString().length() + " chars, patch by value: "
+			+ JSONPatch.diff(previous, current).toJSONString().length() + " chars, patch by id: "
+			+ patch.toJSONString().length() + " chars");
+	}
+
+	@Benchmark
+	public String snapshot() {
+		return current.toJSONString();
+	}
+
+	@Benchmark
+	public String diff() {
+		return JSONPatch.diff(previous, current).toJSONString();
+	}
+
+	@Benchmark
+	public String diffById() {
+		return JSONPatch.diff(previous, current, "id").toJSONString();
+	}
+
+	@Benchmark
+	public Object copy() {
+		return JSONPatch.copy(previous);
+	}
+
+	/**
+	 * Includes copy().
+	 */
+	@Benchmark
+	public Object apply() {
+		return JSONPatch.apply(JSONPatch.copy(previous), patch);
+	}
+}
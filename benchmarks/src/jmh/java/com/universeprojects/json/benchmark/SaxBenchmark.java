@@ -0,0 +1,95 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.universeprojects.json.shared.parser.ContentHandler;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * Stream processing through ContentHandler, with a handler that only hands the events to a Blackhole,
+ * so the numbers show the cost of lexing and the parser state machine without tree building.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaxBenchmark {
+
+	@Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE})
+	public String size;
+
+	private String text;
+
+	@Setup
+	public void setup() {
+		text = Fixtures.document(size);
+	}
+
+	@Benchmark
+	public void contentHandler(final Blackhole bh) throws ParseException {
+		JSONParserFactory.getServerParser().parse(text, new ContentHandler() {
+			@Override
+			public void startJSON() {
+			}
+
+			@Override
+			public void endJSON() {
+			}
+
+			@Override
+			public boolean startObject() {
+				bh.consume(1);
+				return true;
+			}
+
+			@Override
+			public boolean endObject() {
+				return true;
+			}
+
+			@Override
+			public boolean startObjectEntry(String key) {
+				bh.consume(key);
+				return true;
+			}
+
+			@Override
+			public boolean endObjectEntry() {
+				return true;
+			}
+
+			@Override
+			public boolean startArray() {
+				bh.consume(2);
+				return true;
+			}
+
+			@Override
+			public boolean endArray() {
+				return true;
+			}
+
+			@Override
+			public boolean primitive(Object value) {
+				bh.consume(value);
+				return true;
+			}
+		});
+	}
+}
@@ -0,0 +1,109 @@
+package com.universeprojects.json.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONSequenceWriter;
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.JSONSequenceReader;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * An event log of character documents in NDJSON, read and written through JSONSequenceReader/Writer and line by
+ * line the way it was done before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceBenchmark {
+
+	private static final int EVENTS = 500;
+
+	private static final OutputStream DISCARD = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	private Object[] events;
+	private byte[] log;
+
+	@Setup
+	public void setup() throws IOException {
+		JSONParserFactory.initServerParser();
+
+		String character = Fixtures.document(Fixtures.SMALL);
+		StringBuilder sb = new StringBuilder();
+		events = new Object[EVENTS];
+		for (int i = 0; i < EVENTS; i++) {
+			events[i] = JSONValue.parse(character);
+			sb.append(JSONValue.toJSONString(events[i])).append('\n');
+		}
+		log = sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public long readSequence() throws IOException, ParseException {
+		JSONSequenceReader reader = new JSONSequenceReader(new ByteArrayInputStream(log));
+		while (reader.hasNext())
+			reader.next();
+		return reader.getCount();
+	}
+
+	@Benchmark
+	public long readLines() throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(log), StandardCharsets.UTF_8));
+		long count = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (JSONValue.parse(line) != null)
+				count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	public long writeSequence() throws IOException {
+		JSONSequenceWriter writer = new JSONSequenceWriter(DISCARD);
+		for (Object event : events)
+			writer.write(event);
+		writer.flush();
+		return writer.getCount();
+	}
+
+	@Benchmark
+	public void writeLines() throws IOException {
+		Writer writer = new OutputStreamWriter(DISCARD, StandardCharsets.UTF_8);
+		for (Object event : events) {
+			writer.write(JSONValue.toJSONString(event));
+			writer.write('\n');
+			writer.flush();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.universeprojects.json.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.serialization.SerializedDataFormat;
+import com.universeprojects.json.shared.serialization.SerializedDataList;
+import com.universeprojects.json.shared.serialization.SerializedDataMap;
+import com.universeprojects.json.shared.serialization.SerializerFactory;
+
+/**
+ * Round-trips through SerializedDataList and SerializedDataMap, the way entity properties are stored:
+ * a list of mixed scalar fields and a map of named stats, as JSON text and in the binary format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	public enum CharacterMode {
+		NORMAL, COMBAT, MERCHANT
+	}
+
+	@Param({"10", "1000"})
+	public int entries;
+
+	private Object[] values;
+	private Class<?>[] classes;
+	private Map<String, Double> stats;
+
+	private String serializedList;
+	private String serializedMap;
+	private byte[] binaryList;
+	private byte[] binaryMap;
+
+	@Setup
+	public void setup() {
+		JSONParserFactory.initServerParser();
+
+		Random random = new Random(42);
+		values = new Object[entries];
+		classes = new Class<?>[entries];
+		for (int i = 0; i < entries; i++) {
+			switch (i % 6) {
+			case 0:
+				values[i] = "Character " + i;
+				break;
+			case 1:
+				values[i] = random.nextDouble() * 1000;
+				break;
+			case 2:
+				values[i] = random.nextLong();
+				break;
+			case 3:
+				values[i] = random.nextInt(300);
+				break;
+			case 4:
+				values[i] = random.nextBoolean();
+				break;
+			default:
+				values[i] = CharacterMode.values()[random.nextInt(CharacterMode.values().length)];
+				break;
+			}
+			classes[i] = values[i].getClass();
+		}
+
+		stats = new LinkedHashMap<>();
+		for (int i = 0; i < entries; i++)
+			stats.put("stat" + i, random.nextDouble() * 20);
+
+		serializedList = SerializerFactory.serializeList(values);
+		serializedMap = SerializerFactory.serializeMap(stats);
+		binaryList = serializeListBinary();
+		binaryMap = serializeMapBinary();
+	}
+
+	@Benchmark
+	public String serializeList() {
+		return SerializerFactory.createSerializedDataList(values).getSerializedData();
+	}
+
+	@Benchmark
+	public Object[] deserializeList() {
+		return SerializerFactory.deserializeList(serializedList, classes);
+	}
+
+	@Benchmark
+	public Object[] roundTripList() {
+		String text = SerializerFactory.createSerializedDataList(values).getSerializedData();
+		return SerializerFactory.createSerializedDataList(text).deserializeData(classes);
+	}
+
+	@Benchmark
+	public String serializeMap() {
+		return SerializerFactory.createSerializedDataMap(stats).getSerializedData();
+	}
+
+	@Benchmark
+	public Map<String, Double> deserializeMap() {
+		return SerializerFactory.deserializeMap(serializedMap, String.class, Double.class);
+	}
+
+	@Benchmark
+	public Map<String, Double> roundTripMap() {
+		String text = SerializerFactory.createSerializedDataMap(stats).getSerializedData();
+		SerializedDataMap<String, Double> map = SerializerFactory.createSerializedDataMap(text);
+		return map.deserializeDataChecked(String.class, Double.class);
+	}
+
+	@Benchmark
+	public byte[] serializeListBinary() {
+		SerializedDataList list = SerializerFactory.createSerializedDataList(values);
+		list.setFormat(SerializedDataFormat.BINARY);
+		return list.getSerializedBytes();
+	}
+
+	@Benchmark
+	public Object[] deserializeListBinary() {
+		return SerializerFactory.createSerializedDataList(binaryList).deserializeData(classes);
+	}
+
+	@Benchmark
+	public byte[] serializeMapBinary() {
+		SerializedDataMap<String, Double> map = SerializerFactory.createSerializedDataMap(stats);
+		map.setFormat(SerializedDataFormat.BINARY);
+		return map.getSerializedBytes();
+	}
+
+	@Benchmark
+	public Map<String, Double> deserializeMapBinary() {
+		SerializedDataMap<String, Double> map = SerializerFactory.createSerializedDataMap(binaryMap);
+		return map.deserializeDataChecked(String.class, Double.class);
+	}
+}
@@ -0,0 +1,92 @@
+package com.universeprojects.json.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.shared.JSONUtf8Writer;
+import com.universeprojects.json.shared.JSONValue;
+
+/**
+ * Serialization of a parsed tree: toJSONString against writeJSONString, compact and indented,
+ * and UTF-8 output through an OutputStreamWriter against JSONUtf8Writer.
+ * Writers and streams are reused between invocations so only the cost of producing the output is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+	@Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE})
+	public String size;
+
+	private Object tree;
+	private CharArrayWriter out;
+	private ByteArrayOutputStream bytes;
+	private JSONUtf8Writer utf8;
+
+	@Setup
+	public void setup() {
+		String text = Fixtures.document(size);
+		tree = JSONValue.parse(text);
+		out = new CharArrayWriter(text.length() * 2);
+		bytes = new ByteArrayOutputStream(text.length() * 2);
+		utf8 = new JSONUtf8Writer(bytes);
+	}
+
+	@Benchmark
+	public String toJSONString() {
+		return JSONValue.toJSONString(tree);
+	}
+
+	@Benchmark
+	public int writeJSONString() throws IOException {
+		out.reset();
+		JSONValue.writeJSONString(tree, out, null);
+		return out.size();
+	}
+
+	@Benchmark
+	public int writeJSONStringIndented() throws IOException {
+		out.reset();
+		JSONValue.writeJSONString(tree, out, "");
+		return out.size();
+	}
+
+	@Benchmark
+	public int writeOutputStreamWriter() throws IOException {
+		bytes.reset();
+		Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+		JSONValue.writeJSONString(tree, writer, null);
+		writer.flush();
+		return bytes.size();
+	}
+
+	@Benchmark
+	public int writeUtf8Writer() throws IOException {
+		bytes.reset();
+		utf8.reset(bytes);
+		JSONValue.writeJSONString(tree, utf8, null);
+		utf8.flush();
+		return bytes.size();
+	}
+}
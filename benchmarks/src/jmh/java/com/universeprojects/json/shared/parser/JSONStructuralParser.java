@@ -0,0 +1,439 @@
+package com.universeprojects.json.shared.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+
+
+/**
+ * Parser for large UTF-8 encoded documents that works in two stages, in the manner of simdjson.
+ * <p>
+ * Stage one classifies the input 64 bytes at a time, without branching per byte, and builds the structural index:
+ * the positions of the brackets, commas and colons outside of strings and of the opening quote of every string. The
+ * bytes are compared eight at a time within 64 bit words (SWAR), and the parts inside of strings are masked out with
+ * bit arithmetic over the quote and backslash positions, so a string costs the same as any other bytes.
+ * <p>
+ * Stage two walks the index to build the tree, decoding strings and numbers the same way as JSONByteParser. The
+ * numbers and literals are found between the entries of the index, where anything but a scalar must be whitespace.
+ * It only accepts strict JSON; anything else, an error or one of the lenient forms that JSONServerParser accepts
+ * (e.g. a missing comma), is parsed again by JSONByteParser, so that it reports the same result or exception.
+ * <p>
+ * The index is kept between calls. Please note that JSONStructuralParser is NOT thread-safe.
+ * <p>
+ * A negative result, kept next to StructuralParserBenchmark rather than in the library: building the tree dominates
+ * the parse, so the faster scan doesn't pay off, and the whole parse is slower than JSONByteParser's, which also
+ * parses again every input that this parser rejects. It lives in the package of JSONByteParser for the token access
+ * methods it shares with JSONFeedParser.
+ *
+ * @see JSONByteParser
+ */
+@SuppressWarnings({"rawtypes","unchecked"})
+@GwtIncompatible
+class JSONStructuralParser implements JSONParser {
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+	private static final long ODD_BITS = 0xAAAAAAAAAAAAAAAAL;
+
+	/* Stage two states */
+	private static final int ROOT=0;
+	private static final int DONE=1;
+	private static final int ARRAY_FIRST=2;
+	private static final int ARRAY_VALUE=3;
+	private static final int ARRAY_NEXT=4;
+	private static final int OBJECT_FIRST=5;
+	private static final int OBJECT_KEY=6;
+	private static final int OBJECT_COLON=7;
+	private static final int OBJECT_VALUE=8;
+	private static final int OBJECT_NEXT=9;
+
+	/** Returned by build() when the input has to be parsed by JSONByteParser */
+	private static final Object FALLBACK = new Object();
+
+	private final JSONByteParser tokens = new JSONByteParser();
+
+	private int[] index = new int[1024];
+	private int indexCount;
+
+	/** Last partial block of the input, padded with spaces */
+	private final byte[] tail = new byte[64];
+
+	private Object[] containers = new Object[16];
+	private boolean[] isObject = new boolean[16];
+
+	/* Carries between blocks */
+	private long escapeCarry;
+	private long stringCarry;
+
+	public NumberMode getNumberMode(){
+		return tokens.getNumberMode();
+	}
+
+	public void setNumberMode(NumberMode numberMode){
+		tokens.setNumberMode(numberMode);
+	}
+
+	public int getKeyCacheSize(){
+		return tokens.getKeyCacheSize();
+	}
+
+	/**
+	 * @see JSONServerParser#setKeyCacheSize(int)
+	 */
+	public void setKeyCacheSize(int size){
+		tokens.setKeyCacheSize(size);
+	}
+
+	/**
+	 * Encodes the string to UTF-8 and parses it. Prefer JSONServerParser when the input already is a String.
+	 */
+	@Override
+	public Object parse(String s) throws ParseException{
+		byte[] in = s.getBytes(StandardCharsets.UTF_8);
+		return parse(in, 0, in.length, null);
+	}
+
+	public Object parse(byte[] in) throws ParseException{
+		return parse(in, 0, in.length, null);
+	}
+
+	public Object parse(byte[] in, ContainerFactory containerFactory) throws ParseException{
+		return parse(in, 0, in.length, containerFactory);
+	}
+
+	/**
+	 * Parse UTF-8 JSON text from the given range of the array.
+	 *
+	 * @see JSONByteParser#parse(byte[], int, int, ContainerFactory)
+	 */
+	public Object parse(byte[] in, int offset, int length, ContainerFactory containerFactory) throws ParseException{
+		tokens.setInput(in, offset, length);
+		try{
+			buildIndex(in, offset, length);
+			Object value;
+			try{
+				value = build(in, offset, offset + length, containerFactory);
+			}
+			catch(ParseException e){
+				value = FALLBACK;
+			}
+			finally{
+				// Don't keep the document reachable from a cached parser
+				for(int i=0;i<containers.length && containers[i] != null;i++)
+					containers[i] = null;
+			}
+			if(value != FALLBACK)
+				return value;
+		}
+		finally{
+			tokens.clearInput();
+		}
+		return tokens.parse(in, offset, length, containerFactory);
+	}
+
+	/**
+	 * @return The number of entries of the structural index of the last input.
+	 */
+	int getIndexCount(){
+		return indexCount;
+	}
+
+	int[] getIndex(){
+		return index;
+	}
+
+	/*---- Stage one ----*/
+
+	void buildIndex(byte[] in, int offset, int length){
+		indexCount = 0;
+		escapeCarry = 0;
+		stringCarry = 0;
+		if(index.length < length / 8 + 64)
+			index = new int[length / 8 + 64];
+
+		ByteBuffer words = ByteBuffer.wrap(in).order(ByteOrder.LITTLE_ENDIAN);
+		int end = offset + length;
+		int p = offset;
+		for(;p + 64 <= end;p += 64)
+			indexBlock(words, p, p - offset);
+
+		if(p < end){
+			for(int i=0;i<64;i++)
+				tail[i] = p + i < end ? in[p+i] : (byte)' ';
+			indexBlock(ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN), 0, p - offset);
+		}
+	}
+
+	/**
+	 * Adds the structural positions of the 64 bytes at words[p] to the index.
+	 *
+	 * @param position - Offset of the block from the start of the input, for the index.
+	 */
+	private void indexBlock(ByteBuffer words, int p, int position){
+		long quote = 0;
+		long backslash = 0;
+		long op = 0;
+		for(int i=0;i<8;i++){
+			long w = words.getLong(p + i * 8);
+			int shift = i * 8;
+			quote |= mask(equal(w, '"')) << shift;
+			backslash |= mask(equal(w, '\\')) << shift;
+			// '[' and ']' become '{' and '}' with bit 5 set, and these two differ in bits 1 and 2 only
+			long brackets = equal((w | 0x2020202020202020L) & ~0x0606060606060606L, 0x79);
+			op |= mask(brackets | equal(w, ':') | equal(w, ',')) << shift;
+		}
+
+		quote &= ~escaped(backslash);
+		long inString = prefixXor(quote) ^ stringCarry;
+		stringCarry = inString >> 63;
+
+		// The brackets test also matches some letters; they are invalid outside of strings and fail in stage two
+		long structural = (op & ~inString) | (quote & inString);
+		if(structural == 0)
+			return;
+		if(indexCount + 64 > index.length){
+			int[] newIndex = new int[Math.max(index.length * 2, indexCount + 64)];
+			System.arraycopy(index, 0, newIndex, 0, indexCount);
+			index = newIndex;
+		}
+		int[] idx = index;
+		int n = indexCount;
+		do{
+			idx[n++] = position + Long.numberOfTrailingZeros(structural);
+			structural &= structural - 1;
+		}while(structural != 0);
+		indexCount = n;
+	}
+
+	/**
+	 * @return 0x80 in each byte of w that equals c, 0 in the others.
+	 */
+	private static long equal(long w, int c){
+		long x = w ^ (c * ONES);
+		return ~(((x & LOW7) + LOW7) | x | LOW7);
+	}
+
+	/**
+	 * @return The high bits of the 8 bytes as 8 bits, the first byte lowest.
+	 */
+	private static long mask(long highBits){
+		return (((highBits >>> 7) & ONES) * 0x0102040810204080L) >>> 56;
+	}
+
+	/**
+	 * @return The bits of the chars that follow an odd number of backslashes, carrying a run of backslashes over to
+	 * the next block.
+	 */
+	private long escaped(long backslash){
+		if(backslash == 0){
+			long escaped = escapeCarry;
+			escapeCarry = 0;
+			return escaped;
+		}
+		// A backslash that is not escaped itself starts an escape; within a run, every second one does
+		long potentialEscape = backslash & ~escapeCarry;
+		long maybeEscaped = potentialEscape << 1;
+		long escapeAndTerminalCode = ((maybeEscaped | ODD_BITS) - potentialEscape) ^ ODD_BITS;
+		long escaped = escapeAndTerminalCode ^ (backslash | escapeCarry);
+		escapeCarry = (escapeAndTerminalCode & backslash) >>> 63;
+		return escaped;
+	}
+
+	/**
+	 * @return For each bit, the parity of the set bits up to and including it: from an opening quote up to the
+	 * closing quote, which is not included.
+	 */
+	private static long prefixXor(long x){
+		x ^= x << 1;
+		x ^= x << 2;
+		x ^= x << 4;
+		x ^= x << 8;
+		x ^= x << 16;
+		x ^= x << 32;
+		return x;
+	}
+
+	/*---- Stage two ----*/
+
+	/**
+	 * @param base - Offset of the input in b; the index holds positions relative to it.
+	 * @return The root value, or FALLBACK if the input is not strict JSON.
+	 */
+	@SuppressWarnings("fallthrough")
+	private Object build(byte[] b, int base, int end, ContainerFactory containerFactory) throws ParseException{
+		int[] idx = index;
+		int n = indexCount;
+		int depth = 0;
+		int state = ROOT;
+		Object root = null;
+		String key = null;
+
+		int i = 0;
+		int next = base;
+		while(true){
+			// The next token is either the next entry of the index or a scalar before it
+			int p = next;
+			while(p < end && isWhitespace(b[p]))
+				p++;
+			byte c;
+			if(i < n && p == base + idx[i]){
+				c = b[p];
+				next = p + 1;
+				i++;
+			}
+			else if(i < n && p > base + idx[i]){
+				// The last string ran over an entry
+				return FALLBACK;
+			}
+			else if(p < end){
+				c = 0;
+			}
+			else{
+				break;
+			}
+			Object value;
+			switch(state){
+			case ARRAY_NEXT:
+				if(c == ','){
+					state = ARRAY_VALUE;
+					continue;
+				}
+				if(c != ']')
+					return FALLBACK;
+				depth--;
+				state = afterValue(depth);
+				continue;
+			case OBJECT_NEXT:
+				if(c == ','){
+					state = OBJECT_KEY;
+					continue;
+				}
+				if(c != '}')
+					return FALLBACK;
+				depth--;
+				state = afterValue(depth);
+				continue;
+			case OBJECT_FIRST:
+				if(c == '}'){
+					depth--;
+					state = afterValue(depth);
+					continue;
+				}
+				// fall through
+			case OBJECT_KEY:
+				if(c != '"')
+					return FALLBACK;
+				key = tokens.readStringAt(p, true);
+				next = tokens.getEnd();
+				state = OBJECT_COLON;
+				continue;
+			case OBJECT_COLON:
+				if(c != ':')
+					return FALLBACK;
+				state = OBJECT_VALUE;
+				continue;
+			case ARRAY_FIRST:
+				if(c == ']'){
+					depth--;
+					state = afterValue(depth);
+					continue;
+				}
+				// fall through
+			case ROOT:
+			case ARRAY_VALUE:
+			case OBJECT_VALUE:
+				break;
+			default:
+				return FALLBACK;
+			}
+
+			// A value where one is expected
+			boolean container = false;
+			switch(c){
+			case '{':
+				value = createObjectContainer(containerFactory);
+				container = true;
+				break;
+			case '[':
+				value = createArrayContainer(containerFactory);
+				container = true;
+				break;
+			case '"':
+				value = tokens.readStringAt(p, false);
+				next = tokens.getEnd();
+				break;
+			case 0:
+				value = tokens.readScalarAt(p);
+				next = tokens.getEnd();
+				break;
+			default:
+				return FALLBACK;
+			}
+
+			if(depth == 0)
+				root = value;
+			else if(isObject[depth-1])
+				((Map)containers[depth-1]).put(key, value);
+			else
+				((List)containers[depth-1]).add(value);
+
+			if(container){
+				if(depth == containers.length)
+					growStack();
+				containers[depth] = value;
+				isObject[depth] = c == '{';
+				depth++;
+				state = c == '{' ? OBJECT_FIRST : ARRAY_FIRST;
+			}
+			else{
+				state = afterValue(depth);
+			}
+		}
+		return state == DONE ? root : FALLBACK;
+	}
+
+	private int afterValue(int depth){
+		if(depth == 0)
+			return DONE;
+		return isObject[depth-1] ? OBJECT_NEXT : ARRAY_NEXT;
+	}
+
+	private static boolean isWhitespace(byte c){
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	private void growStack(){
+		Object[] newContainers = new Object[containers.length * 2];
+		System.arraycopy(containers, 0, newContainers, 0, containers.length);
+		containers = newContainers;
+		boolean[] newIsObject = new boolean[isObject.length * 2];
+		System.arraycopy(isObject, 0, newIsObject, 0, isObject.length);
+		isObject = newIsObject;
+	}
+
+	private Map createObjectContainer(ContainerFactory containerFactory){
+		if(containerFactory == null)
+			return new JSONObject();
+		Map m = containerFactory.createObjectContainer();
+
+		if(m == null)
+			return new JSONObject();
+		return m;
+	}
+
+	private List createArrayContainer(ContainerFactory containerFactory){
+		if(containerFactory == null)
+			return new JSONArray();
+		List l = containerFactory.creatArrayContainer();
+
+		if(l == null)
+			return new JSONArray();
+		return l;
+	}
+}
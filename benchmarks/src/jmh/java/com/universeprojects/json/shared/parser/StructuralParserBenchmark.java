@@ -0,0 +1,53 @@
+package com.universeprojects.json.shared.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.universeprojects.json.benchmark.Fixtures;
+
+/**
+ * The two stage JSONStructuralParser against JSONByteParser on the same input. JSONStructuralParser is only part of
+ * the benchmarks, since it is slower; this measures by how much.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuralParserBenchmark {
+
+	@Param({Fixtures.SMALL, Fixtures.MEDIUM, Fixtures.LARGE})
+	public String size;
+
+	private byte[] utf8;
+	private final JSONByteParser byteParser = new JSONByteParser();
+	private final JSONStructuralParser structuralParser = new JSONStructuralParser();
+
+	@Setup
+	public void setup() {
+		utf8 = Fixtures.document(size).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Object byteParser() throws ParseException {
+		return byteParser.parse(utf8);
+	}
+
+	@Benchmark
+	public Object structuralParser() throws ParseException {
+		return structuralParser.parse(utf8);
+	}
+}
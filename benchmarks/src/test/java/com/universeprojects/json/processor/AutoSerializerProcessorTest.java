@@ -0,0 +1,58 @@
+package com.universeprojects.json.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+import com.universeprojects.json.shared.serialization.AutoSerialize;
+
+/**
+ * The serializers that AutoSerializerProcessor generates for the classes below, when it runs on the test sources.
+ */
+public class AutoSerializerProcessorTest {
+
+	public static class Base {
+		public int level = 1;
+		public String name = "base";
+	}
+
+	/** Hides both fields of Base */
+	@AutoSerialize
+	public static class Hiding extends Base {
+		public long level = 2;
+		public String name = "hiding";
+		public boolean active = true;
+	}
+
+	@Test
+	public void hiddenFieldIsWrittenOnce() throws IOException, ParseException {
+		JSONParserFactory.initServerParser();
+		Hiding value = new Hiding();
+		JSONObject tree = AutoSerializerProcessorTest_Hiding_AutoSerializer.INSTANCE.serialize(value);
+		StringWriter out = new StringWriter();
+		AutoSerializerProcessorTest_Hiding_AutoSerializer.INSTANCE.writeJSONString(value, out);
+
+		assertEquals("{\"level\":2,\"name\":\"hiding\",\"active\":true}", tree.toJSONString());
+		assertEquals(tree.toJSONString(), out.toString());
+		assertEquals(tree, JSONValue.parseWithException(out.toString()));
+	}
+
+	@Test
+	public void hiddenFieldIsRead() {
+		JSONObject tree = new JSONObject();
+		tree.put("level", Long.valueOf(7));
+		tree.put("name", "read");
+		Hiding value = AutoSerializerProcessorTest_Hiding_AutoSerializer.INSTANCE.deserialize(tree, Hiding.class);
+
+		assertEquals(7, value.level);
+		assertEquals("read", value.name);
+		assertEquals(1, ((Base) value).level);
+	}
+}
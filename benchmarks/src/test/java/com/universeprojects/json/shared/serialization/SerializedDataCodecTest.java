@@ -0,0 +1,99 @@
+package com.universeprojects.json.shared.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+
+/**
+ * The binary form of SerializedDataList must decode to the same tree as the text form.
+ */
+public class SerializedDataCodecTest {
+
+	/** Serialized by a Serializer that puts doubles and floats into its JSON tree */
+	public static class Point {
+		double x;
+		float y;
+
+		Point(double x, float y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	static {
+		SerializerFactory.registerSerializer(Point.class, new Serializer() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Object serialize(Object element) {
+				Point point = (Point) element;
+				JSONArray path = new JSONArray();
+				path.add(Double.valueOf(point.x / 3));
+				path.add(Float.valueOf(point.y));
+				JSONObject tree = new JSONObject();
+				tree.put("x", Double.valueOf(point.x));
+				tree.put("y", Float.valueOf(point.y));
+				tree.put("path", path);
+				return tree;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> T deserialize(Object element, Class<T> type) {
+				JSONObject tree = (JSONObject) element;
+				return (T) new Point(((Number) tree.get("x")).doubleValue(), ((Number) tree.get("y")).floatValue());
+			}
+		});
+	}
+
+	private static SerializedDataList list(SerializedDataFormat format) {
+		Object[] data = {new Point(1.5, 0.1f), Double.valueOf(0.1), Float.valueOf(2.5f), "D-not-bits", Long.valueOf(3)};
+		SerializedDataList list = new SerializedDataList(null, data, null);
+		list.setFormat(format);
+		return new SerializedDataList(list.getSerializedBytes());
+	}
+
+	@Test
+	public void binaryGivesTheSameTreeAsText() {
+		SerializedDataList text = list(SerializedDataFormat.TEXT);
+		SerializedDataList binary = list(SerializedDataFormat.BINARY);
+
+		assertEquals(SerializedDataFormat.BINARY, binary.getFormat());
+		assertEquals(text.getParsedJSONArray(), binary.getParsedJSONArray());
+		assertEquals(text.getSerializedData(), binary.getSerializedData());
+	}
+
+	@Test
+	public void binaryDeserializesLikeText() {
+		Class<?>[] classes = {Point.class, Double.class, Float.class, String.class, Long.class};
+		Object[] text = list(SerializedDataFormat.TEXT).deserializeData(classes);
+		Object[] binary = list(SerializedDataFormat.BINARY).deserializeData(classes);
+
+		assertEquals(1.5, ((Point) binary[0]).x, 0);
+		assertEquals(0.1f, ((Point) binary[0]).y, 0);
+		for (int i = 1; i < text.length; i++)
+			assertEquals(text[i], binary[i]);
+	}
+
+	@Test
+	public void deepNestingIsRejected() {
+		int depth = 200000;
+		byte[] data = new byte[2 + depth * 2];
+		data[0] = SerializedDataCodec.MAGIC;
+		data[1] = SerializedDataCodec.VERSION;
+		for (int i = 2; i < data.length; i += 2) {
+			data[i] = SerializedDataCodec.ARRAY;
+			data[i + 1] = 1;
+		}
+		data[data.length - 1] = 0;
+		try {
+			new SerializedDataList(data).getParsedJSONArray();
+			fail("Nesting of " + depth + " arrays was accepted");
+		} catch (SerializationException e) {
+			// expected
+		}
+	}
+}
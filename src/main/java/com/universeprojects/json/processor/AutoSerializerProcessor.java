@@ -0,0 +1,695 @@
+package com.universeprojects.json.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates an AutoSerializer for every class annotated with AutoSerialize, and lists the generated classes in
+ * META-INF/services so that SerializerFactory.initAutoSerializers() finds them.
+ * <p>
+ * The generated code reads and writes the fields directly (or through their getters and setters), so it needs
+ * neither reflection nor a lookup per field, and compiles for GWT like any other shared class.
+ * <p>
+ * The processor is not registered in META-INF/services of the library, so it doesn't run in every build that has
+ * the library on its classpath. A build that uses AutoSerialize turns it on explicitly:
+ * <pre>
+ * javac -processorpath json.jar -processor com.universeprojects.json.processor.AutoSerializerProcessor ...
+ * </pre>
+ *
+ * @see com.universeprojects.json.shared.serialization.AutoSerialize
+ */
+@SupportedAnnotationTypes(AutoSerializerProcessor.ANNOTATION)
+public class AutoSerializerProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "com.universeprojects.json.shared.serialization.AutoSerialize";
+    static final String SUFFIX = "_AutoSerializer";
+
+    private static final String SERIALIZATION = "com.universeprojects.json.shared.serialization.";
+    private static final String SERVICE_FILE = "META-INF/services/" + SERIALIZATION + "AutoSerializer";
+
+    /** Generated classes, for the service file */
+    private final Set<String> generated = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!generated.isEmpty())
+                writeServiceFile();
+            return false;
+        }
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null)
+            return false;
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@AutoSerialize only applies to classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            try {
+                Generator generator = new Generator(type);
+                if (generator.collect())
+                    generator.write();
+            } catch (IOException e) {
+                error(type, "Couldn't write the AutoSerializer: " + e);
+            }
+        }
+        return true;
+    }
+
+    private void writeServiceFile() {
+        Set<String> lines = new TreeSet<>();
+        try {
+            // Keep the entries of earlier, incremental compilations
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty())
+                        lines.add(line.trim());
+                }
+            }
+        } catch (IOException e) {
+            // No service file yet
+        }
+        lines.addAll(generated);
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer out = file.openWriter()) {
+                for (String line : lines) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Couldn't write " + SERVICE_FILE + ": " + e);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * How a field is read and assigned from the generated class.
+     */
+    private static final class Property {
+        final String name;
+        final TypeMirror type;
+        final String read;
+        final String assignPrefix;
+        final String assignSuffix;
+
+        Property(String name, TypeMirror type, String read, String assignPrefix, String assignSuffix) {
+            this.name = name;
+            this.type = type;
+            this.read = read;
+            this.assignPrefix = assignPrefix;
+            this.assignSuffix = assignSuffix;
+        }
+
+        String assign(String value) {
+            return assignPrefix + value + assignSuffix;
+        }
+    }
+
+    private enum Kind {
+        INT, LONG, SHORT, BYTE, BOOLEAN, CHAR, DOUBLE, FLOAT, STRING, ENUM, COLLECTION, MAP, OTHER
+    }
+
+    /**
+     * Writes the AutoSerializer of one class.
+     */
+    private final class Generator {
+        private final TypeElement type;
+        private final String packageName;
+        private final String className;
+        private final String typeName;
+        private final Map<String, Property> properties = new LinkedHashMap<>();
+
+        /** Encoding and decoding methods for Lists, Sets and Maps, which need a loop */
+        private final StringBuilder helpers = new StringBuilder();
+        private final Map<String, String> helperNames = new LinkedHashMap<>();
+        private int helperCount;
+
+        Generator(TypeElement type) {
+            this.type = type;
+            PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+            this.packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+            String name = type.getSimpleName().toString();
+            for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement())
+                name = e.getSimpleName() + "_" + name;
+            this.className = name + SUFFIX;
+            this.typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+        }
+
+        /**
+         * Find the fields to serialize, superclass fields first. A field that is hidden by a field of the same name
+         * in a subclass is left out: the subclass field takes its place, so every name is serialized once, and in
+         * the same place, by serialize() and by writeJSONString().
+         *
+         * @return false if the class can't be handled; the reason has been reported.
+         */
+        boolean collect() {
+            boolean ok = true;
+            if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(type, "@AutoSerialize classes can't be abstract");
+                ok = false;
+            }
+            if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+                error(type, "@AutoSerialize classes must be top level or static");
+                ok = false;
+            }
+            if (type.getModifiers().contains(Modifier.PRIVATE) || !hasConstructor()) {
+                error(type, "@AutoSerialize classes need a constructor without arguments that isn't private");
+                ok = false;
+            }
+
+            List<TypeElement> hierarchy = new ArrayList<>();
+            for (TypeElement t = type; t != null && !t.getQualifiedName().toString().startsWith("java."); t = superclass(t))
+                hierarchy.add(0, t);
+
+            for (TypeElement t : hierarchy) {
+                for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                    Set<Modifier> modifiers = field.getModifiers();
+                    if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT))
+                        continue;
+                    Property property = property(field);
+                    if (property == null) {
+                        ok = false;
+                        continue;
+                    }
+                    if (properties.containsKey(property.name)) {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Field " + property.name +
+                            " hides a field of a superclass; only the field of " + t.getSimpleName() + " is serialized", field);
+                    }
+                    properties.put(property.name, property);
+                }
+            }
+            return ok;
+        }
+
+        private boolean hasConstructor() {
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && visible(constructor))
+                    return true;
+            }
+            return false;
+        }
+
+        private TypeElement superclass(TypeElement t) {
+            TypeMirror superclass = t.getSuperclass();
+            if (superclass.getKind() != TypeKind.DECLARED)
+                return null;
+            return (TypeElement) ((DeclaredType) superclass).asElement();
+        }
+
+        private boolean visible(Element member) {
+            Set<Modifier> modifiers = member.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE))
+                return false;
+            if (modifiers.contains(Modifier.PUBLIC))
+                return true;
+            PackageElement pkg = processingEnv.getElementUtils().getPackageOf(member);
+            return pkg.getQualifiedName().toString().equals(packageName);
+        }
+
+        private Property property(VariableElement field) {
+            String name = field.getSimpleName().toString();
+            TypeMirror fieldType = field.asType();
+            if (visible(field) && !field.getModifiers().contains(Modifier.FINAL))
+                return new Property(name, fieldType, "o." + name, "o." + name + " = ", "");
+
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            String getter = null;
+            String setter = null;
+            for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+                if (method.getModifiers().contains(Modifier.STATIC) || !visible(method))
+                    continue;
+                String methodName = method.getSimpleName().toString();
+                int parameters = method.getParameters().size();
+                if (parameters == 0 && (methodName.equals("get" + capitalized) ||
+                    (methodName.equals("is" + capitalized) && fieldType.getKind() == TypeKind.BOOLEAN)))
+                    getter = methodName;
+                else if (parameters == 1 && methodName.equals("set" + capitalized))
+                    setter = methodName;
+            }
+            if (getter == null || setter == null) {
+                error(field, "Field " + name + " is not accessible from the generated " + className +
+                    "; make it visible and non-final, add a getter and setter, or make it transient");
+                return null;
+            }
+            return new Property(name, fieldType, "o." + getter + "()", "o." + setter + "(", ")");
+        }
+
+        private Kind kind(TypeMirror t) {
+            switch (t.getKind()) {
+                case INT:
+                    return Kind.INT;
+                case LONG:
+                    return Kind.LONG;
+                case SHORT:
+                    return Kind.SHORT;
+                case BYTE:
+                    return Kind.BYTE;
+                case BOOLEAN:
+                    return Kind.BOOLEAN;
+                case CHAR:
+                    return Kind.CHAR;
+                case DOUBLE:
+                    return Kind.DOUBLE;
+                case FLOAT:
+                    return Kind.FLOAT;
+                case DECLARED:
+                    break;
+                default:
+                    return Kind.OTHER;
+            }
+            TypeElement element = (TypeElement) ((DeclaredType) t).asElement();
+            if (element.getKind() == ElementKind.ENUM)
+                return Kind.ENUM;
+            switch (element.getQualifiedName().toString()) {
+                case "java.lang.Integer":
+                    return Kind.INT;
+                case "java.lang.Long":
+                    return Kind.LONG;
+                case "java.lang.Short":
+                    return Kind.SHORT;
+                case "java.lang.Byte":
+                    return Kind.BYTE;
+                case "java.lang.Boolean":
+                    return Kind.BOOLEAN;
+                case "java.lang.Character":
+                    return Kind.CHAR;
+                case "java.lang.Double":
+                    return Kind.DOUBLE;
+                case "java.lang.Float":
+                    return Kind.FLOAT;
+                case "java.lang.String":
+                    return Kind.STRING;
+                case "java.util.Collection":
+                case "java.util.List":
+                case "java.util.ArrayList":
+                case "java.util.Set":
+                case "java.util.HashSet":
+                case "java.util.LinkedHashSet":
+                    return Kind.COLLECTION;
+                case "java.util.Map":
+                case "java.util.HashMap":
+                case "java.util.LinkedHashMap":
+                    List<? extends TypeMirror> arguments = ((DeclaredType) t).getTypeArguments();
+                    if (!arguments.isEmpty() && isString(bound(arguments.get(0))))
+                        return Kind.MAP;
+                    return Kind.OTHER;
+                default:
+                    return Kind.OTHER;
+            }
+        }
+
+        private boolean isString(TypeMirror t) {
+            return t.getKind() == TypeKind.DECLARED &&
+                ((TypeElement) ((DeclaredType) t).asElement()).getQualifiedName().contentEquals("java.lang.String");
+        }
+
+        /**
+         * @return The type a type argument can be read as: the upper bound of a wildcard, Object for raw types.
+         */
+        private TypeMirror bound(TypeMirror t) {
+            if (t instanceof WildcardType) {
+                TypeMirror extendsBound = ((WildcardType) t).getExtendsBound();
+                return extendsBound != null ? extendsBound : objectType();
+            }
+            return t;
+        }
+
+        private TypeMirror objectType() {
+            return processingEnv.getElementUtils().getTypeElement("java.lang.Object").asType();
+        }
+
+        private TypeMirror typeArgument(TypeMirror t, int index) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) t).getTypeArguments();
+            return arguments.size() > index ? bound(arguments.get(index)) : objectType();
+        }
+
+        private String erasure(TypeMirror t) {
+            return processingEnv.getTypeUtils().erasure(t).toString();
+        }
+
+        private boolean primitive(TypeMirror t) {
+            return t.getKind().isPrimitive();
+        }
+
+        /**
+         * @return An expression for the JSON value of expr, which has type t.
+         */
+        private String encode(TypeMirror t, String expr) {
+            switch (kind(t)) {
+                case INT:
+                case LONG:
+                case BOOLEAN:
+                case STRING:
+                    return expr;
+                case SHORT:
+                case BYTE:
+                    return primitive(t) ? "(int) " + expr : "(" + expr + " == null ? null : Integer.valueOf(" + expr + ".intValue()))";
+                case CHAR:
+                    return primitive(t) ? "String.valueOf(" + expr + ")" : "(" + expr + " == null ? null : String.valueOf(" + expr + "))";
+                case DOUBLE:
+                    return primitive(t) ? "BasicSerializer.serializeDoubleLongBits(" + expr + ")" :
+                        "(" + expr + " == null ? null : BasicSerializer.serializeDoubleLongBits(" + expr + "))";
+                case FLOAT:
+                    return primitive(t) ? "BasicSerializer.serializeFloatTeIntBits(" + expr + ")" :
+                        "(" + expr + " == null ? null : BasicSerializer.serializeFloatTeIntBits(" + expr + "))";
+                case ENUM:
+                    return "(" + expr + " == null ? null : " + expr + ".name())";
+                case COLLECTION:
+                    return encodeCollection(t) + "(" + expr + ")";
+                case MAP:
+                    return encodeMap(t) + "(" + expr + ")";
+                default:
+                    return "SerializerFactory.serialize(" + expr + ")";
+            }
+        }
+
+        /**
+         * @return An expression of type t for json, which is not null.
+         */
+        private String decode(TypeMirror t, String json) {
+            switch (kind(t)) {
+                case INT:
+                    return "AutoSerializerSupport.toInt(" + json + ")";
+                case LONG:
+                    return "AutoSerializerSupport.toLong(" + json + ")";
+                case SHORT:
+                    return "(short) AutoSerializerSupport.toInt(" + json + ")";
+                case BYTE:
+                    return "(byte) AutoSerializerSupport.toInt(" + json + ")";
+                case BOOLEAN:
+                    return "AutoSerializerSupport.toBoolean(" + json + ")";
+                case CHAR:
+                    return "AutoSerializerSupport.toChar(" + json + ")";
+                case DOUBLE:
+                    return "AutoSerializerSupport.toDouble(" + json + ")";
+                case FLOAT:
+                    return "AutoSerializerSupport.toFloat(" + json + ")";
+                case STRING:
+                    return "(String) " + json;
+                case ENUM:
+                    return erasure(t) + ".valueOf((String) " + json + ")";
+                case COLLECTION:
+                    return decodeCollection(t) + "(" + json + ")";
+                case MAP:
+                    return decodeMap(t) + "(" + json + ")";
+                default:
+                    return "SerializerFactory.deserialize(" + json + ", " + erasure(t) + ".class)";
+            }
+        }
+
+        /**
+         * @return A nullable expression of type t for json, which may be null.
+         */
+        private String decodeNullable(TypeMirror t, String json) {
+            return json + " == null ? null : " + decode(t, json);
+        }
+
+        private String encodeCollection(TypeMirror t) {
+            String name = helperNames.get("encode " + t);
+            if (name != null)
+                return name;
+            name = "encode" + helperCount++;
+            helperNames.put("encode " + t, name);
+            TypeMirror element = typeArgument(t, 0);
+            StringBuilder method = new StringBuilder("\n");
+            method
+                .append("    private static JSONArray ").append(name).append("(").append(t).append(" value) {\n")
+                .append("        if (value == null)\n")
+                .append("            return null;\n")
+                .append("        JSONArray json = new JSONArray();\n")
+                .append("        for (").append(element).append(" item : value)\n")
+                .append("            json.add(").append(encode(element, "item")).append(");\n")
+                .append("        return json;\n")
+                .append("    }\n");
+            helpers.append(method);
+            return name;
+        }
+
+        private String decodeCollection(TypeMirror t) {
+            String name = helperNames.get("decode " + t);
+            if (name != null)
+                return name;
+            name = "decode" + helperCount++;
+            helperNames.put("decode " + t, name);
+            TypeMirror element = typeArgument(t, 0);
+            String erasure = erasure(t);
+            boolean set = erasure.endsWith("Set");
+            String result = (set ? "java.util.LinkedHashSet<" : "java.util.ArrayList<") + element + ">";
+            StringBuilder method = new StringBuilder("\n");
+            method
+                .append("    private static ").append(result).append(" ").append(name).append("(Object json) {\n")
+                .append("        List<?> items = AutoSerializerSupport.toList(json, ").append(erasure).append(".class);\n")
+                .append("        ").append(result).append(" value = new ").append(result).append("(items.size());\n")
+                .append("        for (Object item : items)\n")
+                .append("            value.add(").append(decodeNullable(element, "item")).append(");\n")
+                .append("        return value;\n")
+                .append("    }\n");
+            helpers.append(method);
+            return name;
+        }
+
+        private String encodeMap(TypeMirror t) {
+            String name = helperNames.get("encode " + t);
+            if (name != null)
+                return name;
+            name = "encode" + helperCount++;
+            helperNames.put("encode " + t, name);
+            TypeMirror valueType = typeArgument(t, 1);
+            List<? extends TypeMirror> arguments = ((DeclaredType) t).getTypeArguments();
+            StringBuilder method = new StringBuilder("\n");
+            method
+                .append("    private static JSONObject ").append(name).append("(").append(t).append(" value) {\n")
+                .append("        if (value == null)\n")
+                .append("            return null;\n")
+                .append("        JSONObject json = new JSONObject();\n")
+                .append("        for (Map.Entry<").append(arguments.get(0)).append(", ").append(arguments.get(1))
+                .append("> entry : value.entrySet()) {\n")
+                .append("            ").append(valueType).append(" item = entry.getValue();\n")
+                .append("            json.put(entry.getKey(), ").append(encode(valueType, "item")).append(");\n")
+                .append("        }\n")
+                .append("        return json;\n")
+                .append("    }\n");
+            helpers.append(method);
+            return name;
+        }
+
+        private String decodeMap(TypeMirror t) {
+            String name = helperNames.get("decode " + t);
+            if (name != null)
+                return name;
+            name = "decode" + helperCount++;
+            helperNames.put("decode " + t, name);
+            TypeMirror valueType = typeArgument(t, 1);
+            String result = "java.util.LinkedHashMap<String, " + valueType + ">";
+            StringBuilder method = new StringBuilder("\n");
+            method
+                .append("    private static ").append(result).append(" ").append(name).append("(Object json) {\n")
+                .append("        ").append(result).append(" value = new ").append(result).append("();\n")
+                .append("        for (Map.Entry<?, ?> entry : AutoSerializerSupport.toMap(json, ").append(erasure(t))
+                .append(".class).entrySet()) {\n")
+                .append("            Object item = entry.getValue();\n")
+                .append("            value.put((String) entry.getKey(), ").append(decodeNullable(valueType, "item")).append(");\n")
+                .append("        }\n")
+                .append("        return value;\n")
+                .append("    }\n");
+            helpers.append(method);
+            return name;
+        }
+
+        /**
+         * Statements that write the value of expr, which has type t, as JSON text to out.
+         */
+        private void writeValue(StringBuilder code, TypeMirror t, String expr, String indent) {
+            Kind kind = kind(t);
+            if (kind == Kind.COLLECTION || kind == Kind.MAP || kind == Kind.OTHER) {
+                code.append(indent).append("JSONValue.writeJSONString(").append(encode(t, expr)).append(", out, null);\n");
+                return;
+            }
+            String value = expr;
+            String inner = indent;
+            if (!primitive(t)) {
+                code.append(indent).append("{\n");
+                inner = indent + "    ";
+                code.append(inner).append(t).append(" value = ").append(expr).append(";\n");
+                code.append(inner).append("if (value == null)\n");
+                code.append(inner).append("    out.write(\"null\");\n");
+                code.append(inner).append("else\n");
+                inner = inner + "    ";
+                value = "value";
+            }
+            switch (kind) {
+                case INT:
+                case LONG:
+                case SHORT:
+                case BYTE:
+                    code.append(inner).append("out.write(String.valueOf(").append(value).append("));\n");
+                    break;
+                case BOOLEAN:
+                    code.append(inner).append("out.write(").append(value).append(" ? \"true\" : \"false\");\n");
+                    break;
+                case CHAR:
+                    code.append(inner).append("AutoSerializerSupport.writeString(String.valueOf(").append(value).append("), out);\n");
+                    break;
+                case STRING:
+                    code.append(inner).append("AutoSerializerSupport.writeString(").append(value).append(", out);\n");
+                    break;
+                case DOUBLE:
+                    code.append(inner).append("AutoSerializerSupport.writeDouble(").append(value).append(", out);\n");
+                    break;
+                case FLOAT:
+                    code.append(inner).append("AutoSerializerSupport.writeFloat(").append(value).append(", out);\n");
+                    break;
+                case ENUM:
+                    code.append(inner).append("AutoSerializerSupport.writeName(").append(value).append(", out);\n");
+                    break;
+                default:
+                    throw new IllegalStateException(kind.toString());
+            }
+            if (!primitive(t))
+                code.append(indent).append("}\n");
+        }
+
+        void write() throws IOException {
+            StringBuilder serialize = new StringBuilder();
+            StringBuilder deserialize = new StringBuilder();
+            StringBuilder stream = new StringBuilder();
+            String separator = "{";
+            for (Property property : properties.values()) {
+                String key = javaString(property.name);
+                serialize.append("        json.put(").append(key).append(", ").append(encode(property.type, property.read)).append(");\n");
+
+                deserialize.append("        value = json.get(").append(key).append(");\n");
+                deserialize.append("        if (value != null)\n");
+                deserialize.append("            ").append(property.assign(decode(property.type, "value"))).append(";\n");
+                if (!primitive(property.type)) {
+                    deserialize.append("        else if (json.containsKey(").append(key).append("))\n");
+                    deserialize.append("            ").append(property.assign("null")).append(";\n");
+                }
+
+                stream.append("        out.write(").append(javaString(separator + "\"" + property.name + "\":")).append(");\n");
+                writeValue(stream, property.type, property.read, "        ");
+                separator = ",";
+            }
+            stream.append("        out.write(").append(javaString(properties.isEmpty() ? "{}" : "}")).append(");\n");
+
+            String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer out = file.openWriter()) {
+                if (!packageName.isEmpty())
+                    out.write("package " + packageName + ";\n\n");
+                out.write("import java.io.IOException;\n");
+                out.write("import java.io.Writer;\n");
+                out.write("import java.util.List;\n");
+                out.write("import java.util.Map;\n\n");
+                out.write("import com.universeprojects.json.shared.JSONArray;\n");
+                out.write("import com.universeprojects.json.shared.JSONObject;\n");
+                out.write("import com.universeprojects.json.shared.JSONValue;\n");
+                out.write("import " + SERIALIZATION + "AutoSerializer;\n");
+                out.write("import " + SERIALIZATION + "AutoSerializerSupport;\n");
+                out.write("import " + SERIALIZATION + "BasicSerializer;\n");
+                out.write("import " + SERIALIZATION + "SerializerFactory;\n");
+                out.write("import " + SERIALIZATION + "StreamingSerializer;\n\n");
+                out.write("/**\n * Generated by " + AutoSerializerProcessor.class.getName() + " for " + typeName + ". Do not edit.\n */\n");
+                out.write("@SuppressWarnings({\"unchecked\", \"rawtypes\", \"unused\"})\n");
+                out.write("public final class " + className + " implements AutoSerializer, StreamingSerializer {\n\n");
+                out.write("    public static final " + className + " INSTANCE = new " + className + "();\n\n");
+                out.write("    @Override\n");
+                out.write("    public void initializeSerializer() {\n");
+                out.write("        SerializerFactory.registerSerializer(" + typeName + ".class, this);\n");
+                out.write("    }\n\n");
+                out.write("    @Override\n");
+                out.write("    public JSONObject serialize(Object element) {\n");
+                out.write("        if (element == null)\n");
+                out.write("            return null;\n");
+                out.write("        " + typeName + " o = (" + typeName + ") element;\n");
+                out.write("        JSONObject json = new JSONObject();\n");
+                out.write(serialize.toString());
+                out.write("        return json;\n");
+                out.write("    }\n\n");
+                out.write("    @Override\n");
+                out.write("    public <T> T deserialize(Object element, Class<T> type) {\n");
+                out.write("        if (element == null)\n");
+                out.write("            return null;\n");
+                out.write("        Map<?, ?> json = AutoSerializerSupport.toMap(element, " + typeName + ".class);\n");
+                out.write("        " + typeName + " o = new " + typeName + "();\n");
+                out.write("        Object value;\n");
+                out.write(deserialize.toString());
+                out.write("        return (T) o;\n");
+                out.write("    }\n\n");
+                out.write("    @Override\n");
+                out.write("    public void writeJSONString(Object element, Writer out) throws IOException {\n");
+                out.write("        if (element == null) {\n");
+                out.write("            out.write(\"null\");\n");
+                out.write("            return;\n");
+                out.write("        }\n");
+                out.write("        " + typeName + " o = (" + typeName + ") element;\n");
+                out.write(stream.toString());
+                out.write("    }\n");
+                out.write(helpers.toString());
+                out.write("}\n");
+            }
+            generated.add(qualifiedName);
+        }
+    }
+
+    /**
+     * @return A Java string literal for s.
+     */
+    static String javaString(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"' || ch == '\\')
+                sb.append('\\').append(ch);
+            else if (ch < 0x20 || ch > 0x7e)
+                sb.append(String.format("\\u%04x", (int) ch));
+            else
+                sb.append(ch);
+        }
+        return sb.append('"').toString();
+    }
+}
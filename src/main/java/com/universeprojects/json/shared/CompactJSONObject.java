@@ -0,0 +1,238 @@
+package com.universeprojects.json.shared;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read-only JSON object that keeps its keys and values in two flat arrays, instead of the hash table and
+ * linked entry per field of JSONObject. Meant for parsed documents that are kept in memory and only read.
+ * <p>
+ * Entries are added with put() while the object is built, e.g. by the parser through CompactContainerFactory.
+ * A repeated key keeps its first position and takes the new value, like in JSONObject. The first read seals the
+ * object: the arrays are trimmed, and from then on every modification throws UnsupportedOperationException.
+ * Lookups scan the keys of small objects; larger objects get an open-addressing index of ints.
+ * <p>
+ * Like JSONObject, a CompactJSONObject is not thread-safe while it is built. Once sealed it doesn't change any
+ * more, so it can be read from several threads after it has been published safely.
+ *
+ * @see com.universeprojects.json.shared.parser.CompactContainerFactory
+ */
+public class CompactJSONObject extends AbstractMap<Object,Object> implements JSONAware, JSONStreamAware {
+
+	/** Objects up to this size are looked up by scanning the keys */
+	private static final int MAX_LINEAR_KEYS = 8;
+
+	private static final Object[] EMPTY = new Object[0];
+
+	private Object[] keys = EMPTY;
+	private Object[] values = EMPTY;
+	private int size;
+
+	/** Entry position + 1 for each slot, 0 for empty slots; null for small objects */
+	private int[] index;
+
+	private volatile boolean sealed;
+
+	public CompactJSONObject() {
+	}
+
+	/**
+	 * A sealed copy of the map.
+	 */
+	public CompactJSONObject(Map<?, ?> m) {
+		keys = new Object[m.size()];
+		values = new Object[m.size()];
+		for(Map.Entry<?, ?> entry : m.entrySet())
+			put(entry.getKey(), entry.getValue());
+		seal();
+	}
+
+	/**
+	 * Add an entry, or replace the value of a key, while the object is being built.
+	 *
+	 * @return The previous value of the key, or null if it had none.
+	 * @throws UnsupportedOperationException once the object has been read.
+	 */
+	@Override
+	public Object put(Object key, Object value) {
+		if(sealed)
+			throw new UnsupportedOperationException("CompactJSONObject is read-only");
+		int i = indexOf(key);
+		if(i >= 0){
+			Object previous = values[i];
+			values[i] = value;
+			return previous;
+		}
+		if(size == keys.length){
+			int capacity = size < 4 ? 4 : size * 2;
+			keys = copyOf(keys, capacity);
+			values = copyOf(values, capacity);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		if(index != null && size * 2 <= index.length)
+			addToIndex(index, size - 1);
+		else if(size > MAX_LINEAR_KEYS)
+			index = buildIndex();
+		return null;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if(!sealed)
+			seal();
+		int i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if(!sealed)
+			seal();
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		if(!sealed)
+			seal();
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		if(!sealed)
+			seal();
+		return new AbstractSet<Map.Entry<Object, Object>>() {
+			@Override
+			public Iterator<Map.Entry<Object, Object>> iterator() {
+				return new Iterator<Map.Entry<Object, Object>>() {
+					private int next;
+
+					@Override
+					public boolean hasNext() {
+						return next < size;
+					}
+
+					@Override
+					public Map.Entry<Object, Object> next() {
+						if(next >= size)
+							throw new NoSuchElementException();
+						Map.Entry<Object, Object> entry = new AbstractMap.SimpleImmutableEntry<Object, Object>(keys[next], values[next]);
+						next++;
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException("CompactJSONObject is read-only");
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	@Override
+	public void writeJSONString(Writer out, String indent) throws IOException {
+		JSONObject.writeJSONString(this, out, indent);
+	}
+
+	@Override
+	public String toJSONString() {
+		return JSONObject.toJSONString(this);
+	}
+
+	@Override
+	public String toString() {
+		return toJSONString();
+	}
+
+	private int indexOf(Object key) {
+		if(index == null){
+			for(int i=0;i<size;i++){
+				if(key == null ? keys[i] == null : key.equals(keys[i]))
+					return i;
+			}
+			return -1;
+		}
+		int mask = index.length - 1;
+		for(int slot=hash(key) & mask;;slot=(slot + 1) & mask){
+			int position = index[slot];
+			if(position == 0)
+				return -1;
+			Object candidate = keys[position - 1];
+			if(key == null ? candidate == null : key.equals(candidate))
+				return position - 1;
+		}
+	}
+
+	/**
+	 * Trim the arrays, and the index to the final size.
+	 */
+	private synchronized void seal() {
+		if(sealed)
+			return;
+		if(size != keys.length){
+			keys = copyOf(keys, size);
+			values = copyOf(values, size);
+		}
+		if(index != null && index.length > indexCapacity(size))
+			index = buildIndex();
+		sealed = true;
+	}
+
+	/**
+	 * @return An index of the current entries, at most half full.
+	 */
+	private int[] buildIndex() {
+		int[] table = new int[indexCapacity(size)];
+		for(int i=0;i<size;i++)
+			addToIndex(table, i);
+		return table;
+	}
+
+	private static int indexCapacity(int size) {
+		return Integer.highestOneBit(size * 2 - 1) << 1;
+	}
+
+	/**
+	 * Add the entry at position i, whose key is not in the table yet.
+	 */
+	private void addToIndex(int[] table, int i) {
+		int mask = table.length - 1;
+		int slot = hash(keys[i]) & mask;
+		while(table[slot] != 0)
+			slot = (slot + 1) & mask;
+		table[slot] = i + 1;
+	}
+
+	private static int hash(Object key) {
+		if(key == null)
+			return 0;
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static Object[] copyOf(Object[] array, int length) {
+		Object[] result = length == 0 ? EMPTY : new Object[length];
+		System.arraycopy(array, 0, result, 0, Math.min(array.length, length));
+		return result;
+	}
+}
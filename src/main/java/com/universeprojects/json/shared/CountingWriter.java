@@ -0,0 +1,51 @@
+package com.universeprojects.json.shared;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Passes the output on to another Writer and counts its chars, so that JSONValue.writeJSONString() can report the
+ * length of a value written to a Writer that doesn't keep track of it. Only used while a JSONListener is set.
+ */
+class CountingWriter extends JSONWriter {
+
+	private final Writer out;
+	private long length;
+
+	CountingWriter(Writer out) {
+		this.out = out;
+	}
+
+	@Override
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		out.write(c);
+		length++;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		out.write(cbuf, off, len);
+		length += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		out.write(str, off, len);
+		length += len;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
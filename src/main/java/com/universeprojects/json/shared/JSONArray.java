@@ -60,7 +60,7 @@ public class JSONArray extends ArrayList<Object> implements List<Object>, JSONAw
 				continue;
 			}
 
-			JSONValue.writeJSONString(value, out, innerIndent);
+			JSONValue.writeValue(value, out, innerIndent);
 		}
 		if(indent != null) {
 			out.write("\n");
@@ -88,7 +88,7 @@ com.universeprojects.json.sharedist to JSON text. The result is a JSON array.
 			return "null";
 
 		boolean first = true;
-		StringBuffer sb = new StringBuffer();
+		StringBuilder sb = new StringBuilder();
 		Iterator iter=list.iterator();
 
 		sb.append('[');
@@ -103,7 +103,7 @@ com.universeprojects.json.sharedist to JSON text. The result is a JSON array.
 				sb.append("null");
 				continue;
 			}
-			sb.append(JSONValue.toJSONString(value));
+			sb.append(JSONValue.valueToString(value));
 		}
 		sb.append(']');
 		return sb.toString();
@@ -70,11 +70,9 @@ public class JSONObject extends LinkedHashMap<Object,Object> implements Map<Obje
 			}
 			Map.Entry entry=(Map.Entry)iter.next();
 
-			out.write('\"');
-			out.write(escape(String.valueOf(entry.getKey())));
-			out.write('\"');
+			JSONValue.writeQuoted(String.valueOf(entry.getKey()), out);
 			out.write(':');
-			JSONValue.writeJSONString(entry.getValue(), out, innerIndent);
+			JSONValue.writeValue(entry.getValue(), out, innerIndent);
 		}
 		if(indent != null) {
 			out.write("\n");
@@ -101,7 +99,7 @@ public class JSONObject extends LinkedHashMap<Object,Object> implements Map<Obje
 		if(map == null)
 			return "null";
 
-		StringBuffer sb = new StringBuffer();
+		StringBuilder sb = new StringBuilder();
 		boolean first = true;
 		Iterator iter=map.entrySet().iterator();
 
@@ -143,7 +141,7 @@ public class JSONObject extends LinkedHashMap<Object,Object> implements Map<Obje
 		return json;
 	}
 
-	private static String toJSONString(String key,Object value, StringBuffer sb){
+	private static String toJSONString(String key,Object value, StringBuilder sb){
 		sb.append('\"');
 		if(key == null)
 			sb.append("null");
@@ -151,7 +149,7 @@ public class JSONObject extends LinkedHashMap<Object,Object> implements Map<Obje
 			JSONValue.escape(key, sb);
 		sb.append('\"').append(':');
 
-		sb.append(JSONValue.toJSONString(value));
+		sb.append(JSONValue.valueToString(value));
 
 		return sb.toString();
 	}
@@ -162,7 +160,7 @@ public class JSONObject extends LinkedHashMap<Object,Object> implements Map<Obje
 	}
 
 	public static String toString(String key,Object value){
-		StringBuffer sb = new StringBuffer();
+		StringBuilder sb = new StringBuilder();
 		toJSONString(key, value, sb);
 		return sb.toString();
 	}
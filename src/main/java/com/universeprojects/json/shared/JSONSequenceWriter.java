@@ -0,0 +1,84 @@
+package com.universeprojects.json.shared;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writes newline-delimited JSON (NDJSON): every value on its own line, for event logs and replay files.
+ * <p>
+ * The target is flushed after every flushInterval values rather than after each one, so a busy log does not pay
+ * for a flush per event; flush() forces it. Values are written through the writer's buffer as they come, so the
+ * memory used does not depend on how many are written.
+ * <p>
+ * Please note that JSONSequenceWriter is NOT thread-safe.
+ *
+ * @see com.universeprojects.json.shared.parser.JSONSequenceReader
+ */
+@GwtIncompatible
+public class JSONSequenceWriter implements Closeable, Flushable {
+
+	public static final int DEFAULT_FLUSH_INTERVAL = 256;
+
+	private final Writer out;
+	private final int flushInterval;
+	private int unflushed;
+	private long count;
+
+	/**
+	 * @param out - Receives the values UTF-8 encoded, through a JSONUtf8Writer.
+	 */
+	public JSONSequenceWriter(OutputStream out) {
+		this(new JSONUtf8Writer(out), DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public JSONSequenceWriter(Writer out) {
+		this(out, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * @param flushInterval - Number of values after which the target is flushed; 0 leaves flushing to the caller.
+	 */
+	public JSONSequenceWriter(Writer out, int flushInterval) {
+		if(flushInterval < 0)
+			throw new IllegalArgumentException("Negative flush interval: " + flushInterval);
+		this.out = out;
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Write a value and the newline after it. The value is written without indentation; strings escape their
+	 * line breaks, so it always takes one line.
+	 */
+	public void write(Object value) throws IOException {
+		JSONValue.writeJSONString(value, out, null);
+		out.write('\n');
+		count++;
+		if(flushInterval > 0 && ++unflushed >= flushInterval)
+			flush();
+	}
+
+	/**
+	 * @return The number of values written so far.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		unflushed = 0;
+		out.flush();
+	}
+
+	/**
+	 * Flushes and closes the target.
+	 */
+	@Override
+	public void close() throws IOException {
+		unflushed = 0;
+		out.close();
+	}
+}
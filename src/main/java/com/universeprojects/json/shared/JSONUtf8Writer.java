@@ -0,0 +1,293 @@
+package com.universeprojects.json.shared;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writer that encodes JSON text to UTF-8 into its own byte buffer and flushes it to an OutputStream or a
+ * WritableByteChannel. It replaces an OutputStreamWriter for response output.
+ * <p>
+ * The JSONWriter hooks escape strings and keys and format integers straight into the byte buffer, without
+ * creating an escaped copy of every string. It is still a plain Writer, so JSONStreamAware implementations can
+ * write to it as usual.
+ * <p>
+ * The writer can be reused for another target with reset(), which keeps the buffer.
+ * Please note that JSONUtf8Writer is NOT thread-safe.
+ */
+@GwtIncompatible
+public class JSONUtf8Writer extends JSONWriter {
+
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/** Longest encoding of a single char: \\uXXXX */
+	private static final int MAX_CHAR_BYTES = 6;
+
+	/** Longest decimal long: -9223372036854775808 */
+	private static final int MAX_LONG_BYTES = 20;
+
+	private static final byte[] HEX = {'0','1','2','3','4','5','6','7','8','9','A','B','C','D','E','F'};
+
+	private OutputStream out;
+	private WritableByteChannel channel;
+
+	private final byte[] buf;
+	private final ByteBuffer byteBuffer;
+	private int count;
+	/** Bytes flushed since the writer was created or reset */
+	private long flushed;
+
+	/** High surrogate from the end of the last write, waiting for its low surrogate */
+	private char pendingHighSurrogate;
+
+	public JSONUtf8Writer(OutputStream out) {
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	public JSONUtf8Writer(OutputStream out, int bufferSize) {
+		this(bufferSize);
+		this.out = out;
+	}
+
+	public JSONUtf8Writer(WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param channel - A blocking channel; every flush writes the whole buffer.
+	 */
+	public JSONUtf8Writer(WritableByteChannel channel, int bufferSize) {
+		this(bufferSize);
+		this.channel = channel;
+	}
+
+	private JSONUtf8Writer(int bufferSize) {
+		if(bufferSize < MAX_LONG_BYTES)
+			throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+		this.buf = new byte[bufferSize];
+		this.byteBuffer = ByteBuffer.wrap(buf);
+	}
+
+	/**
+	 * Direct the writer to a new stream, discarding anything not flushed yet.
+	 */
+	public void reset(OutputStream out) {
+		this.out = out;
+		this.channel = null;
+		count = 0;
+		flushed = 0;
+		pendingHighSurrogate = 0;
+	}
+
+	/**
+	 * Direct the writer to a new channel, discarding anything not flushed yet.
+	 */
+	public void reset(WritableByteChannel channel) {
+		this.out = null;
+		this.channel = channel;
+		count = 0;
+		flushed = 0;
+		pendingHighSurrogate = 0;
+	}
+
+	@Override
+	public void writeQuoted(String s) throws IOException {
+		write('"');
+		int len = s.length();
+		for(int i=0;i<len;i++){
+			if(count + MAX_CHAR_BYTES > buf.length)
+				flushBuffer();
+			char ch = s.charAt(i);
+			if(ch < 0x80){
+				int escape = JSONValue.ESCAPES[ch];
+				if(escape == 0){
+					buf[count++] = (byte)ch;
+				}
+				else if(escape > 0){
+					buf[count++] = '\\';
+					buf[count++] = (byte)escape;
+				}
+				else{
+					writeUnicodeEscape(ch);
+				}
+			}
+			else if(JSONValue.isUnicodeEscaped(ch)){
+				writeUnicodeEscape(ch);
+			}
+			else if(Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(s.charAt(i+1))){
+				encodeSupplementary(Character.toCodePoint(ch, s.charAt(++i)));
+			}
+			else{
+				encodeBmp(ch);
+			}
+		}
+		if(count + 1 > buf.length)
+			flushBuffer();
+		buf[count++] = '"';
+	}
+
+	/**
+	 * Write the decimal representation of the value without creating a String.
+	 */
+	@Override
+	public void writeLong(long value) throws IOException {
+		if(count + MAX_LONG_BYTES > buf.length)
+			flushBuffer();
+		if(value == Long.MIN_VALUE){
+			write("-9223372036854775808");
+			return;
+		}
+		if(value < 0){
+			buf[count++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for(long v=value/10;v>0;v/=10)
+			digits++;
+		int p = count + digits;
+		count = p;
+		do{
+			buf[--p] = (byte)('0' + (value % 10));
+			value /= 10;
+		}while(value > 0);
+	}
+
+	/**
+	 * @return The bytes written since the writer was created or reset, flushed or not.
+	 */
+	@Override
+	public long getLength() {
+		return flushed + count;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		if(count + MAX_CHAR_BYTES > buf.length)
+			flushBuffer();
+		writeChar((char)c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		int end = off + len;
+		for(int i=off;i<end;i++){
+			if(count + MAX_CHAR_BYTES > buf.length)
+				flushBuffer();
+			char ch = cbuf[i];
+			if(ch < 0x80 && pendingHighSurrogate == 0)
+				buf[count++] = (byte)ch;
+			else
+				writeChar(ch);
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		int end = off + len;
+		for(int i=off;i<end;i++){
+			if(count + MAX_CHAR_BYTES > buf.length)
+				flushBuffer();
+			char ch = str.charAt(i);
+			if(ch < 0x80 && pendingHighSurrogate == 0)
+				buf[count++] = (byte)ch;
+			else
+				writeChar(ch);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		if(out != null)
+			out.flush();
+	}
+
+	/**
+	 * Flushes and closes the underlying stream or channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(pendingHighSurrogate != 0){
+			pendingHighSurrogate = 0;
+			write('?');
+		}
+		flush();
+		if(out != null)
+			out.close();
+		if(channel != null)
+			channel.close();
+	}
+
+	/**
+	 * Encode a single char, pairing surrogates across calls. Needs room for MAX_CHAR_BYTES.
+	 */
+	private void writeChar(char ch) {
+		if(pendingHighSurrogate != 0){
+			char high = pendingHighSurrogate;
+			pendingHighSurrogate = 0;
+			if(Character.isLowSurrogate(ch)){
+				encodeSupplementary(Character.toCodePoint(high, ch));
+				return;
+			}
+			// Unpaired surrogate, same replacement as OutputStreamWriter
+			buf[count++] = '?';
+		}
+		if(ch < 0x80)
+			buf[count++] = (byte)ch;
+		else if(Character.isHighSurrogate(ch))
+			pendingHighSurrogate = ch;
+		else
+			encodeBmp(ch);
+	}
+
+	private void encodeBmp(char ch) {
+		if(ch < 0x800){
+			buf[count++] = (byte)(0xC0 | (ch >> 6));
+			buf[count++] = (byte)(0x80 | (ch & 0x3F));
+		}
+		else if(Character.isSurrogate(ch)){
+			buf[count++] = '?';
+		}
+		else{
+			buf[count++] = (byte)(0xE0 | (ch >> 12));
+			buf[count++] = (byte)(0x80 | ((ch >> 6) & 0x3F));
+			buf[count++] = (byte)(0x80 | (ch & 0x3F));
+		}
+	}
+
+	private void encodeSupplementary(int cp) {
+		buf[count++] = (byte)(0xF0 | (cp >> 18));
+		buf[count++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+		buf[count++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+		buf[count++] = (byte)(0x80 | (cp & 0x3F));
+	}
+
+	private void writeUnicodeEscape(char ch) {
+		buf[count++] = '\\';
+		buf[count++] = 'u';
+		buf[count++] = HEX[(ch >> 12) & 0xF];
+		buf[count++] = HEX[(ch >> 8) & 0xF];
+		buf[count++] = HEX[(ch >> 4) & 0xF];
+		buf[count++] = HEX[ch & 0xF];
+	}
+
+	private void flushBuffer() throws IOException {
+		if(count == 0)
+			return;
+		if(out != null){
+			out.write(buf, 0, count);
+		}
+		else if(channel != null){
+			byteBuffer.clear();
+			byteBuffer.limit(count);
+			while(byteBuffer.hasRemaining())
+				channel.write(byteBuffer);
+		}
+		else{
+			throw new IOException("Writer has no output");
+		}
+		flushed += count;
+		count = 0;
+	}
+}
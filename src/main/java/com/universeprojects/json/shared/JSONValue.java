@@ -5,12 +5,20 @@
 package com.universeprojects.json.shared;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import com.universeprojects.json.shared.parser.BatchParser;
 import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.JSONPointerExtractor;
+import com.universeprojects.json.shared.parser.JSONServerParser;
+import com.universeprojects.json.shared.instrument.JSONInstrumentation;
+import com.universeprojects.json.shared.instrument.JSONListener;
 import com.universeprojects.json.shared.parser.ParseException;
 
 
@@ -41,7 +49,7 @@ public class JSONValue {
 	 */
 	public static Object parse(Reader in){
 		try{
-			return JSONParserFactory.getServerParser().parse(in);
+			return JSONParserFactory.parse(in);
 		}
 		catch(Exception e){
 			return null;
@@ -50,7 +58,39 @@ public class JSONValue {
 
 	public static Object parse(String s){
 		try{
-			return JSONParserFactory.getServerParser().parse(s);
+			return JSONParserFactory.parse(s);
+		}
+		catch(Exception e){
+			return null;
+		}
+	}
+
+	/**
+	 * Parse UTF-8 encoded JSON text without decoding it to chars first.
+	 * Please use parseWithException() if you don't want to ignore the exception.
+	 * 
+	 * @see com.universeprojects.json.shared.parser.JSONByteParser#parse(byte[])
+	 * @see #parseWithException(byte[])
+	 */
+	@GwtIncompatible
+	public static Object parse(byte[] in){
+		try{
+			return JSONParserFactory.parse(in);
+		}
+		catch(Exception e){
+			return null;
+		}
+	}
+
+	/**
+	 * Parse the remaining UTF-8 encoded bytes of the buffer. The position of the buffer is not changed.
+	 * 
+	 * @see com.universeprojects.json.shared.parser.JSONByteParser#parse(ByteBuffer)
+	 */
+	@GwtIncompatible
+	public static Object parse(ByteBuffer in){
+		try{
+			return JSONParserFactory.parse(in);
 		}
 		catch(Exception e){
 			return null;
@@ -75,11 +115,108 @@ public class JSONValue {
 	 * @throws ParseException
 	 */
 	public static Object parseWithException(Reader in) throws IOException, ParseException{
-		return JSONParserFactory.getServerParser().parse(in);
+		return JSONParserFactory.parse(in);
 	}
 
 	public static Object parseWithException(String s) throws ParseException{
-		return JSONParserFactory.getParser().parse(s);
+		return JSONParserFactory.parse(s);
+	}
+
+	@GwtIncompatible
+	public static Object parseWithException(byte[] in) throws ParseException{
+		return JSONParserFactory.parse(in);
+	}
+
+	@GwtIncompatible
+	public static Object parseWithException(ByteBuffer in) throws ParseException{
+		return JSONParserFactory.parse(in);
+	}
+
+	/**
+	 * Parse many independent documents in parallel on the common ForkJoinPool.
+	 *
+	 * @see BatchParser#parseAll(List)
+	 *
+	 * @param documents
+	 * @return The values in the order of the documents, null for a document that does not parse; its error is
+	 * 	available from the results.
+	 */
+	@GwtIncompatible
+	public static BatchParser.Results parseAll(List<? extends CharSequence> documents){
+		return new BatchParser().parseAll(documents);
+	}
+
+	/**
+	 * Parse the documents of the iterator in parallel on the common ForkJoinPool, handing the values to the handler
+	 * in input order.
+	 *
+	 * @see BatchParser#parseAll(Iterator, BatchParser.ResultHandler)
+	 */
+	@GwtIncompatible
+	public static void parseAll(Iterator<? extends CharSequence> documents, BatchParser.ResultHandler handler){
+		new BatchParser().parseAll(documents, handler);
+	}
+
+	/**
+	 * Parse JSON text, indexing objects instead of parsing them completely. Values of an object are parsed
+	 * when they are read, and an object that is not modified is written back as the original text.
+	 * 
+	 * @see LazyJSONObject
+	 * 
+	 * @param s
+	 * @return A LazyJSONObject if the text is an object, otherwise the same as parseWithException(String).
+	 * 
+	 * @throws ParseException
+	 */
+	@GwtIncompatible
+	public static Object parseLazy(String s) throws ParseException{
+		for(int i=0;i<s.length();i++){
+			char ch = s.charAt(i);
+			if(ch == '{')
+				return new LazyJSONObject(s);
+			if(ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r')
+				break;
+		}
+		return JSONParserFactory.parse(s);
+	}
+
+	/**
+	 * Read the values addressed by JSON Pointers (RFC 6901) from the input without building the whole tree.
+	 * Parsing stops once all pointers are resolved.
+	 * 
+	 * @see JSONPointerExtractor
+	 * 
+	 * @param in
+	 * @param pointers - e.g. "/character/inventory/3/name"; "" addresses the whole document.
+	 * @return The value of each pointer, in order; null for pointers that don't exist in the document.
+	 * 
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	@GwtIncompatible
+	public static Object[] extract(Reader in, String... pointers) throws IOException, ParseException{
+		JSONPointerExtractor extractor = new JSONPointerExtractor(pointers);
+		JSONServerParser parser = JSONParserFactory.acquireServerParser();
+		try{
+			parser.parse(in, extractor);
+		}
+		finally{
+			JSONParserFactory.releaseServerParser(parser);
+		}
+		return extractor.getResults();
+	}
+
+	@GwtIncompatible
+	public static Object[] extract(String s, String... pointers) throws ParseException{
+		JSONPointerExtractor extractor = new JSONPointerExtractor(pointers);
+		JSONServerParser parser = JSONParserFactory.acquireServerParser();
+		try{
+			parser.parse(s, extractor);
+		}
+		finally{
+			JSONParserFactory.releaseServerParser(parser);
+		}
+		return extractor.getResults();
 	}
 
 	/**
@@ -97,15 +234,38 @@ com.universeprojects.json.sharedhe first parameter, use JSONObject.writeJSONStri
 	 * @param writer
 	 */
 	public static void writeJSONString(Object value, Writer out, final String indent) throws IOException {
+		JSONListener listener = JSONInstrumentation.listener();
+		if(listener == null){
+			writeValue(value, out, indent);
+			return;
+		}
+		long start = JSONInstrumentation.now();
+		long length;
+		if(out instanceof JSONWriter && ((JSONWriter)out).getLength() >= 0){
+			JSONWriter writer = (JSONWriter)out;
+			long before = writer.getLength();
+			writeValue(value, writer, indent);
+			length = writer.getLength() - before;
+		}
+		else{
+			CountingWriter writer = new CountingWriter(out);
+			writeValue(value, writer, indent);
+			length = writer.getLength();
+		}
+		listener.written((int)Math.min(length, Integer.MAX_VALUE), JSONInstrumentation.now() - start);
+	}
+
+	/**
+	 * writeJSONString() without instrumentation, for the values nested in the one being written.
+	 */
+	static void writeValue(Object value, Writer out, final String indent) throws IOException {
 		if(value == null){
 			out.write("null");
 			return;
 		}
 
 		if(value instanceof String){
-			out.write('\"');
-			out.write(escape((String)value));
-			out.write('\"');
+			writeQuoted((String)value, out);
 			return;
 		}
 
@@ -126,6 +286,10 @@ com.universeprojects.json.sharedhe first parameter, use JSONObject.writeJSONStri
 		}
 
 		if(value instanceof Number){
+			if(out instanceof JSONWriter && (value instanceof Long || value instanceof Integer)){
+				((JSONWriter)out).writeLong(((Number)value).longValue());
+				return;
+			}
 			out.write(value.toString());
 			return;
 		}
@@ -158,6 +322,19 @@ com.universeprojects.json.sharedhe first parameter, use JSONObject.writeJSONStri
 		out.write(value.toString());
 	}
 
+	/**
+	 * Encode an object into UTF-8 JSON text and write it to the stream. The stream is flushed but not closed.
+	 * 
+	 * @see JSONUtf8Writer
+	 * @see #writeJSONString(Object, Writer, String)
+	 */
+	@GwtIncompatible
+	public static void writeJSONString(Object value, OutputStream out, final String indent) throws IOException {
+		JSONUtf8Writer writer = new JSONUtf8Writer(out);
+		writeJSONString(value, writer, indent);
+		writer.flush();
+	}
+
 	public static String createIndent(int indent) {
 		if(indent <= 0) return "";
 		StringBuilder sb = new StringBuilder();
@@ -180,11 +357,29 @@ com.universeprojects.json.sharedhe first parameter, use JSONObject.writeJSONStri
 	 * @return JSON text, or "null" if value is null or it's an NaN or an INF number.
 	 */
 	public static String toJSONString(Object value){
+		JSONListener listener = JSONInstrumentation.listener();
+		if(listener == null)
+			return valueToString(value);
+		long start = JSONInstrumentation.now();
+		String text = valueToString(value);
+		listener.written(text.length(), JSONInstrumentation.now() - start);
+		return text;
+	}
+
+	/**
+	 * toJSONString() without instrumentation, for the values nested in the one being converted.
+	 */
+	static String valueToString(Object value){
 		if(value == null)
 			return "null";
 
-		if(value instanceof String)
-			return "\""+escape((String)value)+"\"";
+		if(value instanceof String){
+			String str = (String)value;
+			StringBuilder sb = new StringBuilder(str.length() + 2);
+			sb.append('\"');
+			escape(str, sb);
+			return sb.append('\"').toString();
+		}
 
 		if(value instanceof Double){
 			if(((Double)value).isInfinite() || ((Double)value).isNaN())
@@ -218,66 +413,171 @@ com.universeprojects.json.sharedhe first parameter, use JSONObject.writeJSONStri
 		return value.toString();
 	}
 
+	/**
+	 * For chars below 128: 0 if the char is written as is, -1 for a \\u00XX escape,
+	 * otherwise the char that follows the backslash. Shared with JSONUtf8Writer.
+	 */
+	static final byte[] ESCAPES = new byte[128];
+	static {
+		for(int i=0;i<0x20;i++)
+			ESCAPES[i] = -1;
+		ESCAPES[0x7F] = -1;
+		ESCAPES['"'] = '"';
+		ESCAPES['\\'] = '\\';
+		ESCAPES['/'] = '/';
+		ESCAPES['\b'] = 'b';
+		ESCAPES['\f'] = 'f';
+		ESCAPES['\n'] = 'n';
+		ESCAPES['\r'] = 'r';
+		ESCAPES['\t'] = 't';
+	}
+
+	private static final char[] HEX = {'0','1','2','3','4','5','6','7','8','9','A','B','C','D','E','F'};
+
+	/** The escape sequence of each char below 128 that needs one, so that it is appended in one go */
+	private static final String[] REPLACEMENTS = new String[128];
+	static {
+		for(int i=0;i<128;i++){
+			if(ESCAPES[i] > 0)
+				REPLACEMENTS[i] = "\\" + (char)ESCAPES[i];
+			else if(ESCAPES[i] < 0)
+				REPLACEMENTS[i] = unicodeEscape((char)i);
+		}
+	}
+
+	/**
+	 * @return true for the chars of 128 and above that are written as a \\uXXXX escape.
+	 */
+	static boolean isUnicodeEscaped(char ch){
+		//Reference: http://www.unicode.org/versions/Unicode5.1.0/
+		return ch <= '\u009F' || (ch >= '\u2000' && ch <= '\u20FF');
+	}
+
+	/**
+	 * @return The index of the first char of s from the given one on that has to be escaped, or -1.
+	 */
+	private static int indexOfEscaped(String s, int from){
+		int len = s.length();
+		for(int i=from;i<len;i++){
+			char ch = s.charAt(i);
+			if(ch < 0x80 ? ESCAPES[ch] != 0 : isUnicodeEscaped(ch))
+				return i;
+		}
+		return -1;
+	}
+
 	/**
 	 * Escape quotes, \, /, \r, \n, \b, \f, \t and other control characters (U+0000 through U+001F).
 	 * @param s
-	 * @return
+	 * @return s itself if nothing needs escaping.
 	 */
 	public static String escape(String s){
 		if(s==null)
 			return null;
-		StringBuffer sb = new StringBuffer();
-		escape(s, sb);
+		int i = indexOfEscaped(s, 0);
+		if(i < 0)
+			return s;
+		StringBuilder sb = new StringBuilder(s.length() + 16);
+		sb.append(s, 0, i);
+		escapeFrom(s, i, sb);
 		return sb.toString();
 	}
 
 	/**
+	 * Append the escaped string. The runs of chars that need no escaping are appended as a whole.
 	 * @param s - Must not be null.
 	 * @param sb
 	 */
-	static void escape(String s, StringBuffer sb) {
-		for(int i=0;i<s.length();i++){
-			char ch=s.charAt(i);
-			switch(ch){
-			case '"':
-				sb.append("\\\"");
-				break;
-			case '\\':
-				sb.append("\\\\");
-				break;
-			case '\b':
-				sb.append("\\b");
-				break;
-			case '\f':
-				sb.append("\\f");
-				break;
-			case '\n':
-				sb.append("\\n");
-				break;
-			case '\r':
-				sb.append("\\r");
-				break;
-			case '\t':
-				sb.append("\\t");
-				break;
-			case '/':
-				sb.append("\\/");
-				break;
-			default:
-				//Reference: http://www.unicode.org/versions/Unicode5.1.0/
-				if((ch>='\u0000' && ch<='\u001F') || (ch>='\u007F' && ch<='\u009F') || (ch>='\u2000' && ch<='\u20FF')){
-					String ss=Integer.toHexString(ch);
-					sb.append("\\u");
-					for(int k=0;k<4-ss.length();k++){
-						sb.append('0');
-					}
-					sb.append(ss.toUpperCase());
-				}
-				else{
-					sb.append(ch);
-				}
+	public static void escape(String s, StringBuilder sb){
+		int i = indexOfEscaped(s, 0);
+		if(i < 0){
+			sb.append(s);
+			return;
+		}
+		sb.append(s, 0, i);
+		escapeFrom(s, i, sb);
+	}
+
+	/**
+	 * Write the escaped string to a Writer, a StringBuilder or any other Appendable, without creating an escaped
+	 * copy of it. The runs of chars that need no escaping are written as a whole.
+	 * @param s - Must not be null.
+	 * @param out
+	 */
+	public static void escape(String s, Appendable out) throws IOException {
+		if(out instanceof StringBuilder){
+			escape(s, (StringBuilder)out);
+			return;
+		}
+		int len = s.length();
+		int start = 0;
+		for(int i=indexOfEscaped(s, 0);i>=0;i=indexOfEscaped(s, start)){
+			if(i > start)
+				appendRun(s, start, i, out);
+			char ch = s.charAt(i);
+			String replacement = ch < 0x80 ? REPLACEMENTS[ch] : unicodeEscape(ch);
+			if(out instanceof Writer)
+				((Writer)out).write(replacement);
+			else
+				out.append(replacement);
+			start = i + 1;
+		}
+		if(start < len)
+			appendRun(s, start, len, out);
+	}
+
+	private static void appendRun(String s, int start, int end, Appendable out) throws IOException {
+		// Writer.append() would copy the run into a new String first
+		if(out instanceof Writer)
+			((Writer)out).write(s, start, end - start);
+		else
+			out.append(s, start, end);
+	}
+
+	/**
+	 * Append s escaped from index i on, where the first char that needs escaping is.
+	 */
+	private static void escapeFrom(String s, int i, StringBuilder sb){
+		int len = s.length();
+		int start = i;
+		for(;i<len;i++){
+			char ch = s.charAt(i);
+			String replacement;
+			if(ch < 0x80){
+				replacement = REPLACEMENTS[ch];
+				if(replacement == null)
+					continue;
+			}
+			else if(isUnicodeEscaped(ch)){
+				replacement = unicodeEscape(ch);
 			}
-		}//for
+			else{
+				continue;
+			}
+			if(i > start)
+				sb.append(s, start, i);
+			sb.append(replacement);
+			start = i + 1;
+		}
+		if(start < len)
+			sb.append(s, start, len);
+	}
+
+	private static String unicodeEscape(char ch){
+		return new String(new char[]{'\\', 'u', HEX[(ch >> 12) & 0xF], HEX[(ch >> 8) & 0xF], HEX[(ch >> 4) & 0xF], HEX[ch & 0xF]});
+	}
+
+	/**
+	 * Write the string as a JSON string literal, quoted and escaped.
+	 */
+	static void writeQuoted(String s, Writer out) throws IOException {
+		if(out instanceof JSONWriter){
+			((JSONWriter)out).writeQuoted(s);
+			return;
+		}
+		out.write('\"');
+		escape(s, out);
+		out.write('\"');
 	}
 
 }
@@ -0,0 +1,46 @@
+package com.universeprojects.json.shared;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer with hooks for the parts of JSON text that a writer can produce faster than through write(String).
+ * <p>
+ * JSONValue.writeJSONString(), JSONObject.writeJSONString() and JSONArray.writeJSONString() hand string literals,
+ * keys included, and integers to these hooks when they write to a JSONWriter. The default implementations write
+ * the same text as any other Writer gets; a subclass overrides them to encode the value straight into its output,
+ * see JSONUtf8Writer.
+ */
+public abstract class JSONWriter extends Writer {
+
+	/**
+	 * Write a value as JSON text, see JSONValue.writeJSONString(Object, Writer, String).
+	 */
+	public void writeValue(Object value, String indent) throws IOException {
+		JSONValue.writeJSONString(value, this, indent);
+	}
+
+	/**
+	 * Write the string as a JSON string literal: quoted and escaped the same way as JSONValue.escape().
+	 */
+	public void writeQuoted(String s) throws IOException {
+		write('"');
+		JSONValue.escape(s, this);
+		write('"');
+	}
+
+	/**
+	 * Write the decimal representation of the value.
+	 */
+	public void writeLong(long value) throws IOException {
+		write(Long.toString(value));
+	}
+
+	/**
+	 * @return The length of the output so far, in chars or in the bytes that the writer encodes them to, or -1 if
+	 * the writer doesn't keep track of it. JSONValue.writeJSONString() reports it to the JSONListener.
+	 */
+	public long getLength() {
+		return -1;
+	}
+}
@@ -0,0 +1,796 @@
+package com.universeprojects.json.shared;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+import com.universeprojects.json.shared.parser.Yytoken;
+
+/**
+ * A JSON object that is parsed on demand from its source text.
+ * <p>
+ * Creating the object only indexes the text: the positions of the keys and values of the object itself are
+ * recorded, and the values are parsed when they are read with get(). Nested objects are LazyJSONObjects as well.
+ * As long as the object and the nested objects that were read are not modified, toJSONString() and
+ * writeJSONString() hand back the source text; values that were never read are always written from the source.
+ * <p>
+ * size(), isEmpty(), containsKey() and get() work on the index. Any other Map operation, including the views
+ * returned by keySet(), values() and entrySet(), parses all values first and turns this into an ordinary JSONObject.
+ * <p>
+ * Only the structure of the text is checked while indexing. Errors in arrays and nested objects are found when
+ * they are read, and get() reports them as an IllegalStateException.
+ */
+@GwtIncompatible
+@SuppressWarnings("rawtypes")
+public class LazyJSONObject extends JSONObject {
+	private static final long serialVersionUID = 7167530244736385127L;
+
+	/** Lookups are linear up to this many keys */
+	private static final int MAX_LINEAR_KEYS = 8;
+
+	private static final Object UNPARSED = new Object();
+
+	private transient String source;
+	private transient int start;
+	private transient int end;
+
+	/* The index, until the object is inflated */
+	private transient int count;
+	private transient String[] keys;
+	private transient int[] keyStart;
+	private transient int[] keyEnd;
+	private transient int[] valueStart;
+	private transient int[] valueEnd;
+	private transient Object[] values;
+	private transient HashMap<String, Integer> keyIndex;
+
+	/**
+	 * @param source - JSON text of an object, optionally surrounded by whitespace.
+	 * @throws ParseException if the text is not an object.
+	 */
+	public LazyJSONObject(String source) throws ParseException {
+		this.source = source;
+		this.start = skipWhitespace(0, source.length());
+		index(source.length());
+		int trailing = skipWhitespace(end, source.length());
+		if(trailing < source.length())
+			throw new ParseException(trailing, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(source.charAt(trailing)));
+	}
+
+	private LazyJSONObject(String source, int start, int end) throws ParseException {
+		this.source = source;
+		this.start = start;
+		index(end);
+		if(this.end != end)
+			throw new ParseException(this.end, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(source.charAt(this.end)));
+	}
+
+	/**
+	 * @return true until an operation other than the read-only ones made this an ordinary JSONObject.
+	 */
+	public boolean isLazy() {
+		return keys != null;
+	}
+
+	/**
+	 * @return true if toJSONString() gives back the source text: the object is still lazy, and so is every
+	 * nested object that was read. Arrays that were read count as changes since they can be modified in place.
+	 */
+	public boolean isUnchanged() {
+		if(keys == null)
+			return false;
+		for(int i=0;i<count;i++){
+			Object value = values[i];
+			if(value == UNPARSED || value == null || value instanceof String || value instanceof Number || value instanceof Boolean)
+				continue;
+			if(value instanceof LazyJSONObject && ((LazyJSONObject)value).isUnchanged())
+				continue;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return keys != null ? count : super.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return keys != null ? count == 0 : super.isEmpty();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if(keys != null)
+			return indexOf(key) >= 0;
+		return super.containsKey(key);
+	}
+
+	@Override
+	public Object get(Object key) {
+		if(keys != null){
+			int i = indexOf(key);
+			return i < 0 ? null : value(i);
+		}
+		return super.get(key);
+	}
+
+	@Override
+	public String toJSONString() {
+		if(isUnchanged())
+			return start == 0 && end == source.length() ? source : source.substring(start, end);
+		if(keys == null)
+			return super.toJSONString();
+		StringBuilder sb = new StringBuilder(end - start);
+		sb.append('{');
+		for(int i=0;i<count;i++){
+			if(i > 0)
+				sb.append(',');
+			sb.append(source, keyStart[i], keyEnd[i]).append(':');
+			if(isSourceValue(i))
+				sb.append(source, valueStart[i], valueEnd[i]);
+			else
+				sb.append(JSONValue.valueToString(values[i]));
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+
+	@Override
+	public void writeJSONString(Writer out, String indent) throws IOException {
+		if(keys == null){
+			super.writeJSONString(out, indent);
+			return;
+		}
+		if(indent != null){
+			// The source text keeps its own layout, so indented output is written from the values
+			JSONObject.writeJSONString(parsedCopy(), out, indent);
+			return;
+		}
+		if(isUnchanged()){
+			out.write(source, start, end - start);
+			return;
+		}
+		out.write('{');
+		for(int i=0;i<count;i++){
+			if(i > 0)
+				out.write(',');
+			out.write(source, keyStart[i], keyEnd[i] - keyStart[i]);
+			out.write(':');
+			if(isSourceValue(i))
+				out.write(source, valueStart[i], valueEnd[i] - valueStart[i]);
+			else
+				JSONValue.writeValue(values[i], out, null);
+		}
+		out.write('}');
+	}
+
+	/**
+	 * Write the object with a JSON Merge Patch (RFC 7386) applied, without modifying the object. Members that the
+	 * patch doesn't mention are written from the source text as long as they are unchanged, and so are those of
+	 * the nested objects that the patch goes into; only the values that the patch sets are encoded.
+	 *
+	 * @see com.universeprojects.json.shared.patch.JSONMergePatch#write(String, Object, Writer)
+	 */
+	public void writeMerged(Map<?, ?> patch, Writer out) throws IOException {
+		if(keys == null){
+			writeMergedMap(this, patch, out);
+			return;
+		}
+		out.write('{');
+		boolean first = true;
+		for(int i=0;i<count;i++){
+			boolean patched = patch.containsKey(keys[i]);
+			Object change = patched ? patch.get(keys[i]) : null;
+			if(patched && change == null)
+				continue;
+			if(first)
+				first = false;
+			else
+				out.write(',');
+			out.write(source, keyStart[i], keyEnd[i] - keyStart[i]);
+			out.write(':');
+			if(!patched){
+				if(isSourceValue(i))
+					out.write(source, valueStart[i], valueEnd[i] - valueStart[i]);
+				else
+					JSONValue.writeValue(values[i], out, null);
+			}
+			else if(change instanceof Map){
+				// Only an object is merged with; anything else is replaced, so it's not parsed
+				Object value = isSourceValue(i) && source.charAt(valueStart[i]) != '{' ? null : value(i);
+				writeMerged(value, (Map) change, out);
+			}
+			else{
+				JSONValue.writeValue(change, out, null);
+			}
+		}
+		for(Map.Entry<?, ?> entry : patch.entrySet()){
+			if(entry.getValue() == null || indexOf(entry.getKey()) >= 0)
+				continue;
+			if(first)
+				first = false;
+			else
+				out.write(',');
+			writeAdded(entry, out);
+		}
+		out.write('}');
+	}
+
+	/**
+	 * Write the merge of target and an object patch; target is replaced if it isn't a Map.
+	 */
+	private static void writeMerged(Object target, Map<?, ?> patch, Writer out) throws IOException {
+		if(target instanceof LazyJSONObject)
+			((LazyJSONObject)target).writeMerged(patch, out);
+		else
+			writeMergedMap(target instanceof Map ? (Map) target : null, patch, out);
+	}
+
+	/**
+	 * Write the merge of a map, or of nothing if map is null, and an object patch, encoding every value.
+	 */
+	private static void writeMergedMap(Map map, Map<?, ?> patch, Writer out) throws IOException {
+		out.write('{');
+		boolean first = true;
+		if(map != null){
+			for(Object entryOb : map.entrySet()){
+				Map.Entry entry = (Map.Entry) entryOb;
+				boolean patched = patch.containsKey(entry.getKey());
+				Object change = patched ? patch.get(entry.getKey()) : null;
+				if(patched && change == null)
+					continue;
+				if(first)
+					first = false;
+				else
+					out.write(',');
+				JSONValue.writeQuoted(String.valueOf(entry.getKey()), out);
+				out.write(':');
+				if(!patched)
+					JSONValue.writeValue(entry.getValue(), out, null);
+				else if(change instanceof Map)
+					writeMerged(entry.getValue(), (Map) change, out);
+				else
+					JSONValue.writeValue(change, out, null);
+			}
+		}
+		for(Map.Entry<?, ?> entry : patch.entrySet()){
+			if(entry.getValue() == null || (map != null && map.containsKey(entry.getKey())))
+				continue;
+			if(first)
+				first = false;
+			else
+				out.write(',');
+			writeAdded(entry, out);
+		}
+		out.write('}');
+	}
+
+	/**
+	 * Write a member that the patch adds. An object is merged into nothing, which drops its null members.
+	 */
+	private static void writeAdded(Map.Entry<?, ?> entry, Writer out) throws IOException {
+		JSONValue.writeQuoted(String.valueOf(entry.getKey()), out);
+		out.write(':');
+		if(entry.getValue() instanceof Map)
+			writeMerged(null, (Map) entry.getValue(), out);
+		else
+			JSONValue.writeValue(entry.getValue(), out, null);
+	}
+
+	/* Everything else works on the parsed map */
+
+	@Override
+	public Object put(Object key, Object value) {
+		inflate();
+		return super.put(key, value);
+	}
+
+	@Override
+	public void putAll(Map<?, ?> m) {
+		inflate();
+		super.putAll(m);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		inflate();
+		return super.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		inflate();
+		super.clear();
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		inflate();
+		return super.containsValue(value);
+	}
+
+	@Override
+	public Set<Object> keySet() {
+		inflate();
+		return super.keySet();
+	}
+
+	@Override
+	public Collection<Object> values() {
+		inflate();
+		return super.values();
+	}
+
+	@Override
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		inflate();
+		return super.entrySet();
+	}
+
+	@Override
+	public Object getOrDefault(Object key, Object defaultValue) {
+		inflate();
+		return super.getOrDefault(key, defaultValue);
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super Object, ? super Object> action) {
+		inflate();
+		super.forEach(action);
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+		inflate();
+		super.replaceAll(function);
+	}
+
+	@Override
+	public Object putIfAbsent(Object key, Object value) {
+		inflate();
+		return super.putIfAbsent(key, value);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		inflate();
+		return super.remove(key, value);
+	}
+
+	@Override
+	public boolean replace(Object key, Object oldValue, Object newValue) {
+		inflate();
+		return super.replace(key, oldValue, newValue);
+	}
+
+	@Override
+	public Object replace(Object key, Object value) {
+		inflate();
+		return super.replace(key, value);
+	}
+
+	@Override
+	public Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction) {
+		inflate();
+		return super.computeIfAbsent(key, mappingFunction);
+	}
+
+	@Override
+	public Object computeIfPresent(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		inflate();
+		return super.computeIfPresent(key, remappingFunction);
+	}
+
+	@Override
+	public Object compute(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		inflate();
+		return super.compute(key, remappingFunction);
+	}
+
+	@Override
+	public Object merge(Object key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		inflate();
+		return super.merge(key, value, remappingFunction);
+	}
+
+	@Override
+	public Object clone() {
+		inflate();
+		return super.clone();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		inflate();
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		inflate();
+		return super.hashCode();
+	}
+
+	/**
+	 * Serialized as an ordinary JSONObject.
+	 */
+	private Object writeReplace() {
+		if(keys != null)
+			return parsedCopy();
+		JSONObject copy = new JSONObject();
+		copy.putAll(this);
+		return copy;
+	}
+
+	/**
+	 * Parse all values into the map and drop the index.
+	 */
+	private void inflate() {
+		if(keys == null)
+			return;
+		for(int i=0;i<count;i++)
+			super.put(keys[i], value(i));
+		keys = null;
+		keyStart = null;
+		keyEnd = null;
+		valueStart = null;
+		valueEnd = null;
+		values = null;
+		keyIndex = null;
+		source = null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONObject parsedCopy() {
+		JSONObject copy = new JSONObject();
+		for(int i=0;i<count;i++)
+			copy.put(keys[i], value(i));
+		return copy;
+	}
+
+	/**
+	 * @return true if the value can be written from the source text.
+	 */
+	private boolean isSourceValue(int i) {
+		Object value = values[i];
+		if(value == UNPARSED || value == null || value instanceof String || value instanceof Number || value instanceof Boolean)
+			return true;
+		return value instanceof LazyJSONObject && ((LazyJSONObject)value).isUnchanged();
+	}
+
+	private int indexOf(Object key) {
+		if(count > MAX_LINEAR_KEYS){
+			Integer i = keyIndex.get(key);
+			return i == null ? -1 : i.intValue();
+		}
+		for(int i=0;i<count;i++){
+			if(keys[i].equals(key))
+				return i;
+		}
+		return -1;
+	}
+
+	private Object value(int i) {
+		Object value = values[i];
+		if(value == UNPARSED){
+			try{
+				value = parseValue(valueStart[i], valueEnd[i]);
+			}
+			catch(ParseException e){
+				throw new IllegalStateException("Invalid value of \"" + keys[i] + "\": " + e, e);
+			}
+			values[i] = value;
+		}
+		return value;
+	}
+
+	private Object parseValue(int from, int to) throws ParseException {
+		switch(source.charAt(from)){
+		case '"':
+			return decodeString(from, to);
+		case '{':
+			return new LazyJSONObject(source, from, to);
+		case '[':
+			try{
+				return JSONParserFactory.parse(source.substring(from, to));
+			}
+			catch(ParseException e){
+				e.setPosition(from + e.getPosition());
+				throw e;
+			}
+		case 't':
+			return Boolean.TRUE;
+		case 'f':
+			return Boolean.FALSE;
+		case 'n':
+			return null;
+		default:
+			String number = source.substring(from, to);
+			for(int i=0;i<number.length();i++){
+				char ch = number.charAt(i);
+				if(ch == '.' || ch == 'e' || ch == 'E')
+					return Double.valueOf(number);
+			}
+			return Long.valueOf(number);
+		}
+	}
+
+	/* Indexing */
+
+	/**
+	 * Record the keys and values of the object that begins at start, and set end.
+	 */
+	private void index(int limit) throws ParseException {
+		count = 0;
+		keys = new String[8];
+		keyStart = new int[8];
+		keyEnd = new int[8];
+		valueStart = new int[8];
+		valueEnd = new int[8];
+		values = new Object[8];
+
+		int i = start;
+		expect(i, limit, '{');
+		i = skipWhitespace(i + 1, limit);
+		if(i < limit && source.charAt(i) == '}'){
+			end = i + 1;
+			return;
+		}
+		while(true){
+			expect(i, limit, '"');
+			int ks = i;
+			int ke = skipString(i, limit);
+			i = skipWhitespace(ke, limit);
+			expect(i, limit, ':');
+			int vs = skipWhitespace(i + 1, limit);
+			int ve = skipValue(vs, limit);
+			add(decodeString(ks, ke), ks, ke, vs, ve);
+
+			i = skipWhitespace(ve, limit);
+			if(i >= limit)
+				throw endOfInput(i);
+			char ch = source.charAt(i);
+			if(ch == '}'){
+				end = i + 1;
+				return;
+			}
+			if(ch != ',')
+				throw new ParseException(i, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(ch));
+			i = skipWhitespace(i + 1, limit);
+		}
+	}
+
+	private void add(String key, int ks, int ke, int vs, int ve) {
+		// A repeated key keeps its first position and takes the last value, like the parsed JSONObject
+		int existing = indexOf(key);
+		if(existing >= 0){
+			valueStart[existing] = vs;
+			valueEnd[existing] = ve;
+			return;
+		}
+		if(count == keys.length)
+			grow();
+		keys[count] = key;
+		keyStart[count] = ks;
+		keyEnd[count] = ke;
+		valueStart[count] = vs;
+		valueEnd[count] = ve;
+		values[count] = UNPARSED;
+		count++;
+		if(count == MAX_LINEAR_KEYS + 1){
+			keyIndex = new HashMap<>(32);
+			for(int k=0;k<count;k++)
+				keyIndex.put(keys[k], Integer.valueOf(k));
+		}
+		else if(count > MAX_LINEAR_KEYS){
+			keyIndex.put(key, Integer.valueOf(count - 1));
+		}
+	}
+
+	private void grow() {
+		int size = keys.length * 2;
+		String[] newKeys = new String[size];
+		System.arraycopy(keys, 0, newKeys, 0, count);
+		keys = newKeys;
+		keyStart = grow(keyStart, size);
+		keyEnd = grow(keyEnd, size);
+		valueStart = grow(valueStart, size);
+		valueEnd = grow(valueEnd, size);
+		Object[] newValues = new Object[size];
+		System.arraycopy(values, 0, newValues, 0, count);
+		values = newValues;
+	}
+
+	private int[] grow(int[] array, int size) {
+		int[] result = new int[size];
+		System.arraycopy(array, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * @return The position after the value that begins at i. Strings are skipped as a whole and nested objects
+	 * and arrays by their brackets; literals and numbers are checked.
+	 */
+	private int skipValue(int i, int limit) throws ParseException {
+		if(i >= limit)
+			throw endOfInput(i);
+		char ch = source.charAt(i);
+		if(ch == '"')
+			return skipString(i, limit);
+		if(ch == '{' || ch == '['){
+			int depth = 0;
+			for(int j=i;j<limit;j++){
+				ch = source.charAt(j);
+				if(ch == '"'){
+					j = skipString(j, limit) - 1;
+				}
+				else if(ch == '{' || ch == '['){
+					depth++;
+				}
+				else if(ch == '}' || ch == ']'){
+					if(--depth == 0)
+						return j + 1;
+				}
+			}
+			throw endOfInput(limit);
+		}
+
+		int j = i;
+		while(j < limit){
+			ch = source.charAt(j);
+			if(ch == ',' || ch == '}' || ch == ']' || ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r')
+				break;
+			j++;
+		}
+		int length = j - i;
+		if(length == 4 && (source.startsWith("true", i) || source.startsWith("null", i)))
+			return j;
+		if(length == 5 && source.startsWith("false", i))
+			return j;
+		int bad = checkNumber(i, j);
+		if(bad >= 0){
+			if(bad >= limit)
+				throw endOfInput(bad);
+			throw new ParseException(bad, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(source.charAt(bad)));
+		}
+		return j;
+	}
+
+	/**
+	 * Check the token against the number syntax of the lexer: -?[0-9]+((\.[0-9]+)?([eE][-+]?[0-9]+)?)
+	 *
+	 * @return -1 if the token is a number, otherwise the position of the first wrong char.
+	 */
+	private int checkNumber(int i, int to) {
+		if(i < to && source.charAt(i) == '-')
+			i++;
+		int digits = i;
+		while(i < to && isDigit(source.charAt(i)))
+			i++;
+		if(i == digits)
+			return i;
+		if(i < to && source.charAt(i) == '.'){
+			digits = ++i;
+			while(i < to && isDigit(source.charAt(i)))
+				i++;
+			if(i == digits)
+				return i;
+		}
+		if(i < to && (source.charAt(i) == 'e' || source.charAt(i) == 'E')){
+			i++;
+			if(i < to && (source.charAt(i) == '-' || source.charAt(i) == '+'))
+				i++;
+			digits = i;
+			while(i < to && isDigit(source.charAt(i)))
+				i++;
+			if(i == digits)
+				return i;
+		}
+		return i == to ? -1 : i;
+	}
+
+	private static boolean isDigit(char ch) {
+		return ch >= '0' && ch <= '9';
+	}
+
+	/**
+	 * @return The position after the closing quote of the string that begins at i.
+	 */
+	private int skipString(int i, int limit) throws ParseException {
+		for(int j=i+1;j<limit;j++){
+			char ch = source.charAt(j);
+			if(ch == '"')
+				return j + 1;
+			if(ch == '\\')
+				j++;
+		}
+		throw endOfInput(limit);
+	}
+
+	/**
+	 * Unescape the string literal between from and to, quotes included.
+	 */
+	private String decodeString(int from, int to) throws ParseException {
+		int first = source.indexOf('\\', from + 1);
+		if(first < 0 || first >= to - 1)
+			return source.substring(from + 1, to - 1);
+
+		StringBuilder sb = new StringBuilder(to - from);
+		sb.append(source, from + 1, first);
+		for(int i=first;i<to-1;i++){
+			char ch = source.charAt(i);
+			if(ch != '\\'){
+				sb.append(ch);
+				continue;
+			}
+			ch = source.charAt(++i);
+			switch(ch){
+			case '"':
+			case '\\':
+			case '/':
+				sb.append(ch);
+				break;
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'u':
+				int code = 0;
+				for(int k=1;k<=4;k++){
+					int digit = i + k < to - 1 ? Character.digit(source.charAt(i + k), 16) : -1;
+					if(digit < 0)
+						throw new ParseException(i + k, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(source.charAt(i + k)));
+					code = (code << 4) | digit;
+				}
+				sb.append((char)code);
+				i += 4;
+				break;
+			default:
+				throw new ParseException(i, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(ch));
+			}
+		}
+		return sb.toString();
+	}
+
+	private void expect(int i, int limit, char expected) throws ParseException {
+		if(i >= limit)
+			throw endOfInput(i);
+		if(source.charAt(i) != expected)
+			throw new ParseException(i, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(source.charAt(i)));
+	}
+
+	private int skipWhitespace(int i, int limit) {
+		while(i < limit){
+			char ch = source.charAt(i);
+			if(ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r')
+				break;
+			i++;
+		}
+		return i;
+	}
+
+	private static ParseException endOfInput(int position) {
+		return new ParseException(position, ParseException.ERROR_UNEXPECTED_TOKEN, new Yytoken(Yytoken.TYPE_EOF, null));
+	}
+}
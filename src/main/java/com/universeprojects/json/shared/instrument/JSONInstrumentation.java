@@ -0,0 +1,117 @@
+package com.universeprojects.json.shared.instrument;
+
+import java.util.Arrays;
+
+/**
+ * Registry of the JSONListeners that the parsers, JSONValue and SerializerFactory report to. Instrumentation is
+ * off while no listener is registered: the hooks then only read one volatile field and skip the timing.
+ *
+ * @see JSONStats#register()
+ */
+public final class JSONInstrumentation {
+
+	/** null, the only listener, or a Multicast of all of them */
+	private static volatile JSONListener listener;
+
+	private static JSONListener[] listeners = new JSONListener[0];
+
+	private JSONInstrumentation() {
+	}
+
+	/**
+	 * @return The listener to report to, null while instrumentation is off.
+	 */
+	public static JSONListener listener() {
+		return listener;
+	}
+
+	public static boolean isEnabled() {
+		return listener != null;
+	}
+
+	public static long now() {
+		return System.nanoTime();
+	}
+
+	public static synchronized void addListener(JSONListener l) {
+		if(l == null)
+			throw new NullPointerException("listener");
+		listeners = Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = l;
+		update();
+	}
+
+	/**
+	 * @return false if the listener wasn't registered.
+	 */
+	public static synchronized boolean removeListener(JSONListener l) {
+		for(int i = 0; i < listeners.length; i++) {
+			if(listeners[i] == l) {
+				JSONListener[] remaining = new JSONListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, remaining, 0, i);
+				System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+				listeners = remaining;
+				update();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void update() {
+		switch(listeners.length) {
+		case 0:
+			listener = null;
+			break;
+		case 1:
+			listener = listeners[0];
+			break;
+		default:
+			listener = new Multicast(listeners);
+		}
+	}
+
+	private static final class Multicast implements JSONListener {
+		private final JSONListener[] listeners;
+
+		Multicast(JSONListener[] listeners) {
+			this.listeners = listeners;
+		}
+
+		@Override
+		public void parsed(int length, boolean utf8, long nanos, int maxDepth, int objects, int arrays) {
+			for(JSONListener l : listeners)
+				l.parsed(length, utf8, nanos, maxDepth, objects, arrays);
+		}
+
+		@Override
+		public void parseFailed(int position, boolean utf8, long nanos, Exception e) {
+			for(JSONListener l : listeners)
+				l.parseFailed(position, utf8, nanos, e);
+		}
+
+		@Override
+		public void parserCreated(Class<?> parserClass) {
+			for(JSONListener l : listeners)
+				l.parserCreated(parserClass);
+		}
+
+		@Override
+		public void written(int length, long nanos) {
+			for(JSONListener l : listeners)
+				l.written(length, nanos);
+		}
+
+		@Override
+		public void serialized(Class<?> serializerClass, long nanos) {
+			for(JSONListener l : listeners)
+				l.serialized(serializerClass, nanos);
+		}
+
+		@Override
+		public void deserialized(Class<?> serializerClass, long nanos) {
+			for(JSONListener l : listeners)
+				l.deserialized(serializerClass, nanos);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.universeprojects.json.shared.instrument;
+
+/**
+ * Receives an event for every document parsed or written and every value serialized, once it is registered with
+ * JSONInstrumentation.addListener(). Events are reported on the thread that did the work, right after it, so
+ * implementations have to be thread-safe and quick.
+ * <p>
+ * Times are in nanoseconds, as measured by System.nanoTime().
+ *
+ * @see JSONStats
+ */
+public interface JSONListener {
+
+	/**
+	 * A document was parsed into a tree.
+	 *
+	 * @param length - Number of chars read, or of bytes for UTF-8 input.
+	 * @param utf8 - Whether the input was UTF-8 bytes rather than chars.
+	 * @param maxDepth - Deepest nesting of objects and arrays; 0 for a single scalar value.
+	 * @param objects - Number of objects created.
+	 * @param arrays - Number of arrays created.
+	 */
+	void parsed(int length, boolean utf8, long nanos, int maxDepth, int objects, int arrays);
+
+	/**
+	 * Parsing failed, with a ParseException, an IOException of the reader or a RuntimeException.
+	 *
+	 * @param position - Position in the input where parsing stopped.
+	 */
+	void parseFailed(int position, boolean utf8, long nanos, Exception e);
+
+	/**
+	 * A parser was created, because the thread didn't have one yet or the pool was empty.
+	 */
+	void parserCreated(Class<?> parserClass);
+
+	/**
+	 * A value was written by JSONValue.writeJSONString() or toJSONString(). Nested values are part of the value
+	 * they are in and are not reported on their own.
+	 *
+	 * @param length - Number of chars produced, or of bytes for a writer that encodes them, such as JSONUtf8Writer.
+	 */
+	void written(int length, long nanos);
+
+	/**
+	 * SerializerFactory.serialize() converted an object with a Serializer. The time includes the serialization of
+	 * nested objects that the serializer handed back to SerializerFactory, which are reported as well.
+	 */
+	void serialized(Class<?> serializerClass, long nanos);
+
+	/**
+	 * @see #serialized(Class, long)
+	 */
+	void deserialized(Class<?> serializerClass, long nanos);
+}
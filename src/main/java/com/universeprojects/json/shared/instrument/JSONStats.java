@@ -0,0 +1,352 @@
+package com.universeprojects.json.shared.instrument;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+/**
+ * JSONListener that keeps totals, latency histograms and per Serializer timings, and makes them available over JMX.
+ * register() turns instrumentation on and publishes the statistics under OBJECT_NAME; a JSONStats can also be
+ * registered with JSONInstrumentation on its own and read directly.
+ * <p>
+ * Counters are striped, so threads that report at the same time don't contend on them.
+ */
+@GwtIncompatible
+public class JSONStats implements JSONListener, JSONStatsMXBean {
+
+	public static final String OBJECT_NAME = "com.universeprojects.json:type=JSONStats";
+
+	private final LongAdder parses = new LongAdder();
+	private final LongAdder parseFailures = new LongAdder();
+	private final LongAdder charsParsed = new LongAdder();
+	private final LongAdder bytesParsed = new LongAdder();
+	private final LongAccumulator maxDepth = new LongAccumulator(LatencyHistogram.MAX, 0);
+	private final LongAdder objects = new LongAdder();
+	private final LongAdder arrays = new LongAdder();
+	private final LatencyHistogram parseLatency = new LatencyHistogram();
+	private final LongAdder parsersCreated = new LongAdder();
+
+	private final LongAdder writes = new LongAdder();
+	private final LongAdder charsWritten = new LongAdder();
+	private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+	private final ConcurrentMap<Class<?>, TimingCounter> serializerTimings = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<?>, TimingCounter> deserializerTimings = new ConcurrentHashMap<>();
+
+	private MBeanServer server;
+	private ObjectName registeredName;
+
+	/**
+	 * Create a JSONStats, add it as a listener and register it with the platform MBean server.
+	 *
+	 * @throws IllegalStateException if the MBean can't be registered, for example because another JSONStats is.
+	 */
+	public static JSONStats register() {
+		JSONStats stats = new JSONStats();
+		stats.registerMBean(ManagementFactory.getPlatformMBeanServer(), OBJECT_NAME);
+		JSONInstrumentation.addListener(stats);
+		return stats;
+	}
+
+	/**
+	 * Register with the MBean server under the given name, without adding the listener.
+	 */
+	public synchronized void registerMBean(MBeanServer server, String name) {
+		try {
+			registeredName = server.registerMBean(this, new ObjectName(name)).getObjectName();
+			this.server = server;
+		}
+		catch(JMException e) {
+			throw new IllegalStateException("Couldn't register " + name, e);
+		}
+	}
+
+	/**
+	 * Remove the listener and the MBean.
+	 */
+	public synchronized void unregister() {
+		JSONInstrumentation.removeListener(this);
+		if(registeredName == null)
+			return;
+		try {
+			server.unregisterMBean(registeredName);
+		}
+		catch(JMException e) {
+			// Already gone
+		}
+		server = null;
+		registeredName = null;
+	}
+
+	@Override
+	public void parsed(int length, boolean utf8, long nanos, int depth, int objectCount, int arrayCount) {
+		parses.increment();
+		(utf8 ? bytesParsed : charsParsed).add(length);
+		maxDepth.accumulate(depth);
+		objects.add(objectCount);
+		arrays.add(arrayCount);
+		parseLatency.record(nanos);
+	}
+
+	@Override
+	public void parseFailed(int position, boolean utf8, long nanos, Exception e) {
+		parseFailures.increment();
+		(utf8 ? bytesParsed : charsParsed).add(Math.max(position, 0));
+	}
+
+	@Override
+	public void parserCreated(Class<?> parserClass) {
+		parsersCreated.increment();
+	}
+
+	@Override
+	public void written(int length, long nanos) {
+		writes.increment();
+		if(length > 0)
+			charsWritten.add(length);
+		writeLatency.record(nanos);
+	}
+
+	@Override
+	public void serialized(Class<?> serializerClass, long nanos) {
+		counter(serializerTimings, serializerClass).record(nanos);
+	}
+
+	@Override
+	public void deserialized(Class<?> serializerClass, long nanos) {
+		counter(deserializerTimings, serializerClass).record(nanos);
+	}
+
+	private static TimingCounter counter(ConcurrentMap<Class<?>, TimingCounter> timings, Class<?> serializerClass) {
+		TimingCounter counter = timings.get(serializerClass);
+		if(counter == null) {
+			TimingCounter created = new TimingCounter();
+			counter = timings.putIfAbsent(serializerClass, created);
+			if(counter == null)
+				counter = created;
+		}
+		return counter;
+	}
+
+	@Override
+	public long getParseCount() {
+		return parses.sum();
+	}
+
+	@Override
+	public long getParseFailureCount() {
+		return parseFailures.sum();
+	}
+
+	@Override
+	public long getCharsParsed() {
+		return charsParsed.sum();
+	}
+
+	@Override
+	public long getBytesParsed() {
+		return bytesParsed.sum();
+	}
+
+	@Override
+	public long getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	@Override
+	public long getObjectCount() {
+		return objects.sum();
+	}
+
+	@Override
+	public long getArrayCount() {
+		return arrays.sum();
+	}
+
+	@Override
+	public Latency getParseLatency() {
+		return parseLatency.snapshot();
+	}
+
+	@Override
+	public long getParsersCreated() {
+		return parsersCreated.sum();
+	}
+
+	@Override
+	public long getWriteCount() {
+		return writes.sum();
+	}
+
+	@Override
+	public long getCharsWritten() {
+		return charsWritten.sum();
+	}
+
+	@Override
+	public Latency getWriteLatency() {
+		return writeLatency.snapshot();
+	}
+
+	@Override
+	public Map<String, Timing> getSerializerTimings() {
+		return snapshot(serializerTimings);
+	}
+
+	@Override
+	public Map<String, Timing> getDeserializerTimings() {
+		return snapshot(deserializerTimings);
+	}
+
+	private static Map<String, Timing> snapshot(ConcurrentMap<Class<?>, TimingCounter> timings) {
+		Map<String, Timing> snapshot = new TreeMap<>();
+		for(Map.Entry<Class<?>, TimingCounter> entry : timings.entrySet())
+			snapshot.put(entry.getKey().getName(), entry.getValue().snapshot());
+		return snapshot;
+	}
+
+	@Override
+	public void reset() {
+		parses.reset();
+		parseFailures.reset();
+		charsParsed.reset();
+		bytesParsed.reset();
+		maxDepth.reset();
+		objects.reset();
+		arrays.reset();
+		parseLatency.reset();
+		parsersCreated.reset();
+		writes.reset();
+		charsWritten.reset();
+		writeLatency.reset();
+		serializerTimings.clear();
+		deserializerTimings.clear();
+	}
+
+	/**
+	 * Latencies at the time of the call. Percentiles are the upper bounds of histogram buckets, so they
+	 * overestimate by up to a factor of two.
+	 */
+	public static final class Latency {
+		private final long count;
+		private final long totalNanos;
+		private final long maxNanos;
+		private final long medianNanos;
+		private final long p90Nanos;
+		private final long p99Nanos;
+		private final long[] histogram;
+
+		Latency(long count, long totalNanos, long maxNanos, long medianNanos, long p90Nanos, long p99Nanos, long[] histogram) {
+			this.count = count;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.medianNanos = medianNanos;
+			this.p90Nanos = p90Nanos;
+			this.p99Nanos = p99Nanos;
+			this.histogram = histogram;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMeanNanos() {
+			return count == 0 ? 0 : totalNanos / count;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public long getMedianNanos() {
+			return medianNanos;
+		}
+
+		public long getP90Nanos() {
+			return p90Nanos;
+		}
+
+		public long getP99Nanos() {
+			return p99Nanos;
+		}
+
+		/**
+		 * @return Count of durations per bucket: element i for 2^(i-1) up to 2^i - 1 nanoseconds, element 0 for 0.
+		 */
+		public long[] getHistogram() {
+			return histogram.clone();
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + " mean=" + getMeanNanos() + "ns p50=" + medianNanos + "ns p90=" + p90Nanos
+				+ "ns p99=" + p99Nanos + "ns max=" + maxNanos + "ns";
+		}
+	}
+
+	/**
+	 * Calls of one Serializer at the time of the call.
+	 */
+	public static final class Timing {
+		private final long count;
+		private final long totalNanos;
+		private final long maxNanos;
+
+		Timing(long count, long totalNanos, long maxNanos) {
+			this.count = count;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMeanNanos() {
+			return count == 0 ? 0 : totalNanos / count;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + " mean=" + getMeanNanos() + "ns max=" + maxNanos + "ns";
+		}
+	}
+
+	private static final class TimingCounter {
+		final LongAdder count = new LongAdder();
+		final LongAdder total = new LongAdder();
+		final LongAccumulator max = new LongAccumulator(LatencyHistogram.MAX, 0);
+
+		void record(long nanos) {
+			count.increment();
+			total.add(nanos);
+			max.accumulate(nanos);
+		}
+
+		Timing snapshot() {
+			return new Timing(count.sum(), total.sum(), max.get());
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.universeprojects.json.shared.instrument;
+
+import java.util.Map;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+/**
+ * Management interface of JSONStats. All values are totals since the start or the last reset().
+ */
+@GwtIncompatible
+public interface JSONStatsMXBean {
+
+	long getParseCount();
+
+	long getParseFailureCount();
+
+	long getCharsParsed();
+
+	long getBytesParsed();
+
+	/**
+	 * @return The deepest nesting of any document parsed.
+	 */
+	long getMaxDepth();
+
+	long getObjectCount();
+
+	long getArrayCount();
+
+	JSONStats.Latency getParseLatency();
+
+	long getParsersCreated();
+
+	long getWriteCount();
+
+	/**
+	 * @return The chars of the values written, or the bytes for a writer that encodes them, see JSONListener.written().
+	 */
+	long getCharsWritten();
+
+	JSONStats.Latency getWriteLatency();
+
+	/**
+	 * @return Serialization times by Serializer class name.
+	 */
+	Map<String, JSONStats.Timing> getSerializerTimings();
+
+	Map<String, JSONStats.Timing> getDeserializerTimings();
+
+	void reset();
+}
@@ -0,0 +1,81 @@
+package com.universeprojects.json.shared.instrument;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+/**
+ * Histogram of durations with power of two buckets: bucket i counts the durations of 2^(i-1) up to 2^i - 1
+ * nanoseconds, bucket 0 those of 0. Recording is a few adds on striped counters, so threads don't contend on it.
+ */
+@GwtIncompatible
+final class LatencyHistogram {
+
+	static final int BUCKETS = 64;
+
+	static final LongBinaryOperator MAX = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.max(left, right);
+		}
+	};
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(MAX, 0);
+
+	LatencyHistogram() {
+		for(int i = 0; i < BUCKETS; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+		buckets[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	void reset() {
+		for(LongAdder bucket : buckets)
+			bucket.reset();
+		total.reset();
+		max.reset();
+	}
+
+	JSONStats.Latency snapshot() {
+		long[] counts = new long[BUCKETS];
+		int used = 0;
+		long count = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			count += counts[i];
+			if(counts[i] != 0)
+				used = i + 1;
+		}
+		long maxNanos = max.get();
+		return new JSONStats.Latency(count, total.sum(), maxNanos,
+			percentile(counts, count, 0.5, maxNanos), percentile(counts, count, 0.9, maxNanos),
+			percentile(counts, count, 0.99, maxNanos), Arrays.copyOf(counts, used));
+	}
+
+	/**
+	 * @return The upper bound of the bucket that holds the percentile, at most the largest duration recorded.
+	 */
+	private static long percentile(long[] counts, long count, double fraction, long maxNanos) {
+		if(count == 0)
+			return 0;
+		long rank = (long) Math.ceil(count * fraction);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if(seen >= rank)
+				return i == 0 ? 0 : Math.min(maxNanos, (1L << i) - 1);
+		}
+		return maxNanos;
+	}
+}
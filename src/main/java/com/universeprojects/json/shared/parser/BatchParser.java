@@ -0,0 +1,256 @@
+package com.universeprojects.json.shared.parser;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+
+/**
+ * Parses many independent documents in parallel on a ForkJoinPool, e.g. the entity properties of a region that is
+ * being loaded.
+ * <p>
+ * Each thread that takes part uses its own parser from JSONParserFactory, so the key cache setting of the factory
+ * applies. Results keep the order of the input, and a document that does not parse is reported on its own without
+ * failing the rest of the batch; a RuntimeException of the parser, such as the NumberFormatException for an integer
+ * out of the range of a long, is reported as a ParseException of type ERROR_UNEXPECTED_EXCEPTION. Small batches are parsed on the calling thread, where the pool would only add
+ * overhead.
+ *
+ * @see com.universeprojects.json.shared.JSONValue#parseAll(List)
+ */
+@GwtIncompatible
+public class BatchParser {
+
+	/**
+	 * Receives the documents of {@link BatchParser#parseAll(Iterator, ResultHandler)}, in input order and on the
+	 * calling thread.
+	 */
+	public interface ResultHandler {
+		void value(int index, Object value);
+
+		void error(int index, ParseException error);
+	}
+
+	/**
+	 * The values of a batch in input order, null where a document did not parse; getError() tells those apart
+	 * from documents that are "null".
+	 */
+	public static final class Results extends AbstractList<Object> {
+		private final Object[] values;
+		private final ParseException[] errors;
+		private int errorCount;
+
+		Results(int size) {
+			values = new Object[size];
+			errors = new ParseException[size];
+		}
+
+		@Override
+		public Object get(int index) {
+			return values[index];
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+
+		/**
+		 * @return The error of the document at the index, null if it was parsed.
+		 */
+		public ParseException getError(int index) {
+			if(index < 0 || index >= errors.length)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + errors.length);
+			return errors[index];
+		}
+
+		public int getErrorCount() {
+			return errorCount;
+		}
+
+		public boolean hasErrors() {
+			return errorCount > 0;
+		}
+
+		void countErrors() {
+			int count = 0;
+			for(ParseException error : errors) {
+				if(error != null)
+					count++;
+			}
+			errorCount = count;
+		}
+	}
+
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/** Below this much text in a batch, the documents are parsed on the calling thread */
+	private static final int MIN_PARALLEL_CHARS = 32 * 1024;
+
+	/** Tasks per thread of the pool, so that threads that get the short documents can take more */
+	private static final int TASKS_PER_THREAD = 8;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	/**
+	 * A parser that runs on the common pool.
+	 */
+	public BatchParser() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public BatchParser(ForkJoinPool pool) {
+		this(pool, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param chunkSize Number of documents that parseAll(Iterator, ResultHandler) takes from the iterator at a time.
+	 */
+	public BatchParser(ForkJoinPool pool, int chunkSize) {
+		if(pool == null)
+			throw new NullPointerException("pool");
+		if(chunkSize <= 0)
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Parse all documents and wait for the results.
+	 *
+	 * @param documents Documents to parse, none of them null.
+	 * @return The values in the order of the documents.
+	 */
+	public Results parseAll(List<? extends CharSequence> documents) {
+		Results results = new Results(documents.size());
+		ParseTask task = newTask(documents, results);
+		if(task == null)
+			parseRange(documents, 0, documents.size(), results);
+		else
+			pool.invoke(task);
+		results.countErrors();
+		return results;
+	}
+
+	/**
+	 * Parse documents as they come from the iterator and hand them to the handler in input order. Chunks of
+	 * documents are parsed in parallel; the next chunk is parsed while the results of the previous one are handed
+	 * out, and no more than two chunks are held at a time.
+	 * <p>
+	 * If the handler throws, the exception is passed on and the remaining documents are not read.
+	 */
+	public void parseAll(Iterator<? extends CharSequence> documents, ResultHandler handler) {
+		int start = 0;
+		List<CharSequence> pending = null;
+		Results pendingResults = null;
+		ForkJoinTask<?> pendingTask = null;
+		while(pending != null || documents.hasNext()) {
+			List<CharSequence> next = null;
+			Results nextResults = null;
+			ForkJoinTask<?> nextTask = null;
+			if(documents.hasNext()) {
+				next = new ArrayList<>(chunkSize);
+				while(next.size() < chunkSize && documents.hasNext())
+					next.add(documents.next());
+				nextResults = new Results(next.size());
+				nextTask = newTask(next, nextResults);
+				if(nextTask == null)
+					nextTask = new ParseTask(next, 0, next.size(), next.size(), nextResults);
+				pool.execute(nextTask);
+			}
+
+			if(pending != null) {
+				pendingTask.join();
+				for(int i = 0; i < pending.size(); i++) {
+					ParseException error = pendingResults.errors[i];
+					if(error == null)
+						handler.value(start + i, pendingResults.values[i]);
+					else
+						handler.error(start + i, error);
+				}
+				start += pending.size();
+			}
+
+			pending = next;
+			pendingResults = nextResults;
+			pendingTask = nextTask;
+		}
+	}
+
+	/**
+	 * @return The task that splits the documents over the pool, null if they should be parsed on one thread.
+	 */
+	private ParseTask newTask(List<? extends CharSequence> documents, Results results) {
+		int size = documents.size();
+		int parallelism = pool.getParallelism();
+		if(size < 2 || parallelism < 2)
+			return null;
+		long chars = 0;
+		for(int i = 0; i < size && chars < MIN_PARALLEL_CHARS; i++)
+			chars += documents.get(i).length();
+		if(chars < MIN_PARALLEL_CHARS)
+			return null;
+		int leafSize = Math.max(1, size / (parallelism * TASKS_PER_THREAD));
+		return new ParseTask(documents, 0, size, leafSize, results);
+	}
+
+	private static void parseRange(List<? extends CharSequence> documents, int from, int to, Results results) {
+		JSONServerParser parser = JSONParserFactory.getServerParser();
+		for(int i = from; i < to; i++) {
+			try {
+				results.values[i] = parser.parse(documents.get(i).toString());
+			}
+			catch(ParseException e) {
+				results.errors[i] = e;
+			}
+			catch(RuntimeException e) {
+				// e.g. NumberFormatException for an integer that doesn't fit in a long
+				ParseException error = new ParseException(parser.getPosition(), ParseException.ERROR_UNEXPECTED_EXCEPTION, e);
+				error.initCause(e);
+				results.errors[i] = error;
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class ParseTask extends RecursiveAction {
+		private final List<? extends CharSequence> documents;
+		private final int from;
+		private final int to;
+		private final int leafSize;
+		private final Results results;
+
+		ParseTask(List<? extends CharSequence> documents, int from, int to, int leafSize, Results results) {
+			this.documents = documents;
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+			this.results = results;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= leafSize) {
+				parseRange(documents, from, to, results);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ParseTask(documents, from, middle, leafSize, results),
+					new ParseTask(documents, middle, to, leafSize, results));
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.universeprojects.json.shared.parser;
+
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.CompactJSONObject;
+
+/**
+ * Builds objects as CompactJSONObject, for parsed documents that are kept in memory and only read.
+ * Arrays are the usual JSONArray.
+ * <pre>
+ * Object tree = JSONParserFactory.getServerParser().parse(text, CompactContainerFactory.INSTANCE);
+ * </pre>
+ *
+ * @see CompactJSONObject
+ */
+@SuppressWarnings("rawtypes")
+public class CompactContainerFactory implements ContainerFactory {
+
+	public static final CompactContainerFactory INSTANCE = new CompactContainerFactory();
+
+	@Override
+	public Map createObjectContainer() {
+		return new CompactJSONObject();
+	}
+
+	@Override
+	public List creatArrayContainer() {
+		return null;
+	}
+}
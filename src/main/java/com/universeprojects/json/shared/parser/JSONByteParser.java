@@ -0,0 +1,825 @@
+package com.universeprojects.json.shared.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.instrument.JSONInstrumentation;
+import com.universeprojects.json.shared.instrument.JSONListener;
+
+
+/**
+ * Parser for UTF-8 encoded JSON text. It works on the bytes directly instead of decoding the whole input
+ * to chars first; only the contents of string tokens are decoded, into a buffer that is reused between calls.
+ * <p>
+ * The resulting tree is the same as the one built by JSONServerParser for the decoded text, lenient cases
+ * included: a backslash that doesn't start a valid escape is kept in the string, and an integer that doesn't fit
+ * in a long throws NumberFormatException (see NumberMode).
+ * Positions reported by getPosition() and ParseException are byte offsets from the start of the input.
+ * Malformed UTF-8 sequences inside strings decode to U+FFFD.
+ * <p>
+ * Please note that JSONByteParser is NOT thread-safe.
+ *
+ * @see JSONServerParser
+ */
+@SuppressWarnings({"rawtypes","unchecked"})
+@GwtIncompatible
+public class JSONByteParser implements JSONParser {
+
+	private static final byte[] TRUE = {'t','r','u','e'};
+	private static final byte[] FALSE = {'f','a','l','s','e'};
+	private static final byte[] NULL = {'n','u','l','l'};
+
+	/** Size up to which the string and scratch buffers are kept by release() */
+	private static final int MAX_KEPT_BUFFER = 16384;
+
+	private byte[] buf;
+	private int offset;
+	private int pos;
+	private int end;
+
+	private int tokenStart;
+	private int tokenType;
+	private Object tokenValue;
+
+	/** Decoded contents of the string token being read */
+	private char[] chars = new char[256];
+
+	/** Number of chars produced by the last decodeMultiByte() call */
+	private int decodedChars;
+
+	/** Copy of the input for ByteBuffers that are not backed by an array */
+	private byte[] scratch;
+
+	private int[] statusStack = new int[16];
+	private Object[] valueStack = new Object[16];
+	private int statusDepth;
+	private int valueDepth;
+
+	private NumberMode numberMode = NumberMode.DEFAULT;
+
+	private KeyCache keyCache;
+	/** Set while the next string is an object key */
+	private boolean keyExpected;
+
+	private ParseLimits limits = ParseLimits.NONE;
+	/** Values in the document, and the entries of each open container by depth */
+	private int values;
+	private int[] entries = new int[16];
+
+	/** Nesting of the open containers and statistics of the document, for JSONInstrumentation */
+	private int depth;
+	private int maxDepth;
+	private int objects;
+	private int arrays;
+
+	/** Set for the parsers of the pool of JSONParserFactory */
+	boolean pooled;
+
+	public NumberMode getNumberMode(){
+		return numberMode;
+	}
+
+	/**
+	 * @param numberMode - How number tokens are converted; NumberMode.DEFAULT gives Long and Double.
+	 */
+	public void setNumberMode(NumberMode numberMode){
+		this.numberMode = numberMode;
+	}
+
+	/**
+	 * @return The size of the key cache, 0 if keys are not cached.
+	 */
+	public int getKeyCacheSize(){
+		return keyCache == null ? 0 : keyCache.size();
+	}
+
+	/**
+	 * @see JSONServerParser#setKeyCacheSize(int)
+	 */
+	public void setKeyCacheSize(int size){
+		if(size < 0)
+			throw new IllegalArgumentException("Negative key cache size: " + size);
+		keyCache = size == 0 ? null : new KeyCache(size);
+	}
+
+	public ParseLimits getLimits(){
+		return limits;
+	}
+
+	/**
+	 * @see JSONServerParser#setLimits(ParseLimits)
+	 */
+	public void setLimits(ParseLimits limits){
+		if(limits == null)
+			throw new NullPointerException("limits");
+		this.limits = limits;
+	}
+
+	/**
+	 * @return The position (byte offset, starting with 0) of the beginning of the current token.
+	 */
+	public int getPosition(){
+		return tokenStart - offset;
+	}
+
+	/**
+	 * Encodes the string to UTF-8 and parses it. Prefer JSONServerParser when the input already is a String.
+	 */
+	@Override
+	public Object parse(String s) throws ParseException{
+		return parse(s.getBytes(StandardCharsets.UTF_8), null);
+	}
+
+	public Object parse(byte[] in) throws ParseException{
+		return parse(in, 0, in.length, null);
+	}
+
+	public Object parse(byte[] in, ContainerFactory containerFactory) throws ParseException{
+		return parse(in, 0, in.length, containerFactory);
+	}
+
+	public Object parse(byte[] in, int offset, int length) throws ParseException{
+		return parse(in, offset, length, null);
+	}
+
+	/**
+	 * Parse the remaining bytes of the buffer. The position of the buffer is not changed.
+	 */
+	public Object parse(ByteBuffer in) throws ParseException{
+		return parse(in, null);
+	}
+
+	public Object parse(ByteBuffer in, ContainerFactory containerFactory) throws ParseException{
+		if(in.hasArray())
+			return parse(in.array(), in.arrayOffset() + in.position(), in.remaining(), containerFactory);
+
+		int length = in.remaining();
+		if(scratch == null || scratch.length < length)
+			scratch = new byte[Math.max(length, 1024)];
+		int position = in.position();
+		in.get(scratch, 0, length);
+		in.position(position);
+		return parse(scratch, 0, length, containerFactory);
+	}
+
+	/**
+	 * Parse UTF-8 JSON text into java object from the given range of the array.
+	 *
+	 * @param in
+	 * @param offset
+	 * @param length
+	 * @param containerFactory - Use this factory to create your own JSON object and JSON array containers.
+	 * @return Instance of the following:
+	 *  com.universeprojects.json.shared.JSONObject,
+	 * 	com.universeprojects.json.shared.JSONArray,
+	 * 	java.lang.String,
+	 * 	java.lang.Number,
+	 * 	java.lang.Boolean,
+	 * 	null
+	 *
+	 * @throws ParseException
+	 */
+	public Object parse(byte[] in, int offset, int length, ContainerFactory containerFactory) throws ParseException{
+		reset(in, offset, length);
+		JSONListener listener = JSONInstrumentation.listener();
+		if(listener == null)
+			return parseTree(containerFactory);
+		long startTime = JSONInstrumentation.now();
+		try{
+			Object value = parseTree(containerFactory);
+			listener.parsed(length, true, JSONInstrumentation.now() - startTime, maxDepth, objects, arrays);
+			return value;
+		}
+		catch(ParseException | RuntimeException e){
+			listener.parseFailed(getPosition(), true, JSONInstrumentation.now() - startTime, e);
+			throw e;
+		}
+	}
+
+	private Object parseTree(ContainerFactory containerFactory) throws ParseException{
+		if(end - offset > limits.maxDocumentSize){
+			buf = null;
+			throw ParseLimits.exceeded(ParseLimits.Limit.DOCUMENT_SIZE, limits.maxDocumentSize);
+		}
+		int status = JSONServerParser.S_INIT;
+		try{
+			do{
+				keyExpected = status == JSONServerParser.S_IN_OBJECT && keyCache != null;
+				nextToken();
+				switch(status){
+				case JSONServerParser.S_INIT:
+					switch(tokenType){
+					case Yytoken.TYPE_VALUE:
+						countValue();
+						status=JSONServerParser.S_IN_FINISHED_VALUE;
+						pushStatus(status);
+						pushValue(tokenValue);
+						break;
+					case Yytoken.TYPE_LEFT_BRACE:
+						status=JSONServerParser.S_IN_OBJECT;
+						pushStatus(status);
+						pushValue(createObjectContainer(containerFactory));
+						break;
+					case Yytoken.TYPE_LEFT_SQUARE:
+						status=JSONServerParser.S_IN_ARRAY;
+						pushStatus(status);
+						pushValue(createArrayContainer(containerFactory));
+						break;
+					default:
+						status=JSONServerParser.S_IN_ERROR;
+					}//inner switch
+					break;
+
+				case JSONServerParser.S_IN_FINISHED_VALUE:
+					if(tokenType==Yytoken.TYPE_EOF)
+						return valueStack[--valueDepth];
+					else
+						throw unexpectedToken();
+
+				case JSONServerParser.S_IN_OBJECT:
+					switch(tokenType){
+					case Yytoken.TYPE_COMMA:
+						break;
+					case Yytoken.TYPE_VALUE:
+						if(tokenValue instanceof String){
+							pushValue(tokenValue);
+							status=JSONServerParser.S_PASSED_PAIR_KEY;
+							pushStatus(status);
+						}
+						else{
+							status=JSONServerParser.S_IN_ERROR;
+						}
+						break;
+					case Yytoken.TYPE_RIGHT_BRACE:
+						if(valueDepth>1){
+							statusDepth--;
+							depth--;
+							valueStack[--valueDepth] = null;
+							status=peekStatus();
+						}
+						else{
+							status=JSONServerParser.S_IN_FINISHED_VALUE;
+						}
+						break;
+					default:
+						status=JSONServerParser.S_IN_ERROR;
+						break;
+					}//inner switch
+					break;
+
+				case JSONServerParser.S_PASSED_PAIR_KEY:
+					switch(tokenType){
+					case Yytoken.TYPE_COLON:
+						break;
+					case Yytoken.TYPE_VALUE:
+						countValue();
+						statusDepth--;
+						String key=popKey();
+						((Map)valueStack[valueDepth-1]).put(key,tokenValue);
+						status=peekStatus();
+						break;
+					case Yytoken.TYPE_LEFT_SQUARE:
+						statusDepth--;
+						key=popKey();
+						List newArray=createArrayContainer(containerFactory);
+						((Map)valueStack[valueDepth-1]).put(key,newArray);
+						status=JSONServerParser.S_IN_ARRAY;
+						pushStatus(status);
+						pushValue(newArray);
+						break;
+					case Yytoken.TYPE_LEFT_BRACE:
+						statusDepth--;
+						key=popKey();
+						Map newObject=createObjectContainer(containerFactory);
+						((Map)valueStack[valueDepth-1]).put(key,newObject);
+						status=JSONServerParser.S_IN_OBJECT;
+						pushStatus(status);
+						pushValue(newObject);
+						break;
+					default:
+						status=JSONServerParser.S_IN_ERROR;
+					}
+					break;
+
+				case JSONServerParser.S_IN_ARRAY:
+					switch(tokenType){
+					case Yytoken.TYPE_COMMA:
+						break;
+					case Yytoken.TYPE_VALUE:
+						countValue();
+						((List)valueStack[valueDepth-1]).add(tokenValue);
+						break;
+					case Yytoken.TYPE_RIGHT_SQUARE:
+						if(valueDepth>1){
+							statusDepth--;
+							depth--;
+							valueStack[--valueDepth] = null;
+							status=peekStatus();
+						}
+						else{
+							status=JSONServerParser.S_IN_FINISHED_VALUE;
+						}
+						break;
+					case Yytoken.TYPE_LEFT_BRACE:
+						Map newObject=createObjectContainer(containerFactory);
+						((List)valueStack[valueDepth-1]).add(newObject);
+						status=JSONServerParser.S_IN_OBJECT;
+						pushStatus(status);
+						pushValue(newObject);
+						break;
+					case Yytoken.TYPE_LEFT_SQUARE:
+						List newArray=createArrayContainer(containerFactory);
+						((List)valueStack[valueDepth-1]).add(newArray);
+						status=JSONServerParser.S_IN_ARRAY;
+						pushStatus(status);
+						pushValue(newArray);
+						break;
+					default:
+						status=JSONServerParser.S_IN_ERROR;
+					}//inner switch
+					break;
+				case JSONServerParser.S_IN_ERROR:
+					throw unexpectedToken();
+				}//switch
+				if(status==JSONServerParser.S_IN_ERROR){
+					throw unexpectedToken();
+				}
+			}while(tokenType!=Yytoken.TYPE_EOF);
+		}
+		finally{
+			// Don't keep the document reachable from a cached parser
+			while(valueDepth > 0)
+				valueStack[--valueDepth] = null;
+			buf = null;
+		}
+
+		throw unexpectedToken();
+	}
+
+	private void reset(byte[] in, int offset, int length){
+		if(offset < 0 || length < 0 || offset + length > in.length)
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + in.length);
+		this.buf = in;
+		this.offset = offset;
+		this.pos = offset;
+		this.end = offset + length;
+		this.tokenStart = offset;
+		this.tokenType = Yytoken.TYPE_EOF;
+		this.tokenValue = null;
+		this.statusDepth = 0;
+		this.valueDepth = 0;
+		this.values = 0;
+		this.depth = this.maxDepth = this.objects = this.arrays = 0;
+	}
+
+	private int peekStatus(){
+		if(statusDepth==0)
+			return -1;
+		return statusStack[statusDepth-1];
+	}
+
+	private void pushStatus(int status){
+		if(statusDepth == statusStack.length){
+			int[] newStack = new int[statusDepth*2];
+			System.arraycopy(statusStack, 0, newStack, 0, statusDepth);
+			statusStack = newStack;
+		}
+		statusStack[statusDepth++] = status;
+	}
+
+	private void pushValue(Object value){
+		if(valueDepth == valueStack.length){
+			Object[] newStack = new Object[valueDepth*2];
+			System.arraycopy(valueStack, 0, newStack, 0, valueDepth);
+			valueStack = newStack;
+		}
+		valueStack[valueDepth++] = value;
+	}
+
+	private String popKey(){
+		String key = (String)valueStack[--valueDepth];
+		valueStack[valueDepth] = null;
+		return key;
+	}
+
+	private ParseException unexpectedToken(){
+		return new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, new Yytoken(tokenType, tokenValue));
+	}
+
+	/**
+	 * Count a value that goes into the innermost open container, or the top-level value.
+	 */
+	private void countValue() throws ParseException{
+		if(++values > limits.maxValues)
+			throw ParseLimits.exceeded(ParseLimits.Limit.VALUES, getPosition());
+		if(depth > 0 && ++entries[depth-1] > limits.maxEntries)
+			throw ParseLimits.exceeded(ParseLimits.Limit.ENTRIES, getPosition());
+	}
+
+	/**
+	 * Count a container as a value of its parent and open it.
+	 */
+	private void openContainer() throws ParseException{
+		countValue();
+		if(depth >= limits.maxDepth)
+			throw ParseLimits.exceeded(ParseLimits.Limit.DEPTH, getPosition());
+		if(depth == entries.length){
+			int[] newEntries = new int[depth*2];
+			System.arraycopy(entries, 0, newEntries, 0, depth);
+			entries = newEntries;
+		}
+		entries[depth] = 0;
+		if(++depth > maxDepth)
+			maxDepth = depth;
+	}
+
+	private Map createObjectContainer(ContainerFactory containerFactory) throws ParseException{
+		openContainer();
+		objects++;
+		if(containerFactory == null)
+			return new JSONObject();
+		Map m = containerFactory.createObjectContainer();
+
+		if(m == null)
+			return new JSONObject();
+		return m;
+	}
+
+	private List createArrayContainer(ContainerFactory containerFactory) throws ParseException{
+		openContainer();
+		arrays++;
+		if(containerFactory == null)
+			return new JSONArray();
+		List l = containerFactory.creatArrayContainer();
+
+		if(l == null)
+			return new JSONArray();
+		return l;
+	}
+
+	/**
+	 * Let go of the buffers that grew beyond their initial size for a long string or a large direct buffer.
+	 *
+	 * @see JSONParserFactory#releaseByteParser(JSONByteParser)
+	 */
+	void release(){
+		buf = null;
+		if(chars.length > MAX_KEPT_BUFFER)
+			chars = new char[256];
+		if(scratch != null && scratch.length > MAX_KEPT_BUFFER)
+			scratch = null;
+	}
+
+	/*---- Token access for JSONFeedParser, which finds the tokens itself ----*/
+
+	void setInput(byte[] in, int offset, int length){
+		reset(in, offset, length);
+	}
+
+	void clearInput(){
+		buf = null;
+	}
+
+	/**
+	 * @return The position after the last token read.
+	 */
+	int getEnd(){
+		return pos;
+	}
+
+	/**
+	 * @param p - position of the opening quote.
+	 */
+	String readStringAt(int p, boolean key) throws ParseException{
+		tokenStart = p;
+		keyExpected = key && keyCache != null;
+		return readString(p + 1);
+	}
+
+	/**
+	 * Read the literal or number that starts at p.
+	 */
+	Object readScalarAt(int p) throws ParseException{
+		pos = p;
+		keyExpected = false;
+		nextToken();
+		if(tokenType != Yytoken.TYPE_VALUE)
+			throw unexpectedToken();
+		return tokenValue;
+	}
+
+	/*---- Lexer ----*/
+
+	private void nextToken() throws ParseException{
+		byte[] b = buf;
+		int p = pos;
+		int e = end;
+		while(p < e){
+			byte c = b[p];
+			if(c == ' ' || c == '\t' || c == '\n' || c == '\r')
+				p++;
+			else
+				break;
+		}
+		tokenStart = p;
+		tokenValue = null;
+		if(p >= e){
+			pos = p;
+			tokenType = Yytoken.TYPE_EOF;
+			return;
+		}
+
+		switch(b[p]){
+		case '{':
+			tokenType = Yytoken.TYPE_LEFT_BRACE;
+			pos = p + 1;
+			return;
+		case '}':
+			tokenType = Yytoken.TYPE_RIGHT_BRACE;
+			pos = p + 1;
+			return;
+		case '[':
+			tokenType = Yytoken.TYPE_LEFT_SQUARE;
+			pos = p + 1;
+			return;
+		case ']':
+			tokenType = Yytoken.TYPE_RIGHT_SQUARE;
+			pos = p + 1;
+			return;
+		case ',':
+			tokenType = Yytoken.TYPE_COMMA;
+			pos = p + 1;
+			return;
+		case ':':
+			tokenType = Yytoken.TYPE_COLON;
+			pos = p + 1;
+			return;
+		case '"':
+			tokenType = Yytoken.TYPE_VALUE;
+			tokenValue = readString(p + 1);
+			return;
+		case 't':
+			readLiteral(p, TRUE);
+			tokenType = Yytoken.TYPE_VALUE;
+			tokenValue = Boolean.TRUE;
+			return;
+		case 'f':
+			readLiteral(p, FALSE);
+			tokenType = Yytoken.TYPE_VALUE;
+			tokenValue = Boolean.FALSE;
+			return;
+		case 'n':
+			readLiteral(p, NULL);
+			tokenType = Yytoken.TYPE_VALUE;
+			return;
+		case '-':
+		case '0': case '1': case '2': case '3': case '4':
+		case '5': case '6': case '7': case '8': case '9':
+			tokenType = Yytoken.TYPE_VALUE;
+			tokenValue = readNumber(p);
+			return;
+		default:
+			throw unexpectedChar(p);
+		}
+	}
+
+	private void readLiteral(int p, byte[] literal) throws ParseException{
+		if(end - p < literal.length)
+			throw unexpectedChar(p);
+		for(int i=1;i<literal.length;i++){
+			if(buf[p+i] != literal[i])
+				throw unexpectedChar(p);
+		}
+		pos = p + literal.length;
+	}
+
+	/**
+	 * Matches -?[0-9]+((\.[0-9]+)?([eE][-+]?[0-9]+)?), the longest match wins.
+	 */
+	private Number readNumber(int start) throws ParseException{
+		byte[] b = buf;
+		int e = end;
+		int p = start;
+		if(b[p] == '-')
+			p++;
+		int digitsStart = p;
+		while(p < e && isDigit(b[p]))
+			p++;
+		if(p == digitsStart)
+			throw unexpectedChar(start);
+
+		boolean decimal = false;
+		if(p + 1 < e && b[p] == '.' && isDigit(b[p+1])){
+			decimal = true;
+			p += 2;
+			while(p < e && isDigit(b[p]))
+				p++;
+		}
+		if(p + 1 < e && (b[p] == 'e' || b[p] == 'E')){
+			int q = p + 1;
+			if(b[q] == '-' || b[q] == '+')
+				q++;
+			if(q < e && isDigit(b[q])){
+				decimal = true;
+				p = q + 1;
+				while(p < e && isDigit(b[p]))
+					p++;
+			}
+		}
+		pos = p;
+		if(p - start > limits.maxNumberLength)
+			throw ParseLimits.exceeded(ParseLimits.Limit.NUMBER_LENGTH, start - offset);
+
+		// An integer out of the range of a long throws NumberFormatException, as with JSONServerParser
+		return NumberParser.toNumber(numberMode, decimal, b, start, p);
+	}
+
+	private static boolean isDigit(byte c){
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * @param start - position right after the opening quote.
+	 */
+	private String readString(int start) throws ParseException{
+		byte[] b = buf;
+		int e = end;
+		int p = start;
+
+		// Fast path: plain ASCII without escapes maps byte for char
+		while(p < e){
+			byte c = b[p];
+			if(c == '"'){
+				if(p - start > limits.maxStringLength)
+					throw stringTooLong();
+				pos = p + 1;
+				if(keyExpected)
+					return keyCache.get(b, start, p);
+				return new String(b, start, p - start, StandardCharsets.ISO_8859_1);
+			}
+			if(c == '\\' || c < 0)
+				break;
+			p++;
+		}
+
+		char[] cb = chars;
+		int len = p - start;
+		if(cb.length < len + 2)
+			cb = growChars(len + 2);
+		for(int i=0;i<len;i++)
+			cb[i] = (char)b[start+i];
+
+		while(p < e){
+			if(cb.length - len < 2)
+				cb = growChars(len + 2);
+			int c = b[p];
+			if(c == '"'){
+				if(len > limits.maxStringLength)
+					throw stringTooLong();
+				pos = p + 1;
+				if(keyExpected)
+					return keyCache.get(cb, 0, len);
+				return new String(cb, 0, len);
+			}
+			if(c == '\\'){
+				if(p + 1 >= e)
+					break;
+				switch(b[p+1]){
+				case '"': cb[len++] = '"'; break;
+				case '\\': cb[len++] = '\\'; break;
+				case '/': cb[len++] = '/'; break;
+				case 'b': cb[len++] = '\b'; break;
+				case 'f': cb[len++] = '\f'; break;
+				case 'n': cb[len++] = '\n'; break;
+				case 'r': cb[len++] = '\r'; break;
+				case 't': cb[len++] = '\t'; break;
+				case 'u':
+					int ch = unicodeEscape(b, p, e);
+					if(ch < 0){
+						cb[len++] = '\\';
+						p--;
+					}
+					else{
+						cb[len++] = (char)ch;
+						p += 4;
+					}
+					break;
+				default:
+					// Kept as is, like JSONServerParser does; the char that follows is read as usual
+					cb[len++] = '\\';
+					p--;
+				}
+				p += 2;
+			}
+			else if(c >= 0){
+				cb[len++] = (char)c;
+				p++;
+			}
+			else{
+				p = decodeMultiByte(p, cb, len);
+				len += decodedChars;
+			}
+		}
+
+		// Unterminated string
+		tokenStart = e;
+		tokenType = Yytoken.TYPE_EOF;
+		throw unexpectedToken();
+	}
+
+	/**
+	 * Decodes one multi-byte UTF-8 sequence starting at p into cb[len], which must have room for 2 chars.
+	 *
+	 * @return the position after the sequence.
+	 */
+	/**
+	 * @param p - position of the backslash of a \\u escape.
+	 * @return The char of the escape, or -1 if it isn't followed by four hex digits.
+	 */
+	private static int unicodeEscape(byte[] b, int p, int e){
+		if(p + 6 > e)
+			return -1;
+		int ch = 0;
+		for(int i=p+2;i<p+6;i++){
+			int digit = Character.digit(b[i], 16);
+			if(digit < 0)
+				return -1;
+			ch = (ch << 4) | digit;
+		}
+		return ch;
+	}
+
+	private int decodeMultiByte(int p, char[] cb, int len){
+		byte[] b = buf;
+		int e = end;
+		int c = b[p] & 0xFF;
+		decodedChars = 1;
+		if((c & 0xE0) == 0xC0){
+			if(p + 1 < e && isContinuation(b[p+1])){
+				int cp = ((c & 0x1F) << 6) | (b[p+1] & 0x3F);
+				if(cp >= 0x80){
+					cb[len] = (char)cp;
+					return p + 2;
+				}
+			}
+		}
+		else if((c & 0xF0) == 0xE0){
+			if(p + 2 < e && isContinuation(b[p+1]) && isContinuation(b[p+2])){
+				int cp = ((c & 0x0F) << 12) | ((b[p+1] & 0x3F) << 6) | (b[p+2] & 0x3F);
+				if(cp >= 0x800 && !Character.isSurrogate((char)cp)){
+					cb[len] = (char)cp;
+					return p + 3;
+				}
+			}
+		}
+		else if((c & 0xF8) == 0xF0){
+			if(p + 3 < e && isContinuation(b[p+1]) && isContinuation(b[p+2]) && isContinuation(b[p+3])){
+				int cp = ((c & 0x07) << 18) | ((b[p+1] & 0x3F) << 12) | ((b[p+2] & 0x3F) << 6) | (b[p+3] & 0x3F);
+				if(cp >= 0x10000 && cp <= Character.MAX_CODE_POINT){
+					cb[len] = Character.highSurrogate(cp);
+					cb[len+1] = Character.lowSurrogate(cp);
+					decodedChars = 2;
+					return p + 4;
+				}
+			}
+		}
+		cb[len] = '\uFFFD';
+		return p + 1;
+	}
+
+	private static boolean isContinuation(byte c){
+		return (c & 0xC0) == 0x80;
+	}
+
+	/**
+	 * @param minCapacity - Length of the string so far plus 2.
+	 */
+	private char[] growChars(int minCapacity) throws ParseException{
+		if(minCapacity - 2 > limits.maxStringLength)
+			throw stringTooLong();
+		char[] newChars = new char[Math.max(minCapacity, chars.length*2)];
+		System.arraycopy(chars, 0, newChars, 0, chars.length);
+		chars = newChars;
+		return newChars;
+	}
+
+	private ParseException stringTooLong(){
+		return ParseLimits.exceeded(ParseLimits.Limit.STRING_LENGTH, tokenStart - offset);
+	}
+
+	private ParseException unexpectedChar(int p){
+		int c = buf[p] & 0xFF;
+		char ch = (char)c;
+		if(c >= 0x80){
+			char[] cb = new char[2];
+			decodeMultiByte(p, cb, 0);
+			ch = cb[0];
+		}
+		return new ParseException(p - offset, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(ch));
+	}
+}
@@ -0,0 +1,756 @@
+package com.universeprojects.json.shared.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+
+
+/**
+ * Push parser for UTF-8 encoded JSON text that arrives in chunks, e.g. a request body read by a non-blocking
+ * server. Instead of a thread blocked on a Reader, the caller hands over every chunk as it arrives:
+ * <pre>
+ * JSONFeedParser parser = new JSONFeedParser();
+ * // for every chunk read from the channel
+ * parser.feed(chunk);
+ * // once the body is complete
+ * Object value = parser.endOfInput();
+ * </pre>
+ * Each feed() parses as many tokens as the chunk completes. A token that may go on in the next chunk, a string
+ * without its closing quote or a number at the end of the chunk, is kept until it is complete; only those bytes
+ * are copied, the rest is parsed straight from the array of the chunk. The state of the parser, the stack of
+ * open containers included, is kept between calls.
+ * <p>
+ * With a ContentHandler the parser reports the same events as JSONServerParser.parse(Reader, ContentHandler),
+ * as the tokens arrive; where the chunks end doesn't change them. When a handler method returns false, feed()
+ * returns without parsing the rest of the chunk; it is kept and parsed by the next feed(), or by endOfInput(),
+ * which can be called again to go on. Unlike JSONServerParser, which resumes after a false from primitive() for
+ * the value of an object entry without ever reporting the end of that entry, this parser goes on with
+ * endObjectEntry(), so every startObjectEntry() gets its endObjectEntry().
+ * Without a handler, it builds the same tree as JSONByteParser.
+ * <p>
+ * Positions reported by getPosition() and ParseException are byte offsets from the start of the input.
+ * Please note that JSONFeedParser is NOT thread-safe.
+ *
+ * @see JSONByteParser
+ * @see ContentHandler
+ */
+@SuppressWarnings({"rawtypes","unchecked"})
+@GwtIncompatible
+public class JSONFeedParser {
+
+	private final JSONByteParser tokens = new JSONByteParser();
+	private final ContentHandler contentHandler;
+	private ContainerFactory containerFactory;
+
+	/** Bytes of the last chunk that were not parsed yet: an incomplete token, or the rest after a pause */
+	private byte[] pending = new byte[256];
+	private int pendingLength;
+	/** Length of the beginning of the pending token that is known not to hold its end */
+	private int pendingScanned;
+
+	/** Position of the first pending byte in the input */
+	private int consumed;
+	/** Added to an index of the array being parsed to get the position in the input */
+	private int delta;
+
+	private int status = JSONServerParser.S_INIT;
+	private int[] statusStack = new int[16];
+	private Object[] valueStack = new Object[16];
+	private int statusDepth;
+	private int valueDepth;
+
+	private ParseLimits limits = ParseLimits.NONE;
+	/** Values in the document, and the entries of each open container by depth */
+	private int values;
+	private int[] entries = new int[16];
+	private int depth;
+
+	private int tokenStart;
+	private int tokenType;
+	private Object tokenValue;
+
+	private boolean started;
+	private boolean inputEnded;
+	private boolean complete;
+	private Object value;
+
+	/**
+	 * A parser that builds the tree of the value.
+	 */
+	public JSONFeedParser(){
+		this(null);
+	}
+
+	/**
+	 * A parser that reports the value to the handler as it is parsed.
+	 */
+	public JSONFeedParser(ContentHandler contentHandler){
+		this.contentHandler = contentHandler;
+	}
+
+	public NumberMode getNumberMode(){
+		return tokens.getNumberMode();
+	}
+
+	public void setNumberMode(NumberMode numberMode){
+		tokens.setNumberMode(numberMode);
+	}
+
+	/**
+	 * @see JSONServerParser#setKeyCacheSize(int)
+	 */
+	public void setKeyCacheSize(int size){
+		tokens.setKeyCacheSize(size);
+	}
+
+	public ParseLimits getLimits(){
+		return limits;
+	}
+
+	/**
+	 * Bound the size of the documents that are accepted, see ParseLimits. The document size and the length of an
+	 * unfinished token are checked as chunks arrive, so a client that never ends a string can't make the parser
+	 * hold on to more than the limits allow. The nesting depth, the entries of a container and the values of the
+	 * document are counted as the tokens are parsed, with a ContentHandler too.
+	 */
+	public void setLimits(ParseLimits limits){
+		if(limits == null)
+			throw new NullPointerException("limits");
+		this.limits = limits;
+		tokens.setLimits(limits);
+	}
+
+	/**
+	 * @param containerFactory - Use this factory to create your own JSON object and JSON array containers.
+	 */
+	public void setContainerFactory(ContainerFactory containerFactory){
+		this.containerFactory = containerFactory;
+	}
+
+	/**
+	 * Start over for a new input, keeping the settings and buffers.
+	 */
+	public void reset(){
+		pendingLength = 0;
+		pendingScanned = 0;
+		consumed = 0;
+		status = JSONServerParser.S_INIT;
+		statusDepth = 0;
+		while(valueDepth > 0)
+			valueStack[--valueDepth] = null;
+		values = 0;
+		depth = 0;
+		tokenStart = 0;
+		tokenType = Yytoken.TYPE_EOF;
+		tokenValue = null;
+		started = false;
+		inputEnded = false;
+		complete = false;
+		value = null;
+	}
+
+	/**
+	 * @return The position (byte offset, starting with 0) of the beginning of the last token parsed.
+	 */
+	public int getPosition(){
+		return tokenStart;
+	}
+
+	/**
+	 * @return Whether the value has been parsed completely. A number or literal at the top level is only complete
+	 * once whitespace follows it, or at endOfInput(), as the next chunk could add to it.
+	 */
+	public boolean isComplete(){
+		return complete;
+	}
+
+	/**
+	 * @return The value built so far, complete once isComplete() returns true; null with a ContentHandler.
+	 */
+	public Object getValue(){
+		return value;
+	}
+
+	/**
+	 * Parse the remaining bytes of the chunk, as far as they complete tokens. The position of the chunk is moved
+	 * to its limit: the bytes that could not be parsed yet are kept by the parser, so the buffer can be reused for
+	 * the next read right away.
+	 *
+	 * @throws ParseException if the input so far is not valid JSON. The parser has to be reset after an error.
+	 * @throws IOException from the ContentHandler.
+	 */
+	public void feed(ByteBuffer chunk) throws ParseException, IOException{
+		if(inputEnded)
+			throw new IllegalStateException("Input already ended");
+		int length = chunk.remaining();
+		if(pendingLength == 0 && chunk.hasArray()){
+			byte[] in = chunk.array();
+			int start = chunk.arrayOffset() + chunk.position();
+			chunk.position(chunk.limit());
+			int stop = run(in, start, start + length, false);
+			keep(in, stop, start + length);
+			return;
+		}
+		ensurePending(pendingLength + length);
+		chunk.get(pending, pendingLength, length);
+		pendingLength += length;
+		int stop = run(pending, 0, pendingLength, false);
+		keep(pending, stop, pendingLength);
+	}
+
+	public void feed(byte[] in, int offset, int length) throws ParseException, IOException{
+		feed(ByteBuffer.wrap(in, offset, length));
+	}
+
+	/**
+	 * Parse the rest of the input.
+	 *
+	 * @return The value, or null with a ContentHandler.
+	 * @throws ParseException if the input is not complete, valid JSON.
+	 * @throws IOException from the ContentHandler.
+	 */
+	public Object endOfInput() throws ParseException, IOException{
+		inputEnded = true;
+		int stop = run(pending, 0, pendingLength, true);
+		keep(pending, stop, pendingLength);
+		return value;
+	}
+
+	/**
+	 * Parse the tokens of in[start, end).
+	 *
+	 * @param last - Whether the input ends at end; otherwise a token that reaches end is left for later.
+	 * @return The position where parsing stopped: end, the start of an incomplete token, or the position after
+	 * the token whose handler method returned false. The bytes from there on are kept in pending.
+	 */
+	private int run(byte[] in, int start, int end, boolean last) throws ParseException, IOException{
+		if(status == JSONServerParser.S_IN_ERROR)
+			throw new IllegalStateException("Parser failed before, it has to be reset");
+		delta = consumed - start;
+		int scanned = pendingScanned;
+		pendingScanned = 0;
+		tokens.setInput(in, start, end - start);
+		try{
+			int p = start;
+			if(!started){
+				started = true;
+				if(contentHandler != null)
+					contentHandler.startJSON();
+			}
+			while(true){
+				if(status == JSONServerParser.S_IN_PAIR_VALUE){
+					// Marker of the end of an object entry, see JSONServerParser
+					statusDepth--;
+					status = peekStatus();
+					if(!contentHandler.endObjectEntry())
+						return p;
+					continue;
+				}
+				while(p < end && isWhitespace(in[p]))
+					p++;
+				if(p == end){
+					consumed = p + delta;
+					if(consumed > limits.maxDocumentSize)
+						throw ParseLimits.exceeded(ParseLimits.Limit.DOCUMENT_SIZE, limits.maxDocumentSize);
+					if(last){
+						tokenStart = consumed;
+						tokenType = Yytoken.TYPE_EOF;
+						tokenValue = null;
+						endToken();
+					}
+					return p;
+				}
+
+				tokenStart = p + delta;
+				if(tokenStart >= limits.maxDocumentSize)
+					throw ParseLimits.exceeded(ParseLimits.Limit.DOCUMENT_SIZE, limits.maxDocumentSize);
+				tokenValue = null;
+				int next = p + 1;
+				switch(in[p]){
+				case '{':
+					tokenType = Yytoken.TYPE_LEFT_BRACE;
+					break;
+				case '}':
+					tokenType = Yytoken.TYPE_RIGHT_BRACE;
+					break;
+				case '[':
+					tokenType = Yytoken.TYPE_LEFT_SQUARE;
+					break;
+				case ']':
+					tokenType = Yytoken.TYPE_RIGHT_SQUARE;
+					break;
+				case ',':
+					tokenType = Yytoken.TYPE_COMMA;
+					break;
+				case ':':
+					tokenType = Yytoken.TYPE_COLON;
+					break;
+				case '"':
+					int q = Math.max(p + 1, p + scanned);
+					while(q < end && in[q] != '"')
+						q += in[q] == '\\' ? 2 : 1;
+					if(q >= end && !last){
+						// An escape or a UTF-8 sequence takes at most 6 bytes per char
+						if(q - p - 1 > 6L * limits.maxStringLength)
+							throw ParseLimits.exceeded(ParseLimits.Limit.STRING_LENGTH, tokenStart);
+						return incomplete(p, q);
+					}
+					tokenType = Yytoken.TYPE_VALUE;
+					try{
+						tokenValue = tokens.readStringAt(p, status == JSONServerParser.S_IN_OBJECT);
+					}
+					catch(ParseException e){
+						throw inInput(e, start);
+					}
+					next = tokens.getEnd();
+					break;
+				default:
+					int s = Math.max(p + 1, p + scanned);
+					while(s < end && !isDelimiter(in[s]))
+						s++;
+					if(s == end && !last){
+						if(s - p > Math.max(limits.maxNumberLength, 5))
+							throw ParseLimits.exceeded(ParseLimits.Limit.NUMBER_LENGTH, tokenStart);
+						return incomplete(p, s);
+					}
+					tokenType = Yytoken.TYPE_VALUE;
+					try{
+						tokenValue = tokens.readScalarAt(p);
+					}
+					catch(ParseException e){
+						throw inInput(e, start);
+					}
+					next = tokens.getEnd();
+				}
+				scanned = 0;
+				p = next;
+				consumed = p + delta;
+				boolean proceed = contentHandler == null ? treeToken() : handlerToken();
+				if(!proceed)
+					return p;
+			}
+		}
+		catch(ParseException e){
+			status = JSONServerParser.S_IN_ERROR;
+			throw e;
+		}
+		catch(IOException e){
+			status = JSONServerParser.S_IN_ERROR;
+			throw e;
+		}
+		catch(RuntimeException e){
+			status = JSONServerParser.S_IN_ERROR;
+			throw e;
+		}
+		finally{
+			tokens.clearInput();
+		}
+	}
+
+	private int incomplete(int p, int scanned){
+		consumed = p + delta;
+		pendingScanned = scanned - p;
+		return p;
+	}
+
+	/**
+	 * Keep in[from, to) as the pending bytes.
+	 */
+	private void keep(byte[] in, int from, int to){
+		int length = to - from;
+		ensurePending(length);
+		System.arraycopy(in, from, pending, 0, length);
+		pendingLength = length;
+	}
+
+	private void ensurePending(int length){
+		if(pending.length < length){
+			byte[] newPending = new byte[Math.max(length, pending.length * 2)];
+			System.arraycopy(pending, 0, newPending, 0, pendingLength);
+			pending = newPending;
+		}
+	}
+
+	private void endToken() throws ParseException, IOException{
+		if(status == JSONServerParser.S_IN_FINISHED_VALUE){
+			status = JSONServerParser.S_END;
+			if(contentHandler != null){
+				contentHandler.endJSON();
+			}
+			else{
+				value = valueStack[--valueDepth];
+				valueStack[valueDepth] = null;
+			}
+			complete = true;
+			return;
+		}
+		if(status == JSONServerParser.S_END)
+			return;
+		throw unexpectedToken();
+	}
+
+	/**
+	 * Apply the token to the tree, the same way as JSONByteParser.
+	 */
+	private boolean treeToken() throws ParseException{
+		switch(status){
+		case JSONServerParser.S_INIT:
+			switch(tokenType){
+			case Yytoken.TYPE_VALUE:
+				countValue();
+				status=JSONServerParser.S_IN_FINISHED_VALUE;
+				pushStatus(status);
+				pushValue(tokenValue);
+				value = tokenValue;
+				// A scalar is only read once a delimiter or the end of the input follows it
+				complete = true;
+				break;
+			case Yytoken.TYPE_LEFT_BRACE:
+				status=JSONServerParser.S_IN_OBJECT;
+				pushStatus(status);
+				pushValue(createObjectContainer());
+				value = valueStack[0];
+				break;
+			case Yytoken.TYPE_LEFT_SQUARE:
+				status=JSONServerParser.S_IN_ARRAY;
+				pushStatus(status);
+				pushValue(createArrayContainer());
+				value = valueStack[0];
+				break;
+			default:
+				throw unexpectedToken();
+			}//inner switch
+			break;
+
+		case JSONServerParser.S_IN_OBJECT:
+			switch(tokenType){
+			case Yytoken.TYPE_COMMA:
+				break;
+			case Yytoken.TYPE_VALUE:
+				if(!(tokenValue instanceof String))
+					throw unexpectedToken();
+				pushValue(tokenValue);
+				status=JSONServerParser.S_PASSED_PAIR_KEY;
+				pushStatus(status);
+				break;
+			case Yytoken.TYPE_RIGHT_BRACE:
+				closeContainer();
+				break;
+			default:
+				throw unexpectedToken();
+			}//inner switch
+			break;
+
+		case JSONServerParser.S_PASSED_PAIR_KEY:
+			switch(tokenType){
+			case Yytoken.TYPE_COLON:
+				break;
+			case Yytoken.TYPE_VALUE:
+				countValue();
+				statusDepth--;
+				String key=popKey();
+				((Map)valueStack[valueDepth-1]).put(key,tokenValue);
+				status=peekStatus();
+				break;
+			case Yytoken.TYPE_LEFT_SQUARE:
+				statusDepth--;
+				key=popKey();
+				List newArray=createArrayContainer();
+				((Map)valueStack[valueDepth-1]).put(key,newArray);
+				status=JSONServerParser.S_IN_ARRAY;
+				pushStatus(status);
+				pushValue(newArray);
+				break;
+			case Yytoken.TYPE_LEFT_BRACE:
+				statusDepth--;
+				key=popKey();
+				Map newObject=createObjectContainer();
+				((Map)valueStack[valueDepth-1]).put(key,newObject);
+				status=JSONServerParser.S_IN_OBJECT;
+				pushStatus(status);
+				pushValue(newObject);
+				break;
+			default:
+				throw unexpectedToken();
+			}
+			break;
+
+		case JSONServerParser.S_IN_ARRAY:
+			switch(tokenType){
+			case Yytoken.TYPE_COMMA:
+				break;
+			case Yytoken.TYPE_VALUE:
+				countValue();
+				((List)valueStack[valueDepth-1]).add(tokenValue);
+				break;
+			case Yytoken.TYPE_RIGHT_SQUARE:
+				closeContainer();
+				break;
+			case Yytoken.TYPE_LEFT_BRACE:
+				Map newObject=createObjectContainer();
+				((List)valueStack[valueDepth-1]).add(newObject);
+				status=JSONServerParser.S_IN_OBJECT;
+				pushStatus(status);
+				pushValue(newObject);
+				break;
+			case Yytoken.TYPE_LEFT_SQUARE:
+				List newArray=createArrayContainer();
+				((List)valueStack[valueDepth-1]).add(newArray);
+				status=JSONServerParser.S_IN_ARRAY;
+				pushStatus(status);
+				pushValue(newArray);
+				break;
+			default:
+				throw unexpectedToken();
+			}//inner switch
+			break;
+
+		default:
+			// Only whitespace may follow the value
+			throw unexpectedToken();
+		}
+		return true;
+	}
+
+	private void closeContainer(){
+		if(valueDepth>1){
+			statusDepth--;
+			depth--;
+			valueStack[--valueDepth] = null;
+			status=peekStatus();
+		}
+		else{
+			status=JSONServerParser.S_IN_FINISHED_VALUE;
+			complete = true;
+		}
+	}
+
+	/**
+	 * Report the token to the handler, the same way as JSONServerParser.parse(Reader, ContentHandler, boolean).
+	 *
+	 * @return false if the handler wants to stop.
+	 */
+	private boolean handlerToken() throws ParseException, IOException{
+		switch(status){
+		case JSONServerParser.S_INIT:
+			switch(tokenType){
+			case Yytoken.TYPE_VALUE:
+				countValue();
+				status=JSONServerParser.S_IN_FINISHED_VALUE;
+				pushStatus(status);
+				complete = true;
+				return contentHandler.primitive(tokenValue);
+			case Yytoken.TYPE_LEFT_BRACE:
+				openContainer();
+				status=JSONServerParser.S_IN_OBJECT;
+				pushStatus(status);
+				return contentHandler.startObject();
+			case Yytoken.TYPE_LEFT_SQUARE:
+				openContainer();
+				status=JSONServerParser.S_IN_ARRAY;
+				pushStatus(status);
+				return contentHandler.startArray();
+			default:
+				throw unexpectedToken();
+			}//inner switch
+
+		case JSONServerParser.S_IN_OBJECT:
+			switch(tokenType){
+			case Yytoken.TYPE_COMMA:
+				return true;
+			case Yytoken.TYPE_VALUE:
+				if(!(tokenValue instanceof String))
+					throw unexpectedToken();
+				status=JSONServerParser.S_PASSED_PAIR_KEY;
+				pushStatus(status);
+				return contentHandler.startObjectEntry((String)tokenValue);
+			case Yytoken.TYPE_RIGHT_BRACE:
+				closeHandlerContainer();
+				return contentHandler.endObject();
+			default:
+				throw unexpectedToken();
+			}//inner switch
+
+		case JSONServerParser.S_PASSED_PAIR_KEY:
+			switch(tokenType){
+			case Yytoken.TYPE_COLON:
+				return true;
+			case Yytoken.TYPE_VALUE:
+				countValue();
+				// The marker reports the end of the entry, after a pause too
+				statusDepth--;
+				status=JSONServerParser.S_IN_PAIR_VALUE;
+				pushStatus(status);
+				return contentHandler.primitive(tokenValue);
+			case Yytoken.TYPE_LEFT_SQUARE:
+				statusDepth--;
+				pushStatus(JSONServerParser.S_IN_PAIR_VALUE);
+				openContainer();
+				status=JSONServerParser.S_IN_ARRAY;
+				pushStatus(status);
+				return contentHandler.startArray();
+			case Yytoken.TYPE_LEFT_BRACE:
+				statusDepth--;
+				pushStatus(JSONServerParser.S_IN_PAIR_VALUE);
+				openContainer();
+				status=JSONServerParser.S_IN_OBJECT;
+				pushStatus(status);
+				return contentHandler.startObject();
+			default:
+				throw unexpectedToken();
+			}
+
+		case JSONServerParser.S_IN_ARRAY:
+			switch(tokenType){
+			case Yytoken.TYPE_COMMA:
+				return true;
+			case Yytoken.TYPE_VALUE:
+				countValue();
+				return contentHandler.primitive(tokenValue);
+			case Yytoken.TYPE_RIGHT_SQUARE:
+				closeHandlerContainer();
+				return contentHandler.endArray();
+			case Yytoken.TYPE_LEFT_BRACE:
+				openContainer();
+				status=JSONServerParser.S_IN_OBJECT;
+				pushStatus(status);
+				return contentHandler.startObject();
+			case Yytoken.TYPE_LEFT_SQUARE:
+				openContainer();
+				status=JSONServerParser.S_IN_ARRAY;
+				pushStatus(status);
+				return contentHandler.startArray();
+			default:
+				throw unexpectedToken();
+			}//inner switch
+
+		default:
+			// Only whitespace may follow the value
+			throw unexpectedToken();
+		}
+	}
+
+	private void closeHandlerContainer(){
+		depth--;
+		if(statusDepth>1){
+			statusDepth--;
+			status=peekStatus();
+		}
+		else{
+			status=JSONServerParser.S_IN_FINISHED_VALUE;
+			complete = true;
+		}
+	}
+
+	private static boolean isWhitespace(byte c){
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	/**
+	 * @return Whether the byte ends a number or a literal.
+	 */
+	private static boolean isDelimiter(byte c){
+		switch(c){
+		case ' ': case '\t': case '\n': case '\r':
+		case ',': case ':': case '[': case ']': case '{': case '}': case '"':
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private int peekStatus(){
+		if(statusDepth==0)
+			return -1;
+		return statusStack[statusDepth-1];
+	}
+
+	private void pushStatus(int status){
+		if(statusDepth == statusStack.length){
+			int[] newStack = new int[statusDepth*2];
+			System.arraycopy(statusStack, 0, newStack, 0, statusDepth);
+			statusStack = newStack;
+		}
+		statusStack[statusDepth++] = status;
+	}
+
+	private void pushValue(Object value){
+		if(valueDepth == valueStack.length){
+			Object[] newStack = new Object[valueDepth*2];
+			System.arraycopy(valueStack, 0, newStack, 0, valueDepth);
+			valueStack = newStack;
+		}
+		valueStack[valueDepth++] = value;
+	}
+
+	private String popKey(){
+		String key = (String)valueStack[--valueDepth];
+		valueStack[valueDepth] = null;
+		return key;
+	}
+
+	private ParseException unexpectedToken(){
+		return new ParseException(tokenStart, ParseException.ERROR_UNEXPECTED_TOKEN, new Yytoken(tokenType, tokenValue));
+	}
+
+	/**
+	 * Make the position of an error of the lexer, relative to the start of the array range, a position in the input.
+	 */
+	private ParseException inInput(ParseException e, int start){
+		if(e.getPosition() >= 0)
+			e.setPosition(e.getPosition() + start + delta);
+		return e;
+	}
+
+	/**
+	 * Count a value that goes into the innermost open container, or the top-level value.
+	 */
+	private void countValue() throws ParseException{
+		if(++values > limits.maxValues)
+			throw ParseLimits.exceeded(ParseLimits.Limit.VALUES, tokenStart);
+		if(depth > 0 && ++entries[depth-1] > limits.maxEntries)
+			throw ParseLimits.exceeded(ParseLimits.Limit.ENTRIES, tokenStart);
+	}
+
+	/**
+	 * Count a container as a value of its parent and open it.
+	 */
+	private void openContainer() throws ParseException{
+		countValue();
+		if(depth >= limits.maxDepth)
+			throw ParseLimits.exceeded(ParseLimits.Limit.DEPTH, tokenStart);
+		if(depth == entries.length){
+			int[] newEntries = new int[depth*2];
+			System.arraycopy(entries, 0, newEntries, 0, depth);
+			entries = newEntries;
+		}
+		entries[depth++] = 0;
+	}
+
+	private Map createObjectContainer() throws ParseException{
+		openContainer();
+		if(containerFactory == null)
+			return new JSONObject();
+		Map m = containerFactory.createObjectContainer();
+
+		if(m == null)
+			return new JSONObject();
+		return m;
+	}
+
+	private List createArrayContainer() throws ParseException{
+		openContainer();
+		if(containerFactory == null)
+			return new JSONArray();
+		List l = containerFactory.creatArrayContainer();
+
+		if(l == null)
+			return new JSONArray();
+		return l;
+	}
+}
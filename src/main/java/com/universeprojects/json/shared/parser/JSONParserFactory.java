@@ -1,35 +1,224 @@
 package com.universeprojects.json.shared.parser;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+
 import com.universeprojects.json.shared.GwtIncompatible;
+import com.universeprojects.json.shared.instrument.JSONInstrumentation;
+import com.universeprojects.json.shared.instrument.JSONListener;
+import com.universeprojects.json.shared.serialization.SerializerFactory;
 
+/**
+ * Hands out parsers. getServerParser() and getByteParser() return the parser of the current thread, which stays
+ * with the thread. The parse() methods, and acquire/release pairs, instead take a parser for the duration of one
+ * document:
+ * <ul>
+ * <li>A platform thread uses its own parser, as with getServerParser().</li>
+ * <li>A virtual thread takes one from a bounded, lock-free pool and puts it back afterwards, so that short-lived
+ * virtual threads neither create a parser each nor keep one parked per thread. setPoolPlatformThreads() applies
+ * the pool to platform threads too, for large request pools.</li>
+ * </ul>
+ * Released parsers let go of the document and shrink buffers that grew for a large one back to their initial size.
+ * <p>
+ * Every parser created is reported to the JSONListeners of JSONInstrumentation, which tells how well the pool and
+ * the thread parsers are reused.
+ */
 public class JSONParserFactory {
 	
 	private static ParserHelper parserHelper;
+
+	private static volatile int keyCacheSize;
+
+	private static volatile ParseLimits parseLimits = ParseLimits.NONE;
+
+	/** Size of the parser pools; negative for the default */
+	private static volatile int parserPoolSize = -1;
+
+	private static volatile boolean poolPlatformThreads;
 	
+	/**
+	 * Set up the server side parsers. Also switches SerializerFactory to its server side lookup, see
+	 * SerializerFactory.initServerDispatch(). The first use of a server parser does the same if this wasn't called.
+	 */
 	@GwtIncompatible
 	public static void initServerParser() {
 		parserHelper = new ServerParserHelper();
+		SerializerFactory.initServerDispatch();
 	}
 	
 //	public static void initGWTParser() {
 //		parserHelper = new GWTParserHelper();
 //	}
 	
+	/**
+	 * Set the size of the key cache of the parsers handed out by this factory, see
+	 * JSONServerParser.setKeyCacheSize(). 0, the default, disables it. Each thread's parser gets its own cache
+	 * when it is next requested.
+	 */
+	@GwtIncompatible
+	public static void setKeyCacheSize(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Negative key cache size: " + size);
+		keyCacheSize = size;
+	}
+
+	public static int getKeyCacheSize() {
+		return keyCacheSize;
+	}
+
+	/**
+	 * Set the limits of the parsers handed out by this factory, see ParseLimits. ParseLimits.NONE, the default,
+	 * doesn't limit anything. Each parser takes them over when it is next requested.
+	 */
+	@GwtIncompatible
+	public static void setParseLimits(ParseLimits limits) {
+		if(limits == null)
+			throw new NullPointerException("limits");
+		parseLimits = limits;
+	}
+
+	public static ParseLimits getParseLimits() {
+		return parseLimits;
+	}
+
+	/**
+	 * Set the number of parsers of each kind that the pool keeps. Defaults to twice the number of processors;
+	 * 0 makes every pooled acquire create a parser. Parsers in the old pool are dropped.
+	 */
+	@GwtIncompatible
+	public static void setParserPoolSize(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Negative pool size: " + size);
+		parserPoolSize = size;
+		serverHelper().setPoolSize(size);
+	}
+
+	@GwtIncompatible
+	public static int getParserPoolSize() {
+		int size = parserPoolSize;
+		return size < 0 ? Runtime.getRuntime().availableProcessors() * 2 : size;
+	}
+
+	/**
+	 * @param pool - true to take the parsers of platform threads from the pool as well, instead of keeping one
+	 * per thread. Suits large thread pools whose threads mostly do other work.
+	 */
+	@GwtIncompatible
+	public static void setPoolPlatformThreads(boolean pool) {
+		poolPlatformThreads = pool;
+	}
+
 	public static JSONParser getParser() {
 		return parserHelper.getParser();
 	}
 	
 	@GwtIncompatible
 	public static JSONServerParser getServerParser() {
-		if(parserHelper == null) parserHelper = new ServerParserHelper();
-		return (JSONServerParser) parserHelper.getParser();
+		return (JSONServerParser) serverHelper().getParser();
+	}
+
+	/**
+	 * @return The parser for UTF-8 encoded input of the current thread.
+	 */
+	@GwtIncompatible
+	public static JSONByteParser getByteParser() {
+		JSONByteParser parser = serverHelper().byteParser.get();
+		if(parser.getKeyCacheSize() != keyCacheSize)
+			parser.setKeyCacheSize(keyCacheSize);
+		if(parser.getLimits() != parseLimits)
+			parser.setLimits(parseLimits);
+		return parser;
+	}
+
+	/**
+	 * Take a parser for one document; it has to be handed back with releaseServerParser() once the document is
+	 * parsed, and not used after that.
+	 */
+	@GwtIncompatible
+	public static JSONServerParser acquireServerParser() {
+		return serverHelper().acquireServerParser();
+	}
+
+	@GwtIncompatible
+	public static void releaseServerParser(JSONServerParser parser) {
+		serverHelper().releaseServerParser(parser);
+	}
+
+	/**
+	 * @see #acquireServerParser()
+	 */
+	@GwtIncompatible
+	public static JSONByteParser acquireByteParser() {
+		return serverHelper().acquireByteParser();
+	}
+
+	@GwtIncompatible
+	public static void releaseByteParser(JSONByteParser parser) {
+		serverHelper().releaseByteParser(parser);
+	}
+
+	/**
+	 * Parse JSON text with a parser taken for this document only.
+	 */
+	public static Object parse(String s) throws ParseException {
+		ParserHelper helper = parserHelper;
+		if(helper == null) helper = serverHelper();
+		return helper.parse(s);
+	}
+
+	@GwtIncompatible
+	public static Object parse(Reader in) throws IOException, ParseException {
+		JSONServerParser parser = acquireServerParser();
+		try {
+			return parser.parse(in);
+		}
+		finally {
+			releaseServerParser(parser);
+		}
+	}
+
+	@GwtIncompatible
+	public static Object parse(byte[] in) throws ParseException {
+		JSONByteParser parser = acquireByteParser();
+		try {
+			return parser.parse(in);
+		}
+		finally {
+			releaseByteParser(parser);
+		}
+	}
+
+	/**
+	 * Parse the remaining bytes of the buffer. The position of the buffer is not changed.
+	 */
+	@GwtIncompatible
+	public static Object parse(ByteBuffer in) throws ParseException {
+		JSONByteParser parser = acquireByteParser();
+		try {
+			return parser.parse(in);
+		}
+		finally {
+			releaseByteParser(parser);
+		}
+	}
+
+	@GwtIncompatible
+	private static ServerParserHelper serverHelper() {
+		if(parserHelper == null) initServerParser();
+		return (ServerParserHelper) parserHelper;
 	}
 
 	
 	private interface ParserHelper {
 		JSONParser getParser();
+
+		Object parse(String s) throws ParseException;
 	}
-	
+
 //	private static class GWTParserHelper implements ParserHelper {
 //		JSONGWTParser gwtParser;
 //
@@ -43,18 +232,124 @@ public class JSONParserFactory {
 	
 	@GwtIncompatible
 	private static class ServerParserHelper implements ParserHelper {
+		/** Thread.isVirtual(), which only exists from Java 21 on */
+		private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
 		final ThreadLocal<JSONServerParser> serverParser = new ThreadLocal<JSONServerParser>() {
 			@Override
 			protected JSONServerParser initialValue() {
-				return new JSONServerParser();
+				return created(new JSONServerParser());
+			}
+		};
+		final ThreadLocal<JSONByteParser> byteParser = new ThreadLocal<JSONByteParser>() {
+			@Override
+			protected JSONByteParser initialValue() {
+				return created(new JSONByteParser());
 			}
 		};
 
+		volatile ParserPool<JSONServerParser> serverPool;
+		volatile ParserPool<JSONByteParser> bytePool;
+
+		ServerParserHelper() {
+			setPoolSize(getParserPoolSize());
+		}
+
+		void setPoolSize(int size) {
+			serverPool = new ParserPool<>(size);
+			bytePool = new ParserPool<>(size);
+		}
+
 		@Override
 		public JSONParser getParser() {
-			return serverParser.get();
+			JSONServerParser parser = serverParser.get();
+			if(parser.getKeyCacheSize() != keyCacheSize)
+				parser.setKeyCacheSize(keyCacheSize);
+			if(parser.getLimits() != parseLimits)
+				parser.setLimits(parseLimits);
+			return parser;
+		}
+
+		@Override
+		public Object parse(String s) throws ParseException {
+			JSONServerParser parser = acquireServerParser();
+			try {
+				return parser.parse(s);
+			}
+			finally {
+				releaseServerParser(parser);
+			}
+		}
+
+		JSONServerParser acquireServerParser() {
+			if(!usePool())
+				return (JSONServerParser) getParser();
+			JSONServerParser parser = serverPool.poll();
+			if(parser == null) {
+				parser = created(new JSONServerParser());
+				parser.pooled = true;
+			}
+			if(parser.getKeyCacheSize() != keyCacheSize)
+				parser.setKeyCacheSize(keyCacheSize);
+			if(parser.getLimits() != parseLimits)
+				parser.setLimits(parseLimits);
+			return parser;
+		}
+
+		void releaseServerParser(JSONServerParser parser) {
+			parser.release();
+			if(parser.pooled)
+				serverPool.offer(parser);
+		}
+
+		JSONByteParser acquireByteParser() {
+			if(!usePool())
+				return getByteParser();
+			JSONByteParser parser = bytePool.poll();
+			if(parser == null) {
+				parser = created(new JSONByteParser());
+				parser.pooled = true;
+			}
+			if(parser.getKeyCacheSize() != keyCacheSize)
+				parser.setKeyCacheSize(keyCacheSize);
+			if(parser.getLimits() != parseLimits)
+				parser.setLimits(parseLimits);
+			return parser;
+		}
+
+		void releaseByteParser(JSONByteParser parser) {
+			parser.release();
+			if(parser.pooled)
+				bytePool.offer(parser);
+		}
+
+		static <T> T created(T parser) {
+			JSONListener listener = JSONInstrumentation.listener();
+			if(listener != null)
+				listener.parserCreated(parser.getClass());
+			return parser;
+		}
+
+		private boolean usePool() {
+			if(poolPlatformThreads)
+				return true;
+			if(IS_VIRTUAL == null)
+				return false;
+			try {
+				return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+			}
+			catch(Throwable e) {
+				return false;
+			}
+		}
+
+		private static MethodHandle findIsVirtual() {
+			try {
+				return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+			}
+			catch(NoSuchMethodException | IllegalAccessException e) {
+				return null;
+			}
 		}
-		
-		
 	}
 }
@@ -0,0 +1,400 @@
+package com.universeprojects.json.shared.parser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+
+
+/**
+ * ContentHandler that picks the values addressed by JSON Pointers (RFC 6901, e.g. "/character/inventory/3/name")
+ * out of a document without building the rest of the tree.
+ * <p>
+ * Only the values that are addressed are built into JSONObject/JSONArray; all other branches are passed over.
+ * Parsing stops as soon as every pointer is resolved, either because its value was read or because the
+ * containing object or array ended without it.
+ * If an object has the same key more than once, the first occurrence is used.
+ *
+ * @see com.universeprojects.json.shared.JSONValue#extract(java.io.Reader, String...)
+ */
+@SuppressWarnings({"rawtypes","unchecked"})
+public class JSONPointerExtractor implements ContentHandler {
+
+	private final String[] pointers;
+	/** Unescaped reference tokens of each pointer */
+	private final String[][] segments;
+	/** Reference tokens as array indexes, -1 where a token is not a valid index */
+	private final int[][] indexes;
+
+	private final Object[] results;
+	private final boolean[] resolved;
+	private final boolean[] found;
+	private int resolvedCount;
+
+	/* Scratch lists of the pointers that address the current value, or go below it */
+	private final int[] exact;
+	private final int[] deeper;
+
+	/*
+	 * Containers that are on the way to at least one pointer, innermost last. For each of them: whether it is an
+	 * array, the index of the next element, and the pointers that continue below it.
+	 */
+	private int navDepth;
+	private boolean[] navIsArray = new boolean[8];
+	private int[] navIndex = new int[8];
+	private int[][] navCandidates = new int[8][];
+	private int[] navCandidateCount = new int[8];
+
+	/** Key of the object entry whose value comes next */
+	private String pendingKey;
+
+	/** Nesting level inside a branch that no pointer goes to */
+	private int skipDepth;
+
+	/* Tree being built for an addressed value */
+	private Object[] captureStack = new Object[8];
+	private int captureDepth;
+	/** Number of reference tokens that lead to the captured value */
+	private int captureLevel;
+	private int[] capturePointers;
+	private int capturePointerCount;
+	private int[] captureDeeper;
+	private int captureDeeperCount;
+
+	public JSONPointerExtractor(String... pointers) {
+		this.pointers = pointers;
+		this.segments = new String[pointers.length][];
+		this.indexes = new int[pointers.length][];
+		for(int i=0;i<pointers.length;i++){
+			segments[i] = parsePointer(pointers[i]);
+			indexes[i] = new int[segments[i].length];
+			for(int j=0;j<segments[i].length;j++)
+				indexes[i][j] = parseIndex(segments[i][j]);
+		}
+		this.results = new Object[pointers.length];
+		this.resolved = new boolean[pointers.length];
+		this.found = new boolean[pointers.length];
+		this.exact = new int[pointers.length];
+		this.deeper = new int[pointers.length];
+	}
+
+	/**
+	 * @return The value of each pointer, in the order the pointers were given. null for pointers that don't
+	 * exist in the document; use isFound() to tell them apart from null values.
+	 */
+	public Object[] getResults() {
+		return results;
+	}
+
+	/**
+	 * @return true if the pointer with the given position was found in the document.
+	 */
+	public boolean isFound(int pointer) {
+		return found[pointer];
+	}
+
+	public String[] getPointers() {
+		return pointers;
+	}
+
+	@Override
+	public void startJSON() {
+		navDepth = 0;
+		skipDepth = 0;
+		captureDepth = 0;
+		pendingKey = null;
+		resolvedCount = 0;
+		for(int i=0;i<pointers.length;i++){
+			resolved[i] = false;
+			found[i] = false;
+			results[i] = null;
+		}
+	}
+
+	@Override
+	public void endJSON() {
+		// Everything still open could not be found
+		for(int i=0;i<pointers.length;i++){
+			if(!resolved[i])
+				resolve(i, null, false);
+		}
+	}
+
+	@Override
+	public boolean startObject() {
+		return startValue(true, false, null);
+	}
+
+	@Override
+	public boolean startArray() {
+		return startValue(true, true, null);
+	}
+
+	@Override
+	public boolean primitive(Object value) {
+		return startValue(false, false, value);
+	}
+
+	@Override
+	public boolean startObjectEntry(String key) {
+		pendingKey = key;
+		return true;
+	}
+
+	@Override
+	public boolean endObjectEntry() {
+		return true;
+	}
+
+	@Override
+	public boolean endObject() {
+		return endContainer();
+	}
+
+	@Override
+	public boolean endArray() {
+		return endContainer();
+	}
+
+	private boolean startValue(boolean container, boolean array, Object value) {
+		if(skipDepth > 0){
+			if(container)
+				skipDepth++;
+			return true;
+		}
+
+		if(captureDepth > 0){
+			Object element = container ? (array ? new JSONArray() : new JSONObject()) : value;
+			Object parent = captureStack[captureDepth-1];
+			if(parent instanceof Map)
+				((Map)parent).put(pendingKey, element);
+			else
+				((List)parent).add(element);
+			if(container)
+				pushCapture(element);
+			return true;
+		}
+
+		// Work out which pointers address this value or go through it
+		int level = navDepth;
+		int exactCount = 0;
+		int deeperCount = 0;
+		if(level == 0){
+			for(int i=0;i<pointers.length;i++){
+				if(resolved[i])
+					continue;
+				if(segments[i].length == 0)
+					exact[exactCount++] = i;
+				else
+					deeper[deeperCount++] = i;
+			}
+		}
+		else{
+			int[] candidates = navCandidates[level-1];
+			int count = navCandidateCount[level-1];
+			boolean inArray = navIsArray[level-1];
+			int index = inArray ? navIndex[level-1]++ : -1;
+			int segment = level - 1;
+			for(int c=0;c<count;c++){
+				int i = candidates[c];
+				if(resolved[i])
+					continue;
+				boolean matches = inArray ? indexes[i][segment] == index : segments[i][segment].equals(pendingKey);
+				if(!matches)
+					continue;
+				if(segments[i].length == level)
+					exact[exactCount++] = i;
+				else
+					deeper[deeperCount++] = i;
+			}
+		}
+
+		if(exactCount > 0){
+			if(!container){
+				for(int c=0;c<exactCount;c++)
+					resolve(exact[c], value, true);
+				for(int c=0;c<deeperCount;c++)
+					resolve(deeper[c], null, false);
+				return !allResolved();
+			}
+			captureLevel = level;
+			capturePointers = Arrays.copyOf(exact, exactCount);
+			capturePointerCount = exactCount;
+			captureDeeper = Arrays.copyOf(deeper, deeperCount);
+			captureDeeperCount = deeperCount;
+			pushCapture(array ? new JSONArray() : new JSONObject());
+			return true;
+		}
+
+		if(deeperCount > 0 && container){
+			if(navDepth == navIsArray.length)
+				growNav();
+			navIsArray[navDepth] = array;
+			navIndex[navDepth] = 0;
+			navCandidates[navDepth] = Arrays.copyOf(deeper, deeperCount);
+			navCandidateCount[navDepth] = deeperCount;
+			navDepth++;
+			return true;
+		}
+
+		// Nothing below this value is wanted
+		for(int c=0;c<deeperCount;c++)
+			resolve(deeper[c], null, false);
+		if(container)
+			skipDepth = 1;
+		return !allResolved();
+	}
+
+	private boolean endContainer() {
+		if(skipDepth > 0){
+			skipDepth--;
+			return true;
+		}
+
+		if(captureDepth > 0){
+			Object element = captureStack[--captureDepth];
+			captureStack[captureDepth] = null;
+			if(captureDepth == 0){
+				for(int c=0;c<capturePointerCount;c++)
+					resolve(capturePointers[c], element, true);
+				for(int c=0;c<captureDeeperCount;c++)
+					resolveInside(captureDeeper[c], element);
+				capturePointers = null;
+				captureDeeper = null;
+				return !allResolved();
+			}
+			return true;
+		}
+
+		// Leaving a container on the way: whatever was expected inside it is missing
+		navDepth--;
+		int[] candidates = navCandidates[navDepth];
+		for(int c=0;c<navCandidateCount[navDepth];c++){
+			if(!resolved[candidates[c]])
+				resolve(candidates[c], null, false);
+		}
+		navCandidates[navDepth] = null;
+		return !allResolved();
+	}
+
+	/**
+	 * Resolve a pointer that goes below a value that was built completely.
+	 */
+	private void resolveInside(int pointer, Object root) {
+		Object current = root;
+		for(int s=captureLevel;s<segments[pointer].length;s++){
+			if(current instanceof Map){
+				Map map = (Map)current;
+				if(!map.containsKey(segments[pointer][s])){
+					resolve(pointer, null, false);
+					return;
+				}
+				current = map.get(segments[pointer][s]);
+			}
+			else if(current instanceof List){
+				List list = (List)current;
+				int index = indexes[pointer][s];
+				if(index < 0 || index >= list.size()){
+					resolve(pointer, null, false);
+					return;
+				}
+				current = list.get(index);
+			}
+			else{
+				resolve(pointer, null, false);
+				return;
+			}
+		}
+		resolve(pointer, current, true);
+	}
+
+	private void resolve(int pointer, Object value, boolean found) {
+		if(resolved[pointer])
+			return;
+		resolved[pointer] = true;
+		this.found[pointer] = found;
+		results[pointer] = value;
+		resolvedCount++;
+	}
+
+	private boolean allResolved() {
+		return resolvedCount == pointers.length;
+	}
+
+	private void pushCapture(Object container) {
+		if(captureDepth == captureStack.length){
+			Object[] newStack = new Object[captureDepth*2];
+			System.arraycopy(captureStack, 0, newStack, 0, captureDepth);
+			captureStack = newStack;
+		}
+		captureStack[captureDepth++] = container;
+	}
+
+	private void growNav() {
+		int size = navIsArray.length*2;
+		boolean[] isArray = new boolean[size];
+		System.arraycopy(navIsArray, 0, isArray, 0, navDepth);
+		navIsArray = isArray;
+		int[] index = new int[size];
+		System.arraycopy(navIndex, 0, index, 0, navDepth);
+		navIndex = index;
+		int[][] candidates = new int[size][];
+		System.arraycopy(navCandidates, 0, candidates, 0, navDepth);
+		navCandidates = candidates;
+		int[] count = new int[size];
+		System.arraycopy(navCandidateCount, 0, count, 0, navDepth);
+		navCandidateCount = count;
+	}
+
+	/**
+	 * Split a JSON Pointer into its unescaped reference tokens.
+	 *
+	 * @throws IllegalArgumentException if the pointer is not empty and doesn't start with '/'.
+	 */
+	public static String[] parsePointer(String pointer) {
+		if(pointer.isEmpty())
+			return new String[0];
+		if(pointer.charAt(0) != '/')
+			throw new IllegalArgumentException("JSON Pointer must be empty or start with '/': " + pointer);
+		int count = 0;
+		for(int i=0;i<pointer.length();i++){
+			if(pointer.charAt(i) == '/')
+				count++;
+		}
+		String[] result = new String[count];
+		int start = 1;
+		for(int s=0;s<count;s++){
+			int end = pointer.indexOf('/', start);
+			if(end < 0)
+				end = pointer.length();
+			result[s] = unescape(pointer.substring(start, end));
+			start = end + 1;
+		}
+		return result;
+	}
+
+	private static String unescape(String token) {
+		if(token.indexOf('~') < 0)
+			return token;
+		return token.replace("~1", "/").replace("~0", "~");
+	}
+
+	/**
+	 * @return The array index the token stands for, or -1 if it isn't one. Leading zeros are not allowed.
+	 */
+	public static int parseIndex(String token) {
+		int length = token.length();
+		if(length == 0 || length > 9 || (length > 1 && token.charAt(0) == '0'))
+			return -1;
+		int index = 0;
+		for(int i=0;i<length;i++){
+			char ch = token.charAt(i);
+			if(ch < '0' || ch > '9')
+				return -1;
+			index = index * 10 + (ch - '0');
+		}
+		return index;
+	}
+}
@@ -0,0 +1,485 @@
+package com.universeprojects.json.shared.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+
+
+/**
+ * Pull parser for JSON text: the caller walks through the document one token at a time and decides what to read
+ * and what to skip. Values that are skipped with skipValue() are scanned but never converted, so only the parts
+ * that are actually read cost memory.
+ * <pre>
+ * reader.beginObject();
+ * while(reader.hasNext()){
+ *     String name = reader.nextName();
+ *     if("name".equals(name))
+ *         name = reader.nextString();
+ *     else
+ *         reader.skipValue();
+ * }
+ * reader.endObject();
+ * </pre>
+ * Unlike JSONServerParser, the reader requires commas between elements and a colon after every name.
+ * Please note that JSONReader is NOT thread-safe.
+ */
+@GwtIncompatible
+public class JSONReader implements Closeable {
+	public static final int BEGIN_OBJECT=1;
+	public static final int END_OBJECT=2;
+	public static final int BEGIN_ARRAY=3;
+	public static final int END_ARRAY=4;
+	public static final int NAME=5;
+	public static final int STRING=6;
+	public static final int NUMBER=7;
+	public static final int BOOLEAN=8;
+	public static final int NULL=9;
+	public static final int END_DOCUMENT=10;
+
+	private static final int PEEKED_NONE=0;
+
+	/* Scopes of the nesting stack */
+	private static final int EMPTY_DOCUMENT=0;
+	private static final int NONEMPTY_DOCUMENT=1;
+	private static final int EMPTY_ARRAY=2;
+	private static final int NONEMPTY_ARRAY=3;
+	private static final int EMPTY_OBJECT=4;
+	private static final int DANGLING_NAME=5;
+	private static final int NONEMPTY_OBJECT=6;
+
+	private final Yylex lexer;
+	private Reader in;
+
+	private int[] stack = new int[16];
+	private int depth;
+
+	/** The next token, once peek() has read it */
+	private int peeked = PEEKED_NONE;
+	/** Value of the current token: the name, or the value of a STRING, NUMBER or BOOLEAN token */
+	private Object value;
+
+	/** Last token read from the lexer, for error reporting */
+	private int lexerToken;
+
+	private KeyCache keyCache;
+
+	public JSONReader(String s) {
+		this(new StringReader(s));
+	}
+
+	public JSONReader(Reader in) {
+		this.in = in;
+		this.lexer = new Yylex(in);
+		stack[depth++] = EMPTY_DOCUMENT;
+	}
+
+	public NumberMode getNumberMode() {
+		return lexer.numberMode;
+	}
+
+	/**
+	 * @param numberMode - How NUMBER tokens are converted; NumberMode.DEFAULT gives Long and Double.
+	 */
+	public void setNumberMode(NumberMode numberMode) {
+		lexer.numberMode = numberMode;
+	}
+
+	/**
+	 * @see JSONServerParser#setKeyCacheSize(int)
+	 */
+	public void setKeyCacheSize(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Negative key cache size: " + size);
+		keyCache = size == 0 ? null : new KeyCache(size);
+	}
+
+	public ParseLimits getLimits() {
+		return lexer.limits;
+	}
+
+	/**
+	 * Bound the input, see ParseLimits. The reader checks the document size, up to the end of the top-level value,
+	 * the length of strings and numbers and the nesting depth; counting values is left to the caller, who sees each
+	 * of them.
+	 */
+	public void setLimits(ParseLimits limits) {
+		if(limits == null)
+			throw new NullPointerException("limits");
+		lexer.limits = limits;
+	}
+
+	/**
+	 * @return The position of the beginning of the current token.
+	 */
+	public int getPosition() {
+		return lexer.getPosition();
+	}
+
+	/**
+	 * @return The type of the next token, without consuming it.
+	 */
+	public int peek() throws IOException, ParseException {
+		if(peeked != PEEKED_NONE)
+			return peeked;
+
+		int scope = stack[depth-1];
+		lexer.keyCache = scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT ? keyCache : null;
+		int token = readLexer();
+		switch(scope){
+		case EMPTY_DOCUMENT:
+			stack[depth-1] = NONEMPTY_DOCUMENT;
+			break;
+
+		case NONEMPTY_DOCUMENT:
+			if(token != Yytoken.TYPE_EOF)
+				throw unexpectedToken();
+			return peeked(END_DOCUMENT);
+
+		case EMPTY_ARRAY:
+			if(token == Yytoken.TYPE_RIGHT_SQUARE)
+				return peekedEnd(END_ARRAY);
+			stack[depth-1] = NONEMPTY_ARRAY;
+			break;
+
+		case NONEMPTY_ARRAY:
+			if(token == Yytoken.TYPE_RIGHT_SQUARE)
+				return peekedEnd(END_ARRAY);
+			if(token != Yytoken.TYPE_COMMA)
+				throw unexpectedToken();
+			token = readLexer();
+			break;
+
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			if(token == Yytoken.TYPE_RIGHT_BRACE)
+				return peekedEnd(END_OBJECT);
+			if(scope == NONEMPTY_OBJECT){
+				if(token != Yytoken.TYPE_COMMA)
+					throw unexpectedToken();
+				token = readLexer();
+			}
+			if(token != Yytoken.TYPE_VALUE || !(lexer.value instanceof String))
+				throw unexpectedToken();
+			stack[depth-1] = DANGLING_NAME;
+			value = lexer.value;
+			return peeked(NAME);
+
+		case DANGLING_NAME:
+			if(token != Yytoken.TYPE_COLON)
+				throw unexpectedToken();
+			token = readLexer();
+			stack[depth-1] = NONEMPTY_OBJECT;
+			break;
+		}
+
+		switch(token){
+		case Yytoken.TYPE_LEFT_BRACE:
+			checkDepth();
+			return peeked(BEGIN_OBJECT);
+		case Yytoken.TYPE_LEFT_SQUARE:
+			checkDepth();
+			return peeked(BEGIN_ARRAY);
+		case Yytoken.TYPE_VALUE:
+			if(depth == 1)
+				lexer.checkDocumentSize();
+			value = lexer.value;
+			if(value == null)
+				return peeked(NULL);
+			if(value instanceof String)
+				return peeked(STRING);
+			if(value instanceof Boolean)
+				return peeked(BOOLEAN);
+			return peeked(NUMBER);
+		default:
+			throw unexpectedToken();
+		}
+	}
+
+	/**
+	 * Consume the next token.
+	 *
+	 * @return The type of the token. For NAME, STRING, NUMBER and BOOLEAN the value is available from getValue().
+	 */
+	public int nextToken() throws IOException, ParseException {
+		int token = peek();
+		consume();
+		return token;
+	}
+
+	/**
+	 * @return The value of the token last returned by nextToken().
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * @return true if the current array or object has another element.
+	 */
+	public boolean hasNext() throws IOException, ParseException {
+		int token = peek();
+		return token != END_OBJECT && token != END_ARRAY && token != END_DOCUMENT;
+	}
+
+	public void beginObject() throws IOException, ParseException {
+		expect(BEGIN_OBJECT);
+	}
+
+	public void endObject() throws IOException, ParseException {
+		expect(END_OBJECT);
+	}
+
+	public void beginArray() throws IOException, ParseException {
+		expect(BEGIN_ARRAY);
+	}
+
+	public void endArray() throws IOException, ParseException {
+		expect(END_ARRAY);
+	}
+
+	public String nextName() throws IOException, ParseException {
+		expect(NAME);
+		return (String)value;
+	}
+
+	public String nextString() throws IOException, ParseException {
+		expect(STRING);
+		return (String)value;
+	}
+
+	public boolean nextBoolean() throws IOException, ParseException {
+		expect(BOOLEAN);
+		return ((Boolean)value).booleanValue();
+	}
+
+	public void nextNull() throws IOException, ParseException {
+		expect(NULL);
+	}
+
+	/**
+	 * @return The next number, as Long or Double.
+	 */
+	public Number nextNumber() throws IOException, ParseException {
+		expect(NUMBER);
+		return (Number)value;
+	}
+
+	/**
+	 * @throws ParseException if the next token is not a number, or a number that is not a whole long.
+	 */
+	public long nextLong() throws IOException, ParseException {
+		if(peek() != NUMBER)
+			throw unexpectedToken();
+		Number number = (Number)value;
+		long result = number.longValue();
+		if(!(number instanceof Long) && result != number.doubleValue())
+			throw unexpectedToken();
+		consume();
+		return result;
+	}
+
+	/**
+	 * @throws ParseException if the next token is not a number, or a number that is not a whole int.
+	 */
+	public int nextInt() throws IOException, ParseException {
+		if(peek() != NUMBER)
+			throw unexpectedToken();
+		Number number = (Number)value;
+		int result = number.intValue();
+		if(result != number.doubleValue() || (number instanceof Long && result != number.longValue()))
+			throw unexpectedToken();
+		consume();
+		return result;
+	}
+
+	public double nextDouble() throws IOException, ParseException {
+		return nextNumber().doubleValue();
+	}
+
+	/**
+	 * Skip the next value, including everything nested in it. If the next token is a name, the name and its value
+	 * are skipped. Strings and numbers inside the skipped value are not converted.
+	 */
+	public void skipValue() throws IOException, ParseException {
+		lexer.discardValues = true;
+		try{
+			if(peek() == NAME)
+				consume();
+			int level = 0;
+			do{
+				switch(peek()){
+				case BEGIN_OBJECT:
+				case BEGIN_ARRAY:
+					level++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					if(level == 0)
+						throw unexpectedToken();
+					level--;
+					break;
+				case END_DOCUMENT:
+					throw unexpectedToken();
+				}
+				consume();
+			}while(level > 0);
+		}
+		finally{
+			lexer.discardValues = false;
+		}
+		value = null;
+	}
+
+	/**
+	 * Read the next value into the usual tree representation.
+	 *
+	 * @return Instance of the following:
+	 *  com.universeprojects.json.shared.JSONObject,
+	 * 	com.universeprojects.json.shared.JSONArray,
+	 * 	java.lang.String,
+	 * 	java.lang.Number,
+	 * 	java.lang.Boolean,
+	 * 	null
+	 */
+	@SuppressWarnings({"rawtypes","unchecked"})
+	public Object nextValue() throws IOException, ParseException {
+		switch(peek()){
+		case NAME:
+		case END_OBJECT:
+		case END_ARRAY:
+		case END_DOCUMENT:
+			throw unexpectedToken();
+		}
+
+		Object[] containers = new Object[8];
+		int level = 0;
+		String name = null;
+		Object result = null;
+		do{
+			int token = nextToken();
+			Object element;
+			switch(token){
+			case NAME:
+				name = (String)value;
+				continue;
+			case BEGIN_OBJECT:
+				element = new JSONObject();
+				break;
+			case BEGIN_ARRAY:
+				element = new JSONArray();
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				containers[--level] = null;
+				continue;
+			case NULL:
+				element = null;
+				break;
+			case STRING:
+			case NUMBER:
+			case BOOLEAN:
+				element = value;
+				break;
+			default:
+				throw unexpectedToken();
+			}
+
+			if(level == 0)
+				result = element;
+			else if(containers[level-1] instanceof Map)
+				((Map)containers[level-1]).put(name, element);
+			else
+				((List)containers[level-1]).add(element);
+
+			if(token == BEGIN_OBJECT || token == BEGIN_ARRAY){
+				if(level == containers.length){
+					Object[] newContainers = new Object[level*2];
+					System.arraycopy(containers, 0, newContainers, 0, level);
+					containers = newContainers;
+				}
+				containers[level++] = element;
+			}
+		}while(level > 0);
+		value = result;
+		return result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		peeked = PEEKED_NONE;
+		depth = 0;
+		if(in != null)
+			in.close();
+		in = null;
+	}
+
+	private void expect(int token) throws IOException, ParseException {
+		if(peek() != token)
+			throw unexpectedToken();
+		consume();
+	}
+
+	private void consume() {
+		switch(peeked){
+		case BEGIN_OBJECT:
+			push(EMPTY_OBJECT);
+			break;
+		case BEGIN_ARRAY:
+			push(EMPTY_ARRAY);
+			break;
+		case END_OBJECT:
+		case END_ARRAY:
+			depth--;
+			break;
+		}
+		peeked = PEEKED_NONE;
+	}
+
+	private int peeked(int token) {
+		peeked = token;
+		return token;
+	}
+
+	/**
+	 * END_OBJECT or END_ARRAY; for the top-level container the document ends with it, so the part of it that the
+	 * lexer hasn't checked yet is checked against the document size.
+	 */
+	private int peekedEnd(int token) throws ParseException {
+		if(depth == 2)
+			lexer.checkDocumentSize();
+		return peeked(token);
+	}
+
+	/**
+	 * Check that a container can be opened; the bottom of the stack is the document.
+	 */
+	private void checkDepth() throws ParseException {
+		if(depth > lexer.limits.maxDepth)
+			throw ParseLimits.exceeded(ParseLimits.Limit.DEPTH, getPosition());
+	}
+
+	private void push(int scope) {
+		if(depth == stack.length){
+			int[] newStack = new int[depth*2];
+			System.arraycopy(stack, 0, newStack, 0, depth);
+			stack = newStack;
+		}
+		stack[depth++] = scope;
+	}
+
+	private int readLexer() throws IOException, ParseException {
+		lexerToken = lexer.yylex();
+		return lexerToken;
+	}
+
+	private ParseException unexpectedToken() {
+		return new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, new Yytoken(lexerToken, lexer.value));
+	}
+}
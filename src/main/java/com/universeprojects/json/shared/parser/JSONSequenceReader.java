@@ -0,0 +1,254 @@
+package com.universeprojects.json.shared.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+
+/**
+ * Reads a sequence of top-level values from one input: newline-delimited JSON (NDJSON, one value per line) or
+ * values that are simply concatenated, with or without whitespace between them.
+ * <pre>
+ * JSONSequenceReader reader = new JSONSequenceReader(in);
+ * while(reader.hasNext())
+ *     handle(reader.next());
+ * </pre>
+ * The input is read through the buffer of the lexer, which only grows to hold the longest token, so a file of
+ * any size is read in bounded memory. For parallel parsing, splitLines() cuts an NDJSON file into ranges of whole
+ * lines that open() reads independently.
+ * <p>
+ * Please note that JSONSequenceReader is NOT thread-safe.
+ *
+ * @see com.universeprojects.json.shared.JSONSequenceWriter
+ */
+@GwtIncompatible
+public class JSONSequenceReader implements Closeable {
+
+	/**
+	 * A byte range of a file, from the start of a line to the start of another line or the end of the file.
+	 */
+	public static final class Range {
+		private final long start;
+		private final long end;
+
+		Range(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		@Override
+		public String toString() {
+			return "[" + start + ", " + end + ")";
+		}
+	}
+
+	private final JSONServerParser parser = new JSONServerParser();
+	private final Reader in;
+	private ContainerFactory containerFactory;
+	private long count;
+
+	public JSONSequenceReader(Reader in) {
+		this.in = in;
+		parser.reset(in);
+	}
+
+	/**
+	 * @param in - UTF-8 encoded input.
+	 */
+	public JSONSequenceReader(InputStream in) {
+		this(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Read the lines of the range of an NDJSON file. Positions in errors are relative to the start of the range.
+	 *
+	 * @see #splitLines(Path, int)
+	 */
+	public static JSONSequenceReader open(Path file, Range range) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		return new JSONSequenceReader(new RangeInputStream(channel, range.start, range.end));
+	}
+
+	/**
+	 * Split an NDJSON file into at most the given number of ranges of about equal size, each made of whole lines,
+	 * to be read in parallel with open(). Only the bytes around the split points are read.
+	 * <p>
+	 * This relies on no value spanning lines, which holds for NDJSON; pretty printed values cannot be split.
+	 */
+	public static List<Range> splitLines(Path file, int parts) throws IOException {
+		if(parts <= 0)
+			throw new IllegalArgumentException("Number of parts must be positive: " + parts);
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			List<Range> ranges = new ArrayList<>(parts);
+			ByteBuffer buf = ByteBuffer.allocate(8192);
+			long start = 0;
+			for(int i = 1; i <= parts && start < size; i++) {
+				long end = i == parts ? size : lineStart(channel, Math.max(start, size / parts * i), size, buf);
+				if(end > start) {
+					ranges.add(new Range(start, end));
+					start = end;
+				}
+			}
+			return ranges;
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * @return The first position at or after pos that starts a line, or the size of the file.
+	 */
+	private static long lineStart(FileChannel channel, long pos, long size, ByteBuffer buf) throws IOException {
+		if(pos == 0)
+			return 0;
+		// The line starts at pos itself if the byte before it is the newline
+		long at = pos - 1;
+		while(at < size) {
+			buf.clear();
+			int n = channel.read(buf, at);
+			if(n <= 0)
+				break;
+			for(int i = 0; i < n; i++) {
+				if(buf.get(i) == '\n')
+					return at + i + 1;
+			}
+			at += n;
+		}
+		return size;
+	}
+
+	public NumberMode getNumberMode() {
+		return parser.getNumberMode();
+	}
+
+	public void setNumberMode(NumberMode numberMode) {
+		parser.setNumberMode(numberMode);
+	}
+
+	/**
+	 * @see JSONServerParser#setKeyCacheSize(int)
+	 */
+	public void setKeyCacheSize(int size) {
+		parser.setKeyCacheSize(size);
+	}
+
+	public ParseLimits getLimits() {
+		return parser.getLimits();
+	}
+
+	/**
+	 * Bound each value of the sequence, see ParseLimits. The document size applies to each value on its own.
+	 */
+	public void setLimits(ParseLimits limits) {
+		parser.setLimits(limits);
+	}
+
+	public void setContainerFactory(ContainerFactory containerFactory) {
+		this.containerFactory = containerFactory;
+	}
+
+	/**
+	 * @return Whether there is another value; only whitespace is left otherwise.
+	 */
+	public boolean hasNext() throws IOException {
+		return parser.skipWhitespace() >= 0;
+	}
+
+	/**
+	 * @return The next value: JSONObject, JSONArray, String, Number, Boolean or null.
+	 * @throws ParseException at the end of the input, or if the value is not valid JSON. The reader cannot
+	 * continue after an error, as the extent of the broken value is not known.
+	 */
+	public Object next() throws IOException, ParseException {
+		Object value;
+		try {
+			value = parser.parseNext(containerFactory);
+		}
+		catch(ParseException e) {
+			e.setOffset(parser.getPositionBase());
+			throw e;
+		}
+		count++;
+		return value;
+	}
+
+	/**
+	 * @return The number of values read so far.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The position, in chars, of the beginning of the last token read. Positions in ParseExceptions
+	 * are relative to getOffset() of the exception, see ParseException.getInputPosition().
+	 */
+	public long getPosition() {
+		return parser.getPositionBase() + parser.getPosition();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Reads a range of a file with positional reads, closing the channel when it is closed.
+	 */
+	private static final class RangeInputStream extends InputStream {
+		private final FileChannel channel;
+		private long pos;
+		private final long end;
+
+		RangeInputStream(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.pos = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(len == 0)
+				return 0;
+			if(pos >= end)
+				return -1;
+			int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - pos)), pos);
+			if(n > 0)
+				pos += n;
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -7,13 +7,14 @@ package com.universeprojects.json.shared.parser;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import com.universeprojects.json.shared.GwtIncompatible;
 import com.universeprojects.json.shared.JSONArray;
 import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.instrument.JSONInstrumentation;
+import com.universeprojects.json.shared.instrument.JSONListener;
 
 
 /**
@@ -33,16 +34,72 @@ public class JSONServerParser implements JSONParser {
 	public static final int S_END=6;
 	public static final int S_IN_ERROR=-1;
 	
-	private LinkedList handlerStatusStack;
+	private static final int INITIAL_STACK_SIZE = 16;
+
 	private Yylex lexer = new Yylex((Reader)null);
-	private Yytoken token = null;
+	private int tokenType = Yytoken.TYPE_EOF;
+	private Object tokenValue = null;
 	private int status = S_INIT;
+
+	/*
+	 * Status and value stacks, top of the stack is at depth-1. They are kept between calls so that
+	 * parsing does not allocate per nesting level; handlerStarted tells if the status stack holds
+	 * the state of a stream processing operation that can be resumed.
+	 */
+	private int[] statusStack = new int[INITIAL_STACK_SIZE];
+	private int statusDepth;
+	private Object[] valueStack = new Object[INITIAL_STACK_SIZE];
+	private int valueDepth;
+	private boolean handlerStarted;
+	private KeyCache keyCache;
+
+	private ParseLimits limits = ParseLimits.NONE;
+	/** Values in the document, and the entries of each open container by depth */
+	private int values;
+	private int[] entries = new int[INITIAL_STACK_SIZE];
+
+	/** Nesting of the open containers and statistics of the document, for JSONInstrumentation */
+	private int depth;
+	private int maxDepth;
+	private int objects;
+	private int arrays;
+
+	/** Set for the parsers of the pool of JSONParserFactory */
+	boolean pooled;
 	
-	private int peekStatus(LinkedList statusStack){
-		if(statusStack.size()==0)
+	private int peekStatus(){
+		if(statusDepth==0)
 			return -1;
-		Integer status=(Integer)statusStack.getFirst();
-		return status.intValue();
+		return statusStack[statusDepth-1];
+	}
+
+	private void pushStatus(int status){
+		if(statusDepth == statusStack.length){
+			int[] newStack = new int[statusDepth*2];
+			System.arraycopy(statusStack, 0, newStack, 0, statusDepth);
+			statusStack = newStack;
+		}
+		statusStack[statusDepth++] = status;
+	}
+
+	private void pushValue(Object value){
+		if(valueDepth == valueStack.length){
+			Object[] newStack = new Object[valueDepth*2];
+			System.arraycopy(valueStack, 0, newStack, 0, valueDepth);
+			valueStack = newStack;
+		}
+		valueStack[valueDepth++] = value;
+	}
+
+	private Object popValue(){
+		Object value = valueStack[--valueDepth];
+		valueStack[valueDepth] = null;
+		return value;
+	}
+
+	private void clearValues(){
+		while(valueDepth > 0)
+			valueStack[--valueDepth] = null;
 	}
 	
     /**
@@ -50,9 +107,14 @@ public class JSONServerParser implements JSONParser {
      *
      */
     public void reset(){
-        token = null;
+        tokenType = Yytoken.TYPE_EOF;
+        tokenValue = null;
         status = S_INIT;
-        handlerStatusStack = null;
+        statusDepth = 0;
+        clearValues();
+        handlerStarted = false;
+        values = 0;
+        depth = maxDepth = objects = arrays = 0;
     }
     
     /**
@@ -66,13 +128,75 @@ public class JSONServerParser implements JSONParser {
 		lexer.yyreset(in);
 		reset();
 	}
+
+	/**
+	 * Reset the parser and let go of the reader and of buffers that grew beyond their initial size, so that a
+	 * parser that is kept for later use holds neither the last document nor the memory of the largest one.
+	 *
+	 * @see JSONParserFactory#releaseServerParser(JSONServerParser)
+	 */
+	void release(){
+		lexer.release();
+		reset();
+	}
 	
+	public NumberMode getNumberMode(){
+		return lexer.numberMode;
+	}
+
+	/**
+	 * @param numberMode - How number tokens are converted; NumberMode.DEFAULT gives Long and Double.
+	 */
+	public void setNumberMode(NumberMode numberMode){
+		lexer.numberMode = numberMode;
+	}
+
+	/**
+	 * @return The size of the key cache, 0 if keys are not cached.
+	 */
+	public int getKeyCacheSize(){
+		return keyCache == null ? 0 : keyCache.size();
+	}
+
+	/**
+	 * Cache object keys, so that keys that repeat across objects and documents share one String instance and
+	 * are not allocated again. The cache holds at most size keys (rounded up to a power of two); 0 disables it.
+	 */
+	public void setKeyCacheSize(int size){
+		if(size < 0)
+			throw new IllegalArgumentException("Negative key cache size: " + size);
+		keyCache = size == 0 ? null : new KeyCache(size);
+	}
+
+	public ParseLimits getLimits(){
+		return limits;
+	}
+
+	/**
+	 * Bound the size of the documents that are accepted, see ParseLimits. All limits are checked, both when
+	 * parsing into a tree and when parsing with a ContentHandler.
+	 */
+	public void setLimits(ParseLimits limits){
+		if(limits == null)
+			throw new NullPointerException("limits");
+		this.limits = limits;
+		lexer.limits = limits;
+	}
+
 	/**
 	 * @return The position of the beginning of the current token.
 	 */
 	public int getPosition(){
 		return lexer.getPosition();
 	}
+
+	/**
+	 * @return The position that getPosition() and the positions of ParseExceptions count from. It moves to the
+	 * current value with each parseNext(), and is 0 otherwise.
+	 */
+	long getPositionBase(){
+		return lexer.getBase();
+	}
 	
 	@Override
 	public Object parse(String s) throws ParseException{
@@ -80,6 +204,8 @@ public class JSONServerParser implements JSONParser {
 	}
 	
 	public Object parse(String s, ContainerFactory containerFactory) throws ParseException{
+		if(s.length() > limits.maxDocumentSize)
+			throw ParseLimits.exceeded(ParseLimits.Limit.DOCUMENT_SIZE, limits.maxDocumentSize);
 		StringReader in=new StringReader(s);
 		try{
 			return parse(in, containerFactory);
@@ -114,29 +240,70 @@ public class JSONServerParser implements JSONParser {
 	 */
 	public Object parse(Reader in, ContainerFactory containerFactory) throws IOException, ParseException{
 		reset(in);
-		LinkedList statusStack = new LinkedList();
-		LinkedList valueStack = new LinkedList();
-		
+		return parseValue(containerFactory, false);
+	}
+
+	/**
+	 * Parse the next of a sequence of top-level values from the reader given to reset(Reader). The reader is left
+	 * after the last token of the value, so the next call continues from there.
+	 *
+	 * @see JSONSequenceReader
+	 */
+	Object parseNext(ContainerFactory containerFactory) throws IOException, ParseException{
+		reset();
+		lexer.startDocument();
+		return parseValue(containerFactory, true);
+	}
+
+	/**
+	 * @return The char after the whitespace that follows the last value, -1 at the end of the input.
+	 */
+	int skipWhitespace() throws IOException{
+		return lexer.skipWhitespace();
+	}
+
+	/**
+	 * @param sequence - Whether to return as soon as the value is complete, instead of expecting the end of the input.
+	 */
+	private Object parseValue(ContainerFactory containerFactory, boolean sequence) throws IOException, ParseException{
+		JSONListener listener = JSONInstrumentation.listener();
+		if(listener == null)
+			return parseTree(containerFactory, sequence);
+		int start = getPosition() + lexer.yylength();
+		long startTime = JSONInstrumentation.now();
+		try{
+			Object value = parseTree(containerFactory, sequence);
+			listener.parsed(getPosition() + lexer.yylength() - start, false, JSONInstrumentation.now() - startTime, maxDepth, objects, arrays);
+			return value;
+		}
+		catch(IOException | ParseException | RuntimeException e){
+			listener.parseFailed(getPosition(), false, JSONInstrumentation.now() - startTime, e);
+			throw e;
+		}
+	}
+
+	private Object parseTree(ContainerFactory containerFactory, boolean sequence) throws IOException, ParseException{
 		try{
 			do{
 				nextToken();
 				switch(status){
 				case S_INIT:
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_VALUE:
+						countValue();
 						status=S_IN_FINISHED_VALUE;
-						statusStack.addFirst(new Integer(status));
-						valueStack.addFirst(token.value);
+						pushStatus(status);
+						pushValue(tokenValue);
 						break;
 					case Yytoken.TYPE_LEFT_BRACE:
 						status=S_IN_OBJECT;
-						statusStack.addFirst(new Integer(status));
-						valueStack.addFirst(createObjectContainer(containerFactory));
+						pushStatus(status);
+						pushValue(createObjectContainer(containerFactory));
 						break;
 					case Yytoken.TYPE_LEFT_SQUARE:
 						status=S_IN_ARRAY;
-						statusStack.addFirst(new Integer(status));
-						valueStack.addFirst(createArrayContainer(containerFactory));
+						pushStatus(status);
+						pushValue(createArrayContainer(containerFactory));
 						break;
 					default:
 						status=S_IN_ERROR;
@@ -144,31 +311,34 @@ public class JSONServerParser implements JSONParser {
 					break;
 					
 				case S_IN_FINISHED_VALUE:
-					if(token.type==Yytoken.TYPE_EOF)
-						return valueStack.removeFirst();
+					if(tokenType==Yytoken.TYPE_EOF){
+						lexer.checkDocumentSize();
+						return popValue();
+					}
 					else
-						throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+						throw unexpectedToken();
 					
 				case S_IN_OBJECT:
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_COMMA:
 						break;
 					case Yytoken.TYPE_VALUE:
-						if(token.value instanceof String){
-							String key=(String)token.value;
-							valueStack.addFirst(key);
+						if(tokenValue instanceof String){
+							String key=(String)tokenValue;
+							pushValue(key);
 							status=S_PASSED_PAIR_KEY;
-							statusStack.addFirst(new Integer(status));
+							pushStatus(status);
 						}
 						else{
 							status=S_IN_ERROR;
 						}
 						break;
 					case Yytoken.TYPE_RIGHT_BRACE:
-						if(valueStack.size()>1){
-							statusStack.removeFirst();
-							valueStack.removeFirst();
-							status=peekStatus(statusStack);
+						if(valueDepth>1){
+							statusDepth--;
+							depth--;
+							popValue();
+							status=peekStatus();
 						}
 						else{
 							status=S_IN_FINISHED_VALUE;
@@ -181,35 +351,36 @@ public class JSONServerParser implements JSONParser {
 					break;
 					
 				case S_PASSED_PAIR_KEY:
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_COLON:
 						break;
 					case Yytoken.TYPE_VALUE:
-						statusStack.removeFirst();
-						String key=(String)valueStack.removeFirst();
-						Map parent=(Map)valueStack.getFirst();
-						parent.put(key,token.value);
-						status=peekStatus(statusStack);
+						countValue();
+						statusDepth--;
+						String key=(String)popValue();
+						Map parent=(Map)valueStack[valueDepth-1];
+						parent.put(key,tokenValue);
+						status=peekStatus();
 						break;
 					case Yytoken.TYPE_LEFT_SQUARE:
-						statusStack.removeFirst();
-						key=(String)valueStack.removeFirst();
-						parent=(Map)valueStack.getFirst();
+						statusDepth--;
+						key=(String)popValue();
+						parent=(Map)valueStack[valueDepth-1];
 						List newArray=createArrayContainer(containerFactory);
 						parent.put(key,newArray);
 						status=S_IN_ARRAY;
-						statusStack.addFirst(new Integer(status));
-						valueStack.addFirst(newArray);
+						pushStatus(status);
+						pushValue(newArray);
 						break;
 					case Yytoken.TYPE_LEFT_BRACE:
-						statusStack.removeFirst();
-						key=(String)valueStack.removeFirst();
-						parent=(Map)valueStack.getFirst();
+						statusDepth--;
+						key=(String)popValue();
+						parent=(Map)valueStack[valueDepth-1];
 						Map newObject=createObjectContainer(containerFactory);
 						parent.put(key,newObject);
 						status=S_IN_OBJECT;
-						statusStack.addFirst(new Integer(status));
-						valueStack.addFirst(newObject);
+						pushStatus(status);
+						pushValue(newObject);
 						break;
 					default:
 						status=S_IN_ERROR;
@@ -217,65 +388,108 @@ public class JSONServerParser implements JSONParser {
 					break;
 					
 				case S_IN_ARRAY:
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_COMMA:
 						break;
 					case Yytoken.TYPE_VALUE:
-						List val=(List)valueStack.getFirst();
-						val.add(token.value);
+						countValue();
+						List val=(List)valueStack[valueDepth-1];
+						val.add(tokenValue);
 						break;
 					case Yytoken.TYPE_RIGHT_SQUARE:
-						if(valueStack.size()>1){
-							statusStack.removeFirst();
-							valueStack.removeFirst();
-							status=peekStatus(statusStack);
+						if(valueDepth>1){
+							statusDepth--;
+							depth--;
+							popValue();
+							status=peekStatus();
 						}
 						else{
 							status=S_IN_FINISHED_VALUE;
 						}
 						break;
 					case Yytoken.TYPE_LEFT_BRACE:
-						val=(List)valueStack.getFirst();
+						val=(List)valueStack[valueDepth-1];
 						Map newObject=createObjectContainer(containerFactory);
 						val.add(newObject);
 						status=S_IN_OBJECT;
-						statusStack.addFirst(new Integer(status));
-						valueStack.addFirst(newObject);
+						pushStatus(status);
+						pushValue(newObject);
 						break;
 					case Yytoken.TYPE_LEFT_SQUARE:
-						val=(List)valueStack.getFirst();
+						val=(List)valueStack[valueDepth-1];
 						List newArray=createArrayContainer(containerFactory);
 						val.add(newArray);
 						status=S_IN_ARRAY;
-						statusStack.addFirst(new Integer(status));
-						valueStack.addFirst(newArray);
+						pushStatus(status);
+						pushValue(newArray);
 						break;
 					default:
 						status=S_IN_ERROR;
 					}//inner switch
 					break;
 				case S_IN_ERROR:
-					throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+					throw unexpectedToken();
 				}//switch
 				if(status==S_IN_ERROR){
-					throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+					throw unexpectedToken();
 				}
-			}while(token.type!=Yytoken.TYPE_EOF);
+				if(sequence && status==S_IN_FINISHED_VALUE){
+					lexer.checkDocumentSize();
+					return popValue();
+				}
+			}while(tokenType!=Yytoken.TYPE_EOF);
 		}
-		catch(IOException ie){
-			throw ie;
+		finally{
+			// Don't keep the document reachable from a cached parser
+			clearValues();
 		}
 		
-		throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+		throw unexpectedToken();
 	}
 	
 	private void nextToken() throws ParseException, IOException{
-		token = lexer.yylex();
-		if(token == null)
-			token = new Yytoken(Yytoken.TYPE_EOF, null);
+		lexer.keyCache = status == S_IN_OBJECT ? keyCache : null;
+		tokenType = lexer.yylex();
+		tokenValue = lexer.value;
+	}
+
+	/**
+	 * The token object is only created when it is reported.
+	 */
+	private ParseException unexpectedToken(){
+		return new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, new Yytoken(tokenType, tokenValue));
 	}
 	
-	private Map createObjectContainer(ContainerFactory containerFactory){
+	/**
+	 * Count a value that goes into the innermost open container, or the top-level value.
+	 */
+	private void countValue() throws ParseException{
+		if(++values > limits.maxValues)
+			throw ParseLimits.exceeded(ParseLimits.Limit.VALUES, getPosition());
+		if(depth > 0 && ++entries[depth-1] > limits.maxEntries)
+			throw ParseLimits.exceeded(ParseLimits.Limit.ENTRIES, getPosition());
+	}
+
+	/**
+	 * Count a container as a value of its parent and open it.
+	 */
+	private void openContainer() throws ParseException{
+		countValue();
+		if(depth >= limits.maxDepth)
+			throw ParseLimits.exceeded(ParseLimits.Limit.DEPTH, getPosition());
+		if(depth == entries.length){
+			int[] newEntries = new int[depth*2];
+			System.arraycopy(entries, 0, newEntries, 0, depth);
+			entries = newEntries;
+		}
+		entries[depth] = 0;
+		if(++depth > maxDepth)
+			maxDepth = depth;
+	}
+
+	private Map createObjectContainer(ContainerFactory containerFactory) throws ParseException{
+		openContainer();
+		objects++;
 		if(containerFactory == null)
 			return new JSONObject();
 		Map m = containerFactory.createObjectContainer();
@@ -285,7 +499,9 @@ public class JSONServerParser implements JSONParser {
 		return m;
 	}
 	
-	private List createArrayContainer(ContainerFactory containerFactory){
+	private List createArrayContainer(ContainerFactory containerFactory) throws ParseException{
+		openContainer();
+		arrays++;
 		if(containerFactory == null)
 			return new JSONArray();
 		List l = containerFactory.creatArrayContainer();
@@ -333,40 +549,41 @@ public class JSONServerParser implements JSONParser {
 	public void parse(Reader in, ContentHandler contentHandler, boolean isResume) throws IOException, ParseException{
 		if(!isResume){
 			reset(in);
-			handlerStatusStack = new LinkedList();
+			handlerStarted = true;
 		}
 		else{
-			if(handlerStatusStack == null){
+			if(!handlerStarted){
 				isResume = false;
 				reset(in);
-				handlerStatusStack = new LinkedList();
+				handlerStarted = true;
 			}
 		}
 		
-		LinkedList statusStack = handlerStatusStack;	
-		
 		try{
 			do{
 				switch(status){
 				case S_INIT:
 					contentHandler.startJSON();
 					nextToken();
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_VALUE:
+						countValue();
 						status=S_IN_FINISHED_VALUE;
-						statusStack.addFirst(new Integer(status));
-						if(!contentHandler.primitive(token.value))
+						pushStatus(status);
+						if(!contentHandler.primitive(tokenValue))
 							return;
 						break;
 					case Yytoken.TYPE_LEFT_BRACE:
+						openContainer();
 						status=S_IN_OBJECT;
-						statusStack.addFirst(new Integer(status));
+						pushStatus(status);
 						if(!contentHandler.startObject())
 							return;
 						break;
 					case Yytoken.TYPE_LEFT_SQUARE:
+						openContainer();
 						status=S_IN_ARRAY;
-						statusStack.addFirst(new Integer(status));
+						pushStatus(status);
 						if(!contentHandler.startArray())
 							return;
 						break;
@@ -377,26 +594,26 @@ public class JSONServerParser implements JSONParser {
 					
 				case S_IN_FINISHED_VALUE:
 					nextToken();
-					if(token.type==Yytoken.TYPE_EOF){
+					if(tokenType==Yytoken.TYPE_EOF){
 						contentHandler.endJSON();
 						status = S_END;
 						return;
 					}
 					else{
 						status = S_IN_ERROR;
-						throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+						throw unexpectedToken();
 					}
 			
 				case S_IN_OBJECT:
 					nextToken();
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_COMMA:
 						break;
 					case Yytoken.TYPE_VALUE:
-						if(token.value instanceof String){
-							String key=(String)token.value;
+						if(tokenValue instanceof String){
+							String key=(String)tokenValue;
 							status=S_PASSED_PAIR_KEY;
-							statusStack.addFirst(new Integer(status));
+							pushStatus(status);
 							if(!contentHandler.startObjectEntry(key))
 								return;
 						}
@@ -405,9 +622,10 @@ public class JSONServerParser implements JSONParser {
 						}
 						break;
 					case Yytoken.TYPE_RIGHT_BRACE:
-						if(statusStack.size()>1){
-							statusStack.removeFirst();
-							status=peekStatus(statusStack);
+						depth--;
+						if(statusDepth>1){
+							statusDepth--;
+							status=peekStatus();
 						}
 						else{
 							status=S_IN_FINISHED_VALUE;
@@ -423,30 +641,33 @@ public class JSONServerParser implements JSONParser {
 					
 				case S_PASSED_PAIR_KEY:
 					nextToken();
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_COLON:
 						break;
 					case Yytoken.TYPE_VALUE:
-						statusStack.removeFirst();
-						status=peekStatus(statusStack);
-						if(!contentHandler.primitive(token.value))
+						countValue();
+						statusDepth--;
+						status=peekStatus();
+						if(!contentHandler.primitive(tokenValue))
 							return;
 						if(!contentHandler.endObjectEntry())
 							return;
 						break;
 					case Yytoken.TYPE_LEFT_SQUARE:
-						statusStack.removeFirst();
-						statusStack.addFirst(new Integer(S_IN_PAIR_VALUE));
+						statusDepth--;
+						pushStatus(S_IN_PAIR_VALUE);
+						openContainer();
 						status=S_IN_ARRAY;
-						statusStack.addFirst(new Integer(status));
+						pushStatus(status);
 						if(!contentHandler.startArray())
 							return;
 						break;
 					case Yytoken.TYPE_LEFT_BRACE:
-						statusStack.removeFirst();
-						statusStack.addFirst(new Integer(S_IN_PAIR_VALUE));
+						statusDepth--;
+						pushStatus(S_IN_PAIR_VALUE);
+						openContainer();
 						status=S_IN_OBJECT;
-						statusStack.addFirst(new Integer(status));
+						pushStatus(status);
 						if(!contentHandler.startObject())
 							return;
 						break;
@@ -460,25 +681,27 @@ public class JSONServerParser implements JSONParser {
 					 * S_IN_PAIR_VALUE is just a marker to indicate the end of an object entry, it doesn't proccess any token,
 					 * therefore delay consuming token until next round.
 					 */
-					statusStack.removeFirst();
-					status = peekStatus(statusStack);
+					statusDepth--;
+					status = peekStatus();
 					if(!contentHandler.endObjectEntry())
 						return;
 					break;
 					
 				case S_IN_ARRAY:
 					nextToken();
-					switch(token.type){
+					switch(tokenType){
 					case Yytoken.TYPE_COMMA:
 						break;
 					case Yytoken.TYPE_VALUE:
-						if(!contentHandler.primitive(token.value))
+						countValue();
+						if(!contentHandler.primitive(tokenValue))
 							return;
 						break;
 					case Yytoken.TYPE_RIGHT_SQUARE:
-						if(statusStack.size()>1){
-							statusStack.removeFirst();
-							status=peekStatus(statusStack);
+						depth--;
+						if(statusDepth>1){
+							statusDepth--;
+							status=peekStatus();
 						}
 						else{
 							status=S_IN_FINISHED_VALUE;
@@ -487,14 +710,16 @@ public class JSONServerParser implements JSONParser {
 							return;
 						break;
 					case Yytoken.TYPE_LEFT_BRACE:
+						openContainer();
 						status=S_IN_OBJECT;
-						statusStack.addFirst(new Integer(status));
+						pushStatus(status);
 						if(!contentHandler.startObject())
 							return;
 						break;
 					case Yytoken.TYPE_LEFT_SQUARE:
+						openContainer();
 						status=S_IN_ARRAY;
-						statusStack.addFirst(new Integer(status));
+						pushStatus(status);
 						if(!contentHandler.startArray())
 							return;
 						break;
@@ -507,12 +732,12 @@ public class JSONServerParser implements JSONParser {
 					return;
 					
 				case S_IN_ERROR:
-					throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+					throw unexpectedToken();
 				}//switch
 				if(status==S_IN_ERROR){
-					throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+					throw unexpectedToken();
 				}
-			}while(token.type!=Yytoken.TYPE_EOF);
+			}while(tokenType!=Yytoken.TYPE_EOF);
 		}
 		catch(IOException ie){
 			status = S_IN_ERROR;
@@ -532,6 +757,6 @@ public class JSONServerParser implements JSONParser {
 		}
 		
 		status = S_IN_ERROR;
-		throw new ParseException(getPosition(), ParseException.ERROR_UNEXPECTED_TOKEN, token);
+		throw unexpectedToken();
 	}
 }
@@ -0,0 +1,127 @@
+package com.universeprojects.json.shared.parser;
+
+import java.nio.charset.StandardCharsets;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+/**
+ * Canonicalizes object keys: the text of a key is hashed where it lies in the parser's buffer, and a key that
+ * was seen before comes back as the same String instance without allocating.
+ * <p>
+ * The cache is two-way set associative, so it never holds more than its capacity: each key has a set of two slots
+ * and a new key pushes out the one of the two that was used least recently. Keys longer than MAX_KEY_LENGTH are
+ * not cached.
+ * Please note that KeyCache is NOT thread-safe; each parser has its own.
+ */
+@GwtIncompatible
+final class KeyCache {
+
+	static final int MAX_KEY_LENGTH = 64;
+
+	private final int size;
+	private final String[] entries;
+	private final int mask;
+
+	/**
+	 * @param size - Number of keys to keep, rounded up to a power of two.
+	 */
+	KeyCache(int size) {
+		this.size = size;
+		int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+		this.entries = new String[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * @return The size the cache was created with.
+	 */
+	int size() {
+		return size;
+	}
+
+	String get(CharSequence s) {
+		int length = s.length();
+		if(length > MAX_KEY_LENGTH)
+			return s.toString();
+		int h = 0;
+		for(int i=0;i<length;i++)
+			h = 31 * h + s.charAt(i);
+		int set = set(h);
+		for(int slot=set;slot<set+2;slot++){
+			String entry = entries[slot];
+			if(entry != null && entry.hashCode() == h && entry.contentEquals(s))
+				return hit(set, slot);
+		}
+		return insert(set, s.toString());
+	}
+
+	String get(char[] c, int start, int end) {
+		int length = end - start;
+		if(length > MAX_KEY_LENGTH)
+			return new String(c, start, length);
+		int h = 0;
+		for(int i=start;i<end;i++)
+			h = 31 * h + c[i];
+		int set = set(h);
+		for(int slot=set;slot<set+2;slot++){
+			String entry = entries[slot];
+			if(entry != null && entry.hashCode() == h && entry.length() == length){
+				int i = 0;
+				while(i < length && entry.charAt(i) == c[start + i])
+					i++;
+				if(i == length)
+					return hit(set, slot);
+			}
+		}
+		return insert(set, new String(c, start, length));
+	}
+
+	/**
+	 * For ISO-8859-1 (in particular ASCII) bytes, one char per byte.
+	 */
+	String get(byte[] b, int start, int end) {
+		int length = end - start;
+		if(length > MAX_KEY_LENGTH)
+			return new String(b, start, length, StandardCharsets.ISO_8859_1);
+		int h = 0;
+		for(int i=start;i<end;i++)
+			h = 31 * h + (b[i] & 0xFF);
+		int set = set(h);
+		for(int slot=set;slot<set+2;slot++){
+			String entry = entries[slot];
+			if(entry != null && entry.hashCode() == h && entry.length() == length){
+				int i = 0;
+				while(i < length && entry.charAt(i) == (b[start + i] & 0xFF))
+					i++;
+				if(i == length)
+					return hit(set, slot);
+			}
+		}
+		return insert(set, new String(b, start, length, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * @return The first of the two slots for the hash.
+	 */
+	private int set(int h) {
+		return (h ^ (h >>> 16)) & mask & ~1;
+	}
+
+	/**
+	 * Keep the most recently used key of a set in its first slot.
+	 */
+	private String hit(int set, int slot) {
+		String entry = entries[slot];
+		if(slot != set){
+			entries[slot] = entries[set];
+			entries[set] = entry;
+		}
+		return entry;
+	}
+
+	private String insert(int set, String key) {
+		entries[set + 1] = entries[set];
+		entries[set] = key;
+		return key;
+	}
+}
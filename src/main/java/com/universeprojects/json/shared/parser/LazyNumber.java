@@ -0,0 +1,108 @@
+package com.universeprojects.json.shared.parser;
+
+import java.math.BigInteger;
+
+import com.universeprojects.json.shared.JSONAware;
+
+/**
+ * A number token that is parsed when its value is first used. See NumberMode.LAZY.
+ * <p>
+ * Integers are parsed as Long, or BigInteger if they don't fit in a long; numbers with a fraction or an exponent
+ * as Double. toString() and toJSONString() return the text of the token.
+ * <p>
+ * A LazyNumber equals another LazyNumber or a Number with the same parsed value, but Long.equals() and
+ * Double.equals() don't recognize it. Use getValue() when comparing with boxed numbers.
+ */
+public final class LazyNumber extends Number implements JSONAware {
+	private static final long serialVersionUID = -3052342164359740431L;
+
+	private final String text;
+	private transient Number value;
+
+	/**
+	 * @param text - A number in the JSON number syntax.
+	 */
+	public LazyNumber(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * @return true if the number has a fraction or an exponent.
+	 */
+	public boolean isDecimal() {
+		for(int i=0;i<text.length();i++){
+			char ch = text.charAt(i);
+			if(ch == '.' || ch == 'e' || ch == 'E')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return The parsed value: Long, BigInteger or Double.
+	 * @throws NumberFormatException if the text is not a number.
+	 */
+	public Number getValue() {
+		Number result = value;
+		if(result == null){
+			if(isDecimal()){
+				result = Double.valueOf(text);
+			}
+			else{
+				try{
+					result = Long.valueOf(text);
+				}
+				catch(NumberFormatException nfe){
+					// Too big for a long; anything else is rejected by BigInteger as well
+					result = new BigInteger(text);
+				}
+			}
+			value = result;
+		}
+		return result;
+	}
+
+	@Override
+	public int intValue() {
+		return getValue().intValue();
+	}
+
+	@Override
+	public long longValue() {
+		return getValue().longValue();
+	}
+
+	@Override
+	public float floatValue() {
+		return getValue().floatValue();
+	}
+
+	@Override
+	public double doubleValue() {
+		return getValue().doubleValue();
+	}
+
+	@Override
+	public String toJSONString() {
+		return text;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == this)
+			return true;
+		if(obj instanceof LazyNumber)
+			return getValue().equals(((LazyNumber)obj).getValue());
+		return obj instanceof Number && getValue().equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return getValue().hashCode();
+	}
+}
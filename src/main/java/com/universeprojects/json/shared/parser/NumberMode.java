@@ -0,0 +1,28 @@
+package com.universeprojects.json.shared.parser;
+
+/**
+ * How the parsers turn number tokens into values.
+ *
+ * @see JSONServerParser#setNumberMode(NumberMode)
+ * @see JSONByteParser#setNumberMode(NumberMode)
+ * @see JSONReader#setNumberMode(NumberMode)
+ */
+public enum NumberMode {
+	/**
+	 * Long for integers, Double for numbers with a fraction or an exponent. The digits are decoded straight
+	 * from the input buffer.
+	 */
+	DEFAULT,
+
+	/**
+	 * LazyNumber, which keeps the text of the token and parses it when the value is first used.
+	 * Numbers that are only passed through are written back exactly as they were read.
+	 */
+	LAZY,
+
+	/**
+	 * BigDecimal for numbers with a fraction or an exponent, so no precision is lost. Integers are Long, or
+	 * BigInteger if they don't fit in a long.
+	 */
+	BIG_DECIMAL
+}
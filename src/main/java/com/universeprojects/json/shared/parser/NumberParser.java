@@ -0,0 +1,283 @@
+package com.universeprojects.json.shared.parser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+/**
+ * Decodes JSON number tokens straight from the input buffer, without building an intermediate String
+ * for the common cases.
+ * The token ranges handed in must already match the lexer's number syntax: -?[0-9]+((\.[0-9]+)?([eE][-+]?[0-9]+)?)
+ */
+@GwtIncompatible
+final class NumberParser {
+
+	/** Integer tokens shorter than this always fit in a long: -999999999999999999 */
+	private static final int MAX_SAFE_LONG_LENGTH = 19;
+
+	/** 2^53, the largest mantissa a double holds exactly */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/** Powers of ten that are exactly representable as a double */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private NumberParser() {
+	}
+
+	/**
+	 * @return The value of the token in the given mode.
+	 * @throws NumberFormatException in DEFAULT mode, if an integer does not fit in a long.
+	 */
+	static Number toNumber(NumberMode mode, boolean decimal, char[] c, int start, int end) {
+		switch(mode){
+		case LAZY:
+			return new LazyNumber(new String(c, start, end - start));
+		case BIG_DECIMAL:
+			if(decimal)
+				return new BigDecimal(c, start, end - start);
+			if(end - start < MAX_SAFE_LONG_LENGTH)
+				return Long.valueOf(parseLong(c, start, end));
+			return toBigInteger(new String(c, start, end - start));
+		default:
+			if(decimal)
+				return Double.valueOf(parseDouble(c, start, end));
+			return Long.valueOf(parseLong(c, start, end));
+		}
+	}
+
+	/**
+	 * Same as toNumber(NumberMode, boolean, char[], int, int), for UTF-8 input.
+	 */
+	static Number toNumber(NumberMode mode, boolean decimal, byte[] b, int start, int end) {
+		switch(mode){
+		case LAZY:
+			return new LazyNumber(text(b, start, end));
+		case BIG_DECIMAL:
+			if(decimal)
+				return new BigDecimal(text(b, start, end));
+			if(end - start < MAX_SAFE_LONG_LENGTH)
+				return Long.valueOf(parseLong(b, start, end));
+			return toBigInteger(text(b, start, end));
+		default:
+			if(decimal)
+				return Double.valueOf(parseDouble(b, start, end));
+			return Long.valueOf(parseLong(b, start, end));
+		}
+	}
+
+	/**
+	 * @return Long if the integer fits in a long, otherwise BigInteger.
+	 */
+	private static Number toBigInteger(String text) {
+		BigInteger value = new BigInteger(text);
+		if(value.bitLength() < 64)
+			return Long.valueOf(value.longValue());
+		return value;
+	}
+
+	/**
+	 * @return true if the token holds a fraction or an exponent, i.e. the lexer would produce a Double for it.
+	 */
+	static boolean isDecimal(byte[] b, int start, int end) {
+		for(int i=start;i<end;i++){
+			byte c = b[i];
+			if(c == '.' || c == 'e' || c == 'E')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Same result as Long.parseLong() on the token text.
+	 *
+	 * @throws NumberFormatException if the value does not fit in a long.
+	 */
+	static long parseLong(byte[] b, int start, int end) {
+		int i = start;
+		boolean negative = b[i] == '-';
+		if(negative)
+			i++;
+		// Accumulate negatively so Long.MIN_VALUE is representable
+		long result = 0;
+		for(;i<end;i++){
+			int digit = b[i] - '0';
+			if(result < (Long.MIN_VALUE + digit) / 10)
+				throw new NumberFormatException("For input string: \"" + text(b, start, end) + "\"");
+			result = result * 10 - digit;
+		}
+		if(negative)
+			return result;
+		if(result == Long.MIN_VALUE)
+			throw new NumberFormatException("For input string: \"" + text(b, start, end) + "\"");
+		return -result;
+	}
+
+	/**
+	 * Same result as Double.parseDouble() on the token text. Values with at most 15 significant digits and a
+	 * small exponent are computed exactly from the digits; everything else goes through Double.parseDouble().
+	 */
+	static double parseDouble(byte[] b, int start, int end) {
+		int i = start;
+		boolean negative = b[i] == '-';
+		if(negative)
+			i++;
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		for(;i<end && b[i] >= '0' && b[i] <= '9';i++){
+			if(mantissa != 0 || b[i] != '0'){
+				mantissa = mantissa * 10 + (b[i] - '0');
+				digits++;
+			}
+		}
+		if(i < end && b[i] == '.'){
+			for(i++;i<end && b[i] >= '0' && b[i] <= '9';i++){
+				if(mantissa != 0 || b[i] != '0'){
+					mantissa = mantissa * 10 + (b[i] - '0');
+					digits++;
+				}
+				scale--;
+			}
+		}
+		if(digits > 15)
+			return slowParseDouble(b, start, end);
+
+		int exponent = 0;
+		if(i < end){
+			// [eE][-+]?[0-9]+
+			i++;
+			boolean negativeExponent = false;
+			if(b[i] == '-' || b[i] == '+'){
+				negativeExponent = b[i] == '-';
+				i++;
+			}
+			if(end - i > 4)
+				return slowParseDouble(b, start, end);
+			for(;i<end;i++)
+				exponent = exponent * 10 + (b[i] - '0');
+			if(negativeExponent)
+				exponent = -exponent;
+		}
+
+		double value = fastDouble(mantissa, scale + exponent);
+		if(Double.isNaN(value))
+			return slowParseDouble(b, start, end);
+		return negative ? -value : value;
+	}
+
+	static boolean isDecimal(char[] c, int start, int end) {
+		for(int i=start;i<end;i++){
+			char ch = c[i];
+			if(ch == '.' || ch == 'e' || ch == 'E')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Same as parseLong(byte[], int, int), for char input.
+	 */
+	static long parseLong(char[] c, int start, int end) {
+		int i = start;
+		boolean negative = c[i] == '-';
+		if(negative)
+			i++;
+		long result = 0;
+		for(;i<end;i++){
+			int digit = c[i] - '0';
+			if(result < (Long.MIN_VALUE + digit) / 10)
+				throw new NumberFormatException("For input string: \"" + new String(c, start, end - start) + "\"");
+			result = result * 10 - digit;
+		}
+		if(negative)
+			return result;
+		if(result == Long.MIN_VALUE)
+			throw new NumberFormatException("For input string: \"" + new String(c, start, end - start) + "\"");
+		return -result;
+	}
+
+	/**
+	 * Same as parseDouble(byte[], int, int), for char input.
+	 */
+	static double parseDouble(char[] c, int start, int end) {
+		int i = start;
+		boolean negative = c[i] == '-';
+		if(negative)
+			i++;
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		for(;i<end && c[i] >= '0' && c[i] <= '9';i++){
+			if(mantissa != 0 || c[i] != '0'){
+				mantissa = mantissa * 10 + (c[i] - '0');
+				digits++;
+			}
+		}
+		if(i < end && c[i] == '.'){
+			for(i++;i<end && c[i] >= '0' && c[i] <= '9';i++){
+				if(mantissa != 0 || c[i] != '0'){
+					mantissa = mantissa * 10 + (c[i] - '0');
+					digits++;
+				}
+				scale--;
+			}
+		}
+		if(digits > 15)
+			return Double.parseDouble(new String(c, start, end - start));
+
+		int exponent = 0;
+		if(i < end){
+			i++;
+			boolean negativeExponent = false;
+			if(c[i] == '-' || c[i] == '+'){
+				negativeExponent = c[i] == '-';
+				i++;
+			}
+			if(end - i > 4)
+				return Double.parseDouble(new String(c, start, end - start));
+			for(;i<end;i++)
+				exponent = exponent * 10 + (c[i] - '0');
+			if(negativeExponent)
+				exponent = -exponent;
+		}
+
+		double value = fastDouble(mantissa, scale + exponent);
+		if(Double.isNaN(value))
+			return Double.parseDouble(new String(c, start, end - start));
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Clinger's fast path: exact when both the mantissa and the power of ten are exact doubles.
+	 *
+	 * @return the value, or NaN if the fast path does not apply.
+	 */
+	private static double fastDouble(long mantissa, int exponent) {
+		if(mantissa == 0)
+			return 0.0;
+		if(mantissa > MAX_EXACT_MANTISSA)
+			return Double.NaN;
+		if(exponent == 0)
+			return mantissa;
+		if(exponent > 0 && exponent < POWERS_OF_TEN.length)
+			return mantissa * POWERS_OF_TEN[exponent];
+		if(exponent < 0 && -exponent < POWERS_OF_TEN.length)
+			return mantissa / POWERS_OF_TEN[-exponent];
+		return Double.NaN;
+	}
+
+	private static double slowParseDouble(byte[] b, int start, int end) {
+		return Double.parseDouble(text(b, start, end));
+	}
+
+	private static String text(byte[] b, int start, int end) {
+		return new String(b, start, end - start, StandardCharsets.ISO_8859_1);
+	}
+}
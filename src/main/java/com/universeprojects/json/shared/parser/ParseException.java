@@ -12,10 +12,14 @@ public class ParseException extends Exception {
 	public static final int ERROR_UNEXPECTED_CHAR = 0;
 	public static final int ERROR_UNEXPECTED_TOKEN = 1;
 	public static final int ERROR_UNEXPECTED_EXCEPTION = 2;
+	/** A ParseLimits limit was exceeded; the unexpected object is the ParseLimits.Limit */
+	public static final int ERROR_LIMIT_EXCEEDED = 3;
 
 	private int errorType;
 	private Object unexpectedObject;
 	private int position;
+	/** Position in the whole input that position counts from */
+	private long offset;
 
 	public ParseException(int errorType){
 		this(-1, errorType, null);
@@ -60,6 +64,26 @@ public class ParseException extends Exception {
 		this.position = position;
 	}
 
+	/**
+	 * @return The position in the input that getPosition() counts from. It is 0 except for a sequence read by
+	 * JSONSequenceReader, whose positions can exceed the range of an int; there it is a position at or before the
+	 * start of the value the error is in.
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+
+	/**
+	 * @return getOffset() + getPosition(), the position in the whole input; -1 if the position is not known.
+	 */
+	public long getInputPosition() {
+		return position < 0 ? position : offset + position;
+	}
+
 	/**
 	 * @see com.universeprojects.json.shared.parser.Yytoken
 	 * 
@@ -67,6 +91,7 @@ public class ParseException extends Exception {
 	 * 		   	ERROR_UNEXPECTED_CHAR		java.lang.Character
 	 * 			ERROR_UNEXPECTED_TOKEN		org.json.simple.parser.Yytoken
 	 * 			ERROR_UNEXPECTED_EXCEPTION	java.lang.Exception
+	 * 			ERROR_LIMIT_EXCEEDED		com.universeprojects.json.shared.parser.ParseLimits.Limit
 	 */
 	public Object getUnexpectedObject() {
 		return unexpectedObject;
@@ -82,16 +107,19 @@ public class ParseException extends Exception {
 
 		switch(errorType){
 		case ERROR_UNEXPECTED_CHAR:
-			sb.append("Unexpected character (").append(unexpectedObject).append(") at position ").append(position).append(".");
+			sb.append("Unexpected character (").append(unexpectedObject).append(") at position ").append(getInputPosition()).append(".");
 			break;
 		case ERROR_UNEXPECTED_TOKEN:
-			sb.append("Unexpected token ").append(unexpectedObject).append(" at position ").append(position).append(".");
+			sb.append("Unexpected token ").append(unexpectedObject).append(" at position ").append(getInputPosition()).append(".");
 			break;
 		case ERROR_UNEXPECTED_EXCEPTION:
-			sb.append("Unexpected exception at position ").append(position).append(": ").append(unexpectedObject);
+			sb.append("Unexpected exception at position ").append(getInputPosition()).append(": ").append(unexpectedObject);
+			break;
+		case ERROR_LIMIT_EXCEEDED:
+			sb.append("Limit ").append(unexpectedObject).append(" exceeded at position ").append(getInputPosition()).append(".");
 			break;
 		default:
-			sb.append("Unkown error at position ").append(position).append(".");
+			sb.append("Unkown error at position ").append(getInputPosition()).append(".");
 			break;
 		}
 		return sb.toString();
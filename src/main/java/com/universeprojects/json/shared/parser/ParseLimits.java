@@ -0,0 +1,148 @@
+package com.universeprojects.json.shared.parser;
+
+/**
+ * Bounds on what a parser accepts, so that the memory and time spent on one document are bounded whatever the
+ * input. The parsers check them as they go and stop with a ParseException of type ERROR_LIMIT_EXCEEDED as soon as
+ * one is exceeded, before they allocate for the offending part; getUnexpectedObject() of the exception is the Limit.
+ * <p>
+ * Limits are immutable; the with methods return a copy. NONE, the default of the parsers, doesn't limit anything.
+ * <p>
+ * Sizes are in chars for text input and in bytes for UTF-8 input.
+ *
+ * @see JSONServerParser#setLimits(ParseLimits)
+ * @see JSONByteParser#setLimits(ParseLimits)
+ * @see JSONParserFactory#setParseLimits(ParseLimits)
+ */
+public final class ParseLimits {
+
+	public enum Limit {
+		/** Length of the whole input */
+		DOCUMENT_SIZE,
+		/** Nesting of objects and arrays */
+		DEPTH,
+		/** Length of a string or key, after unescaping */
+		STRING_LENGTH,
+		/** Length of the text of a number */
+		NUMBER_LENGTH,
+		/** Members of one object or elements of one array */
+		ENTRIES,
+		/** Values in the document, containers included */
+		VALUES
+	}
+
+	private static final int UNLIMITED = Integer.MAX_VALUE;
+
+	public static final ParseLimits NONE = new ParseLimits(UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED);
+
+	/**
+	 * Limits for input from clients: 8 MB, nesting of 256, strings of 1M chars, numbers of 256 chars,
+	 * 1M entries per container and 4M values.
+	 */
+	public static final ParseLimits UNTRUSTED = new ParseLimits(8 << 20, 256, 1 << 20, 256, 1 << 20, 4 << 20);
+
+	final int maxDocumentSize;
+	final int maxDepth;
+	final int maxStringLength;
+	final int maxNumberLength;
+	final int maxEntries;
+	final int maxValues;
+
+	private ParseLimits(int maxDocumentSize, int maxDepth, int maxStringLength, int maxNumberLength, int maxEntries, int maxValues) {
+		this.maxDocumentSize = maxDocumentSize;
+		this.maxDepth = maxDepth;
+		this.maxStringLength = maxStringLength;
+		this.maxNumberLength = maxNumberLength;
+		this.maxEntries = maxEntries;
+		this.maxValues = maxValues;
+	}
+
+	public int getMaxDocumentSize() {
+		return maxDocumentSize;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getMaxStringLength() {
+		return maxStringLength;
+	}
+
+	public int getMaxNumberLength() {
+		return maxNumberLength;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public int getMaxValues() {
+		return maxValues;
+	}
+
+	public ParseLimits withMaxDocumentSize(int max) {
+		return new ParseLimits(check(max), maxDepth, maxStringLength, maxNumberLength, maxEntries, maxValues);
+	}
+
+	/**
+	 * @param max - Deepest nesting allowed; 1 allows an object or array with only scalars in it.
+	 */
+	public ParseLimits withMaxDepth(int max) {
+		return new ParseLimits(maxDocumentSize, check(max), maxStringLength, maxNumberLength, maxEntries, maxValues);
+	}
+
+	public ParseLimits withMaxStringLength(int max) {
+		return new ParseLimits(maxDocumentSize, maxDepth, check(max), maxNumberLength, maxEntries, maxValues);
+	}
+
+	public ParseLimits withMaxNumberLength(int max) {
+		return new ParseLimits(maxDocumentSize, maxDepth, maxStringLength, check(max), maxEntries, maxValues);
+	}
+
+	public ParseLimits withMaxEntries(int max) {
+		return new ParseLimits(maxDocumentSize, maxDepth, maxStringLength, maxNumberLength, check(max), maxValues);
+	}
+
+	public ParseLimits withMaxValues(int max) {
+		return new ParseLimits(maxDocumentSize, maxDepth, maxStringLength, maxNumberLength, maxEntries, check(max));
+	}
+
+	/**
+	 * @return The limit of the given kind.
+	 */
+	public int get(Limit limit) {
+		switch(limit) {
+		case DOCUMENT_SIZE:
+			return maxDocumentSize;
+		case DEPTH:
+			return maxDepth;
+		case STRING_LENGTH:
+			return maxStringLength;
+		case NUMBER_LENGTH:
+			return maxNumberLength;
+		case ENTRIES:
+			return maxEntries;
+		default:
+			return maxValues;
+		}
+	}
+
+	private static int check(int max) {
+		if(max < 0)
+			throw new IllegalArgumentException("Negative limit: " + max);
+		return max;
+	}
+
+	/**
+	 * The exception for an exceeded limit, reported at the given position.
+	 */
+	static ParseException exceeded(Limit limit, int position) {
+		return new ParseException(position, ParseException.ERROR_LIMIT_EXCEEDED, limit);
+	}
+
+	@Override
+	public String toString() {
+		return "ParseLimits[documentSize=" + maxDocumentSize + ", depth=" + maxDepth + ", stringLength=" + maxStringLength
+			+ ", numberLength=" + maxNumberLength + ", entries=" + maxEntries + ", values=" + maxValues + "]";
+	}
+}
@@ -0,0 +1,72 @@
+package com.universeprojects.json.shared.parser;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+/**
+ * Bounded lock-free pool of parsers: a fixed array of slots that parsers are taken out of and put back into with
+ * compare-and-set. A thread starts looking at a slot picked by its id, so that threads rarely compete for one.
+ * When the pool is empty, the caller creates a parser; when it is full, a returned parser is dropped.
+ */
+@GwtIncompatible
+final class ParserPool<T> {
+
+	private final AtomicReferenceArray<T> slots;
+
+	ParserPool(int size) {
+		slots = new AtomicReferenceArray<>(size);
+	}
+
+	int capacity() {
+		return slots.length();
+	}
+
+	/**
+	 * @return A parser from the pool, or null if there is none.
+	 */
+	T poll() {
+		int n = slots.length();
+		int start = firstSlot(n);
+		for(int i = 0; i < n; i++) {
+			int slot = start + i < n ? start + i : start + i - n;
+			T parser = slots.get(slot);
+			if(parser != null && slots.compareAndSet(slot, parser, null))
+				return parser;
+		}
+		return null;
+	}
+
+	/**
+	 * @return false if the pool is full.
+	 */
+	boolean offer(T parser) {
+		int n = slots.length();
+		int start = firstSlot(n);
+		for(int i = 0; i < n; i++) {
+			int slot = start + i < n ? start + i : start + i - n;
+			if(slots.get(slot) == null && slots.compareAndSet(slot, null, parser))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return The number of parsers in the pool, at some point during the call.
+	 */
+	int size() {
+		int size = 0;
+		for(int i = 0; i < slots.length(); i++) {
+			if(slots.get(i) != null)
+				size++;
+		}
+		return size;
+	}
+
+	private static int firstSlot(int n) {
+		if(n == 0)
+			return 0;
+		long id = Thread.currentThread().getId();
+		return (int) (((id * 0x9E3779B97F4A7C15L) >>> 32) % n);
+	}
+}
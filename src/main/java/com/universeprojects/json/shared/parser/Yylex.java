@@ -267,12 +267,143 @@ class Yylex {
 	private boolean zzAtEOF;
 
 	/* user code: */
-	private StringBuffer sb=new StringBuffer();
+	private static final Long ZERO = Long.valueOf(0);
+
+	private StringBuilder sb=new StringBuilder();
+
+	/** value of the last TYPE_VALUE token returned by yylex() */
+	Object value;
+
+	/**
+	 * When set, string and number tokens are recognized but not converted: strings come back as "" and
+	 * numbers as 0L. Used to skip over values that are not going to be read.
+	 */
+	boolean discardValues;
+
+	/** How number tokens are converted */
+	NumberMode numberMode = NumberMode.DEFAULT;
+
+	/** Set by the parser while the next string is an object key that should be canonicalized */
+	KeyCache keyCache;
+
+	/** Limits on the document size and on the length of string and number tokens */
+	ParseLimits limits = ParseLimits.NONE;
+
+	/** Position where the current document starts, for the document size limit of a sequence of documents */
+	private int documentStart;
+
+	/** Position of the opening quote of the string being read */
+	private int stringStart;
+
+	/** Chars before the position that yychar counts from, which moves with each document of a sequence */
+	private long base;
+
+	private String string(){
+		if(discardValues)
+			return "";
+		if(keyCache != null)
+			return keyCache.get(sb);
+		return sb.toString();
+	}
+
+	private Object number(boolean decimal) throws ParseException{
+		if(zzMarkedPos - zzStartRead > limits.maxNumberLength)
+			throw ParseLimits.exceeded(ParseLimits.Limit.NUMBER_LENGTH, yychar);
+		if(discardValues)
+			return ZERO;
+		return NumberParser.toNumber(numberMode, decimal, zzBuffer, zzStartRead, zzMarkedPos);
+	}
 
 	int getPosition(){
 		return yychar;
 	}
 
+	/**
+	 * Start counting the document size from the end of the last token, for the next document of a sequence.
+	 */
+	void startDocument(){
+		// Count from here, so that yychar doesn't overflow however long the sequence is
+		base += yychar;
+		yychar = 0;
+		documentStart = yylength();
+	}
+
+	/**
+	 * @return The position that getPosition() counts from, 0 unless startDocument() was called.
+	 */
+	long getBase(){
+		return base;
+	}
+
+	/**
+	 * Check the limits before the buffer is refilled in the middle of a token, which is when a long token would make
+	 * it grow, and before more of the input is read.
+	 */
+	private void checkLimits() throws ParseException {
+		if(yychar + zzCurrentPos - zzStartRead - documentStart > limits.maxDocumentSize)
+			throw ParseLimits.exceeded(ParseLimits.Limit.DOCUMENT_SIZE, documentStart + limits.maxDocumentSize);
+		int length = zzCurrentPos - zzStartRead;
+		if(length == 0)
+			return;
+		if(zzLexicalState == STRING_BEGIN){
+			if(sb.length() + length > limits.maxStringLength)
+				throw ParseLimits.exceeded(ParseLimits.Limit.STRING_LENGTH, stringStart);
+		}
+		else{
+			char ch = zzBuffer[zzStartRead];
+			if(length > limits.maxNumberLength && (ch == '-' || (ch >= '0' && ch <= '9')))
+				throw ParseLimits.exceeded(ParseLimits.Limit.NUMBER_LENGTH, yychar);
+		}
+	}
+
+	/**
+	 * Check the document size once the input is read to the end, the part that checkLimits() doesn't see.
+	 */
+	void checkDocumentSize() throws ParseException {
+		if(yychar + yylength() - documentStart > limits.maxDocumentSize)
+			throw ParseLimits.exceeded(ParseLimits.Limit.DOCUMENT_SIZE, documentStart + limits.maxDocumentSize);
+	}
+
+	/**
+	 * Skips the whitespace after the last token, refilling the buffer as needed, for readers of a sequence of
+	 * top-level values.
+	 *
+	 * @return The next char, -1 at the end of the input.
+	 */
+	int skipWhitespace() throws java.io.IOException {
+		while(true){
+			while(zzMarkedPos < zzEndRead){
+				char ch = zzBuffer[zzMarkedPos];
+				if(ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r')
+					return ch;
+				zzMarkedPos++;
+			}
+			if(zzAtEOF)
+				return -1;
+			// Let the refill drop the last token and the whitespace, so that the buffer does not grow
+			yychar += zzMarkedPos - zzStartRead;
+			zzStartRead = zzCurrentPos = zzMarkedPos;
+			if(zzRefill()){
+				zzAtEOF = true;
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Lets go of the reader, and of the buffers if a long token made them grow, for a scanner that is kept
+	 * while it is not used.
+	 */
+	void release() {
+		zzReader = null;
+		zzEndRead = zzStartRead = 0;
+		zzCurrentPos = zzMarkedPos = 0;
+		if(zzBuffer.length > ZZ_BUFFERSIZE)
+			zzBuffer = new char[ZZ_BUFFERSIZE];
+		if(sb.capacity() > ZZ_BUFFERSIZE)
+			sb = new StringBuilder();
+	}
+
 
 
 	/**
@@ -397,6 +528,8 @@ class Yylex {
 		zzEndRead = zzStartRead = 0;
 		zzCurrentPos = zzMarkedPos = 0;
 		yyline = yychar = yycolumn = 0;
+		documentStart = 0;
+		base = 0;
 		zzLexicalState = YYINITIAL;
 	}
 
@@ -498,11 +631,11 @@ class Yylex {
 	 * Resumes scanning until the next regular expression is matched,
 	 * the end of input is encountered or an I/O-Error occurs.
 	 *
-	 * @return      the next token
+	 * @return      the type of the next token, see Yytoken. The value of the token is left in <code>value</code>
 	 * @exception   java.io.IOException  if any I/O-Error occurs
 	 */
 	@SuppressWarnings("fallthrough")
-	public Yytoken yylex() throws java.io.IOException, ParseException {
+	public int yylex() throws java.io.IOException, ParseException {
 		int zzInput;
 		int zzAction;
 
@@ -517,6 +650,8 @@ class Yylex {
 		int [] zzRowMapL = ZZ_ROWMAP;
 		int [] zzAttrL = ZZ_ATTRIBUTE;
 
+		value = null;
+
 		while (true) {
 			zzMarkedPosL = zzMarkedPos;
 
@@ -528,6 +663,9 @@ class Yylex {
 
 			zzState = ZZ_LEXSTATE[zzLexicalState];
 
+			if(zzLexicalState == STRING_BEGIN && sb.length() > limits.maxStringLength)
+				throw ParseLimits.exceeded(ParseLimits.Limit.STRING_LENGTH, stringStart);
+
 
 			zzForAction: {
 				while (true) {
@@ -542,6 +680,7 @@ class Yylex {
 						// store back cached positions
 						zzCurrentPos  = zzCurrentPosL;
 						zzMarkedPos   = zzMarkedPosL;
+						checkLimits();
 						boolean eof = zzRefill();
 						// get translated positions and possibly new buffer
 						zzCurrentPosL  = zzCurrentPos;
@@ -575,11 +714,11 @@ class Yylex {
 
 			switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
 			case 11:
-			{ sb.append(yytext());
+			{ if(!discardValues) sb.append(zzBuffer, zzStartRead, zzMarkedPos-zzStartRead);
 			}
 			case 25: break;
 			case 4:
-			{ sb.delete(0, sb.length());yybegin(STRING_BEGIN);
+			{ sb.setLength(0);stringStart=yychar;yybegin(STRING_BEGIN);
 			}
 			case 26: break;
 			case 16:
@@ -587,19 +726,19 @@ class Yylex {
 			}
 			case 27: break;
 			case 6:
-			{ return new Yytoken(Yytoken.TYPE_RIGHT_BRACE,null);
+			{ return Yytoken.TYPE_RIGHT_BRACE;
 			}
 			case 28: break;
 			case 23:
-			{ Boolean val=Boolean.valueOf(yytext()); return new Yytoken(Yytoken.TYPE_VALUE, val);
+			{ value=yycharat(0)=='t' ? Boolean.TRUE : Boolean.FALSE; return Yytoken.TYPE_VALUE;
 			}
 			case 29: break;
 			case 22:
-			{ return new Yytoken(Yytoken.TYPE_VALUE, null);
+			{ return Yytoken.TYPE_VALUE;
 			}
 			case 30: break;
 			case 13:
-			{ yybegin(YYINITIAL);return new Yytoken(Yytoken.TYPE_VALUE, sb.toString());
+			{ yybegin(YYINITIAL);value=string();return Yytoken.TYPE_VALUE;
 			}
 			case 31: break;
 			case 12:
@@ -607,7 +746,7 @@ class Yylex {
 			}
 			case 32: break;
 			case 21:
-			{ Double val=Double.valueOf(yytext()); return new Yytoken(Yytoken.TYPE_VALUE, val);
+			{ value=number(true); return Yytoken.TYPE_VALUE;
 			}
 			case 33: break;
 			case 1:
@@ -615,7 +754,7 @@ class Yylex {
 			}
 			case 34: break;
 			case 8:
-			{ return new Yytoken(Yytoken.TYPE_RIGHT_SQUARE,null);
+			{ return Yytoken.TYPE_RIGHT_SQUARE;
 			}
 			case 35: break;
 			case 19:
@@ -627,7 +766,7 @@ class Yylex {
 			}
 			case 37: break;
 			case 10:
-			{ return new Yytoken(Yytoken.TYPE_COLON,null);
+			{ return Yytoken.TYPE_COLON;
 			}
 			case 38: break;
 			case 14:
@@ -635,7 +774,7 @@ class Yylex {
 			}
 			case 39: break;
 			case 5:
-			{ return new Yytoken(Yytoken.TYPE_LEFT_BRACE,null);
+			{ return Yytoken.TYPE_LEFT_BRACE;
 			}
 			case 40: break;
 			case 17:
@@ -643,13 +782,10 @@ class Yylex {
 			}
 			case 41: break;
 			case 24:
-			{ try{
-				int ch=Integer.parseInt(yytext().substring(2),16);
-				sb.append((char)ch);
-			}
-			catch(Exception e){
-				throw new ParseException(yychar, ParseException.ERROR_UNEXPECTED_EXCEPTION, e);
-			}
+			{ int ch=0;
+			for(int i=2;i<6;i++)
+				ch=(ch<<4)|Character.digit(yycharat(i),16);
+			sb.append((char)ch);
 			}
 			case 42: break;
 			case 20:
@@ -657,11 +793,11 @@ class Yylex {
 			}
 			case 43: break;
 			case 7:
-			{ return new Yytoken(Yytoken.TYPE_LEFT_SQUARE,null);
+			{ return Yytoken.TYPE_LEFT_SQUARE;
 			}
 			case 44: break;
 			case 2:
-			{ Long val=Long.valueOf(yytext()); return new Yytoken(Yytoken.TYPE_VALUE, val);
+			{ value=number(false); return Yytoken.TYPE_VALUE;
 			}
 			case 45: break;
 			case 18:
@@ -669,7 +805,7 @@ class Yylex {
 			}
 			case 46: break;
 			case 9:
-			{ return new Yytoken(Yytoken.TYPE_COMMA,null);
+			{ return Yytoken.TYPE_COMMA;
 			}
 			case 47: break;
 			case 3:
@@ -679,7 +815,7 @@ class Yylex {
 			default:
 				if (zzInput == YYEOF && zzStartRead == zzCurrentPos) {
 					zzAtEOF = true;
-					return null;
+					return Yytoken.TYPE_EOF;
 				}
 				else {
 					zzScanError(ZZ_NO_MATCH);
@@ -0,0 +1,102 @@
+package com.universeprojects.json.shared.patch;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.LazyJSONObject;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * JSON Merge Patch (RFC 7386): a partial document that is merged into a target. The members of an object patch
+ * replace those of the target, null removes a member, and objects in the patch are merged into the objects they
+ * replace. Any other patch, arrays included, replaces the target as a whole.
+ * <p>
+ * A patch is applied either to a tree, which is modified in place, or to JSON text, which is copied to the result
+ * without building a tree: members that the patch doesn't mention are copied as they are, and only the values
+ * that it sets are encoded.
+ *
+ * @see com.universeprojects.json.shared.serialization.SerializedDataMap#applyMergePatch(Map)
+ */
+@SuppressWarnings({"rawtypes","unchecked"})
+public final class JSONMergePatch {
+
+	private JSONMergePatch() {
+	}
+
+	/**
+	 * Apply a patch to a tree. Objects of the target are modified in place; objects of the patch are copied into
+	 * it without their null members, other values of the patch are put into it as they are.
+	 *
+	 * @return The target, or what replaced it: the patch if it isn't an object, a new JSONObject if the patch is
+	 * an object and the target isn't.
+	 */
+	public static Object apply(Object target, Object patch) {
+		if(!(patch instanceof Map))
+			return patch;
+		Map map = target instanceof Map ? (Map) target : new JSONObject();
+		for(Object entryOb : ((Map) patch).entrySet()){
+			Map.Entry entry = (Map.Entry) entryOb;
+			Object key = entry.getKey();
+			Object change = entry.getValue();
+			if(change == null){
+				if(map.containsKey(key))
+					map.remove(key);
+				continue;
+			}
+			Object value = map.get(key);
+			Object merged = apply(change instanceof Map ? value : null, change);
+			// An object merged in place is already there
+			if(merged != value || !map.containsKey(key))
+				map.put(key, merged);
+		}
+		return map;
+	}
+
+	/**
+	 * Apply a patch to JSON text.
+	 *
+	 * @return The patched text.
+	 * @throws ParseException if the text is an object that isn't valid JSON. Text that isn't an object is
+	 * replaced without being checked.
+	 */
+	@GwtIncompatible
+	public static String applyToText(String text, Object patch) throws ParseException {
+		StringWriter out = new StringWriter(text.length() + 16);
+		try{
+			write(text, patch, out);
+		}
+		catch(IOException e){
+			// Not thrown by StringWriter
+			throw new IllegalStateException(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Apply a patch to JSON text and write the result to out. The text is indexed (see LazyJSONObject) but not
+	 * parsed: members that the patch doesn't mention are copied from it, and the objects that the patch goes
+	 * into are indexed in turn.
+	 *
+	 * @throws ParseException if the text is an object that isn't valid JSON. Text that isn't an object is
+	 * replaced without being checked.
+	 */
+	@GwtIncompatible
+	public static void write(String text, Object patch, Writer out) throws IOException, ParseException {
+		if(!(patch instanceof Map)){
+			JSONValue.writeJSONString(patch, out, null);
+			return;
+		}
+		int i = 0;
+		while(i < text.length() && Character.isWhitespace(text.charAt(i)))
+			i++;
+		if(i < text.length() && text.charAt(i) == '{')
+			new LazyJSONObject(text).writeMerged((Map) patch, out);
+		else
+			JSONValue.writeJSONString(apply(null, patch), out, null);
+	}
+}
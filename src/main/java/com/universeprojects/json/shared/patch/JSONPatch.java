@@ -0,0 +1,659 @@
+package com.universeprojects.json.shared.patch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.parser.JSONPointerExtractor;
+import com.universeprojects.json.shared.parser.LazyNumber;
+import com.universeprojects.json.shared.serialization.SerializedDataMap;
+
+/**
+ * JSON Patch (RFC 6902): the difference between two documents as a list of operations, and the application of
+ * such a list to a document.
+ * <p>
+ * diff() compares two trees of Maps, Lists and scalars, e.g. the state last sent to a client and the current one,
+ * and returns the operations that turn the first into the second. It goes into the objects and arrays that are in
+ * both, so that a change deep inside a document is one small operation. Array elements are matched along the
+ * longest common subsequence of the two arrays, and elements that take the place of others are compared with
+ * them. With an id key, arrays of objects that all carry a distinct id are matched by id instead, so that an
+ * element is recognized when it changed, moved or had others inserted before it; moved elements become "move"
+ * operations. A SerializedDataMap can be given for either document; its serialized form is compared.
+ * <p>
+ * Numbers are equal if their values are, whatever their type: 1, 1L and 1.0 are the same.
+ * <p>
+ * The values in a patch are the objects of the target document, not copies, and apply() puts the values of the
+ * patch into the document as they are.
+ */
+@SuppressWarnings({"rawtypes","unchecked"})
+public final class JSONPatch {
+
+	public static final String ADD = "add";
+	public static final String REMOVE = "remove";
+	public static final String REPLACE = "replace";
+	public static final String MOVE = "move";
+	public static final String COPY = "copy";
+	public static final String TEST = "test";
+
+	/**
+	 * Largest table, in cells, for the longest common subsequence of the middle of two arrays (what remains
+	 * after the common start and end). Beyond it the elements are compared by position.
+	 */
+	private static final int MAX_LCS_CELLS = 1 << 20;
+
+	private final JSONArray patch = new JSONArray();
+	private final String idKey;
+
+	private JSONPatch(String idKey) {
+		this.idKey = idKey;
+	}
+
+	/**
+	 * @return The operations that turn source into target; empty if they are equal.
+	 */
+	public static JSONArray diff(Object source, Object target) {
+		return diff(source, target, null);
+	}
+
+	/**
+	 * @param idKey - Key of the ids of array elements, e.g. "id"; null to match elements by value only.
+	 * @return The operations that turn source into target; empty if they are equal.
+	 */
+	public static JSONArray diff(Object source, Object target, String idKey) {
+		JSONPatch differ = new JSONPatch(idKey);
+		differ.diffValue("", null, source, target);
+		return differ.patch;
+	}
+
+	/**
+	 * Compare the values at parent/token, which is the whole document if token is null.
+	 */
+	private void diffValue(String parent, Object token, Object source, Object target) {
+		if(source == target)
+			return;
+		source = tree(source);
+		target = tree(target);
+		if(source instanceof Map && target instanceof Map){
+			diffObject(pointer(parent, token), (Map) source, (Map) target);
+		}
+		else if(source instanceof List && target instanceof List){
+			diffArray(pointer(parent, token), (List) source, (List) target);
+		}
+		else if(!equal(source, target)){
+			operation(REPLACE, pointer(parent, token)).put("value", target);
+		}
+	}
+
+	private void diffObject(String path, Map source, Map target) {
+		for(Object entryOb : source.entrySet()){
+			Map.Entry entry = (Map.Entry) entryOb;
+			Object key = entry.getKey();
+			Object value = target.get(key);
+			if(value == null && !target.containsKey(key))
+				operation(REMOVE, pointer(path, key));
+			else
+				diffValue(path, key, entry.getValue(), value);
+		}
+		for(Object entryOb : target.entrySet()){
+			Map.Entry entry = (Map.Entry) entryOb;
+			if(!source.containsKey(entry.getKey()))
+				operation(ADD, pointer(path, entry.getKey())).put("value", entry.getValue());
+		}
+	}
+
+	private void diffArray(String path, List source, List target) {
+		if(idKey != null && diffById(path, source, target))
+			return;
+		int sourceSize = source.size();
+		int targetSize = target.size();
+		// The common start and end are passed over without building the table
+		int start = 0;
+		while(start < sourceSize && start < targetSize && equal(source.get(start), target.get(start)))
+			start++;
+		int sourceEnd = sourceSize;
+		int targetEnd = targetSize;
+		while(sourceEnd > start && targetEnd > start && equal(source.get(sourceEnd - 1), target.get(targetEnd - 1))){
+			sourceEnd--;
+			targetEnd--;
+		}
+		int n = sourceEnd - start;
+		int m = targetEnd - start;
+		if(n == 0 || m == 0 || (long) (n + 1) * (m + 1) > MAX_LCS_CELLS){
+			diffRun(path, source, target, start, sourceEnd, start, targetEnd);
+			return;
+		}
+
+		int[] sourceHashes = new int[n];
+		for(int i=0;i<n;i++)
+			sourceHashes[i] = hash(source.get(start + i));
+		int[] targetHashes = new int[m];
+		for(int j=0;j<m;j++)
+			targetHashes[j] = hash(target.get(start + j));
+		// lengths[i * (m + 1) + j] is the length of the LCS of the source from i and the target from j
+		int width = m + 1;
+		int[] lengths = new int[(n + 1) * width];
+		for(int i=n-1;i>=0;i--){
+			for(int j=m-1;j>=0;j--){
+				if(sourceHashes[i] == targetHashes[j] && equal(source.get(start + i), target.get(start + j)))
+					lengths[i * width + j] = lengths[(i + 1) * width + j + 1] + 1;
+				else
+					lengths[i * width + j] = Math.max(lengths[(i + 1) * width + j], lengths[i * width + j + 1]);
+			}
+		}
+
+		// Elements between two common ones are compared with each other by position
+		int i = 0;
+		int j = 0;
+		int runSource = 0;
+		int runTarget = 0;
+		while(i < n && j < m){
+			if(lengths[i * width + j] == lengths[(i + 1) * width + j + 1] + 1 && sourceHashes[i] == targetHashes[j]
+					&& equal(source.get(start + i), target.get(start + j))){
+				diffRun(path, source, target, start + runSource, start + i, start + runTarget, start + j);
+				i++;
+				j++;
+				runSource = i;
+				runTarget = j;
+			}
+			else if(lengths[(i + 1) * width + j] >= lengths[i * width + j + 1]){
+				i++;
+			}
+			else{
+				j++;
+			}
+		}
+		diffRun(path, source, target, start + runSource, sourceEnd, start + runTarget, targetEnd);
+	}
+
+	/**
+	 * Turn source elements [sourceFrom, sourceTo) into target elements [targetFrom, targetTo). Everything before
+	 * them is already as in the target, so the first of them is at index targetFrom.
+	 */
+	private void diffRun(String path, List source, List target, int sourceFrom, int sourceTo, int targetFrom, int targetTo) {
+		int sourceLength = sourceTo - sourceFrom;
+		int targetLength = targetTo - targetFrom;
+		int common = Math.min(sourceLength, targetLength);
+		for(int k=0;k<common;k++)
+			diffValue(path, Integer.valueOf(targetFrom + k), source.get(sourceFrom + k), target.get(targetFrom + k));
+		if(sourceLength > targetLength){
+			String removed = pointer(path, Integer.valueOf(targetFrom + common));
+			for(int k=common;k<sourceLength;k++)
+				operation(REMOVE, removed);
+		}
+		for(int k=common;k<targetLength;k++)
+			operation(ADD, pointer(path, Integer.valueOf(targetFrom + k))).put("value", target.get(targetFrom + k));
+	}
+
+	/**
+	 * Match the elements of the arrays by id: remove those that are only in the source, move those that changed
+	 * order, add those that are only in the target, then compare the elements that are in both.
+	 *
+	 * @return false if the elements of either array are not all objects with a distinct id.
+	 */
+	private boolean diffById(String path, List source, List target) {
+		Object[] sourceIds = ids(source);
+		if(sourceIds == null)
+			return false;
+		Object[] targetIds = ids(target);
+		if(targetIds == null)
+			return false;
+		Map<Object, Integer> sourceIndexes = new HashMap<>();
+		for(int i=0;i<sourceIds.length;i++)
+			sourceIndexes.put(sourceIds[i], Integer.valueOf(i));
+		Map<Object, Integer> targetIndexes = new HashMap<>();
+		for(int j=0;j<targetIds.length;j++)
+			targetIndexes.put(targetIds[j], Integer.valueOf(j));
+
+		// Target indexes of the elements that are kept, in source order
+		int[] kept = new int[sourceIds.length];
+		int keptCount = 0;
+		List<Object> working = new ArrayList<>(sourceIds.length);
+		for(int i=0;i<sourceIds.length;i++){
+			Integer targetIndex = targetIndexes.get(sourceIds[i]);
+			if(targetIndex != null){
+				kept[keptCount++] = targetIndex.intValue();
+				working.add(sourceIds[i]);
+			}
+		}
+		for(int i=sourceIds.length-1;i>=0;i--){
+			if(!targetIndexes.containsKey(sourceIds[i]))
+				operation(REMOVE, pointer(path, Integer.valueOf(i)));
+		}
+
+		// The longest run of kept elements that are in target order stays in place; the others are moved
+		boolean[] inPlace = new boolean[targetIds.length];
+		markIncreasing(kept, keptCount, inPlace);
+		boolean[] added = new boolean[targetIds.length];
+		for(int j=0;j<targetIds.length;j++)
+			added[j] = !sourceIndexes.containsKey(targetIds[j]);
+		for(int j=0;j<targetIds.length;j++){
+			if(added[j] || inPlace[j])
+				continue;
+			// Everything before it in the target that is not added later is in place by now; it goes after that
+			int from = working.indexOf(targetIds[j]);
+			working.remove(from);
+			int to = 0;
+			for(int q=j-1;q>=0;q--){
+				if(!added[q]){
+					to = working.indexOf(targetIds[q]) + 1;
+					break;
+				}
+			}
+			working.add(to, targetIds[j]);
+			if(from != to){
+				JSONObject move = operation(MOVE, pointer(path, Integer.valueOf(to)));
+				move.put("from", pointer(path, Integer.valueOf(from)));
+			}
+		}
+		for(int j=0;j<targetIds.length;j++){
+			if(added[j])
+				operation(ADD, pointer(path, Integer.valueOf(j))).put("value", target.get(j));
+		}
+
+		for(int j=0;j<targetIds.length;j++){
+			if(!added[j])
+				diffValue(path, Integer.valueOf(j), source.get(sourceIndexes.get(targetIds[j]).intValue()), target.get(j));
+		}
+		return true;
+	}
+
+	/**
+	 * @return The ids of the elements, or null if they are not all objects with a distinct id.
+	 */
+	private Object[] ids(List list) {
+		Object[] ids = new Object[list.size()];
+		Map<Object, Boolean> seen = new HashMap<>();
+		int i = 0;
+		for(Object element : list){
+			element = tree(element);
+			if(!(element instanceof Map))
+				return null;
+			Object id = idValue(((Map) element).get(idKey));
+			if(id == null || id instanceof Map || id instanceof List || seen.put(id, Boolean.TRUE) != null)
+				return null;
+			ids[i++] = id;
+		}
+		return ids;
+	}
+
+	/**
+	 * An id as a key of a HashMap, so that ids that are equal numbers of different types are the same.
+	 */
+	private static Object idValue(Object id) {
+		if(id instanceof LazyNumber)
+			id = ((LazyNumber) id).getValue();
+		if(id instanceof Integer || id instanceof Short || id instanceof Byte)
+			return Long.valueOf(((Number) id).longValue());
+		return id;
+	}
+
+	/**
+	 * Mark the values of a longest increasing subsequence of the values.
+	 */
+	private static void markIncreasing(int[] values, int count, boolean[] marks) {
+		// tails[k] is the index of the smallest value that ends an increasing subsequence of length k + 1
+		int[] tails = new int[count];
+		int[] previous = new int[count];
+		int length = 0;
+		for(int i=0;i<count;i++){
+			int low = 0;
+			int high = length;
+			while(low < high){
+				int middle = (low + high) >>> 1;
+				if(values[tails[middle]] < values[i])
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if(low == length)
+				length++;
+		}
+		for(int i=length>0?tails[length-1]:-1;i>=0;i=previous[i])
+			marks[values[i]] = true;
+	}
+
+	private JSONObject operation(String op, String path) {
+		JSONObject operation = new JSONObject();
+		operation.put("op", op);
+		operation.put("path", path);
+		patch.add(operation);
+		return operation;
+	}
+
+	/**
+	 * @return The pointer to token in the value at parent, or parent itself if token is null.
+	 */
+	private static String pointer(String parent, Object token) {
+		if(token == null)
+			return parent;
+		String s = token.toString();
+		if(s.indexOf('~') >= 0 || s.indexOf('/') >= 0)
+			s = s.replace("~", "~0").replace("/", "~1");
+		return parent + "/" + s;
+	}
+
+	/**
+	 * Apply a patch to a document. Objects and arrays of the document are modified in place.
+	 * <p>
+	 * Operations are applied in order. If one fails, the operations before it stay applied; apply the patch to
+	 * a copy() if the document has to be unchanged after a failure.
+	 *
+	 * @return The document, or the value that replaced it if an operation addresses the whole document ("").
+	 * @throws JSONPatchException if an operation can't be applied or a "test" operation fails.
+	 */
+	public static Object apply(Object document, List<?> patch) {
+		for(Object operationOb : patch){
+			if(!(operationOb instanceof Map))
+				throw new JSONPatchException("Operation is not an object: " + operationOb);
+			Map operation = (Map) operationOb;
+			String op = member(operation, "op");
+			String path = member(operation, "path");
+			if(ADD.equals(op)){
+				document = add(document, path, value(operation));
+			}
+			else if(REMOVE.equals(op)){
+				remove(document, path);
+			}
+			else if(REPLACE.equals(op)){
+				document = replace(document, path, value(operation));
+			}
+			else if(MOVE.equals(op)){
+				String from = member(operation, "from");
+				if(from.equals(path))
+					continue;
+				if(path.startsWith(from + "/"))
+					throw new JSONPatchException("Can't move " + from + " into itself: " + path);
+				document = add(document, path, remove(document, from));
+			}
+			else if(COPY.equals(op)){
+				document = add(document, path, copy(get(document, member(operation, "from"))));
+			}
+			else if(TEST.equals(op)){
+				if(!equal(get(document, path), value(operation)))
+					throw new JSONPatchException("Test failed: " + path);
+			}
+			else{
+				throw new JSONPatchException("Unknown operation: " + op);
+			}
+		}
+		return document;
+	}
+
+	private static String member(Map operation, String key) {
+		Object value = operation.get(key);
+		if(!(value instanceof String))
+			throw new JSONPatchException("Operation without \"" + key + "\": " + operation);
+		return (String) value;
+	}
+
+	private static Object value(Map operation) {
+		if(!operation.containsKey("value"))
+			throw new JSONPatchException("Operation without \"value\": " + operation);
+		return operation.get("value");
+	}
+
+	private static Object add(Object document, String path, Object value) {
+		String[] tokens = tokens(path);
+		if(tokens.length == 0)
+			return value;
+		Object parent = parent(document, tokens, path);
+		String token = tokens[tokens.length - 1];
+		if(parent instanceof Map){
+			((Map) parent).put(token, value);
+		}
+		else if(parent instanceof List){
+			List list = (List) parent;
+			list.add(index(list, token, true, path), value);
+		}
+		else{
+			throw notContainer(path);
+		}
+		return document;
+	}
+
+	/**
+	 * @return The value that was removed.
+	 */
+	private static Object remove(Object document, String path) {
+		String[] tokens = tokens(path);
+		if(tokens.length == 0)
+			throw new JSONPatchException("Can't remove the whole document");
+		Object parent = parent(document, tokens, path);
+		String token = tokens[tokens.length - 1];
+		if(parent instanceof Map){
+			Map map = (Map) parent;
+			if(!map.containsKey(token))
+				throw notFound(path);
+			return map.remove(token);
+		}
+		if(parent instanceof List){
+			List list = (List) parent;
+			return list.remove(index(list, token, false, path));
+		}
+		throw notContainer(path);
+	}
+
+	private static Object replace(Object document, String path, Object value) {
+		String[] tokens = tokens(path);
+		if(tokens.length == 0)
+			return value;
+		Object parent = parent(document, tokens, path);
+		String token = tokens[tokens.length - 1];
+		if(parent instanceof Map){
+			Map map = (Map) parent;
+			if(!map.containsKey(token))
+				throw notFound(path);
+			map.put(token, value);
+		}
+		else if(parent instanceof List){
+			List list = (List) parent;
+			list.set(index(list, token, false, path), value);
+		}
+		else{
+			throw notContainer(path);
+		}
+		return document;
+	}
+
+	private static Object get(Object document, String path) {
+		Object node = document;
+		for(String token : tokens(path))
+			node = child(node, token, path);
+		return node;
+	}
+
+	private static Object parent(Object document, String[] tokens, String path) {
+		Object node = document;
+		for(int i=0;i<tokens.length-1;i++)
+			node = child(node, tokens[i], path);
+		return node;
+	}
+
+	private static Object child(Object node, String token, String path) {
+		if(node instanceof Map){
+			Map map = (Map) node;
+			Object value = map.get(token);
+			if(value == null && !map.containsKey(token))
+				throw notFound(path);
+			return value;
+		}
+		if(node instanceof List){
+			List list = (List) node;
+			return list.get(index(list, token, false, path));
+		}
+		throw notContainer(path);
+	}
+
+	/**
+	 * @param add - Whether the index is where an element is inserted, which can be the size or "-" for the end.
+	 */
+	private static int index(List list, String token, boolean add, String path) {
+		if(add && token.equals("-"))
+			return list.size();
+		int index = JSONPointerExtractor.parseIndex(token);
+		if(index < 0 || index > list.size() || (index == list.size() && !add))
+			throw new JSONPatchException("Invalid array index " + token + ": " + path);
+		return index;
+	}
+
+	private static String[] tokens(String path) {
+		try{
+			return JSONPointerExtractor.parsePointer(path);
+		}
+		catch(IllegalArgumentException e){
+			throw new JSONPatchException(e.getMessage(), e);
+		}
+	}
+
+	private static JSONPatchException notFound(String path) {
+		return new JSONPatchException("No value at " + path);
+	}
+
+	private static JSONPatchException notContainer(String path) {
+		return new JSONPatchException("Not an object or array on the way to " + path);
+	}
+
+	/**
+	 * @return A deep copy of the objects and arrays in the value; other values are shared.
+	 */
+	public static Object copy(Object value) {
+		value = tree(value);
+		if(value instanceof Map){
+			Map map = (Map) value;
+			JSONObject copy = new JSONObject(Math.max((int) (map.size() / .75f) + 1, 16));
+			for(Object entryOb : map.entrySet()){
+				Map.Entry entry = (Map.Entry) entryOb;
+				copy.put(entry.getKey(), copy(entry.getValue()));
+			}
+			return copy;
+		}
+		if(value instanceof List){
+			List list = (List) value;
+			JSONArray copy = new JSONArray();
+			copy.ensureCapacity(list.size());
+			for(Object element : list)
+				copy.add(copy(element));
+			return copy;
+		}
+		return value;
+	}
+
+	/**
+	 * @return true if the values are the same JSON: objects with the same members in any order, arrays with the
+	 * same elements in the same order, and numbers with the same value.
+	 */
+	public static boolean equal(Object a, Object b) {
+		if(a == b)
+			return true;
+		a = tree(a);
+		b = tree(b);
+		if(a == null || b == null)
+			return a == b;
+		if(a instanceof Number && b instanceof Number)
+			return equalNumbers((Number) a, (Number) b);
+		if(a instanceof Map){
+			if(!(b instanceof Map))
+				return false;
+			Map mapA = (Map) a;
+			Map mapB = (Map) b;
+			if(mapA.size() != mapB.size())
+				return false;
+			for(Object entryOb : mapA.entrySet()){
+				Map.Entry entry = (Map.Entry) entryOb;
+				Object value = mapB.get(entry.getKey());
+				if(value == null && !mapB.containsKey(entry.getKey()))
+					return false;
+				if(!equal(entry.getValue(), value))
+					return false;
+			}
+			return true;
+		}
+		if(a instanceof List){
+			if(!(b instanceof List))
+				return false;
+			List listA = (List) a;
+			List listB = (List) b;
+			if(listA.size() != listB.size())
+				return false;
+			Iterator itA = listA.iterator();
+			Iterator itB = listB.iterator();
+			while(itA.hasNext()){
+				if(!equal(itA.next(), itB.next()))
+					return false;
+			}
+			return true;
+		}
+		if(b instanceof Map || b instanceof List)
+			return false;
+		return a.equals(b);
+	}
+
+	private static boolean equalNumbers(Number a, Number b) {
+		if(a instanceof LazyNumber)
+			a = ((LazyNumber) a).getValue();
+		if(b instanceof LazyNumber)
+			b = ((LazyNumber) b).getValue();
+		if(isIntegral(a) && isIntegral(b)){
+			if(a instanceof BigInteger || b instanceof BigInteger)
+				return toBigInteger(a).equals(toBigInteger(b));
+			return a.longValue() == b.longValue();
+		}
+		if(a instanceof BigDecimal && b instanceof BigDecimal)
+			return ((BigDecimal) a).compareTo((BigDecimal) b) == 0;
+		return a.doubleValue() == b.doubleValue();
+	}
+
+	private static boolean isIntegral(Number n) {
+		return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte || n instanceof BigInteger;
+	}
+
+	private static BigInteger toBigInteger(Number n) {
+		return n instanceof BigInteger ? (BigInteger) n : BigInteger.valueOf(n.longValue());
+	}
+
+	/**
+	 * Hash code that agrees with equal(), for comparing array elements quickly.
+	 */
+	private static int hash(Object value) {
+		value = tree(value);
+		if(value == null)
+			return 0;
+		if(value instanceof Number){
+			double d = (value instanceof LazyNumber ? ((LazyNumber) value).getValue() : (Number) value).doubleValue();
+			// 0.0 and -0.0 are equal
+			return d == 0 ? 0 : Double.valueOf(d).hashCode();
+		}
+		if(value instanceof Map){
+			int h = 0;
+			for(Object entryOb : ((Map) value).entrySet()){
+				Map.Entry entry = (Map.Entry) entryOb;
+				h += hash(entry.getKey()) ^ hash(entry.getValue());
+			}
+			return h;
+		}
+		if(value instanceof List){
+			int h = 1;
+			for(Object element : (List) value)
+				h = 31 * h + hash(element);
+			return h;
+		}
+		return value.hashCode();
+	}
+
+	/**
+	 * @return The serialized form of a SerializedDataMap, other values as they are.
+	 */
+	private static Object tree(Object value) {
+		if(value instanceof SerializedDataMap)
+			return ((SerializedDataMap<?, ?>) value).getParsedJSONObject();
+		return value;
+	}
+}
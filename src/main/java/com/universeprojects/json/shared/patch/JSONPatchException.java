@@ -0,0 +1,17 @@
+package com.universeprojects.json.shared.patch;
+
+/**
+ * A patch that can't be applied: an operation that is malformed, addresses a location that doesn't exist, or is
+ * a "test" that failed.
+ */
+public class JSONPatchException extends RuntimeException {
+	private static final long serialVersionUID = 2715386530163424802L;
+
+	public JSONPatchException(String message) {
+		super(message);
+	}
+
+	public JSONPatchException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,32 @@
+package com.universeprojects.json.shared.serialization;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which an AutoSerializer is generated at compile time, by
+ * com.universeprojects.json.processor.AutoSerializerProcessor. The processor has to be named with javac's
+ * -processor option (see AutoSerializerProcessor); it isn't picked up from the classpath.
+ * <p>
+ * The generated class is named after the annotated class with the suffix "_AutoSerializer" (nested classes are
+ * joined with '_', e.g. Outer_Inner_AutoSerializer) and lives in the same package. It turns the object into a
+ * JSONObject with one entry per field and back, without reflection. Static and transient fields are left out, and
+ * so are superclass fields that a field of the same name hides.
+ * Fields must be visible from the package, or have a visible getter and setter.
+ * The class needs a visible constructor without arguments.
+ * <p>
+ * Fields are written the way SerializerFactory writes values: numbers, booleans and strings as they are,
+ * doubles and floats as bit strings, enums by name, Lists, Sets and Maps with String keys as JSON arrays and
+ * objects, and everything else through SerializerFactory.serialize().
+ * <p>
+ * The generated serializers are registered by SerializerFactory.initAutoSerializers() on the server. GWT clients
+ * register each one with initializeSerializer().
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface AutoSerialize {
+}
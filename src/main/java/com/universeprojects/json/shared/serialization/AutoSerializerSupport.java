@@ -0,0 +1,123 @@
+package com.universeprojects.json.shared.serialization;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.JSONValue;
+import com.universeprojects.json.shared.parser.JSONParserFactory;
+import com.universeprojects.json.shared.parser.ParseException;
+
+/**
+ * Conversions used by the generated AutoSerializer classes. They accept the same inputs as BasicSerializer,
+ * i.e. numbers may arrive as Number or as String, doubles and floats also as bit strings.
+ *
+ * @see AutoSerialize
+ */
+public final class AutoSerializerSupport {
+
+    private AutoSerializerSupport() {
+    }
+
+    public static Map<?, ?> toMap(Object element, Class<?> type) {
+        if (element instanceof Map)
+            return (Map<?, ?>) element;
+        if (element instanceof String)
+            return (Map<?, ?>) parse((String) element, type);
+        throw new SerializationException(element, type);
+    }
+
+    public static List<?> toList(Object element, Class<?> type) {
+        if (element instanceof List)
+            return (List<?>) element;
+        if (element instanceof String)
+            return (List<?>) parse((String) element, type);
+        throw new SerializationException(element, type);
+    }
+
+    private static Object parse(String element, Class<?> type) {
+        try {
+            return JSONParserFactory.parse(element);
+        } catch (ParseException e) {
+            throw new SerializationException(element, type, e);
+        }
+    }
+
+    public static int toInt(Object element) {
+        if (element instanceof Number)
+            return ((Number) element).intValue();
+        return Integer.parseInt(element.toString());
+    }
+
+    public static long toLong(Object element) {
+        if (element instanceof Number)
+            return ((Number) element).longValue();
+        return Long.parseLong(element.toString());
+    }
+
+    public static boolean toBoolean(Object element) {
+        if (element instanceof Boolean)
+            return (Boolean) element;
+        if ("true".equals(element))
+            return true;
+        if ("false".equals(element))
+            return false;
+        throw new SerializationException("Can't convert value " + element + " to a Boolean");
+    }
+
+    public static double toDouble(Object element) {
+        if (element instanceof Number)
+            return ((Number) element).doubleValue();
+        String str = element.toString();
+        if (str.startsWith("D"))
+            return BasicSerializer.decodeDouble(str);
+        if (str.startsWith("F"))
+            return BasicSerializer.decodeFloat(str);
+        return Double.parseDouble(str);
+    }
+
+    public static float toFloat(Object element) {
+        if (element instanceof Number)
+            return ((Number) element).floatValue();
+        String str = element.toString();
+        if (str.startsWith("F"))
+            return BasicSerializer.decodeFloat(str);
+        if (str.startsWith("D"))
+            return (float) BasicSerializer.decodeDouble(str);
+        return Float.parseFloat(str);
+    }
+
+    public static char toChar(Object element) {
+        String str = element.toString();
+        if (str.length() != 1)
+            throw new SerializationException("Can't convert value " + str + " to a Character");
+        return str.charAt(0);
+    }
+
+    public static void writeString(String value, Writer out) throws IOException {
+        JSONValue.writeJSONString(value, out, null);
+    }
+
+    public static void writeName(Enum<?> value, Writer out) throws IOException {
+        out.write('"');
+        out.write(value.name());
+        out.write('"');
+    }
+
+    public static void writeDouble(double value, Writer out) throws IOException {
+        char[] buf = new char[BasicSerializer.MAX_DOUBLE_CHARS + 2];
+        buf[0] = '"';
+        int end = BasicSerializer.encodeDouble(value, buf, 1);
+        buf[end++] = '"';
+        out.write(buf, 0, end);
+    }
+
+    public static void writeFloat(float value, Writer out) throws IOException {
+        char[] buf = new char[BasicSerializer.MAX_FLOAT_CHARS + 2];
+        buf[0] = '"';
+        int end = BasicSerializer.encodeFloat(value, buf, 1);
+        buf[end++] = '"';
+        out.write(buf, 0, end);
+    }
+}
@@ -6,6 +6,8 @@ import com.universeprojects.json.shared.JSONObject;
 import com.universeprojects.json.shared.parser.JSONParserFactory;
 import com.universeprojects.json.shared.parser.ParseException;
 
+import java.util.List;
+
 /**
  * This serializer handles the basic data types, provided by the language / libraries
  */
@@ -23,9 +25,31 @@ public class BasicSerializer implements Serializer {
         SerializedDataList.class,
         SerializedDataMap.class,
         SerializationWrapper.class,
+        int[].class,
+        long[].class,
+        float[].class,
+        double[].class,
     };
     public static final int LONG_RADIX = 32;
 
+    /** Longest "D..." form: the prefix, a sign and 13 radix-32 digits */
+    public static final int MAX_DOUBLE_CHARS = 15;
+    /** Longest "F..." form: the prefix, a sign and 7 radix-32 digits */
+    public static final int MAX_FLOAT_CHARS = 9;
+
+    private static final char[] DIGITS = "0123456789abcdefghijklmnopqrstuv".toCharArray();
+    /** Value of each ASCII radix-32 digit in either case, -1 for other chars */
+    private static final byte[] DIGIT_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < DIGIT_VALUES.length; i++)
+            DIGIT_VALUES[i] = -1;
+        for (int i = 0; i < DIGITS.length; i++) {
+            DIGIT_VALUES[DIGITS[i]] = (byte) i;
+            DIGIT_VALUES[Character.toUpperCase(DIGITS[i])] = (byte) i;
+        }
+    }
+
     @Override
     public Object serialize(Object element) {
         if (element == null || element instanceof JSONAware) {
@@ -58,6 +82,14 @@ public class BasicSerializer implements Serializer {
             arr2.add(serialize(value));
             arr2.add(SerializerFactory.getSimpleName(clazz));
             return arr2;
+        } else if (element instanceof double[]) {
+            return PackedArrays.serializeDoubles((double[]) element);
+        } else if (element instanceof int[]) {
+            return PackedArrays.serializeInts((int[]) element);
+        } else if (element instanceof long[]) {
+            return PackedArrays.serializeLongs((long[]) element);
+        } else if (element instanceof float[]) {
+            return PackedArrays.serializeFloats((float[]) element);
         } else {
             throw new SerializationException("Unsupported data type: " + element.getClass().getCanonicalName());
         }
@@ -116,8 +148,7 @@ public class BasicSerializer implements Serializer {
                     Float fl = deserializeFloatTeIntBits(str);
                     return (T) fl;
                 } else if(str.startsWith("D")) {
-                    Double dbl = deserializeDoubleLongBits(str);
-                    return (T) Float.valueOf(dbl.floatValue());
+                    return (T) Float.valueOf((float) decodeDouble(str));
                 } else {
                     return (T) Float.valueOf(str);
                 }
@@ -155,6 +186,26 @@ public class BasicSerializer implements Serializer {
                 value = deserialize(serializedValue, wrapperClass);
             }
             return (T) new SerializationWrapper<>(value);
+        } else if (clazz == double[].class) {
+            if (element instanceof String)
+                return (T) PackedArrays.deserializeDoubles((String) element);
+            else if (element instanceof List)
+                return (T) PackedArrays.toDoubles((List<?>) element);
+        } else if (clazz == int[].class) {
+            if (element instanceof String)
+                return (T) PackedArrays.deserializeInts((String) element);
+            else if (element instanceof List)
+                return (T) PackedArrays.toInts((List<?>) element);
+        } else if (clazz == long[].class) {
+            if (element instanceof String)
+                return (T) PackedArrays.deserializeLongs((String) element);
+            else if (element instanceof List)
+                return (T) PackedArrays.toLongs((List<?>) element);
+        } else if (clazz == float[].class) {
+            if (element instanceof String)
+                return (T) PackedArrays.deserializeFloats((String) element);
+            else if (element instanceof List)
+                return (T) PackedArrays.toFloats((List<?>) element);
         } else {
             throw new SerializationException("Unsupported data type: " + clazz.getCanonicalName());
         }
@@ -163,19 +214,142 @@ public class BasicSerializer implements Serializer {
     }
 
     public static Double deserializeDoubleLongBits(String s) {
-        return Double.longBitsToDouble(Long.valueOf(s.substring(1), LONG_RADIX));
+        return Double.valueOf(decodeDouble(s));
     }
 
     public static String serializeDoubleLongBits(Number n) {
-        return "D" + Long.toString(Double.doubleToLongBits(n.doubleValue()), LONG_RADIX);
+        char[] buf = new char[MAX_DOUBLE_CHARS];
+        return new String(buf, 0, encodeDouble(n.doubleValue(), buf, 0));
     }
 
     public static Float deserializeFloatTeIntBits(String s) {
-        return Float.intBitsToFloat(Integer.valueOf(s.substring(1), LONG_RADIX));
+        return Float.valueOf(decodeFloat(s));
     }
 
     public static String serializeFloatTeIntBits(Number n) {
-        return "F" + Integer.toString(Float.floatToIntBits(n.floatValue()), LONG_RADIX);
+        char[] buf = new char[MAX_FLOAT_CHARS];
+        return new String(buf, 0, encodeFloat(n.floatValue(), buf, 0));
+    }
+
+    /*
+     * The "D..." and "F..." forms without the intermediate strings and boxes. The first char is the prefix and is
+     * not checked, like in deserializeDoubleLongBits(); the rest must be a signed radix-32 number that fits the bits.
+     */
+
+    public static double decodeDouble(CharSequence s) {
+        return Double.longBitsToDouble(decodeBits(s, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    public static float decodeFloat(CharSequence s) {
+        return Float.intBitsToFloat((int) decodeBits(s, Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Writes the "D..." form of the value at buf[pos], which needs room for {@link #MAX_DOUBLE_CHARS} chars
+     *
+     * @return the position after the last char written
+     */
+    public static int encodeDouble(double value, char[] buf, int pos) {
+        buf[pos] = 'D';
+        return encodeBits(Double.doubleToLongBits(value), buf, pos + 1);
+    }
+
+    /**
+     * Writes the "F..." form of the value at buf[pos], which needs room for {@link #MAX_FLOAT_CHARS} chars
+     *
+     * @return the position after the last char written
+     */
+    public static int encodeFloat(float value, char[] buf, int pos) {
+        buf[pos] = 'F';
+        return encodeBits(Float.floatToIntBits(value), buf, pos + 1);
+    }
+
+    public static void appendDouble(double value, StringBuilder sb) {
+        sb.append('D');
+        appendBits(Double.doubleToLongBits(value), sb);
+    }
+
+    public static void appendFloat(float value, StringBuilder sb) {
+        sb.append('F');
+        appendBits(Float.floatToIntBits(value), sb);
+    }
+
+    private static long decodeBits(CharSequence s, long min, long max) {
+        int length = s.length();
+        int i = 1;
+        boolean negative = false;
+        if (length > 1) {
+            char sign = s.charAt(1);
+            if (sign == '-') {
+                negative = true;
+                i++;
+            } else if (sign == '+') {
+                i++;
+            }
+        }
+        if (i >= length)
+            throw new NumberFormatException("For input string: \"" + s + "\"");
+
+        // The radix is a power of two, so the magnitude is shifted together; the top five bits must be clear
+        // before each digit, or it would not fit 64 bits unsigned
+        long magnitude = 0;
+        for (; i < length; i++) {
+            char ch = s.charAt(i);
+            if (ch >= 128)
+                return decodeBitsSlow(s, min, max);
+            int digit = DIGIT_VALUES[ch];
+            if (digit < 0 || (magnitude & 0xF800000000000000L) != 0)
+                throw new NumberFormatException("For input string: \"" + s + "\"");
+            magnitude = magnitude << 5 | digit;
+        }
+        if (negative) {
+            // A magnitude of 2^63 reads as Long.MIN_VALUE and negates to itself, which is in range
+            long value = -magnitude;
+            if (value <= 0 && value >= min)
+                return value;
+        } else if (magnitude >= 0 && magnitude <= max) {
+            return magnitude;
+        }
+        throw new NumberFormatException("Value out of range: \"" + s + "\"");
+    }
+
+    /** Other Unicode digits are accepted by Long.parseLong(), the rare case is left to it */
+    private static long decodeBitsSlow(CharSequence s, long min, long max) {
+        long value = Long.parseLong(s.subSequence(1, s.length()).toString(), LONG_RADIX);
+        if (value < min || value > max)
+            throw new NumberFormatException("Value out of range: \"" + s + "\"");
+        return value;
+    }
+
+    private static int encodeBits(long bits, char[] buf, int pos) {
+        if (bits < 0) {
+            buf[pos++] = '-';
+            // Long.MIN_VALUE stays negative here, which the unsigned shifts below read as 2^63
+            bits = -bits;
+        }
+        for (int shift = bitsShift(bits); shift >= 0; shift -= 5)
+            buf[pos++] = DIGITS[(int) (bits >>> shift) & 31];
+        return pos;
+    }
+
+    private static void appendBits(long bits, StringBuilder sb) {
+        int pos = sb.length();
+        if (bits < 0) {
+            sb.append('-');
+            pos++;
+            bits = -bits;
+        }
+        int shift = bitsShift(bits);
+        // Grown once and filled in place, cheaper than appending char by char
+        sb.setLength(pos + shift / 5 + 1);
+        for (; shift >= 0; shift -= 5)
+            sb.setCharAt(pos++, DIGITS[(int) (bits >>> shift) & 31]);
+    }
+
+    /** Shift of the most significant radix-32 digit of an unsigned magnitude */
+    private static int bitsShift(long magnitude) {
+        int bits = 64 - Long.numberOfLeadingZeros(magnitude);
+        return bits == 0 ? 0 : (bits - 1) / 5 * 5;
     }
 
     private JSONArray getJSONArray(Object element) {
@@ -183,7 +357,7 @@ public class BasicSerializer implements Serializer {
             return (JSONArray) element;
         else if (element instanceof String) {
             try {
-                return (JSONArray) JSONParserFactory.getParser().parse((String) element);
+                return (JSONArray) JSONParserFactory.parse((String) element);
             } catch (ParseException e) {
                 throw new SerializationException(e);
             }
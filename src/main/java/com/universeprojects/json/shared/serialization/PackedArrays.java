@@ -0,0 +1,242 @@
+package com.universeprojects.json.shared.serialization;
+
+import java.util.List;
+
+/**
+ * The serialized form of int[], long[], float[] and double[]: the whole array as one string, a type prefix
+ * followed by the packed values in URL-safe base64 without padding (which needs no escaping in JSON text).
+ * <ul>
+ * <li>"[I" int[] and "[J" long[]: zigzag varints, so small values take one byte</li>
+ * <li>"[F" float[] and "[D" double[]: the IEEE 754 bits, 4 and 8 bytes little endian; exact like the
+ * "F..."/"D..." form of single values</li>
+ * </ul>
+ *
+ * @see BasicSerializer
+ */
+public final class PackedArrays {
+
+    static final String INTS = "[I";
+    static final String LONGS = "[J";
+    static final String FLOATS = "[F";
+    static final String DOUBLES = "[D";
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    /** Value of each base64 char, -1 for chars outside the alphabet */
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++)
+            VALUES[i] = -1;
+        for (int i = 0; i < ALPHABET.length; i++)
+            VALUES[ALPHABET[i]] = (byte) i;
+    }
+
+    private PackedArrays() {
+    }
+
+    public static String serializeInts(int[] values) {
+        byte[] bytes = new byte[values.length * 5];
+        int length = 0;
+        for (int value : values)
+            length = writeVarint(bytes, length, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        return encode(INTS, bytes, length);
+    }
+
+    public static String serializeLongs(long[] values) {
+        byte[] bytes = new byte[values.length * 10];
+        int length = 0;
+        for (long value : values)
+            length = writeVarint(bytes, length, (value << 1) ^ (value >> 63));
+        return encode(LONGS, bytes, length);
+    }
+
+    public static String serializeFloats(float[] values) {
+        byte[] bytes = new byte[values.length * 4];
+        int length = 0;
+        for (float value : values)
+            length = writeFixed(bytes, length, Float.floatToIntBits(value), 4);
+        return encode(FLOATS, bytes, length);
+    }
+
+    public static String serializeDoubles(double[] values) {
+        byte[] bytes = new byte[values.length * 8];
+        int length = 0;
+        for (double value : values)
+            length = writeFixed(bytes, length, Double.doubleToLongBits(value), 8);
+        return encode(DOUBLES, bytes, length);
+    }
+
+    public static int[] deserializeInts(String s) {
+        byte[] bytes = decode(INTS, s);
+        int[] values = new int[countVarints(bytes)];
+        int pos = 0;
+        for (int i = 0; i < values.length; i++) {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[pos++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    break;
+            }
+            values[i] = (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+        return values;
+    }
+
+    public static long[] deserializeLongs(String s) {
+        byte[] bytes = decode(LONGS, s);
+        long[] values = new long[countVarints(bytes)];
+        int pos = 0;
+        for (int i = 0; i < values.length; i++) {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[pos++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    break;
+            }
+            values[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        return values;
+    }
+
+    public static float[] deserializeFloats(String s) {
+        byte[] bytes = decode(FLOATS, s);
+        if (bytes.length % 4 != 0)
+            throw new SerializationException("Malformed packed float array: " + s);
+        float[] values = new float[bytes.length / 4];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Float.intBitsToFloat((int) readFixed(bytes, i * 4, 4));
+        return values;
+    }
+
+    public static double[] deserializeDoubles(String s) {
+        byte[] bytes = decode(DOUBLES, s);
+        if (bytes.length % 8 != 0)
+            throw new SerializationException("Malformed packed double array: " + s);
+        double[] values = new double[bytes.length / 8];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Double.longBitsToDouble(readFixed(bytes, i * 8, 8));
+        return values;
+    }
+
+    /*
+     * JSON arrays of numbers are accepted as well, e.g. for data that was written by hand.
+     */
+
+    static int[] toInts(List<?> list) {
+        int[] values = new int[list.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = ((Number) list.get(i)).intValue();
+        return values;
+    }
+
+    static long[] toLongs(List<?> list) {
+        long[] values = new long[list.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = ((Number) list.get(i)).longValue();
+        return values;
+    }
+
+    static float[] toFloats(List<?> list) {
+        float[] values = new float[list.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = ((Number) list.get(i)).floatValue();
+        return values;
+    }
+
+    static double[] toDoubles(List<?> list) {
+        double[] values = new double[list.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = ((Number) list.get(i)).doubleValue();
+        return values;
+    }
+
+    private static int writeVarint(byte[] bytes, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int countVarints(byte[] bytes) {
+        int count = 0;
+        for (byte b : bytes) {
+            if (b >= 0)
+                count++;
+        }
+        if (bytes.length > 0 && bytes[bytes.length - 1] < 0)
+            throw new SerializationException("Malformed packed array: truncated value");
+        return count;
+    }
+
+    private static int writeFixed(byte[] bytes, int pos, long bits, int size) {
+        for (int i = 0; i < size; i++) {
+            bytes[pos++] = (byte) bits;
+            bits >>>= 8;
+        }
+        return pos;
+    }
+
+    private static long readFixed(byte[] bytes, int pos, int size) {
+        long bits = 0;
+        for (int i = 0; i < size; i++)
+            bits |= (long) (bytes[pos + i] & 0xFF) << (8 * i);
+        return bits;
+    }
+
+    private static String encode(String prefix, byte[] bytes, int length) {
+        char[] chars = new char[prefix.length() + (length * 4 + 2) / 3];
+        int pos = 0;
+        for (int i = 0; i < prefix.length(); i++)
+            chars[pos++] = prefix.charAt(i);
+        int i = 0;
+        for (; i + 3 <= length; i += 3) {
+            int bits = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+            chars[pos++] = ALPHABET[bits >>> 18];
+            chars[pos++] = ALPHABET[(bits >>> 12) & 0x3F];
+            chars[pos++] = ALPHABET[(bits >>> 6) & 0x3F];
+            chars[pos++] = ALPHABET[bits & 0x3F];
+        }
+        if (length - i == 1) {
+            int bits = (bytes[i] & 0xFF) << 16;
+            chars[pos++] = ALPHABET[bits >>> 18];
+            chars[pos++] = ALPHABET[(bits >>> 12) & 0x3F];
+        } else if (length - i == 2) {
+            int bits = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8;
+            chars[pos++] = ALPHABET[bits >>> 18];
+            chars[pos++] = ALPHABET[(bits >>> 12) & 0x3F];
+            chars[pos++] = ALPHABET[(bits >>> 6) & 0x3F];
+        }
+        return new String(chars, 0, pos);
+    }
+
+    private static byte[] decode(String prefix, String s) {
+        if (!s.startsWith(prefix))
+            throw new SerializationException("Packed array must start with " + prefix + ": " + s);
+        int start = prefix.length();
+        int chars = s.length() - start;
+        if (chars % 4 == 1)
+            throw new SerializationException("Malformed packed array: " + s);
+        byte[] bytes = new byte[chars * 3 / 4];
+        int pos = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = start; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            int value = ch < 128 ? VALUES[ch] : -1;
+            if (value < 0)
+                throw new SerializationException("Malformed packed array: " + s);
+            bits = bits << 6 | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                bytes[pos++] = (byte) (bits >>> bitCount);
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,625 @@
+package com.universeprojects.json.shared.serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.universeprojects.json.shared.JSONArray;
+import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.parser.LazyNumber;
+
+/**
+ * The binary form of SerializedDataList and SerializedDataMap (see SerializedDataFormat.BINARY).
+ * <p>
+ * A document starts with MAGIC and VERSION, followed by one ARRAY (list) or OBJECT (map) value. Every value is a
+ * tag byte and its payload:
+ * <ul>
+ * <li>NULL, FALSE, TRUE: no payload</li>
+ * <li>INT: zigzag varint; decoded as Long, like the text parser does</li>
+ * <li>DOUBLE, FLOAT: a Double/Float of a JSON tree, e.g. one that a Serializer returned, as the raw IEEE 754
+ * bits, little endian; decoded as the Double that parsing its text gives</li>
+ * <li>STRING: varint byte length and UTF-8 bytes</li>
+ * <li>DOUBLE_TEXT, FLOAT_TEXT: a string in the "D..."/"F..." bit format of BasicSerializer, stored as the raw bits;
+ * decoded as the string</li>
+ * <li>DOUBLE_VALUE, FLOAT_VALUE: a Double/Float of the structured data, which the text form holds as its
+ * "D..."/"F..." string; stored as the raw bits</li>
+ * <li>NUMBER_TEXT: any other number, as the string of its JSON text</li>
+ * <li>ARRAY: varint count and the elements</li>
+ * <li>OBJECT: varint count and for each entry a key reference and the value</li>
+ * <li>WRAPPER: a SerializationWrapper, as a class name reference and the value</li>
+ * </ul>
+ * Object keys and wrapper class names are written once per document: a reference is a varint, 0 followed by the
+ * string for a new entry of the table, or the index + 1 of an entry that was already written.
+ * <p>
+ * Decoding gives the same JSONArray/JSONObject that parsing the text form gives, so both forms deserialize
+ * alike. Only DOUBLE_VALUE and FLOAT_VALUE elements of the document itself can be decoded as Double/Float instead
+ * of their "D..."/"F..." strings, which saves deserializeData() from parsing them again.
+ * <p>
+ * Version 1 used DOUBLE and FLOAT for both numbers of a JSON tree and Doubles/Floats of the structured data; it is
+ * read the way it was written, as DOUBLE_VALUE and FLOAT_VALUE. Containers nest at most MAX_DEPTH deep, so that
+ * corrupt or hostile data can't make the decoder overflow the stack.
+ */
+final class SerializedDataCodec {
+
+    static final byte MAGIC = (byte) 0xB5;
+    static final byte VERSION = 2;
+
+    /** Nesting of containers and wrappers that the decoder accepts */
+    static final int MAX_DEPTH = 512;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INT = 3;
+    static final int DOUBLE = 4;
+    static final int FLOAT = 5;
+    static final int STRING = 6;
+    static final int DOUBLE_TEXT = 7;
+    static final int FLOAT_TEXT = 8;
+    static final int NUMBER_TEXT = 9;
+    static final int ARRAY = 10;
+    static final int OBJECT = 11;
+    static final int WRAPPER = 12;
+    static final int DOUBLE_VALUE = 13;
+    static final int FLOAT_VALUE = 14;
+
+    private SerializedDataCodec() {
+    }
+
+    /**
+     * @return true if data is in the binary form. The first byte can't start JSON text in UTF-8.
+     */
+    static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    static byte[] encodeList(Object[] structuredData) {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader();
+        encoder.writeTag(ARRAY);
+        encoder.writeVarint(structuredData.length);
+        for (Object element : structuredData)
+            encoder.writeStructured(element);
+        return encoder.toByteArray();
+    }
+
+    static byte[] encodeMap(Map<?, ?> structuredData) {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader();
+        encoder.writeTag(OBJECT);
+        encoder.writeVarint(structuredData.size());
+        for (Map.Entry<?, ?> entry : structuredData.entrySet()) {
+            encoder.writeKey(SerializerFactory.serialize(entry.getKey()).toString());
+            encoder.writeStructured(entry.getValue());
+        }
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Encode a JSONArray or JSONObject as it is parsed from the text form.
+     */
+    static byte[] encodeJson(Object json) {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader();
+        encoder.writeJson(json);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * @param numbers - Decode doubles and floats that are direct elements as Double/Float instead of strings.
+     */
+    static JSONArray decodeList(byte[] data, boolean numbers) {
+        Object value = new Decoder(data).readDocument(numbers);
+        if (!(value instanceof JSONArray))
+            throw new SerializationException("Binary data doesn't hold a list");
+        return (JSONArray) value;
+    }
+
+    /**
+     * @param numbers - Decode doubles and floats that are direct values as Double/Float instead of strings.
+     */
+    static JSONObject decodeMap(byte[] data, boolean numbers) {
+        Object value = new Decoder(data).readDocument(numbers);
+        if (!(value instanceof JSONObject))
+            throw new SerializationException("Binary data doesn't hold a map");
+        return (JSONObject) value;
+    }
+
+    /**
+     * UTF-8 bytes of the text form. Unlike String.getBytes() this is available in GWT.
+     */
+    static byte[] utf8(String s) {
+        Encoder encoder = new Encoder();
+        encoder.writeUtf8(s);
+        return encoder.toByteArray();
+    }
+
+    static String utf8(byte[] data) {
+        return Decoder.readUtf8(data, 0, data.length);
+    }
+
+    private static final class Encoder {
+        private byte[] buf = new byte[256];
+        private int count;
+
+        private final Map<String, Integer> keys = new HashMap<>();
+        private final Map<String, Integer> classes = new HashMap<>();
+        /** Re-encoded "D..."/"F..." strings, to check that they are in the canonical form */
+        private final char[] bitsText = new char[BasicSerializer.MAX_DOUBLE_CHARS];
+
+        void writeHeader() {
+            writeTag(MAGIC);
+            writeTag(VERSION);
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[count];
+            System.arraycopy(buf, 0, result, 0, count);
+            return result;
+        }
+
+        private void ensure(int length) {
+            if (count + length > buf.length) {
+                byte[] newBuf = new byte[Math.max(buf.length * 2, count + length)];
+                System.arraycopy(buf, 0, newBuf, 0, count);
+                buf = newBuf;
+            }
+        }
+
+        void writeTag(int tag) {
+            ensure(1);
+            buf[count++] = (byte) tag;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[count++] = (byte) value;
+        }
+
+        private void writeFixed(long bits, int bytes) {
+            ensure(bytes);
+            for (int i = 0; i < bytes; i++) {
+                buf[count++] = (byte) bits;
+                bits >>>= 8;
+            }
+        }
+
+        private void writeInt(long value) {
+            writeTag(INT);
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        /**
+         * @param tag - DOUBLE for a number of a JSON tree, DOUBLE_VALUE for a Double of the structured data.
+         */
+        private void writeDouble(int tag, double value) {
+            writeTag(tag);
+            writeFixed(Double.doubleToLongBits(value), 8);
+        }
+
+        /**
+         * @param tag - FLOAT for a number of a JSON tree, FLOAT_VALUE for a Float of the structured data.
+         */
+        private void writeFloat(int tag, float value) {
+            writeTag(tag);
+            writeFixed(Float.floatToIntBits(value), 4);
+        }
+
+        private void writeString(String value) {
+            if (value.length() > 1) {
+                char first = value.charAt(0);
+                try {
+                    if (first == 'D' && value.length() <= BasicSerializer.MAX_DOUBLE_CHARS && isBitsText(value)) {
+                        double bits = BasicSerializer.decodeDouble(value);
+                        if (matchesBitsText(value, BasicSerializer.encodeDouble(bits, bitsText, 0))) {
+                            writeTag(DOUBLE_TEXT);
+                            writeFixed(Double.doubleToLongBits(bits), 8);
+                            return;
+                        }
+                    } else if (first == 'F' && value.length() <= BasicSerializer.MAX_FLOAT_CHARS && isBitsText(value)) {
+                        float bits = BasicSerializer.decodeFloat(value);
+                        if (matchesBitsText(value, BasicSerializer.encodeFloat(bits, bitsText, 0))) {
+                            writeTag(FLOAT_TEXT);
+                            writeFixed(Float.floatToIntBits(bits), 4);
+                            return;
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    // Out of range for the bits, kept as a string
+                }
+            }
+            writeTag(STRING);
+            writeStringPayload(value);
+        }
+
+        private void writeStringPayload(String value) {
+            int lengthAt = count;
+            // The byte length is at most 3 per char; reserve its varint and move the bytes if it is shorter
+            int maxBytes = value.length() * 3;
+            int reserved = varintSize(maxBytes);
+            ensure(reserved);
+            count += reserved;
+            int start = count;
+            writeUtf8(value);
+            int length = count - start;
+            int actual = varintSize(length);
+            if (actual != reserved) {
+                System.arraycopy(buf, start, buf, lengthAt + actual, length);
+                count = lengthAt + actual + length;
+            }
+            int end = count;
+            count = lengthAt;
+            writeVarint(length);
+            count = end;
+        }
+
+        private static int varintSize(long value) {
+            int size = 1;
+            while ((value & ~0x7FL) != 0) {
+                value >>>= 7;
+                size++;
+            }
+            return size;
+        }
+
+        /**
+         * Encode s as UTF-8; unpaired surrogates are kept as 3 byte sequences, so every String round-trips.
+         */
+        void writeUtf8(String s) {
+            int length = s.length();
+            ensure(length * 3);
+            for (int i = 0; i < length; i++) {
+                char ch = s.charAt(i);
+                if (ch < 0x80) {
+                    buf[count++] = (byte) ch;
+                } else if (ch < 0x800) {
+                    buf[count++] = (byte) (0xC0 | (ch >> 6));
+                    buf[count++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(ch, s.charAt(++i));
+                    buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    buf[count++] = (byte) (0xE0 | (ch >> 12));
+                    buf[count++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    buf[count++] = (byte) (0x80 | (ch & 0x3F));
+                }
+            }
+        }
+
+        void writeKey(String key) {
+            writeReference(keys, key);
+        }
+
+        private void writeReference(Map<String, Integer> table, String value) {
+            Integer index = table.get(value);
+            if (index != null) {
+                writeVarint(index + 1);
+                return;
+            }
+            table.put(value, table.size());
+            writeVarint(0);
+            writeStringPayload(value);
+        }
+
+        /**
+         * Write an element of the structured data, i.e. what SerializerFactory.serialize() would be called on.
+         */
+        @SuppressWarnings("rawtypes")
+        void writeStructured(Object element) {
+            if (element instanceof Double) {
+                writeDouble(DOUBLE_VALUE, (Double) element);
+            } else if (element instanceof Float) {
+                writeFloat(FLOAT_VALUE, (Float) element);
+            } else if (element instanceof Enum) {
+                writeTag(STRING);
+                writeStringPayload(((Enum) element).name());
+            } else if (element instanceof SerializationWrapper && ((SerializationWrapper) element).getValue() != null) {
+                Object value = ((SerializationWrapper) element).getValue();
+                writeTag(WRAPPER);
+                writeReference(classes, SerializerFactory.getSimpleName(value.getClass()));
+                writeStructured(value);
+            } else if (element instanceof SerializedDataList) {
+                SerializedDataList list = (SerializedDataList) element;
+                if (list.structuredData != null) {
+                    writeTag(ARRAY);
+                    writeVarint(list.structuredData.length);
+                    for (Object item : list.structuredData)
+                        writeStructured(item);
+                } else {
+                    writeJson(list.getParsedJSONArray());
+                }
+            } else if (element instanceof SerializedDataMap) {
+                SerializedDataMap<?, ?> map = (SerializedDataMap<?, ?>) element;
+                if (map.structuredData != null && map.serializedJsonObject == null) {
+                    writeTag(OBJECT);
+                    writeVarint(map.structuredData.size());
+                    for (Map.Entry<?, ?> entry : map.structuredData.entrySet()) {
+                        writeKey(SerializerFactory.serialize(entry.getKey()).toString());
+                        writeStructured(entry.getValue());
+                    }
+                } else {
+                    writeJson(map.getParsedJSONObject());
+                }
+            } else if (element == null || element instanceof String || element instanceof Boolean ||
+                element instanceof Integer || element instanceof Long) {
+                writeJson(element);
+            } else {
+                writeJson(SerializerFactory.serialize(element));
+            }
+        }
+
+        /**
+         * Write a value of the JSON tree, as the parser would produce it.
+         */
+        void writeJson(Object value) {
+            if (value == null) {
+                writeTag(NULL);
+            } else if (value instanceof String) {
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeTag((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                writeInt(((Number) value).longValue());
+            } else if (value instanceof Double) {
+                double d = (Double) value;
+                // JSON text has no NaN and infinity; JSONValue writes null for them
+                if (Double.isNaN(d) || Double.isInfinite(d))
+                    writeTag(NULL);
+                else
+                    writeDouble(DOUBLE, d);
+            } else if (value instanceof Float) {
+                float f = (Float) value;
+                if (Float.isNaN(f) || Float.isInfinite(f))
+                    writeTag(NULL);
+                else
+                    writeFloat(FLOAT, f);
+            } else if (value instanceof Number) {
+                writeTag(NUMBER_TEXT);
+                writeStringPayload(value.toString());
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeTag(OBJECT);
+                writeVarint(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeKey(String.valueOf(entry.getKey()));
+                    writeJson(entry.getValue());
+                }
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                writeTag(ARRAY);
+                writeVarint(list.size());
+                for (Object item : list)
+                    writeJson(item);
+            } else if (value instanceof SerializedDataList || value instanceof SerializedDataMap) {
+                writeStructured(value);
+            } else {
+                writeString(value.toString());
+            }
+        }
+
+        /** Whether the chars after the prefix are an optional minus and lower case radix-32 digits */
+        private static boolean isBitsText(String s) {
+            int start = s.charAt(1) == '-' ? 2 : 1;
+            if (start == s.length())
+                return false;
+            for (int i = start; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                if (!(ch >= '0' && ch <= '9' || ch >= 'a' && ch <= 'v'))
+                    return false;
+            }
+            return true;
+        }
+
+        /** Whether the string equals the first length chars of bitsText */
+        private boolean matchesBitsText(String s, int length) {
+            if (s.length() != length)
+                return false;
+            for (int i = 0; i < length; i++) {
+                if (s.charAt(i) != bitsText[i])
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Decoder {
+        private final byte[] data;
+        private int pos;
+        /** Version 1 data, whose DOUBLE and FLOAT tags are read as DOUBLE_VALUE and FLOAT_VALUE */
+        private boolean version1;
+        /** Containers and wrappers that are being read */
+        private int depth;
+
+        private final List<String> keys = new ArrayList<>();
+        private final List<String> classes = new ArrayList<>();
+
+        Decoder(byte[] data) {
+            this.data = data;
+        }
+
+        Object readDocument(boolean numbers) {
+            if (data.length < 2 || data[0] != MAGIC)
+                throw new SerializationException("Not binary serialized data");
+            if (data[1] != VERSION && data[1] != 1)
+                throw new SerializationException("Unsupported binary serialized data version " + data[1]);
+            version1 = data[1] == 1;
+            pos = 2;
+            Object value;
+            try {
+                value = read(false, numbers);
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new SerializationException("Truncated binary serialized data", e);
+            }
+            if (pos != data.length)
+                throw new SerializationException("Unexpected data after position " + pos);
+            return value;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+            throw new SerializationException("Malformed varint at position " + pos);
+        }
+
+        private int readLength() {
+            long length = readVarint();
+            if (length < 0 || length > Integer.MAX_VALUE)
+                throw new SerializationException("Malformed length at position " + pos);
+            return (int) length;
+        }
+
+        /**
+         * @return The number of elements or entries of a container; each takes at least one byte.
+         */
+        private int readSize() {
+            int size = readLength();
+            if (size > data.length - pos)
+                throw new SerializationException("Truncated binary serialized data");
+            return size;
+        }
+
+        private long readFixed(int bytes) {
+            long bits = 0;
+            for (int i = 0; i < bytes; i++)
+                bits |= (long) (data[pos++] & 0xFF) << (8 * i);
+            return bits;
+        }
+
+        private String readString() {
+            int length = readLength();
+            if (length > data.length - pos)
+                throw new SerializationException("Truncated binary serialized data");
+            String s = readUtf8(data, pos, pos + length);
+            pos += length;
+            return s;
+        }
+
+        private String readReference(List<String> table) {
+            int ref = readLength();
+            if (ref == 0) {
+                String value = readString();
+                table.add(value);
+                return value;
+            }
+            if (ref > table.size())
+                throw new SerializationException("Unknown reference " + ref + " at position " + pos);
+            return table.get(ref - 1);
+        }
+
+        /**
+         * @param numbers - Decode DOUBLE_VALUE and FLOAT_VALUE as numbers instead of strings.
+         * @param childNumbers - The same for the elements of an ARRAY or the values of an OBJECT.
+         */
+        private Object read(boolean numbers, boolean childNumbers) {
+            int tag = data[pos++];
+            if (version1 && (tag == DOUBLE || tag == FLOAT))
+                tag = tag == DOUBLE ? DOUBLE_VALUE : FLOAT_VALUE;
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case INT: {
+                    long zigzag = readVarint();
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+                case DOUBLE:
+                    return Double.longBitsToDouble(readFixed(8));
+                case FLOAT:
+                    return Double.valueOf(Float.toString(Float.intBitsToFloat((int) readFixed(4))));
+                case DOUBLE_VALUE:
+                case DOUBLE_TEXT: {
+                    double value = Double.longBitsToDouble(readFixed(8));
+                    return tag == DOUBLE_VALUE && numbers ? (Object) value : BasicSerializer.serializeDoubleLongBits(value);
+                }
+                case FLOAT_VALUE:
+                case FLOAT_TEXT: {
+                    float value = Float.intBitsToFloat((int) readFixed(4));
+                    return tag == FLOAT_VALUE && numbers ? (Object) value : BasicSerializer.serializeFloatTeIntBits(value);
+                }
+                case STRING:
+                    return readString();
+                case NUMBER_TEXT:
+                    return new LazyNumber(readString());
+                case ARRAY: {
+                    int size = readSize();
+                    enter();
+                    JSONArray array = new JSONArray();
+                    array.ensureCapacity(size);
+                    for (int i = 0; i < size; i++)
+                        array.add(read(childNumbers, false));
+                    depth--;
+                    return array;
+                }
+                case OBJECT: {
+                    int size = readSize();
+                    enter();
+                    JSONObject object = new JSONObject();
+                    for (int i = 0; i < size; i++) {
+                        String key = readReference(keys);
+                        object.put(key, read(childNumbers, false));
+                    }
+                    depth--;
+                    return object;
+                }
+                case WRAPPER: {
+                    String className = readReference(classes);
+                    enter();
+                    JSONArray wrapper = new JSONArray();
+                    wrapper.add(read(false, false));
+                    wrapper.add(className);
+                    depth--;
+                    return wrapper;
+                }
+                default:
+                    throw new SerializationException("Unknown tag " + tag + " at position " + (pos - 1));
+            }
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH)
+                throw new SerializationException("Binary serialized data nested deeper than " + MAX_DEPTH + " at position " + pos);
+        }
+
+        static String readUtf8(byte[] data, int start, int end) {
+            char[] chars = new char[end - start];
+            int length = 0;
+            int i = start;
+            while (i < end) {
+                int b = data[i++];
+                if (b >= 0) {
+                    chars[length++] = (char) b;
+                    continue;
+                }
+                int continuation = (b & 0xE0) == 0xC0 ? 1 : (b & 0xF0) == 0xE0 ? 2 : 3;
+                if (i + continuation > end)
+                    throw new SerializationException("Truncated UTF-8 sequence at position " + (i - 1));
+                if ((b & 0xE0) == 0xC0) {
+                    chars[length++] = (char) (((b & 0x1F) << 6) | (data[i++] & 0x3F));
+                } else if ((b & 0xF0) == 0xE0) {
+                    chars[length++] = (char) (((b & 0x0F) << 12) | ((data[i++] & 0x3F) << 6) | (data[i++] & 0x3F));
+                } else {
+                    int codePoint = ((b & 0x07) << 18) | ((data[i++] & 0x3F) << 12) | ((data[i++] & 0x3F) << 6) | (data[i++] & 0x3F);
+                    chars[length++] = (char) (0xD800 + ((codePoint - 0x10000) >>> 10));
+                    chars[length++] = (char) (0xDC00 + (codePoint & 0x3FF));
+                }
+            }
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.universeprojects.json.shared.serialization;
+
+/**
+ * The form that SerializedDataList.getSerializedBytes() and SerializedDataMap.getSerializedBytes() produce.
+ * Both forms are recognized when the data is read back, whatever the format of the reading instance.
+ */
+public enum SerializedDataFormat {
+    /**
+     * JSON text in UTF-8, the same as getSerializedData().
+     */
+    TEXT,
+
+    /**
+     * Tagged binary values with varint lengths, raw IEEE 754 doubles and floats, and object keys and wrapper class
+     * names written once per document. Decoding needs no text parsing.
+     */
+    BINARY
+}
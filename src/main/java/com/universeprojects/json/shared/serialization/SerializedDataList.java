@@ -11,6 +11,8 @@ public class SerializedDataList implements JSONAware {
     protected String serializedData = null;
     protected Object[] structuredData = null;
     protected JSONArray serializedJsonArray;
+    protected byte[] serializedBytes;
+    protected SerializedDataFormat format = SerializedDataFormat.TEXT;
 
     public static SerializedDataList EMPTY_LIST = new SerializedDataList("[]", new Object[0], new JSONArray());
 
@@ -20,6 +22,29 @@ public class SerializedDataList implements JSONAware {
         this.serializedJsonArray = jsonArray;
     }
 
+    /**
+     * @param serializedBytes - The data in either form; the format of the list is set to match it.
+     */
+    public SerializedDataList(byte[] serializedBytes) {
+        if (SerializedDataCodec.isBinary(serializedBytes)) {
+            this.serializedBytes = serializedBytes;
+            this.format = SerializedDataFormat.BINARY;
+        } else {
+            this.serializedData = SerializedDataCodec.utf8(serializedBytes);
+        }
+    }
+
+    public SerializedDataFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Select the form that getSerializedBytes() produces.
+     */
+    public void setFormat(SerializedDataFormat format) {
+        this.format = format;
+    }
+
     public Object[] getDeserializedData() {
         return structuredData;
     }
@@ -40,27 +65,43 @@ public class SerializedDataList implements JSONAware {
     }
 
     protected void deserialize(Class<?>[] decodingClassArray) {
-        if (serializedData == null && serializedJsonArray == null) return;
-        if (serializedJsonArray == null) {
-            try {
-                serializedJsonArray = (JSONArray) JSONParserFactory.getParser().parse(serializedData);
-            } catch (ParseException e) {
-                throw new SerializationException("ParseException while parsing: " + serializedData, e);
-            }
-        }
-        structuredData = deserializeJSONArray(serializedJsonArray, decodingClassArray);
+        if (serializedData == null && serializedJsonArray == null && serializedBytes == null) return;
+        structuredData = deserializeJSONArray(getDecodingJSONArray(), decodingClassArray);
     }
 
     protected void deserializeConsistent(Class<?> decodingClass) {
-        if (serializedData == null && serializedJsonArray == null) return;
+        if (serializedData == null && serializedJsonArray == null && serializedBytes == null) return;
+        structuredData = deserializeConsistentJSONArray(getDecodingJSONArray(), decodingClass);
+    }
+
+    /**
+     * The array to deserialize the elements from. Binary data is decoded with doubles and floats as numbers,
+     * which aren't the serialized form, so that array is not kept.
+     */
+    private JSONArray getDecodingJSONArray() {
+        if (serializedJsonArray == null && serializedData == null)
+            return SerializedDataCodec.decodeList(serializedBytes, true);
+        return getParsedJSONArray();
+    }
+
+    /**
+     * @return The serialized form as a JSONArray, parsed or decoded if necessary; null if there is no data.
+     */
+    JSONArray getParsedJSONArray() {
         if (serializedJsonArray == null) {
-            try {
-                serializedJsonArray = (JSONArray) JSONParserFactory.getParser().parse(serializedData);
-            } catch (ParseException e) {
-                throw new SerializationException("ParseException while parsing: " + serializedData, e);
+            if (serializedData != null) {
+                try {
+                    serializedJsonArray = (JSONArray) JSONParserFactory.parse(serializedData);
+                } catch (ParseException e) {
+                    throw new SerializationException("ParseException while parsing: " + serializedData, e);
+                }
+            } else if (serializedBytes != null) {
+                serializedJsonArray = SerializedDataCodec.decodeList(serializedBytes, false);
+            } else {
+                serialize();
             }
         }
-        structuredData = deserializeConsistentJSONArray(serializedJsonArray, decodingClass);
+        return serializedJsonArray;
     }
 
     public static Object[] deserializeJSONArray(JSONArray jsonArray, Class<?>[] classes) {
@@ -105,20 +146,35 @@ public class SerializedDataList implements JSONAware {
         return structuredData;
     }
 
-    @SuppressWarnings("ConstantConditions")
+    /**
+     * @return The data as JSON text, whatever the format.
+     */
     public String getSerializedData() {
         if (serializedData != null) return serializedData;
-        if (serializedJsonArray != null) {
-            serializedData = serializedJsonArray.toJSONString();
-            return serializedData;
+        JSONArray jsonArray = getParsedJSONArray();
+        if (jsonArray == null) return null;
+        serializedData = jsonArray.toJSONString();
+        return serializedData;
+    }
+
+    /**
+     * @return The data in the form selected by setFormat(), TEXT by default. The result is shared; don't modify it.
+     */
+    public byte[] getSerializedBytes() {
+        if (format == SerializedDataFormat.TEXT) {
+            String text = getSerializedData();
+            return text == null ? null : SerializedDataCodec.utf8(text);
         }
-        if (structuredData == null) return null;
-        if (serializedData == null) {
-            if (serializedJsonArray == null)
-                serialize();
-            serializedData = serializedJsonArray.toJSONString();
+        if (serializedBytes == null) {
+            if (structuredData != null) {
+                serializedBytes = SerializedDataCodec.encodeList(structuredData);
+            } else {
+                JSONArray jsonArray = getParsedJSONArray();
+                if (jsonArray == null) return null;
+                serializedBytes = SerializedDataCodec.encodeJson(jsonArray);
+            }
         }
-        return serializedData;
+        return serializedBytes;
     }
 
     public boolean isEmpty() {
@@ -128,6 +184,9 @@ public class SerializedDataList implements JSONAware {
         if (serializedJsonArray != null) {
             return serializedJsonArray.isEmpty();
         }
+        if (serializedData == null && serializedBytes != null) {
+            return getParsedJSONArray().isEmpty();
+        }
         return serializedData == null || serializedData.equals("[]");
     }
 
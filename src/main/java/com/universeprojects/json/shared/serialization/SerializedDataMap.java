@@ -1,9 +1,12 @@
 package com.universeprojects.json.shared.serialization;
 
+import com.universeprojects.json.shared.GwtIncompatible;
 import com.universeprojects.json.shared.JSONAware;
 import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.LazyJSONObject;
 import com.universeprojects.json.shared.parser.JSONParserFactory;
 import com.universeprojects.json.shared.parser.ParseException;
+import com.universeprojects.json.shared.patch.JSONMergePatch;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -12,6 +15,8 @@ import java.util.Map.Entry;
 public class SerializedDataMap<K, V> implements JSONAware {
     protected String serializedData = null;
     protected Map<K, V> structuredData = null;
+    protected byte[] serializedBytes;
+    protected SerializedDataFormat format = SerializedDataFormat.TEXT;
 
     public SerializedDataMap(String serializedData, Map<K, V> structuredData, JSONObject jsonObject) {
         this.serializedData = serializedData;
@@ -19,6 +24,29 @@ public class SerializedDataMap<K, V> implements JSONAware {
         this.serializedJsonObject = jsonObject;
     }
 
+    /**
+     * @param serializedBytes - The data in either form; the format of the map is set to match it.
+     */
+    public SerializedDataMap(byte[] serializedBytes) {
+        if (SerializedDataCodec.isBinary(serializedBytes)) {
+            this.serializedBytes = serializedBytes;
+            this.format = SerializedDataFormat.BINARY;
+        } else {
+            this.serializedData = SerializedDataCodec.utf8(serializedBytes);
+        }
+    }
+
+    public SerializedDataFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Select the form that getSerializedBytes() produces.
+     */
+    public void setFormat(SerializedDataFormat format) {
+        this.format = format;
+    }
+
     public Map<K, V> getDeserializedData() {
         return structuredData;
     }
@@ -28,7 +56,7 @@ public class SerializedDataMap<K, V> implements JSONAware {
     }
 
     public boolean isEmpty() {
-        return structuredData == null && serializedData == null;
+        return structuredData == null && serializedData == null && serializedJsonObject == null && serializedBytes == null;
     }
 
     @Override
@@ -49,14 +77,82 @@ public class SerializedDataMap<K, V> implements JSONAware {
 
     @SuppressWarnings("unchecked")
     protected void deserialize(Class<?> decodingKeyClass, Class<?> decodingValueClass) {
-        if (serializedData == null && serializedJsonObject == null) return;
-        if (serializedJsonObject == null)
+        if (serializedData == null && serializedJsonObject == null && serializedBytes == null) return;
+        JSONObject jsonObject;
+        if (serializedJsonObject == null && serializedData == null)
+            // Doubles and floats decoded as numbers aren't the serialized form, so this object is not kept
+            jsonObject = SerializedDataCodec.decodeMap(serializedBytes, true);
+        else
+            jsonObject = getParsedJSONObject();
+        structuredData = (Map<K, V>) deserializeJSONObject(jsonObject, decodingKeyClass, decodingValueClass);
+    }
+
+    /**
+     * @return The serialized form as a JSONObject, parsed or decoded if necessary; null if there is no data.
+     * The result is shared; don't modify it, use getJSONObject() for that.
+     */
+    public JSONObject getParsedJSONObject() {
+        if (serializedJsonObject == null) {
+            if (serializedData != null) {
+                try {
+                    serializedJsonObject = (JSONObject) JSONParserFactory.parse(serializedData);
+                } catch (ParseException e) {
+                    throw new SerializationException("ParseException while parsing: " + serializedData, e);
+                }
+            } else if (serializedBytes != null) {
+                serializedJsonObject = SerializedDataCodec.decodeMap(serializedBytes, false);
+            } else if (structuredData != null) {
+                serializedJsonObject = serializeMap(structuredData);
+            }
+        }
+        return serializedJsonObject;
+    }
+
+    /**
+     * The data as a JSONObject, without deserializing it into keys and values.
+     * If only the serialized text is present, it is parsed lazily (see LazyJSONObject): values are parsed when
+     * they are read, and getSerializedData() returns the original text as long as the object is not modified.
+     * Changes made to the returned object are included in the next call to getSerializedData().
+     */
+    @GwtIncompatible
+    public JSONObject getJSONObject() {
+        if (serializedJsonObject == null) {
+            if (serializedData != null) {
+                try {
+                    serializedJsonObject = new LazyJSONObject(serializedData);
+                } catch (ParseException e) {
+                    throw new SerializationException("ParseException while parsing: " + serializedData, e);
+                }
+            } else if (getParsedJSONObject() == null) {
+                return null;
+            }
+        }
+        // The text is produced from the object from now on, so that changes to it are kept
+        serializedData = null;
+        serializedBytes = null;
+        return serializedJsonObject;
+    }
+
+    /**
+     * Apply a JSON Merge Patch (RFC 7386), with keys and values in their serialized form. If the serialized text is
+     * present, the text is patched: members that the patch doesn't mention are copied as they are, without being
+     * parsed or deserialized. Otherwise the patch is applied to the JSONObject in place.
+     * Deserialized data is dropped and deserialized again from the patched form when it is next requested.
+     */
+    @GwtIncompatible
+    public void applyMergePatch(Map<?, ?> patch) {
+        if (serializedData != null) {
             try {
-                serializedJsonObject = (JSONObject) JSONParserFactory.getParser().parse(serializedData);
+                serializedData = JSONMergePatch.applyToText(serializedData, patch);
             } catch (ParseException e) {
                 throw new SerializationException("ParseException while parsing: " + serializedData, e);
             }
-        structuredData = (Map<K, V>) deserializeJSONObject(serializedJsonObject, decodingKeyClass, decodingValueClass);
+            serializedJsonObject = null;
+        } else {
+            serializedJsonObject = (JSONObject) JSONMergePatch.apply(getParsedJSONObject(), patch);
+        }
+        serializedBytes = null;
+        structuredData = null;
     }
 
     @SuppressWarnings({"rawtypes"})
@@ -92,18 +188,37 @@ public class SerializedDataMap<K, V> implements JSONAware {
         return structuredData;
     }
 
+    /**
+     * @return The data as JSON text, whatever the format.
+     */
     public String getSerializedData() {
         if (serializedData != null) return serializedData;
-        if (serializedJsonObject != null) {
-            serializedData = serializedJsonObject.toJSONString();
-            return serializedData;
-        }
-        if (structuredData == null) return null;
-        serialize();
-        serializedData = serializedJsonObject.toJSONString();
+        JSONObject jsonObject = getParsedJSONObject();
+        if (jsonObject == null) return null;
+        serializedData = jsonObject.toJSONString();
         return serializedData;
     }
 
+    /**
+     * @return The data in the form selected by setFormat(), TEXT by default. The result is shared; don't modify it.
+     */
+    public byte[] getSerializedBytes() {
+        if (format == SerializedDataFormat.TEXT) {
+            String text = getSerializedData();
+            return text == null ? null : SerializedDataCodec.utf8(text);
+        }
+        if (serializedBytes == null) {
+            if (serializedJsonObject == null && structuredData != null) {
+                serializedBytes = SerializedDataCodec.encodeMap(structuredData);
+            } else {
+                JSONObject jsonObject = getParsedJSONObject();
+                if (jsonObject == null) return null;
+                serializedBytes = SerializedDataCodec.encodeJson(jsonObject);
+            }
+        }
+        return serializedBytes;
+    }
+
     @Override
     public String toJSONString() {
         return getSerializedData();
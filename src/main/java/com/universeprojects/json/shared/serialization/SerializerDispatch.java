@@ -0,0 +1,105 @@
+package com.universeprojects.json.shared.serialization;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the serializer for a class: the one registered for the class itself, else the one of the closest
+ * superclass, else the one of an implemented interface. Each class is resolved once; the result is kept in a
+ * copy-on-write map so lookups need no locking.
+ * <p>
+ * This is the lookup of GWT clients, which have few classes and no ClassValue. On the server it is replaced by
+ * ServerSerializerDispatch, which doesn't copy the map for every new class or keep classes from being unloaded.
+ * <p>
+ * A dispatch is an immutable snapshot of the registered serializers. SerializerFactory replaces it on every
+ * registration, which also drops all cached resolutions.
+ */
+class SerializerDispatch {
+
+    private static final Class<?>[] NO_CLASSES = new Class<?>[0];
+
+    /** Cached result for classes without a serializer */
+    static final Object NONE = new Object();
+
+    final Map<Class<?>, Serializer> serializerByType;
+
+    private volatile Map<Class<?>, Object> resolved = Collections.emptyMap();
+
+    SerializerDispatch(Map<Class<?>, Serializer> serializerByType) {
+        this.serializerByType = serializerByType;
+    }
+
+    /**
+     * @return A dispatch of the same kind for a new set of serializers.
+     */
+    SerializerDispatch with(Map<Class<?>, Serializer> serializerByType) {
+        return new SerializerDispatch(serializerByType);
+    }
+
+    /**
+     * @return The serializer for the class, or null if there is none.
+     */
+    Serializer get(Class<?> cl) {
+        Object serializer = resolved.get(cl);
+        if (serializer == null) {
+            serializer = resolve(cl);
+            if (serializer == null)
+                serializer = NONE;
+            synchronized (this) {
+                Map<Class<?>, Object> copy = new HashMap<>(resolved);
+                copy.put(cl, serializer);
+                resolved = copy;
+            }
+        }
+        return serializer == NONE ? null : (Serializer) serializer;
+    }
+
+    Serializer resolve(Class<?> cl) {
+        for (Class<?> c = cl; c != null; c = c.getSuperclass()) {
+            Serializer serializer = serializerByType.get(c);
+            if (serializer != null)
+                return serializer;
+        }
+        for (Class<?> c = cl; c != null; c = c.getSuperclass()) {
+            Serializer serializer = resolveInterfaces(getInterfaces(c));
+            if (serializer != null)
+                return serializer;
+        }
+        return null;
+    }
+
+    private Serializer resolveInterfaces(Class<?>[] interfaces) {
+        for (Class<?> iface : interfaces) {
+            Serializer serializer = serializerByType.get(iface);
+            if (serializer != null)
+                return serializer;
+        }
+        for (Class<?> iface : interfaces) {
+            Serializer serializer = resolveInterfaces(getInterfaces(iface));
+            if (serializer != null)
+                return serializer;
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether a deserialized object can be returned for the class: it is an instance of the class, or the
+     * class has a serializer of its own, which is trusted with types such as primitives. Class.isInstance() is not
+     * supported in GWT, so the superclasses of the object are compared with the class here.
+     */
+    boolean isInstance(Class<?> cl, Object o) {
+        for (Class<?> c = o.getClass(); c != null; c = c.getSuperclass()) {
+            if (c == cl)
+                return true;
+        }
+        return serializerByType.containsKey(cl);
+    }
+
+    /**
+     * Class.getInterfaces() is not supported in GWT, so only superclasses are considered here.
+     */
+    Class<?>[] getInterfaces(Class<?> cl) {
+        return NO_CLASSES;
+    }
+}
@@ -1,20 +1,31 @@
 package com.universeprojects.json.shared.serialization;
 
+import com.universeprojects.json.shared.GwtIncompatible;
 import com.universeprojects.json.shared.JSONArray;
 import com.universeprojects.json.shared.JSONObject;
+import com.universeprojects.json.shared.instrument.JSONInstrumentation;
+import com.universeprojects.json.shared.instrument.JSONListener;
 
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.ServiceLoader;
 
 /**
  * The purpose of this class is to locate a serializer for a given data type.
+ * <p>
+ * A class without a serializer of its own uses the one of its closest registered superclass (and, on the server,
+ * of an implemented interface). The registrations are immutable snapshots that are replaced as a whole, so lookups
+ * don't lock and may run concurrently with registerSerializer(). When deserializing, a serializer found through a
+ * supertype has to return an instance of the requested class, or deserialize() throws SerializationException.
+ * <p>
+ * While JSONInstrumentation is on, the time of each Serializer call is reported with the class of the serializer.
  */
 public class SerializerFactory {
 
-    private static Map<Class<?>, Serializer> serializerByType = new LinkedHashMap<>();
-    private static Map<String, Class<?>> classesByName = new LinkedHashMap<>();
-    private static Map<String, Class<?>> classesBySimpleName = new LinkedHashMap<>();
+    private static volatile SerializerDispatch dispatch = new SerializerDispatch(Collections.<Class<?>, Serializer>emptyMap());
+    private static volatile Map<String, Class<?>> classesByName = Collections.emptyMap();
+    private static volatile Map<String, Class<?>> classesBySimpleName = Collections.emptyMap();
 
     private static BasicSerializer basicSerializer = new BasicSerializer();
 
@@ -33,10 +44,38 @@ public class SerializerFactory {
         }
     }
 
-    public static void registerSerializer(Class<?> cl, Serializer ser) {
-        serializerByType.put(cl, ser);
-        classesByName.put(cl.getName(), cl);
-        classesBySimpleName.put(cl.getSimpleName(), cl);
+    public static synchronized void registerSerializer(Class<?> cl, Serializer ser) {
+        Map<Class<?>, Serializer> types = new LinkedHashMap<>(dispatch.serializerByType);
+        types.put(cl, ser);
+        Map<String, Class<?>> names = new LinkedHashMap<>(classesByName);
+        names.put(cl.getName(), cl);
+        Map<String, Class<?>> simpleNames = new LinkedHashMap<>(classesBySimpleName);
+        simpleNames.put(cl.getSimpleName(), cl);
+        classesByName = names;
+        classesBySimpleName = simpleNames;
+        dispatch = dispatch.with(types);
+    }
+
+    /**
+     * Use the server side lookup, which caches the serializer of each class in a ClassValue and also
+     * considers implemented interfaces. JSONParserFactory.initServerParser() calls it, as does the first use of a
+     * server parser; call it at startup if the server serializes before it parses anything.
+     */
+    @GwtIncompatible
+    public static synchronized void initServerDispatch() {
+        if (!(dispatch instanceof ServerSerializerDispatch))
+            dispatch = new ServerSerializerDispatch(dispatch.serializerByType);
+    }
+
+    /**
+     * Register every AutoSerializer that is listed in META-INF/services, which includes all serializers generated
+     * for classes annotated with AutoSerialize. Call once at server startup.
+     */
+    @GwtIncompatible
+    public static void initAutoSerializers() {
+        for (AutoSerializer serializer : ServiceLoader.load(AutoSerializer.class)) {
+            serializer.initializeSerializer();
+        }
     }
 
     @SuppressWarnings("unused")
@@ -50,7 +89,7 @@ public class SerializerFactory {
 
     @SuppressWarnings("unused")
     public static boolean isCompatible(Class<?> testClass) {
-        return testClass.isEnum() || serializerByType.containsKey(testClass);
+        return testClass.isEnum() || dispatch.get(testClass) != null;
     }
 
     public static Class<?> getCompatibleClassForSimpleName(String name) {
@@ -94,6 +133,13 @@ public class SerializerFactory {
         return createSerializedDataList(serializedData, null);
     }
 
+    /**
+     * @param serializedData - Text or binary serialized data, see SerializedDataFormat.
+     */
+    public static SerializedDataList createSerializedDataList(byte[] serializedData) {
+        return new SerializedDataList(serializedData);
+    }
+
     public static Object[] deserializeList(String serializedData, Class<?>[] decodingClassArray) {
         SerializedDataList list = createSerializedDataList(serializedData);
         return list.deserializeData(decodingClassArray);
@@ -113,6 +159,13 @@ public class SerializerFactory {
         return createSerializedDataMap(serializedData, null);
     }
 
+    /**
+     * @param serializedData - Text or binary serialized data, see SerializedDataFormat.
+     */
+    public static <K, V> SerializedDataMap<K, V> createSerializedDataMap(byte[] serializedData) {
+        return new SerializedDataMap<>(serializedData);
+    }
+
     @SuppressWarnings("unused")
     public static <K, V> Map<K, V> deserializeMap(String serializedData, Class<K> decodingKeyClass,
                                                   Class<V> decodingValueClass) {
@@ -141,12 +194,17 @@ public class SerializerFactory {
         else if (o instanceof JSONObject)
             return o;
         else {
-            Serializer ser = serializerByType.get(o.getClass());
+            Serializer ser = dispatch.get(o.getClass());
             if (ser == null) {
                 throw new SerializationException("Couldn't find Serializer to serialize " + o + " with class " + o.getClass());
             }
+            JSONListener listener = JSONInstrumentation.listener();
+            long start = listener == null ? 0 : JSONInstrumentation.now();
             try {
-                return ser.serialize(o);
+                Object serialized = ser.serialize(o);
+                if (listener != null)
+                    listener.serialized(ser.getClass(), JSONInstrumentation.now() - start);
+                return serialized;
             } catch (SerializationException ex) {
                 throw ex;
             } catch (Exception ex) {
@@ -164,12 +222,22 @@ public class SerializerFactory {
         else if (cl.isEnum())
             return basicSerializer.deserialize(o, cl);
         else {
-            Serializer ser = serializerByType.get(cl);
+            Serializer ser = dispatch.get(cl);
             if (ser == null) {
                 throw new SerializationException("Couldn't find Serializer to deserialize " + o + " with class " + cl);
             }
+            JSONListener listener = JSONInstrumentation.listener();
+            long start = listener == null ? 0 : JSONInstrumentation.now();
             try {
-                return ser.deserialize(o, cl);
+                T deserialized = ser.deserialize(o, cl);
+                if (listener != null)
+                    listener.deserialized(ser.getClass(), JSONInstrumentation.now() - start);
+                // The serializer of a superclass may build an instance of the superclass rather than of cl
+                if (deserialized != null && !dispatch.isInstance(cl, deserialized)) {
+                    throw new SerializationException("Serializer " + ser.getClass().getName() + " of a supertype of " + cl
+                        + " deserialized " + o + " to " + deserialized.getClass() + "; register a Serializer for " + cl);
+                }
+                return deserialized;
             } catch (SerializationException ex) {
                 throw ex;
             } catch (Exception ex) {
@@ -0,0 +1,48 @@
+package com.universeprojects.json.shared.serialization;
+
+import java.util.Map;
+
+import com.universeprojects.json.shared.GwtIncompatible;
+
+/**
+ * Server side dispatch: the resolution of each class is cached in a ClassValue, and implemented interfaces
+ * are taken into account. Installed by JSONParserFactory.initServerParser().
+ *
+ * @see SerializerFactory#initServerDispatch()
+ */
+@GwtIncompatible
+class ServerSerializerDispatch extends SerializerDispatch {
+
+    private final ClassValue<Object> resolved = new ClassValue<Object>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            Serializer serializer = resolve(type);
+            return serializer == null ? NONE : serializer;
+        }
+    };
+
+    ServerSerializerDispatch(Map<Class<?>, Serializer> serializerByType) {
+        super(serializerByType);
+    }
+
+    @Override
+    SerializerDispatch with(Map<Class<?>, Serializer> serializerByType) {
+        return new ServerSerializerDispatch(serializerByType);
+    }
+
+    @Override
+    Serializer get(Class<?> cl) {
+        Object serializer = resolved.get(cl);
+        return serializer == NONE ? null : (Serializer) serializer;
+    }
+
+    @Override
+    boolean isInstance(Class<?> cl, Object o) {
+        return cl.isInstance(o) || serializerByType.containsKey(cl);
+    }
+
+    @Override
+    Class<?>[] getInterfaces(Class<?> cl) {
+        return cl.getInterfaces();
+    }
+}
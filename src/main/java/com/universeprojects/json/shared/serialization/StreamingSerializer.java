@@ -0,0 +1,14 @@
+package com.universeprojects.json.shared.serialization;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A serializer that can also write the serialized form straight to a writer as JSON text, without building the
+ * JSONObject/JSONArray first. The text is the same as that of JSONValue.writeJSONString(serialize(element)).
+ */
+public interface StreamingSerializer extends Serializer {
+
+    void writeJSONString(Object element, Writer out) throws IOException;
+
+}